@@ -20,21 +20,31 @@ import android.content.Context;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.Base64;
-import android.util.Pair;
+import android.util.Base64InputStream;
+import android.util.Log;
 import android.util.SparseArray;
 import android.view.ViewGroup;
 import android.webkit.ConsoleMessage;
+import android.webkit.JavascriptInterface;
 import android.webkit.WebChromeClient;
 import android.webkit.WebSettings;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
 import android.widget.FrameLayout;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.Locale;
 import java.util.Random;
 import java.util.regex.Pattern;
@@ -58,10 +68,19 @@ public class AceEditorView extends FrameLayout {
         void onWarnMessage(@StringRes int msg);
     }
 
-    private final static int MAX_EXCHANGE_SIZE = 25000;
+    private static final String TAG = "AceEditorView";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // Javascript interfaces expose all the public methods of the object before API 17,
+    // so older webviews exchange the content in Base64 chunks
+    private static final boolean USE_BRIDGE =
+            Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1;
+    private static final int MAX_EXCHANGE_SIZE = 25000;
 
     private AceWebView mWebView;
     private final Random mRandom = new Random();
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
 
     private final Pattern mPattern = Pattern.compile("edt:(\\d)+:[pfm]:");
 
@@ -76,12 +95,82 @@ public class AceEditorView extends FrameLayout {
     private boolean mIgnoreNextUnsavedEvent;
     private String mPendingFileName;
     private byte[] mPendingContent;
-    private String mResolveMimetType = null;
+    private boolean mPendingEncoded;
+    private File mPendingFile;
 
     private OnContentChangedListener mContentChangedListener;
     private OnMessageListener mMessageListener;
 
-    private SparseArray<Pair<StringBuilder, OnReadContentReadyListener>> mMap = new SparseArray<>();
+    // Content is exchanged with the editor through a javascript interface, which is
+    // called from a background thread
+    private final SparseArray<PendingContent> mContents = new SparseArray<>();
+    private final SparseArray<OnReadContentReadyListener> mReadListeners = new SparseArray<>();
+    private final SparseArray<StringBuilder> mReadChunks = new SparseArray<>();
+    private String mResolvedMimeType;
+
+    private static class PendingContent {
+        private final byte[] mContent;
+        private final boolean mEncoded;
+        private final InputStream mEncodedStream;
+
+        private PendingContent(byte[] content, boolean encoded) {
+            mContent = content;
+            mEncoded = encoded;
+            mEncodedStream = null;
+        }
+
+        private PendingContent(InputStream encoded) {
+            mContent = null;
+            mEncoded = true;
+            mEncodedStream = encoded;
+        }
+    }
+
+    private final class EditorBridge {
+        @JavascriptInterface
+        public String readContent(int key) {
+            final PendingContent content;
+            synchronized (mContents) {
+                content = mContents.get(key);
+                mContents.remove(key);
+            }
+            if (content == null) {
+                return "";
+            }
+            if (content.mEncodedStream != null) {
+                return decode(content.mEncodedStream);
+            }
+            if (content.mContent.length == 0) {
+                return "";
+            }
+            byte[] data = content.mEncoded
+                    ? Base64.decode(content.mContent, Base64.NO_WRAP) : content.mContent;
+            return new String(data, UTF8);
+        }
+
+        // Returns null if the content can't be read
+        private String decode(InputStream encoded) {
+            try {
+                return new String(readFully(
+                        new Base64InputStream(encoded, Base64.NO_WRAP)), UTF8);
+            } catch (IOException ex) {
+                Log.e(TAG, "Failed to read the content", ex);
+                return null;
+            }
+        }
+
+        @JavascriptInterface
+        public void onContentRead(int key, String content, String mimeType) {
+            final byte[] data = content == null ? new byte[0] : content.getBytes(UTF8);
+            mHandler.post(() -> {
+                OnReadContentReadyListener cb = mReadListeners.get(key);
+                if (cb != null) {
+                    mReadListeners.remove(key);
+                    cb.onReadContentReady(data, mimeType);
+                }
+            });
+        }
+    }
 
     public AceEditorView(Context context) {
         this(context, null);
@@ -113,7 +202,7 @@ public class AceEditorView extends FrameLayout {
         addView(mWebView);
     }
 
-    @SuppressLint("SetJavaScriptEnabled")
+    @SuppressLint({"SetJavaScriptEnabled", "AddJavascriptInterface"})
     private AceWebView createWebView() {
         AceWebView webview = new AceWebView(getContext());
         webview.setLayoutParams(new LayoutParams(
@@ -128,11 +217,14 @@ public class AceEditorView extends FrameLayout {
                 setTextSize(mTextSize);
                 setNotifyMimeTypeChanges(mNotifyMimeTypeChanges);
 
-                if (mPendingContent != null) {
-                    loadEncodedContent(mPendingFileName, mPendingContent);
-                    mPendingFileName = null;
-                    mPendingContent = null;
+                if (mPendingFile != null) {
+                    loadEncodedContent(mPendingFileName, mPendingFile);
+                } else if (mPendingContent != null) {
+                    loadContent(mPendingFileName, mPendingContent, mPendingEncoded);
                 }
+                mPendingFileName = null;
+                mPendingContent = null;
+                mPendingFile = null;
             }
         });
         webview.setWebChromeClient(new WebChromeClient() {
@@ -146,6 +238,12 @@ public class AceEditorView extends FrameLayout {
                     }
                     return true;
                 }
+                if (msg.equals("edt:err")) {
+                    if (mMessageListener != null) {
+                        mMessageListener.onErrorMessage(R.string.ace_editor_load_failed);
+                    }
+                    return true;
+                }
                 if (msg.equals("edt:big")) {
                     if (mMessageListener != null) {
                         mMessageListener.onWarnMessage(R.string.ace_editor_file_to_big);
@@ -176,44 +274,7 @@ public class AceEditorView extends FrameLayout {
                 }
 
                 if (mPattern.matcher(msg).find()) {
-                    String[] v = msg.split(":");
-                    int key = Integer.parseInt(v[1]);
-                    final Pair<StringBuilder, OnReadContentReadyListener> o = mMap.get(key);
-                    if (o == null) {
-                        super.onConsoleMessage(consoleMessage);
-                        return false;
-                    }
-
-                    // Read the message
-                    switch (v[2]) {
-                        case "p":
-                            // partial
-                            o.first.append(v[3]);
-                            break;
-                        case "m":
-                            mResolveMimetType = v[3];
-                            break;
-                        case "f":
-                            // finish
-                            byte[] content;
-                            if (o.first.length() == 0) {
-                                content = new byte[0];
-                            } else {
-                                content = o.first.toString().getBytes();
-                            }
-
-                            int crc = Integer.parseInt(v[3]);
-                            int computedCrc = crc(content);
-                            if (crc != -1 && crc != computedCrc) {
-                                if (mMessageListener != null) {
-                                    mMessageListener.onErrorMessage(R.string.ace_editor_save_bad_crc);
-                                }
-                                return true;
-                            }
-                            o.second.onReadContentReady(content, mResolveMimetType);
-                            mMap.remove(key);
-                            break;
-                    }
+                    onContentChunk(msg);
                     return true;
                 }
 
@@ -225,6 +286,9 @@ public class AceEditorView extends FrameLayout {
         webSettings.setJavaScriptEnabled(true);
         webSettings.setLoadWithOverviewMode(true);
         webSettings.setUseWideViewPort(true);
+        if (USE_BRIDGE) {
+            webview.addJavascriptInterface(new EditorBridge(), "edtBridge");
+        }
         String url = String.format(Locale.US,
                 "file:///android_asset/editor/editor.html?cache=%d&enable-selection-handles=%s",
                 System.currentTimeMillis(),
@@ -297,44 +361,133 @@ public class AceEditorView extends FrameLayout {
     }
 
     public void loadContent(String fileName, byte[] content) {
-        loadEncodedContent(fileName, Base64.encode(content, Base64.NO_WRAP));
+        loadContent(fileName, content, false);
     }
 
     public void loadEncodedContent(String fileName, byte[] encoded) {
+        loadContent(fileName, encoded, true);
+    }
+
+    /**
+     * Loads the Base64 encoded content of a file. The file is read and decoded in background.
+     */
+    public void loadEncodedContent(String fileName, File encoded) {
         // Enqueue the request
         if (!mReady) {
             mPendingFileName = fileName;
-            mPendingContent = encoded;
+            mPendingFile = encoded;
+            mPendingContent = null;
+            return;
+        }
+        if (!USE_BRIDGE) {
+            // Older webviews can only receive the content from memory
+            try {
+                loadContent(fileName, readFully(new FileInputStream(encoded)), true);
+            } catch (IOException ex) {
+                Log.e(TAG, "Failed to read " + encoded, ex);
+                if (mMessageListener != null) {
+                    mMessageListener.onErrorMessage(R.string.ace_editor_load_failed);
+                }
+            }
             return;
         }
 
+        // Open the file now, so it can be read even if it's deleted meanwhile
+        InputStream is;
+        try {
+            is = new FileInputStream(encoded);
+        } catch (IOException ex) {
+            Log.e(TAG, "Failed to open " + encoded, ex);
+            if (mMessageListener != null) {
+                mMessageListener.onErrorMessage(R.string.ace_editor_load_failed);
+            }
+            return;
+        }
+        onLoadContent();
+        loadBridgeContent(fileName, new PendingContent(is));
+    }
+
+    private void loadContent(String fileName, byte[] content, boolean encoded) {
+        // Enqueue the request
+        if (!mReady) {
+            mPendingFileName = fileName;
+            mPendingContent = content;
+            mPendingEncoded = encoded;
+            mPendingFile = null;
+            return;
+        }
+
+        onLoadContent();
+        if (USE_BRIDGE) {
+            loadBridgeContent(fileName, new PendingContent(content, encoded));
+            return;
+        }
+
+        final String name = escapeJavascript(fileName);
+
+        if (!encoded) {
+            content = Base64.encode(content, Base64.NO_WRAP);
+        }
         int crc = 0;
-        if (encoded.length > 0) {
+        if (content.length > 0) {
             int s = 0;
             do {
-                int e = Math.min(encoded.length - s, MAX_EXCHANGE_SIZE);
-                String msg = new String(encoded, s, e);
+                int e = Math.min(content.length - s, MAX_EXCHANGE_SIZE);
+                String msg = new String(content, s, e);
                 mWebView.loadUrl("javascript: addPartialContent('" + msg + "');");
                 s += e;
-            } while (s < encoded.length);
-            crc = crc(encoded);
+            } while (s < content.length);
+            crc = crc(content);
         }
+        mWebView.loadUrl("javascript: loadPartialContent('" + name + "','" + crc + "');");
+    }
+
+    private void onLoadContent() {
         mIgnoreNextUnsavedEvent = true;
         if (!mInitialLoad) {
             mIsDirty = false;
         }
         mInitialLoad = false;
-        mWebView.loadUrl("javascript: loadContent('" + fileName + "','" + crc + "');");
+    }
+
+    private void loadBridgeContent(String fileName, PendingContent content) {
+        // The editor pulls the content from the bridge, already decoded
+        final String name = escapeJavascript(fileName);
+        int key = mRandom.nextInt(Short.MAX_VALUE);
+        synchronized (mContents) {
+            mContents.put(key, content);
+        }
+        mWebView.loadUrl("javascript: loadContent('" + name + "'," + key + ");");
+    }
+
+    private static byte[] readFully(InputStream is) throws IOException {
+        try {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                os.write(buffer, 0, read);
+            }
+            return os.toByteArray();
+        } finally {
+            is.close();
+        }
     }
 
     public void readContent(OnReadContentReadyListener cb) {
         readContent(cb, false);
     }
 
+    /**
+     * Reads the (not encoded) content of the editor. The listener is called in the main thread.
+     */
     public void readContent(OnReadContentReadyListener cb, boolean resolveMimeType) {
         if (mIsDirty) {
             int key = mRandom.nextInt(Short.MAX_VALUE);
-            mMap.put(key, new Pair<>(new StringBuilder(), cb));
+            mReadListeners.put(key, cb);
+            if (!USE_BRIDGE) {
+                mReadChunks.put(key, new StringBuilder());
+            }
             mWebView.loadUrl("javascript: readContent(" + resolveMimeType + "," + key + ");");
         } else {
             cb.onContentUnchanged();
@@ -368,12 +521,69 @@ public class AceEditorView extends FrameLayout {
         mIsDirty = savedState.mIsDirty;
     }
 
+    private void onContentChunk(String msg) {
+        String[] v = msg.split(":");
+        int key = Integer.parseInt(v[1]);
+        final StringBuilder chunks = mReadChunks.get(key);
+        final OnReadContentReadyListener cb = mReadListeners.get(key);
+        if (chunks == null || cb == null) {
+            return;
+        }
+
+        switch (v[2]) {
+            case "p":
+                // partial
+                chunks.append(v[3]);
+                break;
+            case "m":
+                mResolvedMimeType = v[3];
+                break;
+            case "f":
+                // finish
+                mReadChunks.remove(key);
+                mReadListeners.remove(key);
+                final String mimeType = mResolvedMimeType;
+                mResolvedMimeType = null;
+                byte[] encoded = chunks.toString().getBytes();
+                int crc = Integer.parseInt(v[3]);
+                if (crc != -1 && crc != crc(encoded)) {
+                    if (mMessageListener != null) {
+                        mMessageListener.onErrorMessage(R.string.ace_editor_save_bad_crc);
+                    }
+                    return;
+                }
+                byte[] content = encoded.length == 0
+                        ? encoded : Base64.decode(encoded, Base64.NO_WRAP);
+                cb.onReadContentReady(content, mimeType);
+                break;
+        }
+    }
+
     private static int crc(byte[] data) {
         CRC32 crc = new CRC32();
         crc.update(data);
         return (int) crc.getValue();
     }
 
+    // Escapes a value to be used inside a single quoted javascript string of a
+    // javascript url. Unicode escapes survive the url decoding of the webview
+    private static String escapeJavascript(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '.' || c == '_' || c == '-' || c == '/') {
+                sb.append(c);
+            } else {
+                sb.append(String.format(Locale.US, "\\u%04x", (int) c));
+            }
+        }
+        return sb.toString();
+    }
+
     public static String resolveExtensionFromMimeType(String mimeType) {
         if (mimeType != null) {
             switch (mimeType) {
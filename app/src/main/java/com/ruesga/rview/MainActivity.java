@@ -69,6 +69,7 @@ import com.ruesga.rview.model.CustomFilter;
 import com.ruesga.rview.preferences.Constants;
 import com.ruesga.rview.preferences.Preferences;
 import com.ruesga.rview.providers.NotificationEntity;
+import com.ruesga.rview.providers.StatsEntity;
 import com.ruesga.rview.services.AccountStatusFetcherService;
 import com.ruesga.rview.wizards.AuthorizationAccountSetupActivity;
 import com.ruesga.rview.wizards.SetupAccountActivity;
@@ -851,6 +852,7 @@ public class MainActivity extends ChangeListBaseActivity implements Reloadable {
         Preferences.removeAccountPreferences(this, acct);
         CacheHelper.removeAccountCacheDir(this, acct);
         NotificationEntity.deleteAccountNotifications(this, acct.getAccountHash());
+        StatsEntity.deleteAccountStats(this, acct.getAccountHash());
         NotificationsHelper.deleteNotificationChannel(this, acct);
 
         // Unregister the url handling for this repository if no other account for the
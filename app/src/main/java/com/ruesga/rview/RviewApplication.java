@@ -26,6 +26,7 @@ import com.crashlytics.android.core.CrashlyticsCore;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.ruesga.rview.attachments.AttachmentsProviderFactory;
+import com.ruesga.rview.attachments.misc.OkHttpHelper;
 import com.ruesga.rview.misc.AnalyticsHelper;
 import com.ruesga.rview.misc.Formatter;
 import com.ruesga.rview.misc.ModelHelper;
@@ -95,6 +96,7 @@ public class RviewApplication extends Application {
 
         // Initialize application resources
         Formatter.refreshCachedPreferences(getApplicationContext());
+        OkHttpHelper.setSharedClient(com.ruesga.rview.gerrit.OkHttpHelper.getSharedClient());
         AttachmentsProviderFactory.initialize(getApplicationContext());
 
         // Recreate notifications
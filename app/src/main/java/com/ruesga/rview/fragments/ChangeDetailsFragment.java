@@ -38,6 +38,7 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
+import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import com.ruesga.rview.BaseActivity;
 import com.ruesga.rview.R;
@@ -109,6 +110,7 @@ import com.ruesga.rview.misc.CacheHelper;
 import com.ruesga.rview.misc.ContinuousIntegrationHelper;
 import com.ruesga.rview.misc.ExceptionHelper;
 import com.ruesga.rview.misc.FileHelper;
+import com.ruesga.rview.misc.Formatter;
 import com.ruesga.rview.misc.ModelHelper;
 import com.ruesga.rview.misc.RviewImageHelper;
 import com.ruesga.rview.misc.SerializationManager;
@@ -142,6 +144,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import androidx.annotation.Keep;
@@ -210,6 +213,9 @@ public class ChangeDetailsFragment extends Fragment implements
     private static final Pattern COMMENTS_PATTERN
             = Pattern.compile("(^|\\s)(\\(\\d+ (inline )?comment(s)?\\))$", Pattern.MULTILINE);
 
+    // Max number of concurrent requests while fetching the change details
+    private static final int MAX_CONCURRENT_REQUESTS = 4;
+
     private static final int DIFF_REQUEST_CODE = 99;
     private static final int EDIT_REQUEST_CODE = 98;
 
@@ -855,6 +861,26 @@ public class ChangeDetailsFragment extends Fragment implements
         Map<String, LinkedHashMap<String, List<CommentInfo>>> mMessagesWithComments = new HashMap<>();
         Map<Integer, UnresolvedComment> mUnresolvedComments = new HashMap<>();
         List<ContinuousIntegrationInfo> mCI;
+        // The messages matched with the comments. They are swapped into the change in the
+        // main thread, because the change could still be bound by the partial response
+        ChangeMessageInfo[] mMessages;
+        // The response only has the change. The rest of the data is still being fetched
+        boolean mPartial;
+    }
+
+    // Holds the results of the concurrent requests of the fetch plan
+    private static class PartialResponse {
+        volatile ConfigInfo mProjectConfig;
+        volatile Map<String, ActionInfo> mActions;
+        volatile Map<String, FileInfo> mFiles;
+        volatile SubmitType mSubmitType;
+        volatile Map<String, List<CommentInfo>> mRevisionComments;
+        volatile Map<String, List<CommentInfo>> mBaseRevisionComments;
+        volatile Map<String, List<CommentInfo>> mRevisionDrafts;
+        volatile Map<String, List<CommentInfo>> mBaseRevisionDrafts;
+        volatile List<ContinuousIntegrationInfo> mCI;
+        // The messages matched with the comments, once they are matched
+        volatile DataResponse mComments;
     }
 
     private final RxLoaderObserver<DataResponse> mChangeObserver =
@@ -862,8 +888,13 @@ public class ChangeDetailsFragment extends Fragment implements
         @Override
         public void onNext(DataResponse result) {
             mResponse = result;
+            if (result != null && result.mMessages != null) {
+                result.mChange.messages = result.mMessages;
+                result.mMessages = null;
+            }
 
-            mModel.isLocked = false;
+            // Keep the ui locked until we have the full response
+            mModel.isLocked = result != null && result.mPartial;
             updateLocked();
 
             updateAuthenticatedAndOwnerStatus();
@@ -917,15 +948,23 @@ public class ChangeDetailsFragment extends Fragment implements
                             ? R.string.change_details_action_show_ci_messages
                             : R.string.change_details_action_hide_ci_messages));
                 }
-                mMessageAdapter.update(mModel.msgListModel, change,
-                        result.mMessagesWithComments, change.reviewerUpdates);
+                if (!result.mPartial) {
+                    // Messages are matched with their comments in background, so wait
+                    // for the full response
+                    mMessageAdapter.update(mModel.msgListModel, change,
+                            result.mMessagesWithComments, change.reviewerUpdates);
+                }
             }
 
-            // Invalidate the diff cache. we have new data
-            CacheHelper.removeAccountDiffCacheDir(getContext());
-
             mBinding.setModel(mModel);
             mBinding.setHandlers(mEventHandlers);
+            if (result != null && result.mPartial) {
+                // Wait for the rest of the data
+                return;
+            }
+
+            // Invalidate the diff cache. we have new data
+            CacheHelper.removeAccountDiffCacheDir(getContext());
             showProgress(false, change);
         }
 
@@ -2001,102 +2040,165 @@ public class ChangeDetailsFragment extends Fragment implements
     private Observable<DataResponse> fetchChange(String changeId) {
         final Context ctx = getActivity();
         final GerritApi api = ModelHelper.getGerritApi(ctx);
-        return SafeObservable.fromNullCallable(() -> {
-                DataResponse dataResponse = new DataResponse();
-                dataResponse.mChange = api.getChange(
-                        changeId, OPTIONS).blockingFirst();
-
-                // Obtain the project configuration
-                if (dataResponse.mChange != null) {
-                    // Request project config
-                    dataResponse.mProjectConfig = api.getProjectConfig(
-                            dataResponse.mChange.project).blockingFirst();
-
-                    final String revId = !TextUtils.isEmpty(mCurrentRevision) ? mCurrentRevision
-                            : ModelHelper.extractBestRevisionId(dataResponse.mChange);
-
+        final String diffAgainstRevision = mDiffAgainstRevision;
+        final boolean authenticated = mAccount.hasAuthenticatedAccessMode();
+        // Api results are shared with other callers, but the change is modified later
+        return SafeObservable.fromNullCallable(() ->
+                    copyChange(api.getChange(changeId, OPTIONS).blockingFirst()))
+            .flatMap(change -> {
+                final String revId = !TextUtils.isEmpty(mCurrentRevision) ? mCurrentRevision
+                        : ModelHelper.extractBestRevisionId(change);
+                final PartialResponse partial = new PartialResponse();
+
+                // All the requests below only depend on the change, so issue them
+                // concurrently (bounded) instead of paying the sum of all the round-trips
+                List<Observable<Boolean>> requests = new ArrayList<>();
+                requests.add(fetchInParallel(() -> partial.mProjectConfig =
+                        api.getProjectConfig(change.project).blockingFirst()));
+                requests.add(fetchInParallel(() -> {
                     // Only request actions when we don't know which actions
                     // the change could have for the user. In other case, we
                     // have some logic to deal with basic actions.
                     // Request actions could be a heavy operation in old and complex
                     // changes, so just try to omit it.
-                    ChangeStatus status = dataResponse.mChange.status;
-                    if (mAccount.hasAuthenticatedAccessMode()
+                    ChangeStatus status = change.status;
+                    if (authenticated
                             && !ChangeStatus.MERGED.equals(status)
                             && !ChangeStatus.ABANDONED.equals(status)) {
-                        dataResponse.mActions = api.getChangeRevisionActions(
-                                changeId, revId).blockingFirst();
+                        partial.mActions = new HashMap<>(api.getChangeRevisionActions(
+                                changeId, revId).blockingFirst());
                     } else {
                         // At least a cherry-pick action should be present if user
                         // is authenticated
-                        dataResponse.mActions = new HashMap<>();
-                        if (mAccount.hasAuthenticatedAccessMode()) {
-                            dataResponse.mActions.put(
+                        partial.mActions = new HashMap<>();
+                        if (authenticated) {
+                            partial.mActions.put(
                                     ModelHelper.ACTION_CHERRY_PICK, new ActionInfo());
                         }
                     }
+                }));
+                requests.add(fetchInParallel(() -> partial.mFiles = api.getChangeRevisionFiles(
+                        changeId, revId, diffAgainstRevision, null).blockingFirst()));
+                requests.add(fetchInParallel(() -> partial.mSubmitType =
+                        api.getChangeRevisionSubmitType(changeId, revId).blockingFirst()));
+                requests.add(fetchInParallel(() -> partial.mRevisionComments =
+                        api.getChangeRevisionComments(changeId, revId).blockingFirst()));
+                if (diffAgainstRevision != null) {
+                    requests.add(fetchInParallel(() -> partial.mBaseRevisionComments =
+                            api.getChangeRevisionComments(
+                                    changeId, diffAgainstRevision).blockingFirst()));
                 }
-
-                return dataResponse;
-            })
-            .flatMap(dataResponse -> {
-                    final String revId = !TextUtils.isEmpty(mCurrentRevision) ? mCurrentRevision
-                            : ModelHelper.extractBestRevisionId(dataResponse.mChange);
-                    return Observable.zip(
-                        SafeObservable.fromNullCallable(() -> dataResponse),
-                        api.getChangeRevisionFiles(
-                                changeId, revId, mDiffAgainstRevision, null),
-                        api.getChangeRevisionSubmitType(changeId, revId),
-                        api.getChangeRevisionComments(changeId, revId),
-                        SafeObservable.fromNullCallable(() -> {
-                            if (mDiffAgainstRevision != null) {
-                                return api.getChangeRevisionComments(
-                                        changeId, mDiffAgainstRevision).blockingFirst();
-                            }
-                            return new HashMap<>();
-                        }),
-                        SafeObservable.fromNullCallable(() -> {
-                            // Do no fetch drafts if the account is not authenticated
-                            if (mAccount.hasAuthenticatedAccessMode()) {
-                                return api.getChangeRevisionDrafts(
-                                        changeId, revId).blockingFirst();
-                            }
-                            return new HashMap<>();
-                        }),
-                        SafeObservable.fromNullCallable(() -> {
-                            // Do no fetch drafts if the account is not authenticated
-                            if (mDiffAgainstRevision != null &&
-                                    mAccount.hasAuthenticatedAccessMode()) {
-                                return api.getChangeRevisionDrafts(
-                                        changeId, mDiffAgainstRevision).blockingFirst();
-                            }
-                            return new HashMap<>();
-                        }),
-                        SafeObservable.fromNullCallable(() -> {
-                            // Fetch external CI servers to obtain job statuses
-                            Repository repository =
-                                    ModelHelper.findRepositoryForAccount(ctx, mAccount);
-                            if (!Preferences.isAccountShowCIStatuses(ctx, mAccount)
-                                    || repository == null
-                                    || TextUtils.isEmpty(repository.mCiAccounts)) {
-                                return new ArrayList<>();
-                            }
-
-                            if (!dataResponse.mChange.revisions.containsKey(revId)) {
-                                return new ArrayList<>();
-                            }
-                            int revNumber = dataResponse.mChange.revisions.get(revId).number;
-                            return ContinuousIntegrationHelper.getContinuousIntegrationStatus(
-                                    repository, changeId, revNumber);
-                        }),
-                        this::combineResponse
-                    );
+                // Do no fetch drafts if the account is not authenticated
+                if (authenticated) {
+                    requests.add(fetchInParallel(() -> partial.mRevisionDrafts =
+                            api.getChangeRevisionDrafts(changeId, revId).blockingFirst()));
+                    if (diffAgainstRevision != null) {
+                        requests.add(fetchInParallel(() -> partial.mBaseRevisionDrafts =
+                                api.getChangeRevisionDrafts(
+                                        changeId, diffAgainstRevision).blockingFirst()));
+                    }
+                }
+                requests.add(fetchInParallel(() -> partial.mCI =
+                        fetchContinuousIntegrationStatuses(ctx, change, changeId, revId)));
+                // Comments are matched against copies of the messages, so the messages
+                // bound by the partial responses aren't modified meanwhile
+                final DataResponse commentsResponse = new DataResponse();
+                commentsResponse.mChange = new ChangeInfo();
+                commentsResponse.mChange.legacyChangeId = change.legacyChangeId;
+                if (change.messages != null) {
+                    int count = change.messages.length;
+                    commentsResponse.mChange.messages = new ChangeMessageInfo[count];
+                    for (int i = 0; i < count; i++) {
+                        commentsResponse.mChange.messages[i] =
+                                ModelHelper.copyChangeMessage(change.messages[i]);
+                    }
                 }
-            )
+                requests.add(fetchInParallel(() -> {
+                    fetchNeededRevisionComments(commentsResponse);
+                    partial.mComments = commentsResponse;
+                }));
+
+                // Render the messages while waiting, so binding them is cheap
+                requests.add(fetchInParallel(() ->
+                        Formatter.prerenderMessages(ctx, change.messages)));
+
+                // Stream the change as soon as we have it, and then an updated response
+                // every time a request finishes. The last one is the full response
+                final AtomicInteger pending = new AtomicInteger(requests.size());
+                return Observable.concat(
+                        Observable.just(createPartialResponse(change)),
+                        Observable.merge(requests, MAX_CONCURRENT_REQUESTS)
+                                .map(done -> createSnapshotResponse(
+                                        change, partial, pending.decrementAndGet() > 0)));
+            })
             .subscribeOn(Schedulers.io())
             .observeOn(AndroidSchedulers.mainThread());
     }
 
+    private DataResponse createSnapshotResponse(
+            ChangeInfo change, PartialResponse partial, boolean isPartial) {
+        DataResponse response = new DataResponse();
+        response.mChange = change;
+        response.mPartial = isPartial;
+        response.mProjectConfig = partial.mProjectConfig;
+        // Every response owns its actions, because they are joined with the change ones
+        response.mActions = partial.mActions != null
+                ? new HashMap<>(partial.mActions) : new HashMap<>();
+        DataResponse comments = partial.mComments;
+        if (comments != null) {
+            response.mMessages = comments.mChange.messages;
+            response.mMessagesWithComments = comments.mMessagesWithComments;
+            response.mUnresolvedComments = comments.mUnresolvedComments;
+        }
+        return combineResponse(response, partial.mFiles, partial.mSubmitType,
+                partial.mRevisionComments, partial.mBaseRevisionComments,
+                partial.mRevisionDrafts, partial.mBaseRevisionDrafts, partial.mCI);
+    }
+
+    private ChangeInfo copyChange(ChangeInfo change) {
+        Gson gson = SerializationManager.getInstance();
+        return gson.fromJson(gson.toJsonTree(change), ChangeInfo.class);
+    }
+
+    private Observable<Boolean> fetchInParallel(Runnable request) {
+        return Observable.fromCallable(() -> {
+                    request.run();
+                    return Boolean.TRUE;
+                })
+                .subscribeOn(Schedulers.io());
+    }
+
+    private DataResponse createPartialResponse(ChangeInfo change) {
+        DataResponse response = new DataResponse();
+        response.mChange = change;
+        response.mPartial = true;
+        response.mActions = new HashMap<>();
+        if (change.actions != null) {
+            response.mActions.putAll(change.actions);
+        }
+        response.mInlineComments = new HashMap<>();
+        response.mDraftComments = new HashMap<>();
+        return response;
+    }
+
+    private List<ContinuousIntegrationInfo> fetchContinuousIntegrationStatuses(
+            Context ctx, ChangeInfo change, String changeId, String revId) {
+        // Fetch external CI servers to obtain job statuses
+        Repository repository = ModelHelper.findRepositoryForAccount(ctx, mAccount);
+        if (!Preferences.isAccountShowCIStatuses(ctx, mAccount)
+                || repository == null
+                || TextUtils.isEmpty(repository.mCiAccounts)) {
+            return new ArrayList<>();
+        }
+
+        if (!change.revisions.containsKey(revId)) {
+            return new ArrayList<>();
+        }
+        int revNumber = change.revisions.get(revId).number;
+        return ContinuousIntegrationHelper.getContinuousIntegrationStatus(
+                repository, changeId, revNumber);
+    }
+
     @SuppressWarnings("ConstantConditions")
     private Observable<Boolean> starChange(final Boolean starred) {
         final Context ctx = getActivity();
@@ -2280,9 +2382,12 @@ public class ChangeDetailsFragment extends Fragment implements
     private Observable<ChangeInfo> fetchMessages() {
         final Context ctx = getActivity();
         final GerritApi api = ModelHelper.getGerritApi(ctx);
-        return SafeObservable.fromNullCallable(() ->
-                    api.getChange(
-                        String.valueOf(mLegacyChangeId), MESSAGES_OPTIONS).blockingFirst())
+        return SafeObservable.fromNullCallable(() -> {
+                    ChangeInfo change = copyChange(api.getChange(
+                            String.valueOf(mLegacyChangeId), MESSAGES_OPTIONS).blockingFirst());
+                    Formatter.prerenderMessages(ctx, change.messages);
+                    return change;
+                })
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread());
     }
@@ -2294,9 +2399,9 @@ public class ChangeDetailsFragment extends Fragment implements
         return SafeObservable.fromNullCallable(() -> {
                     // Do no fetch drafts if the account is not authenticated
                     if (mAccount.hasAuthenticatedAccessMode()) {
-                        Map<String, List<CommentInfo>> drafts =
+                        Map<String, List<CommentInfo>> drafts = ModelHelper.copyComments(
                                 api.getChangeRevisionDrafts(String.valueOf(mLegacyChangeId),
-                                        mCurrentRevision).blockingFirst();
+                                        mCurrentRevision).blockingFirst());
                         int number = mResponse.mChange.revisions.get(mCurrentRevision).number;
                         for (List<CommentInfo> comments : drafts.values()) {
                             for (CommentInfo c : comments) {
@@ -2447,9 +2552,6 @@ public class ChangeDetailsFragment extends Fragment implements
             }
         }
 
-        // Fetch revision comments
-        fetchNeededRevisionComments(response);
-
         // Join the actions
         response.mFiles = files;
         if (response.mActions == null) {
@@ -2466,7 +2568,7 @@ public class ChangeDetailsFragment extends Fragment implements
             response.mCI = null;
         } else {
             response.mCI = ci;
-            if (getActivity() != null && ci.isEmpty()) {
+            if (getActivity() != null && ci != null && ci.isEmpty()) {
                 final String revisionId = !TextUtils.isEmpty(mCurrentRevision) ? mCurrentRevision
                         : ModelHelper.extractBestRevisionId(response.mChange);
                 if (response.mChange.revisions.containsKey(revisionId)) {
@@ -3386,23 +3488,23 @@ public class ChangeDetailsFragment extends Fragment implements
             response.mUnresolvedComments.clear();
             for (int rev : revisionsWithComments) {
                 try {
-                    updateRevisionComments(response,
+                    updateRevisionComments(response, ModelHelper.copyComments(
                             api.getChangeRevisionComments(
                                     String.valueOf(response.mChange.legacyChangeId),
-                                    String.valueOf(rev)).blockingFirst(), false);
+                                    String.valueOf(rev)).blockingFirst()), false);
                 } catch (Exception ex) {
                     Log.e(TAG, "Can't match comments for messages.", ex);
                 }
             }
         } else {
             // Perform a single fetch of comments and drafts
-            updateRevisionComments(response,
+            updateRevisionComments(response, ModelHelper.copyComments(
                     api.getChangeComments(
-                        String.valueOf(response.mChange.legacyChangeId)).blockingFirst(), false);
+                        String.valueOf(response.mChange.legacyChangeId)).blockingFirst()), false);
             if (mAccount.hasAuthenticatedAccessMode()) {
-                updateRevisionComments(response,
-                        api.getChangeDraftComments(
-                            String.valueOf(response.mChange.legacyChangeId)).blockingFirst(), true);
+                updateRevisionComments(response, ModelHelper.copyComments(
+                        api.getChangeDraftComments(String.valueOf(
+                                response.mChange.legacyChangeId)).blockingFirst()), true);
             }
         }
     }
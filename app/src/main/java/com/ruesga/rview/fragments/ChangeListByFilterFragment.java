@@ -51,9 +51,9 @@ import me.tatarka.rxloader2.safe.SafeObservable;
 public class ChangeListByFilterFragment extends ChangeListFragment
         implements NewChangeDialogFragment.OnNewChangeRequestedListener {
 
-    private static final Pattern LIMIT_FILTER_PATTERN = Pattern.compile(".*( limit:(\\d+))");
+    static final Pattern LIMIT_FILTER_PATTERN = Pattern.compile(".*( limit:(\\d+))");
 
-    private static final List<ChangeOptions> OPTIONS = new ArrayList<ChangeOptions>() {{
+    static final List<ChangeOptions> OPTIONS = new ArrayList<ChangeOptions>() {{
         add(ChangeOptions.DETAILED_ACCOUNTS);
         add(ChangeOptions.LABELS);
         add(ChangeOptions.REVIEWED);
@@ -205,7 +205,13 @@ public class ChangeListByFilterFragment extends ChangeListFragment
             return changes;
         }
 
-        // Normal fetch
+        // Normal fetch (the first page of a dashboard section could be already fetched)
+        if (start <= 0) {
+            List<ChangeInfo> prefetched = DashboardLoader.take(ctx, getFilter(), limit);
+            if (prefetched != null) {
+                return prefetched;
+            }
+        }
         return api.getChanges(query, limit, Math.max(0, start), OPTIONS).blockingFirst();
     }
 
@@ -124,6 +124,9 @@ public class DashboardFragment extends PageableFragment {
         }
 
         onDashboardSelected(mDashboard);
+        if (savedInstanceState == null) {
+            prefetchSections();
+        }
         super.onActivityCreated(savedInstanceState);
     }
 
@@ -159,6 +162,7 @@ public class DashboardFragment extends PageableFragment {
     @SuppressWarnings("ConstantConditions")
     public void onDashboardChooserDialogDismissed(DashboardInfo dashboard) {
         mDashboard = dashboard;
+        prefetchSections();
         ((Reloadable) getActivity()).performReload();
         onDashboardSelected(mDashboard);
     }
@@ -168,6 +172,26 @@ public class DashboardFragment extends PageableFragment {
         fragment.show(getChildFragmentManager(), DashboardChooserDialogFragment.TAG);
     }
 
+    private void prefetchSections() {
+        final String[] filters;
+        final boolean[] reverse;
+        if (isDefaultDashboard()) {
+            filters = mDefaultDashboardFilters;
+            reverse = new boolean[filters.length];
+            for (int i = 0; i < filters.length; i++) {
+                reverse[i] = Boolean.parseBoolean(mDefaultDashboardReverse[i]);
+            }
+        } else {
+            int count = mDashboard.sections.length;
+            filters = new String[count];
+            reverse = new boolean[count];
+            for (int i = 0; i < count; i++) {
+                filters[i] = mDashboard.sections[i].query;
+            }
+        }
+        DashboardLoader.prefetch(getActivity(), filters, reverse);
+    }
+
     private boolean isDefaultDashboard() {
         return mDashboard == null || Constants.DASHBOARD_DEFAULT_ID.equals(mDashboard.id);
     }
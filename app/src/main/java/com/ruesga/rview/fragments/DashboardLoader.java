@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.fragments;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.ruesga.rview.gerrit.GerritApi;
+import com.ruesga.rview.gerrit.filter.ChangeQuery;
+import com.ruesga.rview.gerrit.model.ChangeInfo;
+import com.ruesga.rview.misc.ModelHelper;
+import com.ruesga.rview.model.Account;
+import com.ruesga.rview.preferences.Preferences;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import io.reactivex.Observable;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Fetches the first page of all the sections of a dashboard in a single request. Every
+ * section fragment takes its own result once, so further refreshes hit the server again.
+ */
+final class DashboardLoader {
+
+    private static final String TAG = "DashboardLoader";
+
+    // Results not taken by a section after this time are discarded
+    private static final long MAX_AGE = 30000L;
+
+    private static class Load {
+        private final Observable<List<List<ChangeInfo>>> mObservable;
+        private final int mCount;
+        private final long mCreatedAt;
+
+        private Load(Observable<List<List<ChangeInfo>>> observable, int count) {
+            mObservable = observable;
+            mCount = count;
+            mCreatedAt = System.currentTimeMillis();
+        }
+    }
+
+    private static class Section {
+        private final Load mLoad;
+        private final int mIndex;
+
+        private Section(Load load, int index) {
+            mLoad = load;
+            mIndex = index;
+        }
+    }
+
+    private static final Map<String, Section> sSections = new HashMap<>();
+
+    private DashboardLoader() {
+    }
+
+    /**
+     * Starts fetching the sections of a dashboard. Reversed sections and sections with
+     * a limit filter fetch its changes by themselves.
+     */
+    static void prefetch(Context context, String[] filters, boolean[] reverse) {
+        final Account account = Preferences.getAccount(context);
+        final GerritApi api = ModelHelper.getGerritApi(context);
+        if (account == null || api == null) {
+            return;
+        }
+
+        List<String> keys = new ArrayList<>(filters.length);
+        List<ChangeQuery> queries = new ArrayList<>(filters.length);
+        for (int i = 0; i < filters.length; i++) {
+            String filter = filters[i];
+            if (filter == null || reverse[i] || keys.contains(toKey(account, filter))
+                    || ChangeListByFilterFragment.LIMIT_FILTER_PATTERN.matcher(filter).find()) {
+                continue;
+            }
+            try {
+                queries.add(ChangeQuery.parse(filter));
+                keys.add(toKey(account, filter));
+            } catch (Exception ex) {
+                // Ignore. The section will report the error
+            }
+        }
+        if (queries.size() < 2) {
+            return;
+        }
+
+        final int count = Preferences.getAccountFetchedItems(context, account);
+        Observable<List<List<ChangeInfo>>> observable = api.getChanges(
+                queries, count, 0, ChangeListByFilterFragment.OPTIONS)
+                .subscribeOn(Schedulers.io())
+                .cache();
+        Load load = new Load(observable, count);
+        synchronized (sSections) {
+            purge();
+            for (int i = 0; i < keys.size(); i++) {
+                sSections.put(keys.get(i), new Section(load, i));
+            }
+        }
+        observable.subscribe(
+                results -> { },
+                cause -> Log.w(TAG, "Failed to prefetch dashboard sections", cause));
+    }
+
+    /**
+     * Returns the prefetched first page of a section, or null if it wasn't prefetched
+     * or its request failed.
+     */
+    static List<ChangeInfo> take(Context context, String filter, int count) {
+        final Account account = Preferences.getAccount(context);
+        if (account == null) {
+            return null;
+        }
+
+        Section section;
+        synchronized (sSections) {
+            purge();
+            section = sSections.remove(toKey(account, filter));
+        }
+        if (section == null || section.mLoad.mCount != count) {
+            return null;
+        }
+
+        try {
+            List<List<ChangeInfo>> results = section.mLoad.mObservable.blockingFirst();
+            return section.mIndex < results.size() ? results.get(section.mIndex) : null;
+        } catch (Exception ex) {
+            // Let the section fetch its changes by itself
+            return null;
+        }
+    }
+
+    private static void purge() {
+        final long now = System.currentTimeMillis();
+        Iterator<Section> it = sSections.values().iterator();
+        while (it.hasNext()) {
+            if (now - it.next().mLoad.mCreatedAt > MAX_AGE) {
+                it.remove();
+            }
+        }
+    }
+
+    private static String toKey(Account account, String filter) {
+        return account.getAccountHash() + "|" + filter;
+    }
+}
@@ -30,7 +30,6 @@ import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
 
-import com.google.gson.JsonParseException;
 import com.google.gson.annotations.SerializedName;
 import com.google.gson.reflect.TypeToken;
 import com.ruesga.rview.BaseActivity;
@@ -44,6 +43,7 @@ import com.ruesga.rview.databinding.EditFileChooserHeaderBinding;
 import com.ruesga.rview.databinding.EditorFragmentBinding;
 import com.ruesga.rview.drawer.DrawerNavigationView.OnDrawerNavigationItemSelectedListener;
 import com.ruesga.rview.fragments.EditFileChooserDialogFragment.MODE;
+import com.ruesga.rview.gerrit.ContentHelper;
 import com.ruesga.rview.gerrit.GerritApi;
 import com.ruesga.rview.gerrit.model.ChangeEditMessageInput;
 import com.ruesga.rview.gerrit.model.FileInfo;
@@ -298,32 +298,16 @@ public class EditorFragment extends Fragment
         }
     };
 
-    private final RxLoaderObserver<byte[]> mContentObserver = new RxLoaderObserver<byte[]>() {
+    private final RxLoaderObserver<File> mContentObserver = new RxLoaderObserver<File>() {
         @Override
-        public void onNext(byte[] content) {
-            byte[] data;
-            if (content == null || content.length == 0) {
-                data = new byte[]{};
-            } else {
-                data = content;
-            }
-
+        public void onNext(File content) {
             FileInfo info = mFileInfo.get(mFile);
             final boolean wasDeleted = info != null && info.status.equals(FileStatus.D);
 
-            if (!wasDeleted) {
-                try {
-                    CacheHelper.writeAccountDiffCacheFile(
-                            getContext(), getContentCachedFileName(mFile), data);
-                } catch (IOException ex) {
-                    Log.w(TAG, "Failed to store content for " + mFile);
-                }
-            }
-
-            // The response is base64 encoded
+            // The cached content is base64 encoded. The editor reads it in background
             mBinding.editor.setReadOnly(wasDeleted);
             mBinding.editor.scrollTo(0, 0);
-            mBinding.editor.loadEncodedContent(mFile, data);
+            mBinding.editor.loadEncodedContent(mFile, content);
             if (wasDeleted) {
                 mBinding.setAdvise(getString(R.string.change_edit_deleted_file));
             } else {
@@ -453,7 +437,7 @@ public class EditorFragment extends Fragment
     private boolean mReadOnly;
     private boolean mLocked;
 
-    private RxLoader<byte[]> mContentLoader;
+    private RxLoader<?> mContentLoader;
     private RxLoader<Boolean> mCancelLoader;
     private RxLoader<Boolean> mPublishLoader;
 
@@ -709,15 +693,14 @@ public class EditorFragment extends Fragment
     }
 
     @SuppressWarnings("ConstantConditions")
-    private Observable<byte[]> fetchContent() {
+    private Observable<File> fetchContent() {
         final GerritApi api = ModelHelper.getGerritApi(getContext());
         return SafeObservable.fromNullCallable(() ->
                     withCached(SafeObservable.fromNullCallable(() -> {
                             // Deleted files doesn't have content
                             FileInfo info = mFileInfo.get(mFile);
                             if (info.status.equals(FileStatus.D)) {
-                                createEmptyEdit(mFile);
-                                return "".getBytes();
+                                return createEmptyEdit(mFile);
                             }
 
                             String file = info.status.equals(FileStatus.R) &&
@@ -726,13 +709,12 @@ public class EditorFragment extends Fragment
                                 ResponseBody body = api.getChangeRevisionFileContent(
                                         String.valueOf(mLegacyChangeId),
                                         GerritApi.CURRENT_REVISION, file, null).blockingFirst();
-                                return body.bytes();
+                                return writeContentCache(mFile, body);
                             } catch (Exception ex) {
                                 // If is a new content edit, just initialize the edit
                                 if (ExceptionHelper.isResourceNotFoundException(ex)
                                         && mFileInfo.get(mFile).status.equals(FileStatus.A)) {
-                                    createEmptyEdit(mFile);
-                                    return "".getBytes();
+                                    return createEmptyEdit(mFile);
                                 }
                                 throw ex;
                             }
@@ -852,27 +834,45 @@ public class EditorFragment extends Fragment
 
     private void readFileContent(final OnSavedContentReady cb) {
         final String file = mFile;
+        final Activity activity = getActivity();
         mBinding.editor.readContent(
             new AceEditorView.OnReadContentReadyListener() {
                 @Override
+                @SuppressLint("CheckResult")
                 public void onReadContentReady(byte[] content, String mimeType) {
-                    if (content.length > 0) {
-                        String name = getEditCachedFileName(file);
-                        if (DEBUG) {
-                            Log.i(TAG, new String(Base64.decode(content, Base64.NO_WRAP)));
-                        }
-                        try {
-                            CacheHelper.writeAccountDiffCacheFile(getActivity(), name, content);
-                            mContentFile = new File(CacheHelper.getAccountDiffCacheDir(
-                                    getActivity(), mAccount), name).getAbsolutePath();
-                        } catch (IOException ex) {
-                            Log.w(TAG, "Failed to store edit for " + file);
+                    if (content.length == 0) {
+                        if (cb != null) {
+                            cb.onContentSaved();
                         }
+                        return;
                     }
 
-                    if (cb != null) {
-                        cb.onContentSaved();
+                    if (DEBUG) {
+                        Log.i(TAG, new String(content));
                     }
+
+                    // Encode and store the edit in background. Edits are cached encoded,
+                    // as the server content
+                    final String name = getEditCachedFileName(file);
+                    Observable.fromCallable(() -> {
+                                CacheHelper.writeAccountDiffCacheFile(activity, name,
+                                        Base64.encode(content, Base64.NO_WRAP));
+                                return CacheHelper.getAccountDiffCacheFile(
+                                        activity, name).getAbsolutePath();
+                            })
+                            .subscribeOn(Schedulers.io())
+                            .observeOn(AndroidSchedulers.mainThread())
+                            .subscribe(path -> {
+                                mContentFile = path;
+                                if (cb != null) {
+                                    cb.onContentSaved();
+                                }
+                            }, error -> {
+                                Log.w(TAG, "Failed to store edit for " + file, error);
+                                if (cb != null) {
+                                    cb.onContentSaved();
+                                }
+                            });
                 }
 
                 @Override
@@ -885,29 +885,19 @@ public class EditorFragment extends Fragment
     }
 
     @SuppressWarnings("unchecked")
-    private Observable<byte[]> withCached(Observable<byte[]> call) {
+    private Observable<File> withCached(Observable<File> call) {
         final String editName = getEditCachedFileName(mFile);
         final String contentName = getContentCachedFileName(mFile);
-        try {
-            // Has edit?
-            if (CacheHelper.hasAccountDiffCache(getContext(), editName)) {
-                byte[] o = CacheHelper.readAccountDiffCacheFile(getContext(), editName);
-                if (o != null) {
-                    return Observable.just(o);
-                }
-            }
 
-            // Has content?
-            if (CacheHelper.hasAccountDiffCache(getContext(), contentName)) {
-                byte[] o = CacheHelper.readAccountDiffCacheFile(getContext(), contentName);
-                if (o != null) {
-                    return Observable.just(o);
-                }
-            }
-        } catch (IOException ex) {
-            Log.e(TAG, "Failed to load cached data: " + mFile, ex);
-        } catch (JsonParseException ex) {
-            Log.e(TAG, "Failed to parse cached data: " + mFile, ex);
+        // Has edit?
+        if (CacheHelper.hasAccountDiffCache(getContext(), editName)) {
+            return Observable.just(CacheHelper.getAccountDiffCacheFile(getContext(), editName));
+        }
+
+        // Has content?
+        if (CacheHelper.hasAccountDiffCache(getContext(), contentName)) {
+            return Observable.just(
+                    CacheHelper.getAccountDiffCacheFile(getContext(), contentName));
         }
         return call;
     }
@@ -1007,12 +997,31 @@ public class EditorFragment extends Fragment
         }
     }
 
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    private File writeContentCache(String file, ResponseBody body) throws IOException {
+        // The content is streamed to the cache as received (base64 encoded, as the editor
+        // expects it), and the editor reads it from there
+        String name = getContentCachedFileName(file);
+        File cached = CacheHelper.getAccountDiffCacheFile(getContext(), name);
+        File temp = new File(cached.getAbsolutePath() + ".tmp");
+        try {
+            ContentHelper.writeContent(body, temp);
+            if (!temp.renameTo(cached)) {
+                throw new IOException("Can't rename " + temp.getAbsolutePath());
+            }
+        } finally {
+            temp.delete();
+        }
+        CacheHelper.commitAccountDiffCacheFile(getContext(), name, mRevisionId);
+        return cached;
+    }
+
     private String getContentCachedFileName(String file) {
         return FowlerNollVo.fnv1a_64(file.getBytes()).toString() + ".content";
     }
 
     private String getEditCachedFileName(String file) {
-        return FowlerNollVo.fnv1a_64(file.getBytes()).toString() + ".edit";
+        return FowlerNollVo.fnv1a_64(file.getBytes()).toString() + CacheHelper.CACHE_EDIT_SUFFIX;
     }
 
     private void closeDrawer() {
@@ -1025,7 +1034,7 @@ public class EditorFragment extends Fragment
     private void publishEditChanges() throws IOException {
         final GerritApi api = ModelHelper.getGerritApi(getContext());
         File dir = CacheHelper.getAccountDiffCacheDir(getContext());
-        File[] edits = dir.listFiles((dir1, name) -> name.endsWith(".edit"));
+        File[] edits = dir.listFiles((dir1, name) -> name.endsWith(CacheHelper.CACHE_EDIT_SUFFIX));
 
         // Send every edit to the server
         List<String> renames = new ArrayList<>();
@@ -1089,7 +1098,8 @@ public class EditorFragment extends Fragment
 
     private void readFileOps() {
         try {
-            byte[] data = CacheHelper.readAccountDiffCacheFile(getContext(), "edit.ops");
+            byte[] data = CacheHelper.readAccountDiffCacheFile(
+                    getContext(), CacheHelper.CACHE_EDIT_OPS);
             Type type = new TypeToken<Map<String, Op>>(){}.getType();
             mEditOps = SerializationManager.getInstance().fromJson(new String(data), type);
         } catch (FileNotFoundException ex) {
@@ -1103,7 +1113,7 @@ public class EditorFragment extends Fragment
     private void writeFileOps() {
         try {
             byte[] data = SerializationManager.getInstance().toJson(mEditOps).getBytes();
-            CacheHelper.writeAccountDiffCacheFile(getContext(), "edit.ops", data);
+            CacheHelper.writeAccountDiffCacheFile(getContext(), CacheHelper.CACHE_EDIT_OPS, data);
         } catch (IOException ex) {
             //noinspection ConstantConditions
             ((BaseActivity) getActivity()).handleException(TAG, ex, null);
@@ -1192,13 +1202,14 @@ public class EditorFragment extends Fragment
         requestFileContent();
     }
 
-    private void createEmptyEdit(String file) {
+    private File createEmptyEdit(String file) {
         String name = getEditCachedFileName(file);
         try {
             CacheHelper.writeAccountDiffCacheFile(getActivity(), name, new byte[]{});
         } catch (IOException ex) {
             Log.w(TAG, "Failed to store edit for " + file);
         }
+        return CacheHelper.getAccountDiffCacheFile(getActivity(), name);
     }
 
     private void restoreFile() {
@@ -1236,7 +1247,7 @@ public class EditorFragment extends Fragment
 
     private boolean hasPendingEdits() {
         File dir = CacheHelper.getAccountDiffCacheDir(getContext());
-        File[] edits = dir.listFiles((dir1, name) -> name.endsWith(".edit"));
+        File[] edits = dir.listFiles((dir1, name) -> name.endsWith(CacheHelper.CACHE_EDIT_SUFFIX));
         return edits.length > 0 || mEditOps.size() > 0;
     }
 
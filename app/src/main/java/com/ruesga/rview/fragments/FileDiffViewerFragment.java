@@ -21,7 +21,6 @@ import android.content.Context;
 import android.os.Bundle;
 import android.os.Handler;
 import android.text.TextUtils;
-import android.util.Base64;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -33,6 +32,7 @@ import com.google.gson.reflect.TypeToken;
 import com.ruesga.rview.BaseActivity;
 import com.ruesga.rview.R;
 import com.ruesga.rview.databinding.FileDiffViewerFragmentBinding;
+import com.ruesga.rview.gerrit.ContentHelper;
 import com.ruesga.rview.gerrit.GerritApi;
 import com.ruesga.rview.gerrit.filter.ChangeQuery;
 import com.ruesga.rview.gerrit.filter.Option;
@@ -63,6 +63,7 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
 import java.io.Writer;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
@@ -737,19 +738,19 @@ public class FileDiffViewerFragment extends Fragment implements EditDialogFragme
 
             CacheHelper.writeAccountDiffCacheFile(getContext(),
                     diffCacheId + CacheHelper.CACHE_DIFF_JSON,
-                    SerializationManager.getInstance().toJson(diff).getBytes());
+                    SerializationManager.getInstance().toJson(diff).getBytes(), mRevisionId);
             CacheHelper.writeAccountDiffCacheFile(getContext(),
                     baseRevision + "_" + CacheHelper.CACHE_COMMENTS_JSON,
-                    SerializationManager.getInstance().toJson(commentsA).getBytes());
+                    SerializationManager.getInstance().toJson(commentsA).getBytes(), mRevisionId);
             CacheHelper.writeAccountDiffCacheFile(getContext(),
                     mRevision + "_" + CacheHelper.CACHE_COMMENTS_JSON,
-                    SerializationManager.getInstance().toJson(commentsB).getBytes());
+                    SerializationManager.getInstance().toJson(commentsB).getBytes(), mRevisionId);
             CacheHelper.writeAccountDiffCacheFile(getContext(),
                     baseRevision + "_" + CacheHelper.CACHE_DRAFT_JSON,
-                    SerializationManager.getInstance().toJson(draftsA).getBytes());
+                    SerializationManager.getInstance().toJson(draftsA).getBytes(), mRevisionId);
             CacheHelper.writeAccountDiffCacheFile(getContext(),
                     mRevision + "_" + CacheHelper.CACHE_DRAFT_JSON,
-                    SerializationManager.getInstance().toJson(draftsB).getBytes());
+                    SerializationManager.getInstance().toJson(draftsB).getBytes(), mRevisionId);
         } catch (IOException ex) {
             Log.e(TAG, "Failed to save diff cached data", ex);
         }
@@ -799,10 +800,10 @@ public class FileDiffViewerFragment extends Fragment implements EditDialogFragme
 
             CacheHelper.writeAccountDiffCacheFile(getContext(),
                     baseRevision + "_" + CacheHelper.CACHE_DRAFT_JSON,
-                    SerializationManager.getInstance().toJson(draftsA).getBytes());
+                    SerializationManager.getInstance().toJson(draftsA).getBytes(), mRevisionId);
             CacheHelper.writeAccountDiffCacheFile(getContext(),
                     mRevision + "_" + CacheHelper.CACHE_DRAFT_JSON,
-                    SerializationManager.getInstance().toJson(draftsB).getBytes());
+                    SerializationManager.getInstance().toJson(draftsB).getBytes(), mRevisionId);
         } catch (IOException ex) {
             Log.e(TAG, "Failed to save drafts cached data", ex);
         }
@@ -825,8 +826,10 @@ public class FileDiffViewerFragment extends Fragment implements EditDialogFragme
             commentList = new ArrayList<>();
         }
 
+        // The comments could be shared with other callers of the api, so adapt copies of them
         List<CommentInfo> copy = new ArrayList<>();
-        for (CommentInfo comment : commentList) {
+        for (CommentInfo c : commentList) {
+            CommentInfo comment = ModelHelper.copyComment(c);
             if (comment.side == null && base != parentBase && !isA) {
                 comment.side = SideType.REVISION;
             } else if (SideType.REVISION.equals(comment.side) && isA) {
@@ -841,8 +844,9 @@ public class FileDiffViewerFragment extends Fragment implements EditDialogFragme
         }
         if (base == 0 && otherCommentList != null) {
             //noinspection Convert2streamapi
-            for (CommentInfo comment : otherCommentList) {
-                if (SideType.PARENT.equals(comment.side)) {
+            for (CommentInfo c : otherCommentList) {
+                if (SideType.PARENT.equals(c.side)) {
+                    CommentInfo comment = ModelHelper.copyComment(c);
                     comment.patchSet = SideType.PARENT.equals(comment.side) ? parentBase : base;
                     copy.add(comment);
                 }
@@ -985,17 +989,18 @@ public class FileDiffViewerFragment extends Fragment implements EditDialogFragme
     private <T> Observable<T> withCached(Observable<T> call, Type type, String name) {
         try {
             if (CacheHelper.hasAccountDiffCache(getContext(), name)) {
-                T o = SerializationManager.getInstance().fromJson(
-                        new String(CacheHelper.readAccountDiffCacheFile(
-                                getContext(), name)), type);
-                if (o != null) {
-                    return Observable.just(o);
+                try (Reader reader = CacheHelper.openAccountDiffCacheFile(getContext(), name)) {
+                    T o = SerializationManager.getInstance().fromJson(reader, type);
+                    if (o != null) {
+                        return Observable.just(o);
+                    }
                 }
             }
         } catch (IOException ex) {
             Log.e(TAG, "Failed to load diff cached data: " + name, ex);
         } catch (JsonParseException ex) {
             Log.e(TAG, "Failed to parse diff cached data: " + name, ex);
+            CacheHelper.removeAccountDiffCacheFile(getContext(), name);
         }
         return call;
     }
@@ -1050,36 +1055,46 @@ public class FileDiffViewerFragment extends Fragment implements EditDialogFragme
         }
     }
 
-    @SuppressWarnings("ConstantConditions")
+    @SuppressWarnings({"ConstantConditions", "ResultOfMethodCallIgnored"})
     private File fetchCachedContent(String changeId, String revision, String base) {
         String b = base == null ? "0" : base;
         String name = b + "_" + mFileHash + "_" + CacheHelper.CACHE_CONTENT;
-        File fetchedFile = new File(CacheHelper.getAccountDiffCacheDir(getContext()), name);
-        if (!fetchedFile.exists()) {
+        File fetchedFile = CacheHelper.getAccountDiffCacheFile(getContext(), name);
+        if (!CacheHelper.hasAccountDiffCache(getContext(), name)) {
+            // Decode the content while it is downloaded, so the file is never held in memory
+            File temp = new File(fetchedFile.getAbsolutePath() + ".tmp");
             try {
                 final Context ctx = getActivity();
                 final GerritApi api = ModelHelper.getGerritApi(ctx);
                 ResponseBody content = api.getChangeRevisionFileContent(
                         changeId, revision, mFile, null).blockingFirst();
-                CacheHelper.writeAccountDiffCacheFile(
-                        ctx, mAccount, name, Base64.decode(content.bytes(), Base64.NO_WRAP));
+                ContentHelper.writeBase64Content(content, temp);
+                if (!temp.renameTo(fetchedFile)) {
+                    throw new IOException("Can't rename " + temp.getAbsolutePath());
+                }
+                CacheHelper.commitAccountDiffCacheFile(ctx, name, revision);
             } catch (Exception ex) {
                 Log.e(TAG, "Can't download file content " + mFile + "; Revision: " + revision, ex);
+                temp.delete();
                 fetchedFile = null;
             }
         }
         return fetchedFile;
     }
 
-    @SuppressWarnings("ConstantConditions")
+    @SuppressWarnings({"ConstantConditions", "ResultOfMethodCallIgnored"})
     private File writeCachedContent(FileDiffResponse response, String base, boolean isA) {
         String b = base == null ? "0" : base;
         String name = b + "_" + mFileHash + "_" + CacheHelper.CACHE_CONTENT;
-        File writtenFile = new File(CacheHelper.getAccountDiffCacheDir(getContext()), name);
-        if (!writtenFile.exists()) {
-            if (writeDiffToFile(response, writtenFile, isA)) {
+        File writtenFile = CacheHelper.getAccountDiffCacheFile(getContext(), name);
+        if (!CacheHelper.hasAccountDiffCache(getContext(), name)) {
+            // Write to a temporary file, so a partial write is never seen as cached content
+            File temp = new File(writtenFile.getAbsolutePath() + ".tmp");
+            if (writeDiffToFile(response, temp, isA) && temp.renameTo(writtenFile)) {
+                CacheHelper.commitAccountDiffCacheFile(getContext(), name, b);
                 return writtenFile;
             }
+            temp.delete();
             return null;
         }
         return writtenFile;
@@ -1089,8 +1104,7 @@ public class FileDiffViewerFragment extends Fragment implements EditDialogFragme
     private ChangeInfo fetchParentChange(String parentRevision) {
         try {
             String name = parentRevision + "_" + CacheHelper.CACHE_PARENT;
-            File parent = new File(CacheHelper.getAccountDiffCacheDir(getContext()), name);
-            if (!parent.exists()) {
+            if (!CacheHelper.hasAccountDiffCache(getContext(), name)) {
                 // Fetch the change
                 final Context ctx = getActivity();
                 final GerritApi api = ModelHelper.getGerritApi(ctx);
@@ -1098,8 +1112,9 @@ public class FileDiffViewerFragment extends Fragment implements EditDialogFragme
                 List<ChangeInfo> changes = api.getChanges(query, 1, 0, null).blockingFirst();
                 ChangeInfo change = changes.size() > 0 ? changes.get(0) : null;
 
-                CacheHelper.writeAccountDiffCacheFile(getContext(),
-                        name, SerializationManager.getInstance().toJson(change).getBytes());
+                CacheHelper.writeAccountDiffCacheFile(getContext(), name,
+                        SerializationManager.getInstance().toJson(change).getBytes(),
+                        parentRevision);
                 return change;
             } else {
                 // Use the fetched change
@@ -1124,7 +1139,8 @@ public class FileDiffViewerFragment extends Fragment implements EditDialogFragme
                 // AB
                 if (c.ab != null) {
                     for (String s : c.ab) {
-                        writer.write(s + "\n");
+                        writer.write(s);
+                        writer.write('\n');
                         hasData = true;
                     }
                 }
@@ -1133,7 +1149,8 @@ public class FileDiffViewerFragment extends Fragment implements EditDialogFragme
                     // A
                     if (c.a != null) {
                         for (String s : c.a) {
-                            writer.write(s + "\n");
+                            writer.write(s);
+                            writer.write('\n');
                             hasData = true;
                         }
                     }
@@ -1141,7 +1158,8 @@ public class FileDiffViewerFragment extends Fragment implements EditDialogFragme
                     // B
                     if (c.b != null) {
                         for (String s : c.b) {
-                            writer.write(s + "\n");
+                            writer.write(s);
+                            writer.write('\n');
                             hasData = true;
                         }
                     }
@@ -18,8 +18,8 @@ package com.ruesga.rview.fragments;
 import android.content.Context;
 import android.os.Bundle;
 
+import com.ruesga.rview.gerrit.ChangesResolver;
 import com.ruesga.rview.gerrit.GerritApi;
-import com.ruesga.rview.gerrit.filter.ChangeQuery;
 import com.ruesga.rview.gerrit.model.ChangeInfo;
 import com.ruesga.rview.gerrit.model.ChangeOptions;
 import com.ruesga.rview.gerrit.model.RelatedChangeAndCommitInfo;
@@ -86,17 +86,26 @@ public class RevisionRelatedChangesFragment extends ChangeListFragment {
     }
 
     private List<ChangeInfo> fetchChanges(GerritApi api, List<RelatedChangeAndCommitInfo> related) {
-        List<ChangeInfo> c = new ArrayList<>(related.size());
+        List<String> changeIds = new ArrayList<>(related.size());
+        List<String> commits = new ArrayList<>();
         for (RelatedChangeAndCommitInfo r : related) {
             if (r.changeNumber != null) {
-                c.add(api.getChange(String.valueOf(r.changeNumber), OPTIONS)
-                        .blockingFirst());
+                changeIds.add(String.valueOf(r.changeNumber));
             } else {
-                ChangeQuery query = new ChangeQuery().commit(r.commit.commit);
-                List<ChangeInfo> changes = api.getChanges(query, 1, 0, OPTIONS).blockingFirst();
-                if (changes != null && !changes.isEmpty()) {
-                    c.add(changes.get(0));
-                }
+                commits.add(r.commit.commit);
+            }
+        }
+
+        // Resolve all the changes at once and restore the relation order
+        List<ChangeInfo> changes = ChangesResolver.resolveChanges(api, changeIds, OPTIONS);
+        List<ChangeInfo> commitChanges = commits.isEmpty()
+                ? new ArrayList<>() : ChangesResolver.resolveCommits(api, commits, OPTIONS);
+        List<ChangeInfo> c = new ArrayList<>(related.size());
+        int i = 0, j = 0;
+        for (RelatedChangeAndCommitInfo r : related) {
+            ChangeInfo change = r.changeNumber != null ? changes.get(i++) : commitChanges.get(j++);
+            if (change != null) {
+                c.add(change);
             }
         }
         return c;
@@ -23,7 +23,6 @@ import android.content.Context;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
-import android.util.Base64;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
@@ -218,7 +217,7 @@ public class SnippetFragment extends BottomSheetBaseFragment {
         }
 
         mBinding.editor.scrollTo(0, 0);
-        mBinding.editor.loadEncodedContent(fileName, Base64.encode(data, Base64.NO_WRAP));
+        mBinding.editor.loadContent(fileName, data);
     }
 
     @Override
@@ -295,9 +294,6 @@ public class SnippetFragment extends BottomSheetBaseFragment {
                     new AceEditorView.OnReadContentReadyListener() {
                         @Override
                         public void onReadContentReady(byte[] content, String mimeType) {
-                            if (content.length > 0) {
-                                content = Base64.decode(content, Base64.NO_WRAP);
-                            }
                             saveContent(content);
                             if (mimeType != null) {
                                 mMimeType = mimeType;
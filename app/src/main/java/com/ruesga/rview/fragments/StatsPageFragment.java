@@ -17,6 +17,7 @@ package com.ruesga.rview.fragments;
 
 import android.content.Context;
 import android.os.Bundle;
+import android.text.format.DateUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -30,10 +31,14 @@ import com.ruesga.rview.gerrit.model.ChangeInfo;
 import com.ruesga.rview.gerrit.model.ChangeOptions;
 import com.ruesga.rview.gerrit.model.ChangeStatus;
 import com.ruesga.rview.misc.ModelHelper;
+import com.ruesga.rview.model.Account;
 import com.ruesga.rview.model.Stats;
+import com.ruesga.rview.model.StatsSummary;
+import com.ruesga.rview.preferences.Preferences;
+import com.ruesga.rview.providers.StatsEntity;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 
 import androidx.annotation.NonNull;
@@ -41,9 +46,7 @@ import androidx.annotation.Nullable;
 import androidx.databinding.DataBindingUtil;
 import androidx.fragment.app.Fragment;
 import io.reactivex.Observable;
-import io.reactivex.ObservableSource;
 import io.reactivex.android.schedulers.AndroidSchedulers;
-import io.reactivex.functions.Function;
 import io.reactivex.schedulers.Schedulers;
 import me.tatarka.rxloader2.RxLoader;
 import me.tatarka.rxloader2.RxLoaderManager;
@@ -81,14 +84,16 @@ public abstract class StatsPageFragment<T> extends Fragment implements Selectabl
         }
     };
 
-    private final RxLoaderObserver<List<Stats>> mStatsObserver = new RxLoaderObserver<List<Stats>>() {
+    private final RxLoaderObserver<StatsSummary> mStatsObserver =
+            new RxLoaderObserver<StatsSummary>() {
         @Override
-        public void onNext(List<Stats> stats) {
-            mBinding.mergedStatusChart.update(stats);
-            mBinding.activityChart.update(stats);
-            mBinding.top5List.listenTo(item -> openCrossItem(item)).update(stats);
+        public void onNext(StatsSummary summary) {
+            mBinding.mergedStatusChart.update(
+                    summary.mOpen, summary.mMerged, summary.mAbandoned);
+            mBinding.activityChart.update(summary.mActivity);
+            mBinding.top5List.listenTo(item -> openCrossItem(item)).update(summary.mStats);
             mBinding.setLoading(false);
-            mBinding.setEmpty(stats == null || stats.isEmpty());
+            mBinding.setEmpty(summary.mStats.isEmpty());
         }
 
         @Override
@@ -101,7 +106,7 @@ public abstract class StatsPageFragment<T> extends Fragment implements Selectabl
 
 
     private StatsPageFragmentBinding mBinding;
-    private RxLoader<List<Stats>> mStatsLoader;
+    private RxLoader<StatsSummary> mStatsLoader;
 
     @Nullable
     @Override
@@ -157,6 +162,11 @@ public abstract class StatsPageFragment<T> extends Fragment implements Selectabl
         return MAX_DAYS;
     }
 
+    // Identifies the stored stats of this page within the account
+    protected String getStatsKey() {
+        return getStatsFragmentTag() + "/" + getStatsQuery().toString();
+    }
+
     private void showProgress(boolean show, T result) {
         BaseActivity activity = (BaseActivity) getActivity();
         if (show) {
@@ -175,11 +185,26 @@ public abstract class StatsPageFragment<T> extends Fragment implements Selectabl
     }
 
     @SuppressWarnings("ConstantConditions")
-    private Observable<List<Stats>> internalFetchStats() {
+    private Observable<StatsSummary> internalFetchStats() {
         final Context ctx = getActivity();
         final GerritApi api = ModelHelper.getGerritApi(ctx);
+        final Account account = Preferences.getAccount(ctx);
         return SafeObservable.fromNullCallable(() -> {
+                final String key = getStatsKey();
+
+                // Only fetch the changes updated since the last sync. Older stored changes
+                // are still valid
+                final long minDate = System.currentTimeMillis()
+                        - (DateUtils.DAY_IN_MILLIS * getMaxDays());
+                final long lastSync = StatsEntity.getLastSync(
+                        ctx, account.getAccountHash(), key);
+                final boolean fullSync = lastSync < minDate;
+                final long syncTime = System.currentTimeMillis();
                 ChangeQuery query = getStatsQuery();
+                if (!fullSync) {
+                    query = query.and(new ChangeQuery().after(new Date(lastSync)));
+                }
+
                 List<ChangeInfo> changes = new ArrayList<>();
                 List<ChangeInfo> tmp;
                 int start = 0;
@@ -189,37 +214,41 @@ public abstract class StatsPageFragment<T> extends Fragment implements Selectabl
                     changes.addAll(tmp);
                     start += MAX_CHANGES;
                 } while (tmp.size() == MAX_CHANGES);
-                return changes;
-            })
-            .flatMap((Function<List<ChangeInfo>, ObservableSource<List<Stats>>>) changes -> {
-                ArrayList<Stats> stats = new ArrayList<>(changes.size());
-                for (ChangeInfo change : changes) {
-                    final Stats s = new Stats();
-                    if (change.status.equals(ChangeStatus.NEW)
-                            || change.status.equals(ChangeStatus.DRAFT)
-                            || change.status.equals(ChangeStatus.SUBMITTED)) {
-                        s.mStatus = ChangeStatus.NEW;
-                    } else {
-                        s.mStatus = change.status;
-                    }
-                    if (s.mStatus.equals(ChangeStatus.NEW)) {
-                        s.mDate = change.created;
-                    } else {
-                        s.mDate = change.updated;
-                    }
-                    s.mDescription = getDescription(change);
-                    s.mCrossDescription = getCrossDescription(change);
-                    s.mCrossItem = getSerializedCrossItem(change);
-                    stats.add(s);
-                }
 
-                Collections.sort(stats, (o1, o2) -> o1.mDate.compareTo(o2.mDate));
-                return Observable.just(stats);
+                StatsEntity.sync(ctx, account.getAccountHash(), key,
+                        toStats(changes), fullSync, minDate, syncTime);
+                return StatsEntity.getStatsSummary(ctx, account.getAccountHash(), key);
             })
             .subscribeOn(Schedulers.io())
             .observeOn(AndroidSchedulers.mainThread());
     }
 
+    private List<Stats> toStats(List<ChangeInfo> changes) {
+        ArrayList<Stats> stats = new ArrayList<>(changes.size());
+        for (ChangeInfo change : changes) {
+            final Stats s = new Stats();
+            s.mLegacyChangeId = change.legacyChangeId;
+            if (change.status.equals(ChangeStatus.NEW)
+                    || change.status.equals(ChangeStatus.DRAFT)
+                    || change.status.equals(ChangeStatus.SUBMITTED)) {
+                s.mStatus = ChangeStatus.NEW;
+            } else {
+                s.mStatus = change.status;
+            }
+            if (s.mStatus.equals(ChangeStatus.NEW)) {
+                s.mDate = change.created;
+            } else {
+                s.mDate = change.updated;
+            }
+            s.mUpdated = change.updated;
+            s.mDescription = getDescription(change);
+            s.mCrossDescription = getCrossDescription(change);
+            s.mCrossItem = getSerializedCrossItem(change);
+            stats.add(s);
+        }
+        return stats;
+    }
+
     private void performRequestStats() {
         mStatsLoader.clear();
         mStatsLoader.restart();
@@ -18,6 +18,7 @@ package com.ruesga.rview.fragments;
 import android.content.Context;
 import android.os.Bundle;
 
+import com.ruesga.rview.gerrit.ChangesResolver;
 import com.ruesga.rview.gerrit.GerritApi;
 import com.ruesga.rview.gerrit.model.ChangeInfo;
 import com.ruesga.rview.gerrit.model.ChangeOptions;
@@ -90,9 +91,16 @@ public class SubmittedTogetherFragment extends ChangeListFragment {
 
     @SuppressWarnings("Convert2streamapi")
     private List<ChangeInfo> fetchChanges(GerritApi api, List<ChangeInfo> changes) {
-        List<ChangeInfo> c = new ArrayList<>(changes.size());
+        List<String> changeIds = new ArrayList<>(changes.size());
         for (ChangeInfo change : changes) {
-            c.add(api.getChange(String.valueOf(change.legacyChangeId), OPTIONS).blockingFirst());
+            changeIds.add(String.valueOf(change.legacyChangeId));
+        }
+
+        List<ChangeInfo> c = new ArrayList<>(changes.size());
+        for (ChangeInfo change : ChangesResolver.resolveChanges(api, changeIds, OPTIONS)) {
+            if (change != null) {
+                c.add(change);
+            }
         }
         return c;
     }
@@ -26,10 +26,12 @@ import com.ruesga.rview.BaseActivity;
 import com.ruesga.rview.R;
 import com.ruesga.rview.gerrit.GerritApi;
 import com.ruesga.rview.gerrit.filter.ChangeQuery;
+import com.ruesga.rview.gerrit.filter.TimeUnit;
 import com.ruesga.rview.gerrit.model.AccountInfo;
 import com.ruesga.rview.gerrit.model.ChangeInfo;
 import com.ruesga.rview.gerrit.model.ChangeMessageInfo;
 import com.ruesga.rview.gerrit.model.ChangeOptions;
+import com.ruesga.rview.gerrit.model.ChangeStatus;
 import com.ruesga.rview.gerrit.model.ReviewerStatus;
 import com.ruesga.rview.misc.CacheHelper;
 import com.ruesga.rview.misc.ModelHelper;
@@ -43,17 +45,25 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import io.reactivex.Observable;
+import io.reactivex.schedulers.Schedulers;
+
 public class TrendingChangeListFragment extends ChangeListByFilterFragment {
 
     private static final String TAG = "TrendingFragment";
 
     private static final int FETCH_COUNT = 75;
+    private static final int CONCURRENT_PAGES = 4;
+    private static final int DELTA_MARGIN_MINUTES = 5;
     private static final Pattern VOTE_PATTERN = Pattern.compile(".*[+-]\\d.*");
     private static final Pattern INLINE_COMMENTS_PATTERN =
             Pattern.compile(".*\\((\\d+) comment(s)?\\).*");
@@ -114,33 +124,22 @@ public class TrendingChangeListFragment extends ChangeListByFilterFragment {
         long age = CacheHelper.getFileCacheAge(ctx, account, CacheHelper.CACHE_TRENDING_JSON);
         if (!mForceRefresh && System.currentTimeMillis() - age < DateUtils.HOUR_IN_MILLIS) {
             try {
-                Type type = new TypeToken<List<ChangeInfo>>() {}.getType();
-                changes = SerializationManager.getInstance().fromJson(
-                        new String(CacheHelper.readFileCache(
-                                ctx, account, CacheHelper.CACHE_TRENDING_JSON)), type);
+                byte[] data = CacheHelper.readFileCache(
+                        ctx, account, CacheHelper.CACHE_TRENDING_JSON);
+                if (data != null) {
+                    Type type = new TypeToken<List<ChangeInfo>>() {}.getType();
+                    changes = SerializationManager.getInternedInstance().fromJson(
+                            new String(data), type);
+                }
             } catch (Exception ex) {
                 Log.e(TAG, "Failed to read trending cache file", ex);
+                CacheHelper.removeFileCache(ctx, account, CacheHelper.CACHE_TRENDING_JSON);
             }
         }
 
         // Fetch if needed
         if (changes == null || changes.isEmpty()) {
-            changes = new ArrayList<>();
-
-            // Fetch all the available changes
-            int c = FETCH_COUNT;
-            int s = 0;
-            while (true) {
-                List<ChangeInfo> fetched = api.getChanges(
-                        query, c, Math.max(0, s), OPTIONS).blockingFirst();
-                changes.addAll(fetched);
-                if (fetched.size() < c) {
-                    break;
-                }
-                s += c;
-            }
-
-            changes = extractTrendingChanges(changes);
+            changes = extractTrendingChanges(fetchTrendingCandidates(ctx, api, account, query));
             try {
                 CacheHelper.writeFileCache(ctx, account, CacheHelper.CACHE_TRENDING_JSON,
                         SerializationManager.getInstance().toJson(changes).getBytes());
@@ -153,6 +152,102 @@ public class TrendingChangeListFragment extends ChangeListByFilterFragment {
         return changes;
     }
 
+    // Returns all the changes of the trending window. The changes of the last run are
+    // cached, so only the ones updated since then need to be fetched again
+    private List<ChangeInfo> fetchTrendingCandidates(
+            Context ctx, GerritApi api, Account account, ChangeQuery query) {
+        final long now = System.currentTimeMillis();
+        final long window = DateUtils.HOUR_IN_MILLIS * TRENDING_MAX_HOURS;
+
+        List<ChangeInfo> cached = null;
+        long age = CacheHelper.getFileCacheAge(
+                ctx, account, CacheHelper.CACHE_TRENDING_CHANGES_JSON);
+        if (age > 0 && now - age < window) {
+            try {
+                byte[] data = CacheHelper.readFileCache(
+                        ctx, account, CacheHelper.CACHE_TRENDING_CHANGES_JSON);
+                if (data != null) {
+                    Type type = new TypeToken<List<ChangeInfo>>() {}.getType();
+                    cached = SerializationManager.getInternedInstance().fromJson(
+                            new String(data), type);
+                }
+            } catch (Exception ex) {
+                Log.e(TAG, "Failed to read trending changes cache file", ex);
+                CacheHelper.removeFileCache(
+                        ctx, account, CacheHelper.CACHE_TRENDING_CHANGES_JSON);
+            }
+        }
+
+        Map<Integer, ChangeInfo> candidates = new LinkedHashMap<>();
+        if (cached == null) {
+            for (ChangeInfo change : fetchAllChanges(api, query)) {
+                candidates.put(change.legacyChangeId, change);
+            }
+        } else {
+            for (ChangeInfo change : cached) {
+                candidates.put(change.legacyChangeId, change);
+            }
+
+            // Merge the changes updated since the last run. Closed changes are also
+            // requested, so they can be removed from the set
+            int minutes = (int) ((now - age) / DateUtils.MINUTE_IN_MILLIS) + DELTA_MARGIN_MINUTES;
+            ChangeQuery delta = new ChangeQuery().negate(
+                    new ChangeQuery().age(TimeUnit.MINUTES, minutes));
+            for (ChangeInfo change : fetchAllChanges(api, delta)) {
+                if (ChangeStatus.MERGED.equals(change.status)
+                        || ChangeStatus.ABANDONED.equals(change.status)) {
+                    candidates.remove(change.legacyChangeId);
+                } else {
+                    candidates.put(change.legacyChangeId, change);
+                }
+            }
+        }
+
+        // Discard the changes that are out of the trending window
+        Iterator<ChangeInfo> it = candidates.values().iterator();
+        while (it.hasNext()) {
+            ChangeInfo change = it.next();
+            if (change.updated == null || now - change.updated.getTime() > window) {
+                it.remove();
+            }
+        }
+
+        List<ChangeInfo> changes = new ArrayList<>(candidates.values());
+        try {
+            CacheHelper.writeFileCache(ctx, account, CacheHelper.CACHE_TRENDING_CHANGES_JSON,
+                    SerializationManager.getInstance().toJson(changes).getBytes());
+        } catch (Exception ex) {
+            Log.e(TAG, "Failed to serialize trending changes cache file", ex);
+        }
+        return changes;
+    }
+
+    private List<ChangeInfo> fetchAllChanges(GerritApi api, ChangeQuery query) {
+        List<ChangeInfo> changes = new ArrayList<>(
+                api.getChanges(query, FETCH_COUNT, 0, OPTIONS).blockingFirst());
+
+        // If the first page is full, fetch the next ones concurrently until a page
+        // isn't full
+        boolean hasMore = changes.size() >= FETCH_COUNT;
+        int start = FETCH_COUNT;
+        while (hasMore) {
+            List<Observable<List<ChangeInfo>>> pages = new ArrayList<>(CONCURRENT_PAGES);
+            for (int i = 0; i < CONCURRENT_PAGES; i++) {
+                pages.add(api.getChanges(query, FETCH_COUNT, start, OPTIONS)
+                        .subscribeOn(Schedulers.io()));
+                start += FETCH_COUNT;
+            }
+            for (List<ChangeInfo> page : Observable.concatEager(pages).toList().blockingGet()) {
+                changes.addAll(page);
+                if (page.size() < FETCH_COUNT) {
+                    hasMore = false;
+                    break;
+                }
+            }
+        }
+        return changes;
+    }
+
     private List<ChangeInfo> extractTrendingChanges(List<ChangeInfo> changes) {
         // TRENDING RULES
         //  * Scoring over 25
@@ -171,20 +266,55 @@ public class TrendingChangeListFragment extends ChangeListByFilterFragment {
         int maxItems = Preferences.getAccountFetchedItems(
                 getContext(), Preferences.getAccount(getContext()));
 
+        final long now = System.currentTimeMillis();
+        final int maxAged = (int) (DateUtils.HOUR_IN_MILLIS * TRENDING_MAX_HOURS);
+        final long trendingAged =
+                maxAged - (int)(now - (DateUtils.HOUR_IN_MILLIS * TRENDING_HOURS));
+        final Set<Integer> accounts = new HashSet<>();
+
         List<ChangeInfo> trending = new ArrayList<>();
         for (ChangeInfo change : changes) {
-            int maxAged = (int) (DateUtils.HOUR_IN_MILLIS * TRENDING_MAX_HOURS);
-            int aged = maxAged - (int)(System.currentTimeMillis() - change.updated.getTime());
-            long trendingAged = maxAged - (int)(System.currentTimeMillis() -
-                    (DateUtils.HOUR_IN_MILLIS * TRENDING_HOURS));
+            int aged = maxAged - (int)(now - change.updated.getTime());
+
+            // Extract all the message features in a single pass
+            int votes = 0;
+            int messages = 0;
+            int recentMessages = 0;
+            int inlineMessages = 0;
+            accounts.clear();
+            if (change.messages != null) {
+                for (ChangeMessageInfo message : change.messages) {
+                    // Skip robot accounts
+                    if (!TextUtils.isEmpty(message.tag)) {
+                        continue;
+                    }
+
+                    messages++;
+                    if (message.date.getTime() < trendingAged) {
+                        recentMessages++;
+                    }
+                    Matcher m = INLINE_COMMENTS_PATTERN.matcher(message.message);
+                    while (m.find()) {
+                        inlineMessages += Integer.parseInt(m.group(1));
+                    }
+                    // Voting only messages doesn't count as comments
+                    if (message.message.indexOf("\n\n") > 0) {
+                        accounts.add(message.author.accountId);
+                    }
+                    if (change.labels != null && VOTE_PATTERN.matcher(
+                            StringHelper.firstLine(message.message)).find()) {
+                        votes++;
+                    }
+                }
+            }
 
             change.trendingScore =
                     applyWeight(countNumberOfPatchsets(change), 4f, 5, 10) +
-                    applyWeight(countNumberOfVotesOfNotRobotAccounts(change, -1L), 3f, 1, 4) +
-                    applyWeight(countNumberOfMessagesFromNotRobotAccounts(change, -1L), 3f, 7, 20) +
-                    applyWeight(countNumberOfMessagesFromNotRobotAccounts(change, trendingAged), 3f, 1, 3) +
-                    applyWeight(countNumberOfInlineMessagesFromNotRobotAccounts(change, -1L), 3f, 1, 10) +
-                    applyWeight(countNumberOfNotRobotAccountsWithAComment(change,-1L), 3f, 3, 7) +
+                    applyWeight(votes, 3f, 1, 4) +
+                    applyWeight(messages, 3f, 7, 20) +
+                    applyWeight(recentMessages, 3f, 1, 3) +
+                    applyWeight(inlineMessages, 3f, 1, 10) +
+                    applyWeight(accounts.size(), 3f, 3, 7) +
                     applyWeight(countNumberOfReviewers(change), 3f, 1, 15) +
                     applyWeight(aged, 3f, 0, maxAged);
             if (change.trendingScore >= TRENDING_MIN_SCORE) {
@@ -219,70 +349,6 @@ public class TrendingChangeListFragment extends ChangeListByFilterFragment {
         return Math.round((value - min) * weight / (max - min));
     }
 
-    // Counts the number of comments from user accounts (excluding robot accounts)
-    private int countNumberOfMessagesFromNotRobotAccounts(ChangeInfo change, long maxAged) {
-        int count = 0;
-        if (change.messages != null) {
-            for (ChangeMessageInfo message : change.messages) {
-                if (TextUtils.isEmpty(message.tag) &&
-                        (maxAged == -1 || message.date.getTime() < maxAged)) {
-                    count++;
-                }
-            }
-        }
-        return count;
-    }
-
-    // Counts the number of inline comments from user accounts (excluding robot accounts)
-    private int countNumberOfInlineMessagesFromNotRobotAccounts(ChangeInfo change, long maxAged) {
-        int count = 0;
-        if (change.messages != null) {
-            for (ChangeMessageInfo message : change.messages) {
-                if (TextUtils.isEmpty(message.tag) &&
-                        (maxAged == -1 || message.date.getTime() < maxAged)) {
-                    Matcher m = INLINE_COMMENTS_PATTERN.matcher(message.message);
-                    while (m.find()) {
-                        count += Integer.parseInt(m.group(1));
-                    }
-                }
-            }
-        }
-        return count;
-    }
-
-    // Counts the number of user accounts with a comment (excluding robot accounts
-    // and voting only messages)
-    private int countNumberOfNotRobotAccountsWithAComment(ChangeInfo change, long maxAged) {
-        Set<Integer> accounts = new HashSet<>();
-        if (change.messages != null) {
-            for (ChangeMessageInfo message : change.messages) {
-                if (TextUtils.isEmpty(message.tag) && message.message.indexOf("\n\n") > 0 &&
-                        (maxAged == -1 || message.date.getTime() < maxAged)) {
-                    accounts.add(message.author.accountId);
-                }
-            }
-        }
-        return accounts.size();
-    }
-
-    // Count the number of votes (activity registered by voting/remove voting) of user accounts
-    // (excluding robot accounts)
-    private int countNumberOfVotesOfNotRobotAccounts(ChangeInfo change, long maxAged) {
-        int count = 0;
-        if (change.labels != null) {
-            for (ChangeMessageInfo message : change.messages) {
-                if (TextUtils.isEmpty(message.tag) &&
-                        (maxAged == -1 || message.date.getTime() < maxAged)) {
-                    String firstLine = StringHelper.firstLine(message.message);
-                    if (VOTE_PATTERN.matcher(firstLine).find()) {
-                        count++;
-                    }
-                }
-            }
-        }
-        return count;
-    }
-
     // Count the number of reviewers added to this changes
     private int countNumberOfReviewers(ChangeInfo change) {
         if (change.reviewers == null) {
@@ -31,11 +31,16 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 
 import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.Reader;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
@@ -50,6 +55,8 @@ public class CacheHelper {
 
     public static final long MAX_AGE_CACHE = 60 * 60 * 24 * 5L;
     public static final long MAX_DISK_CACHE = 50 * 1024 * 1024L;
+    public static final long MAX_ACCOUNT_CACHE = 10 * 1024 * 1024L;
+    public static final long MAX_ACCOUNT_DIFF_CACHE = 100 * 1024 * 1024L;
 
     private static final String IMAGES_CACHE_FOLDER = "images";
     private static final String AVATARS_CACHE_FOLDER = "avatars";
@@ -67,8 +74,13 @@ public class CacheHelper {
     public static final String CACHE_PARENT = "parent";
 
     public static final String CACHE_TRENDING_JSON = "trending.json";
+    public static final String CACHE_TRENDING_CHANGES_JSON = "trending_changes.json";
     public static final String CACHE_PLUGINS_JSON = "plugins.json";
 
+    // Pending edits are user data, so they must never be evicted from the diff cache
+    public static final String CACHE_EDIT_SUFFIX = ".edit";
+    public static final String CACHE_EDIT_OPS = "edit.ops";
+
     public static Response.Builder addCacheControl(Response.Builder builder) {
         return builder.header("Cache-Control", "max-age=" + MAX_AGE_CACHE);
     }
@@ -135,6 +147,7 @@ public class CacheHelper {
 
     public static void removeAccountCacheDir(Context context, Account account) {
         final File cacheDir = getAccountCacheDir(context, account);
+        DiskCacheStore.invalidate(cacheDir);
         if (cacheDir.exists()) {
             try {
                 FileUtils.deleteDirectory(cacheDir);
@@ -165,6 +178,7 @@ public class CacheHelper {
 
     public static void removeAccountDiffCacheDir(Context context, Account account) {
         final File cacheDir = getAccountDiffCacheDir(context, account);
+        DiskCacheStore.invalidate(cacheDir);
         if (cacheDir.exists()) {
             try {
                 FileUtils.deleteDirectory(cacheDir);
@@ -174,12 +188,27 @@ public class CacheHelper {
         }
     }
 
+    public static DiskCacheStore getAccountDiffCacheStore(Context context, Account account) {
+        return DiskCacheStore.open(getAccountDiffCacheDir(context, account),
+                MAX_ACCOUNT_DIFF_CACHE, CACHE_EDIT_SUFFIX, CACHE_EDIT_OPS);
+    }
+
     public static boolean hasAccountDiffCache(Context context, String name) {
         return hasAccountDiffCache(context, Preferences.getAccount(context), name);
     }
 
     public static boolean hasAccountDiffCache(Context context, Account account, String name) {
-        return new File(getAccountDiffCacheDir(context, account), name).exists();
+        return getAccountDiffCacheStore(context, account).contains(name);
+    }
+
+    public static File getAccountDiffCacheFile(Context context, String name) {
+        return getAccountDiffCacheStore(context, Preferences.getAccount(context))
+                .getFile(name, true);
+    }
+
+    public static void commitAccountDiffCacheFile(Context context, String name, String revision) {
+        getAccountDiffCacheStore(context, Preferences.getAccount(context))
+                .commit(name, revision);
     }
 
     public static byte[] readAccountDiffCacheFile(Context context, String name) throws IOException {
@@ -188,64 +217,81 @@ public class CacheHelper {
 
     public static byte[] readAccountDiffCacheFile(Context context, Account account, String name)
             throws IOException {
-        return FileUtils.readFileToByteArray(
-                new File(getAccountDiffCacheDir(context, account), name));
+        byte[] data = getAccountDiffCacheStore(context, account).read(name);
+        if (data == null) {
+            throw new FileNotFoundException(name);
+        }
+        return data;
+    }
+
+    public static Reader openAccountDiffCacheFile(Context context, String name)
+            throws IOException {
+        File file = getAccountDiffCacheStore(context, Preferences.getAccount(context))
+                .getFile(name, true);
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
     }
 
     public static void writeAccountDiffCacheFile(Context context, String name, byte[] data)
             throws IOException {
-        writeAccountDiffCacheFile(context, Preferences.getAccount(context), name, data);
+        writeAccountDiffCacheFile(context, Preferences.getAccount(context), name, data, null);
+    }
+
+    public static void writeAccountDiffCacheFile(Context context, String name, byte[] data,
+            String revision) throws IOException {
+        writeAccountDiffCacheFile(context, Preferences.getAccount(context), name, data, revision);
     }
 
     public static void writeAccountDiffCacheFile(
             Context context, Account account, String name, byte[] data) throws IOException {
-        FileUtils.writeByteArrayToFile(
-                new File(getAccountDiffCacheDir(context, account), name), data);
+        writeAccountDiffCacheFile(context, account, name, data, null);
+    }
+
+    public static void writeAccountDiffCacheFile(Context context, Account account,
+            String name, byte[] data, String revision) throws IOException {
+        getAccountDiffCacheStore(context, account).write(name, data, revision);
     }
 
     public static void removeAccountDiffCacheFile(Context context, String name) {
         removeAccountDiffCacheFile(context, Preferences.getAccount(context), name);
     }
 
-    @SuppressWarnings("ResultOfMethodCallIgnored")
     public static void removeAccountDiffCacheFile(Context context, Account account, String name) {
-        final File cacheDir = getAccountDiffCacheDir(context, account);
-        if (cacheDir.exists()) {
-            new File(getAccountDiffCacheDir(context, account), name).delete();
-        }
+        getAccountDiffCacheStore(context, account).remove(name);
     }
 
 
+    public static DiskCacheStore getAccountCacheStore(Context context, Account account) {
+        createAccountCacheDir(context, account);
+        return DiskCacheStore.open(getAccountCacheDir(context, account), MAX_ACCOUNT_CACHE);
+    }
+
     public static long getFileCacheAge(Context context, Account account, String name) {
-        File file = new File(getAccountCacheDir(context, account), name);
-        if (file.exists()) {
-            return file.lastModified();
+        if (getAccountCacheStore(context, account).contains(name)) {
+            return new File(getAccountCacheDir(context, account), name).lastModified();
         }
         return 0;
     }
 
     public static byte[] readFileCache(Context context, Account account, String name)
             throws IOException {
-        File file = new File(getAccountCacheDir(context, account), name);
-        if (file.exists()) {
-            return FileUtils.readFileToByteArray(file);
-        }
-        return null;
+        return getAccountCacheStore(context, account).read(name);
     }
 
-    @SuppressWarnings("ResultOfMethodCallIgnored")
     public static void writeFileCache(Context context, Account account, String name, byte[] data)
             throws IOException {
-        File file = new File(getAccountCacheDir(context, account), name);
-        file.getParentFile().mkdirs();
-        FileUtils.writeByteArrayToFile(file, data);
+        getAccountCacheStore(context, account).write(name, data, null);
     }
 
-    @SuppressWarnings("ResultOfMethodCallIgnored")
     public static void removeFileCache(Context context, Account account, String name) {
-        File file = new File(getAccountCacheDir(context, account), name);
-        if (file.exists()) {
-            file.delete();
+        getAccountCacheStore(context, account).remove(name);
+    }
+
+    public static void trimAccountCaches(Context context) {
+        for (Account account : Preferences.getAccounts(context)) {
+            if (getAccountCacheDir(context, account).exists()) {
+                getAccountCacheStore(context, account).trimToSize(MAX_ACCOUNT_CACHE);
+                getAccountDiffCacheStore(context, account).trimToSize(MAX_ACCOUNT_DIFF_CACHE);
+            }
         }
     }
 
@@ -0,0 +1,441 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.misc;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A size-bounded disk cache of files stored in a directory. Every entry is tracked in
+ * a journal (key, size, last access and source revision), the least recently used
+ * entries are evicted when the store exceeds its byte budget, and entries are written
+ * atomically, so an app crash in the middle of a write never leaves a corrupted entry.
+ */
+public class DiskCacheStore {
+
+    public static class Entry {
+        public final String key;
+        public long size;
+        public long lastAccess;
+        public String revision;
+
+        private Entry(String key) {
+            this.key = key;
+        }
+    }
+
+    private static final String JOURNAL_FILE = ".journal";
+    // Only the temporary files of the store. Callers could have their own temporary files
+    private static final String TEMP_PREFIX = ".store-";
+
+    private static final String OP_PUT = "P";
+    private static final String OP_ACCESS = "A";
+    private static final String OP_REMOVE = "R";
+    private static final String SEPARATOR = "\t";
+
+    // Number of redundant journal operations before the journal is compacted
+    private static final int MAX_REDUNDANT_OPS = 2000;
+
+    private static final Map<String, DiskCacheStore> sStores = new HashMap<>();
+
+    private final File mDirectory;
+    private final File mJournal;
+    private final long mMaxSize;
+    private final String[] mPinnedSuffixes;
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<>(0, 0.75f, true);
+    private Writer mJournalWriter;
+    private long mSize;
+    private int mRedundantOps;
+
+    /**
+     * @param pinnedSuffixes entries whose keys end with any of these suffixes hold user
+     *                       data. They are tracked but never evicted nor accounted.
+     */
+    public static DiskCacheStore open(File directory, long maxSize, String... pinnedSuffixes) {
+        synchronized (sStores) {
+            String path = directory.getAbsolutePath();
+            DiskCacheStore store = sStores.get(path);
+            if (store == null || store.mMaxSize != maxSize) {
+                if (store != null) {
+                    store.close();
+                }
+                store = new DiskCacheStore(directory, maxSize, pinnedSuffixes);
+                sStores.put(path, store);
+            }
+            return store;
+        }
+    }
+
+    /**
+     * Closes all the opened stores under this directory (because it is going to be deleted).
+     */
+    public static void invalidate(File directory) {
+        synchronized (sStores) {
+            String path = directory.getAbsolutePath();
+            Iterator<Map.Entry<String, DiskCacheStore>> it = sStores.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, DiskCacheStore> e = it.next();
+                if (e.getKey().equals(path) || e.getKey().startsWith(path + File.separator)) {
+                    e.getValue().close();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private DiskCacheStore(File directory, long maxSize, String[] pinnedSuffixes) {
+        mDirectory = directory;
+        mJournal = new File(directory, JOURNAL_FILE);
+        mMaxSize = maxSize;
+        mPinnedSuffixes = pinnedSuffixes;
+        load();
+    }
+
+    public File getDirectory() {
+        return mDirectory;
+    }
+
+    public synchronized long size() {
+        return mSize;
+    }
+
+    public synchronized boolean contains(String key) {
+        Entry entry = mEntries.get(key);
+        File file = getFile(key);
+        if (entry == null) {
+            if (!file.isFile()) {
+                return false;
+            }
+            // Written behind our back
+            commit(key, null);
+            return mEntries.containsKey(key);
+        }
+        if (!file.exists()) {
+            // Removed behind our back
+            removeEntry(entry);
+            return false;
+        }
+        return true;
+    }
+
+    public synchronized Entry getEntry(String key) {
+        return contains(key) ? mEntries.get(key) : null;
+    }
+
+    /**
+     * Returns the file that holds the entry, marking it as recently used. The file
+     * could not exists if the entry is not in the store.
+     */
+    public synchronized File getFile(String key, boolean access) {
+        if (access) {
+            Entry entry = mEntries.get(key);
+            if (entry != null) {
+                entry.lastAccess = System.currentTimeMillis();
+                journal(OP_ACCESS, entry.key, String.valueOf(entry.lastAccess));
+            }
+        }
+        return getFile(key);
+    }
+
+    public synchronized byte[] read(String key) throws IOException {
+        if (!contains(key)) {
+            return null;
+        }
+        return FileUtils.readFileToByteArray(getFile(key, true));
+    }
+
+    public void write(String key, byte[] data, String revision) throws IOException {
+        // The data is written without holding the store lock. Only the commit needs it
+        File file = getFile(key);
+        if (!file.getParentFile().exists() && !file.getParentFile().mkdirs()) {
+            throw new IOException("Unable to create directory " + file.getParent());
+        }
+        File temp = File.createTempFile(TEMP_PREFIX, null, file.getParentFile());
+        FileOutputStream os = new FileOutputStream(temp);
+        try {
+            os.write(data);
+        } finally {
+            IOUtils.closeQuietly(os);
+        }
+        if (!temp.renameTo(file)) {
+            FileUtils.deleteQuietly(temp);
+            throw new IOException("Unable to commit cache entry " + key);
+        }
+        commit(key, revision);
+    }
+
+    /**
+     * Records in the store an entry whose file was written directly by the caller.
+     */
+    public synchronized void commit(String key, String revision) {
+        File file = getFile(key);
+        if (!file.exists()) {
+            return;
+        }
+
+        Entry entry = mEntries.get(key);
+        if (entry == null) {
+            entry = new Entry(key);
+            mEntries.put(key, entry);
+        } else {
+            mSize -= sizeOf(entry);
+            mRedundantOps++;
+        }
+        entry.size = file.length();
+        entry.lastAccess = System.currentTimeMillis();
+        entry.revision = revision;
+        mSize += sizeOf(entry);
+        journal(OP_PUT, entry.key, String.valueOf(entry.size),
+                String.valueOf(entry.lastAccess), revision == null ? "" : revision);
+        trimToSize(mMaxSize);
+    }
+
+    public synchronized void remove(String key) {
+        Entry entry = mEntries.get(key);
+        if (entry != null) {
+            removeEntry(entry);
+        } else {
+            FileUtils.deleteQuietly(getFile(key));
+        }
+    }
+
+    public synchronized void trimToSize(long maxSize) {
+        Iterator<Entry> it = mEntries.values().iterator();
+        while (mSize > maxSize && it.hasNext()) {
+            Entry entry = it.next();
+            if (isPinned(entry.key)) {
+                continue;
+            }
+            it.remove();
+            deleteEntry(entry);
+        }
+        compactJournalIfNeeded();
+    }
+
+    public synchronized void close() {
+        IOUtils.closeQuietly(mJournalWriter);
+        mJournalWriter = null;
+    }
+
+    private File getFile(String key) {
+        return new File(mDirectory, key);
+    }
+
+    private boolean isPinned(String key) {
+        for (String suffix : mPinnedSuffixes) {
+            if (key.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long sizeOf(Entry entry) {
+        return isPinned(entry.key) ? 0 : entry.size;
+    }
+
+    private void removeEntry(Entry entry) {
+        mEntries.remove(entry.key);
+        deleteEntry(entry);
+        compactJournalIfNeeded();
+    }
+
+    private void deleteEntry(Entry entry) {
+        mSize -= sizeOf(entry);
+        mRedundantOps++;
+        FileUtils.deleteQuietly(getFile(entry.key));
+        journal(OP_REMOVE, entry.key);
+    }
+
+    private void load() {
+        // Replay the journal
+        if (mJournal.exists()) {
+            BufferedReader reader = null;
+            try {
+                reader = new BufferedReader(new InputStreamReader(
+                        new FileInputStream(mJournal), "UTF-8"));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    replay(line.split(SEPARATOR, -1));
+                }
+            } catch (IOException ex) {
+                // Ignore. Lost entries are adopted from the directory
+            } finally {
+                IOUtils.closeQuietly(reader);
+            }
+        }
+
+        // Reconcile the journal with the real content of the directory
+        List<String> keys = new ArrayList<>(mEntries.keySet());
+        for (String key : keys) {
+            File file = getFile(key);
+            if (!file.isFile()) {
+                mEntries.remove(key);
+            } else {
+                mEntries.get(key).size = file.length();
+            }
+        }
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            List<Entry> adopted = new ArrayList<>();
+            for (File file : files) {
+                String name = file.getName();
+                if (!file.isFile() || name.equals(JOURNAL_FILE)) {
+                    continue;
+                }
+                if (name.startsWith(TEMP_PREFIX)) {
+                    // Partially written entry
+                    FileUtils.deleteQuietly(file);
+                } else if (!mEntries.containsKey(name)) {
+                    Entry entry = new Entry(name);
+                    entry.size = file.length();
+                    entry.lastAccess = file.lastModified();
+                    adopted.add(entry);
+                }
+            }
+
+            // Adopted entries are considered older than the journaled ones
+            if (!adopted.isEmpty()) {
+                List<Entry> journaled = new ArrayList<>(mEntries.values());
+                mEntries.clear();
+                Collections.sort(adopted, (e1, e2) -> Long.compare(e1.lastAccess, e2.lastAccess));
+                for (Entry entry : adopted) {
+                    mEntries.put(entry.key, entry);
+                }
+                for (Entry entry : journaled) {
+                    mEntries.put(entry.key, entry);
+                }
+            }
+        }
+
+        mSize = 0;
+        for (Entry entry : mEntries.values()) {
+            mSize += sizeOf(entry);
+        }
+        mRedundantOps = MAX_REDUNDANT_OPS;
+        trimToSize(mMaxSize);
+    }
+
+    private void replay(String[] op) {
+        if (op.length < 2) {
+            return;
+        }
+        String key = op[1];
+        switch (op[0]) {
+            case OP_PUT:
+                if (op.length == 5) {
+                    Entry entry = mEntries.get(key);
+                    if (entry == null) {
+                        entry = new Entry(key);
+                        mEntries.put(key, entry);
+                    }
+                    entry.size = parseLong(op[2]);
+                    entry.lastAccess = parseLong(op[3]);
+                    entry.revision = op[4].isEmpty() ? null : op[4];
+                }
+                break;
+            case OP_ACCESS:
+                Entry entry = mEntries.get(key);
+                if (entry != null && op.length == 3) {
+                    entry.lastAccess = parseLong(op[2]);
+                }
+                break;
+            case OP_REMOVE:
+                mEntries.remove(key);
+                break;
+        }
+    }
+
+    private long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            return 0L;
+        }
+    }
+
+    private void journal(String... op) {
+        try {
+            if (mJournalWriter == null) {
+                if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+                    return;
+                }
+                mJournalWriter = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(mJournal, true), "UTF-8"));
+            }
+            for (int i = 0; i < op.length; i++) {
+                if (i > 0) {
+                    mJournalWriter.write(SEPARATOR);
+                }
+                mJournalWriter.write(op[i]);
+            }
+            mJournalWriter.write("\n");
+            mJournalWriter.flush();
+        } catch (IOException ex) {
+            // Ignore. The journal is rebuilt from the directory the next time
+            close();
+        }
+    }
+
+    private void compactJournalIfNeeded() {
+        if (mRedundantOps < MAX_REDUNDANT_OPS || mRedundantOps < mEntries.size()) {
+            return;
+        }
+        if (!mDirectory.exists()) {
+            return;
+        }
+
+        close();
+        File temp = new File(mDirectory, TEMP_PREFIX + JOURNAL_FILE);
+        Writer writer = null;
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(temp), "UTF-8"));
+            for (Entry entry : mEntries.values()) {
+                writer.write(OP_PUT + SEPARATOR + entry.key + SEPARATOR + entry.size
+                        + SEPARATOR + entry.lastAccess + SEPARATOR
+                        + (entry.revision == null ? "" : entry.revision) + "\n");
+            }
+            writer.close();
+            writer = null;
+            if (temp.renameTo(mJournal)) {
+                mRedundantOps = 0;
+            }
+        } catch (IOException ex) {
+            // Ignore
+        } finally {
+            IOUtils.closeQuietly(writer);
+            FileUtils.deleteQuietly(temp);
+        }
+    }
+}
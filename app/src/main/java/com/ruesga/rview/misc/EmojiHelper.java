@@ -17,11 +17,14 @@ package com.ruesga.rview.misc;
 
 import android.content.Context;
 import android.os.Build;
+import android.text.Editable;
 import android.text.TextUtils;
 
 import com.ruesga.rview.R;
 
-import java.util.regex.Pattern;
+import java.util.Arrays;
+
+import androidx.annotation.VisibleForTesting;
 
 public final class EmojiHelper {
 
@@ -66,82 +69,6 @@ public final class EmojiHelper {
                     ":+1:",
                     ":-1:"
             };
-    private static final Pattern[] REGEXP1 =
-            {
-                    Pattern.compile("^<3", Pattern.MULTILINE),
-                    Pattern.compile("^\\^_\\^", Pattern.MULTILINE),
-                    Pattern.compile("^-_-", Pattern.MULTILINE),
-                    Pattern.compile("^o.O", Pattern.MULTILINE),
-                    Pattern.compile("^>:O", Pattern.MULTILINE),
-                    Pattern.compile("^X\\(", Pattern.MULTILINE),
-                    Pattern.compile("^\\\\o/", Pattern.MULTILINE),
-                    Pattern.compile("^3:\\)", Pattern.MULTILINE),
-                    Pattern.compile("^O:\\)", Pattern.MULTILINE),
-                    Pattern.compile("^>:\\(", Pattern.MULTILINE),
-                    Pattern.compile("^B-\\)", Pattern.MULTILINE),
-                    Pattern.compile("^B\\|", Pattern.MULTILINE),
-                    Pattern.compile("^:'\\(", Pattern.MULTILINE),
-                    Pattern.compile("^:\\*", Pattern.MULTILINE),
-                    Pattern.compile("^:P", Pattern.MULTILINE),
-                    Pattern.compile("^:D", Pattern.MULTILINE),
-                    Pattern.compile("^:'D", Pattern.MULTILINE),
-                    Pattern.compile("^:\\)\\)", Pattern.MULTILINE),
-                    Pattern.compile("^:\\(\\(", Pattern.MULTILINE),
-                    Pattern.compile("^:O", Pattern.MULTILINE),
-                    Pattern.compile("^;\\)", Pattern.MULTILINE),
-                    Pattern.compile("^:/", Pattern.MULTILINE),
-                    Pattern.compile("^:-\\)", Pattern.MULTILINE),
-                    Pattern.compile("^:\\)", Pattern.MULTILINE),
-                    Pattern.compile("^:\\(", Pattern.MULTILINE),
-                    Pattern.compile("^:-\\(", Pattern.MULTILINE),
-                    Pattern.compile("^:-B", Pattern.MULTILINE),
-                    Pattern.compile("^:-\\?", Pattern.MULTILINE),
-                    Pattern.compile("^\\|-\\)", Pattern.MULTILINE),
-                    Pattern.compile("^:-&", Pattern.MULTILINE),
-                    Pattern.compile("^:P", Pattern.MULTILINE),
-                    Pattern.compile("^:D", Pattern.MULTILINE),
-                    Pattern.compile("^:S", Pattern.MULTILINE),
-                    Pattern.compile("^:\\+1:", Pattern.MULTILINE),
-                    Pattern.compile("^:-1:", Pattern.MULTILINE)
-            };
-    private static final Pattern[] REGEXP2 =
-            {
-                    Pattern.compile(" <3"),
-                    Pattern.compile(" \\^_\\^"),
-                    Pattern.compile(" -_-"),
-                    Pattern.compile(" o.O"),
-                    Pattern.compile(" >:O"),
-                    Pattern.compile(" X\\("),
-                    Pattern.compile(" \\\\o/"),
-                    Pattern.compile(" 3:\\)"),
-                    Pattern.compile(" O:\\)"),
-                    Pattern.compile(" >:\\("),
-                    Pattern.compile(" B-\\)"),
-                    Pattern.compile(" B\\|"),
-                    Pattern.compile(" :'\\("),
-                    Pattern.compile(" :\\*"),
-                    Pattern.compile(" :P"),
-                    Pattern.compile(" :D"),
-                    Pattern.compile(" :'D"),
-                    Pattern.compile(" :\\)\\)"),
-                    Pattern.compile(" :\\(\\("),
-                    Pattern.compile(" :O"),
-                    Pattern.compile(" ;\\)"),
-                    Pattern.compile(" :/"),
-                    Pattern.compile(" :-\\)"),
-                    Pattern.compile(" :\\)"),
-                    Pattern.compile(" :\\("),
-                    Pattern.compile(" :-\\("),
-                    Pattern.compile(" :-B"),
-                    Pattern.compile(" :-\\?"),
-                    Pattern.compile(" \\|-\\)"),
-                    Pattern.compile(" :-&"),
-                    Pattern.compile(" :P"),
-                    Pattern.compile(" :D"),
-                    Pattern.compile(" :S"),
-                    Pattern.compile(" :\\+1:"),
-                    Pattern.compile(" :-1:")
-            };
     private static final int[] CODES =
             {
                     0x1F60D, // <3
@@ -181,19 +108,153 @@ public final class EmojiHelper {
                     0x1F44E  // :-1:
             };
 
+    // A trie of the emoticons. Emoticons only match at the start of a line or after a
+    // space, so every match starts at a known position and the goto function of the
+    // automaton is all that is needed (no failure transitions)
+    private static final class Node {
+        private char[] mChars = new char[0];
+        private Node[] mNext = new Node[0];
+        // The first emoticon (in TEXT order) ending here, or -1
+        private int mEmoticon = -1;
+
+        private Node next(char c) {
+            final int count = mChars.length;
+            for (int i = 0; i < count; i++) {
+                if (mChars[i] == c) {
+                    return mNext[i];
+                }
+            }
+            return null;
+        }
+
+        private Node add(char c) {
+            Node node = next(c);
+            if (node == null) {
+                node = new Node();
+                final int count = mChars.length;
+                mChars = Arrays.copyOf(mChars, count + 1);
+                mNext = Arrays.copyOf(mNext, count + 1);
+                mChars[count] = c;
+                mNext[count] = node;
+            }
+            return node;
+        }
+    }
+
+    private static final Node EMOTICONS = createEmoticonsAutomaton();
+    private static final String[] EMOJIS = createEmojis();
+
     public static String createEmoji(String msg) {
         // Only KitKat and up have a colorful emoji support
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
-            int count = TEXT.length;
-            for (int i = 0; i < count; i++) {
-                if (msg.contains(TEXT[i])) {
-                    String emoji = getEmojiByUnicode(CODES[i]);
-                    msg = REGEXP1[i].matcher(msg).replaceAll(emoji);
-                    msg = REGEXP2[i].matcher(msg).replaceAll(" " + emoji);
+            return replaceEmoticons(msg);
+        }
+        return msg;
+    }
+
+    /**
+     * Replaces the emoticons of a text in place, keeping the spans already set.
+     */
+    public static void createEmoji(Editable text) {
+        // Only KitKat and up have a colorful emoji support
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            // Replace backwards, so the positions of the pending matches are still valid
+            int[] matches = findEmoticons(text);
+            for (int i = matches.length - 2; i >= 0; i -= 2) {
+                final int start = matches[i];
+                final int emoticon = matches[i + 1];
+                text.replace(start, start + TEXT[emoticon].length(), EMOJIS[emoticon]);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    static String replaceEmoticons(String msg) {
+        int[] matches = findEmoticons(msg);
+        if (matches.length == 0) {
+            return msg;
+        }
+
+        StringBuilder sb = new StringBuilder(msg.length());
+        int last = 0;
+        for (int i = 0; i < matches.length; i += 2) {
+            final int start = matches[i];
+            final int emoticon = matches[i + 1];
+            sb.append(msg, last, start).append(EMOJIS[emoticon]);
+            last = start + TEXT[emoticon].length();
+        }
+        sb.append(msg, last, msg.length());
+        return sb.toString();
+    }
+
+    // Returns pairs of (start, emoticon)
+    private static int[] findEmoticons(CharSequence text) {
+        int[] matches = null;
+        int count = 0;
+        final int len = text.length();
+        for (int i = 0; i < len; i++) {
+            if (i > 0 && !isEmoticonBoundary(text.charAt(i - 1))) {
+                continue;
+            }
+
+            // Walk the automaton. When more than one emoticon matches, the first
+            // in TEXT order wins
+            int emoticon = -1;
+            int emoticonLen = 0;
+            Node node = EMOTICONS;
+            for (int j = i; j < len; j++) {
+                node = node.next(text.charAt(j));
+                if (node == null) {
+                    break;
+                }
+                if (node.mEmoticon != -1 && (emoticon == -1 || node.mEmoticon < emoticon)) {
+                    emoticon = node.mEmoticon;
+                    emoticonLen = j - i + 1;
+                }
+            }
+
+            if (emoticon != -1) {
+                if (matches == null) {
+                    matches = new int[8];
+                } else if (count == matches.length) {
+                    matches = Arrays.copyOf(matches, count * 2);
                 }
+                matches[count++] = i;
+                matches[count++] = emoticon;
+                i += emoticonLen - 1;
             }
         }
-        return msg;
+        return matches == null ? new int[0] : Arrays.copyOf(matches, count);
+    }
+
+    private static boolean isEmoticonBoundary(char c) {
+        // A space or a line terminator
+        return c == ' ' || c == '\n' || c == '\r'
+                || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static Node createEmoticonsAutomaton() {
+        Node root = new Node();
+        final int count = TEXT.length;
+        for (int i = 0; i < count; i++) {
+            Node node = root;
+            for (char c : TEXT[i].toCharArray()) {
+                node = node.add(c);
+            }
+            if (node.mEmoticon == -1) {
+                node.mEmoticon = i;
+            }
+        }
+        return root;
+    }
+
+    private static String[] createEmojis() {
+        final int count = CODES.length;
+        String[] emojis = new String[count];
+        for (int i = 0; i < count; i++) {
+            emojis[i] = getEmojiByUnicode(CODES[i]);
+        }
+        return emojis;
     }
 
     public static String getEmojiByUnicode(int unicode){
@@ -23,10 +23,12 @@ import android.text.Html;
 import android.text.Spannable;
 import android.text.SpannableStringBuilder;
 import android.text.Spanned;
+import android.text.SpannedString;
 import android.text.TextUtils;
 import android.text.style.LeadingMarginSpan;
 import android.text.style.RelativeSizeSpan;
 import android.text.style.TypefaceSpan;
+import android.util.LruCache;
 import android.view.View;
 import android.widget.ImageView;
 import android.widget.TextView;
@@ -96,6 +98,20 @@ public class Formatter {
     private static int sQuoteWidth = -1;
     private static int sQuoteMargin = -1;
 
+    // Rendered messages are bounded by their length in chars, including the raw message
+    // held by the key, so a few huge messages can't retain a lot of memory
+    private static final int MAX_RENDERED_MESSAGES_CHARS = 256 * 1024;
+    private static final char RENDER_USER_MESSAGE = 'u';
+    private static final char RENDER_USER_FOLD_MESSAGE = 'f';
+    private static final char RENDER_COMMIT_MESSAGE = 'c';
+    private static final LruCache<String, CharSequence> sRenderedMessages =
+            new LruCache<String, CharSequence>(MAX_RENDERED_MESSAGES_CHARS) {
+                @Override
+                protected int sizeOf(String key, CharSequence value) {
+                    return key.length() + value.length();
+                }
+            };
+
     public static void refreshCachedPreferences(Context context) {
         mAccount = Preferences.getAccount(context);
         sDisplayFormat = Preferences.getAccountDisplayFormat(context, mAccount);
@@ -232,9 +248,15 @@ public class Formatter {
             return;
         }
 
-        String message = EmojiHelper.createEmoji(
-                info.message.substring(info.subject.length()).trim());
-        view.setText(StringHelper.removeLineBreaks(message));
+        final String key = toRenderKey(RENDER_COMMIT_MESSAGE, info.message);
+        CharSequence rendered = sRenderedMessages.get(key);
+        if (rendered == null) {
+            String message = EmojiHelper.createEmoji(
+                    info.message.substring(info.subject.length()).trim());
+            rendered = StringHelper.removeLineBreaks(message);
+            sRenderedMessages.put(key, rendered);
+        }
+        view.setText(rendered);
     }
 
     @SuppressWarnings("deprecation")
@@ -256,16 +278,7 @@ public class Formatter {
             return;
         }
 
-        // Fold the user message
-        String userMessage = StringHelper.fold(StringHelper.removeAllAttachments(msg.message));
-        if (userMessage == null) {
-            view.setText(null);
-            return;
-        }
-        final SpannableStringBuilder spannable = new SpannableStringBuilder(userMessage);
-        highlightUserMessageReviewScores(
-                view.getContext(), StringHelper.firstLine(msg.message), spannable);
-        view.setText(spannable);
+        view.setText(getUserFoldMessage(view.getContext(), msg.message));
     }
 
     @BindingAdapter("userMessage")
@@ -275,8 +288,64 @@ public class Formatter {
             return;
         }
 
-        // Clean up paragraphs (to mimic "<p></p>" browsers behaviour) and create Emojis
-        String message = EmojiHelper.createEmoji(StringHelper.cleanUpParagraphs(msg));
+        view.setText(getUserMessage(view.getContext(), msg));
+    }
+
+    /**
+     * Renders the messages of a change ahead of binding them, so scrolling the messages
+     * only needs to pick the rendered result. Safe to call from a background thread.
+     */
+    public static void prerenderMessages(Context context, ChangeMessageInfo[] messages) {
+        if (messages == null) {
+            return;
+        }
+        for (ChangeMessageInfo msg : messages) {
+            if (msg.message == null) {
+                continue;
+            }
+            if (msg._reviewer_updates == null || msg._reviewer_updates.isEmpty()) {
+                getUserFoldMessage(context, msg.message);
+            }
+            getUserMessage(context, StringHelper.removeAllAttachments(msg.message));
+        }
+    }
+
+    private static CharSequence getUserFoldMessage(Context context, String msg) {
+        final String key = toRenderKey(RENDER_USER_FOLD_MESSAGE, msg);
+        CharSequence rendered = sRenderedMessages.get(key);
+        if (rendered == null) {
+            // Fold the user message
+            String userMessage = StringHelper.fold(StringHelper.removeAllAttachments(msg));
+            if (userMessage == null) {
+                return null;
+            }
+            final SpannableStringBuilder spannable = new SpannableStringBuilder(userMessage);
+            highlightUserMessageReviewScores(context, StringHelper.firstLine(msg), spannable);
+            rendered = new SpannedString(spannable);
+            sRenderedMessages.put(key, rendered);
+        }
+        return rendered;
+    }
+
+    private static CharSequence getUserMessage(Context context, String msg) {
+        final String key = toRenderKey(RENDER_USER_MESSAGE, msg);
+        CharSequence rendered = sRenderedMessages.get(key);
+        if (rendered == null) {
+            rendered = new SpannedString(renderUserMessage(context, msg));
+            sRenderedMessages.put(key, rendered);
+        }
+        return rendered;
+    }
+
+    // The rendered messages depend on the message and on the settings used to render them
+    private static String toRenderKey(char type, String msg) {
+        return String.valueOf(type) + sHighlightScoredMessages + "|" + msg;
+    }
+
+    private static Spannable renderUserMessage(Context context, String msg) {
+        // Clean up paragraphs (to mimic "<p></p>" browsers behaviour). Emojis are created
+        // over the final spannable, so they don't alter the offsets of the spans
+        String message = StringHelper.cleanUpParagraphs(msg);
 
         // This process mimics the Gerrit formatting process done in class
         // ./gerrit-gwtexpui/src/main/java/com/google/gwtexpui/safehtml/client/SafeHtml.java
@@ -320,18 +389,18 @@ public class Formatter {
 
         // Highlight user message's scores
         highlightUserMessageReviewScores(
-                view.getContext(), StringHelper.firstLine(userMessage), spannable);
+                context, StringHelper.firstLine(userMessage), spannable);
 
         // If the user message is not formatted, do not try to compute unnecessary stuff
         if (!formattedMessage) {
-            view.setText(spannable);
-            return;
+            EmojiHelper.createEmoji(spannable);
+            return spannable;
         }
 
         if (sQuoteColor == -1) {
-            sQuoteColor = ContextCompat.getColor(view.getContext(), R.color.quote);
-            sQuoteWidth = (int) view.getContext().getResources().getDimension(R.dimen.quote_width);
-            sQuoteMargin = (int) view.getContext().getResources().getDimension(R.dimen.quote_margin);
+            sQuoteMargin = (int) context.getResources().getDimension(R.dimen.quote_margin);
+            sQuoteWidth = (int) context.getResources().getDimension(R.dimen.quote_width);
+            sQuoteColor = ContextCompat.getColor(context, R.color.quote);
         }
         String[] lines = userMessage.split("\n");
 
@@ -388,7 +457,8 @@ public class Formatter {
             start += line.length() - maxIndent + 1;
         }
 
-        view.setText(spannable);
+        EmojiHelper.createEmoji(spannable);
+        return spannable;
     }
 
     @BindingAdapter("regexpLinkifyCommitsOnly")
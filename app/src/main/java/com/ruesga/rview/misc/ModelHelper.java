@@ -34,6 +34,7 @@ import com.ruesga.rview.gerrit.model.AddReviewerResultInfo;
 import com.ruesga.rview.gerrit.model.ApprovalInfo;
 import com.ruesga.rview.gerrit.model.ChangeInfo;
 import com.ruesga.rview.gerrit.model.ChangeMessageInfo;
+import com.ruesga.rview.gerrit.model.CommentInfo;
 import com.ruesga.rview.gerrit.model.Features;
 import com.ruesga.rview.gerrit.model.FileStatus;
 import com.ruesga.rview.gerrit.model.LabelInfo;
@@ -131,8 +132,8 @@ public class ModelHelper {
         if (isTemporaryTrustAllCertificatesAccessGranted(account)) {
             trustAllCerts = true;
         }
-        Authorization authorization = new Authorization(
-                account.mAccount.username, account.mToken, trustAllCerts);
+        Authorization authorization = new Authorization(account.mAccount.username,
+                account.mToken, trustAllCerts, CacheHelper.MAX_DISK_CACHE);
         return GerritServiceFactory.getInstance(
                 context.getApplicationContext(), account.mRepository.mUrl, authorization);
     }
@@ -642,6 +643,59 @@ public class ModelHelper {
         change.messages = messages;
     }
 
+    public static ChangeMessageInfo copyChangeMessage(ChangeMessageInfo message) {
+        ChangeMessageInfo copy = new ChangeMessageInfo();
+        copy.id = message.id;
+        copy.author = message.author;
+        copy.realAuthor = message.realAuthor;
+        copy.date = message.date;
+        copy.message = message.message;
+        copy.tag = message.tag;
+        copy.revisionNumber = message.revisionNumber;
+        copy._reviewer_updates = new ArrayList<>(message._reviewer_updates);
+        return copy;
+    }
+
+    // Api results could be shared with other callers, so copy them before modifying them
+    public static CommentInfo copyComment(CommentInfo comment) {
+        CommentInfo copy = new CommentInfo();
+        copy.patchSet = comment.patchSet;
+        copy.id = comment.id;
+        copy.path = comment.path;
+        copy.side = comment.side;
+        copy.parent = comment.parent;
+        copy.line = comment.line;
+        copy.range = comment.range;
+        copy.inReplyTo = comment.inReplyTo;
+        copy.message = comment.message;
+        copy.updated = comment.updated;
+        copy.author = comment.author;
+        copy.tag = comment.tag;
+        copy.unresolved = comment.unresolved;
+        copy.draft = comment.draft;
+        copy.messagePatchSet = comment.messagePatchSet;
+        return copy;
+    }
+
+    public static Map<String, List<CommentInfo>> copyComments(
+            Map<String, List<CommentInfo>> comments) {
+        if (comments == null) {
+            return null;
+        }
+        Map<String, List<CommentInfo>> copy = new HashMap<>(comments.size());
+        for (Map.Entry<String, List<CommentInfo>> entry : comments.entrySet()) {
+            List<CommentInfo> items = null;
+            if (entry.getValue() != null) {
+                items = new ArrayList<>(entry.getValue().size());
+                for (CommentInfo comment : entry.getValue()) {
+                    items.add(copyComment(comment));
+                }
+            }
+            copy.put(entry.getKey(), items);
+        }
+        return copy;
+    }
+
     public static boolean isCommitMessage(String name) {
         return name != null && (name.equals(Constants.COMMIT_MESSAGE)
                 || name.equals(Constants.COMMIT_MESSAGE.substring(1)));
@@ -26,12 +26,26 @@ public class NetworkingHelper {
 
     private static final String TAG = "NetworkingHelper";
 
+    private static OkHttpClient sNetworkClient;
+
+    /**
+     * Returns the client for the non Gerrit requests. Derive a new one from it if it
+     * needs to be customized.
+     */
+    public static synchronized OkHttpClient getNetworkClient() {
+        if (sNetworkClient == null) {
+            sNetworkClient = OkHttpHelper.getSafeClientBuilder()
+                    .readTimeout(20000, java.util.concurrent.TimeUnit.MILLISECONDS)
+                    .followRedirects(true)
+                    .followSslRedirects(true)
+                    .addInterceptor(createLoggingInterceptor())
+                    .build();
+        }
+        return sNetworkClient;
+    }
+
     public static OkHttpClient.Builder createNetworkClient() {
-        return OkHttpHelper.getSafeClientBuilder()
-            .readTimeout(20000, java.util.concurrent.TimeUnit.MILLISECONDS)
-            .followRedirects(true)
-            .followSslRedirects(true)
-            .addInterceptor(createLoggingInterceptor());
+        return getNetworkClient().newBuilder();
     }
 
     private static HttpLoggingInterceptor createLoggingInterceptor() {
@@ -23,6 +23,8 @@ import com.ruesga.rview.gerrit.BuildConfig;
 import com.ruesga.rview.gerrit.GsonHelper;
 import com.ruesga.rview.gerrit.PlatformAbstractionLayer;
 
+import java.io.File;
+
 public class SerializationManager {
 
     private static class AndroidPlatformAbstractionLayer implements PlatformAbstractionLayer {
@@ -55,10 +57,16 @@ public class SerializationManager {
         public boolean hasConnectivity() {
             return false;
         }
+
+        @Override
+        public File getCacheDir() {
+            return null;
+        }
     }
 
 
     private static Gson sGson;
+    private static Gson sInternedGson;
 
     public static Gson getInstance() {
         if (sGson == null) {
@@ -67,4 +75,16 @@ public class SerializationManager {
         }
         return sGson;
     }
+
+    /**
+     * Returns a serializer that interns the deserialized accounts. Use it to read large
+     * cached data that is only displayed, since the accounts are shared between reads.
+     */
+    public static Gson getInternedInstance() {
+        if (sInternedGson == null) {
+            sInternedGson = GsonHelper.createGerritGsonBuilder(
+                    false, true, new AndroidPlatformAbstractionLayer()).create();
+        }
+        return sInternedGson;
+    }
 }
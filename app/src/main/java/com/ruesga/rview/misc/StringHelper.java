@@ -28,6 +28,8 @@ import java.text.DecimalFormat;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -70,6 +72,9 @@ public class StringHelper {
     public static final Pattern PATCHSET_LINE_PATTERN = Pattern.compile("^Patch Set [\\d]+: .*");
     public static final Pattern VOTE_PATTERN = Pattern.compile("( ([\\w-]+([+-]\\d+)|([-])[\\w-]+))");
 
+    private static final String REGEXP_META_CHARS = "\\[](){}.*+?^$|";
+    private static final Map<String, Pattern> sCompiledPatterns = new ConcurrentHashMap<>();
+
     public static String cleanUpParagraphs(String message) {
         String msg = message;
         do {
@@ -362,7 +367,24 @@ public class StringHelper {
 
     public static int countOccurrences(String find, String in, int start, int end) {
         int count = 0;
-        Pattern pattern = Pattern.compile(find);
+        if (isLiteral(find)) {
+            // No need of a regexp. Just look for the matches until the end bound
+            final int len = find.length();
+            int i = 0;
+            while ((i = in.indexOf(find, i)) != -1 && i + len <= end) {
+                if (i >= start) {
+                    count++;
+                }
+                i += Math.max(len, 1);
+            }
+            return count;
+        }
+
+        Pattern pattern = sCompiledPatterns.get(find);
+        if (pattern == null) {
+            pattern = Pattern.compile(find);
+            sCompiledPatterns.put(find, pattern);
+        }
         Matcher matcher = pattern.matcher(in);
         while (matcher.find()) {
             if (matcher.start() >= start && matcher.end() <= end) {
@@ -372,6 +394,16 @@ public class StringHelper {
         return count;
     }
 
+    private static boolean isLiteral(String find) {
+        final int count = find.length();
+        for (int i = 0; i < count; i++) {
+            if (REGEXP_META_CHARS.indexOf(find.charAt(i)) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static Uri buildUriAndEnsureScheme(String src) {
         Uri uri = Uri.parse(src);
         if (uri.getScheme() == null) {
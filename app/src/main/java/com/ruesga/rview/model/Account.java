@@ -43,6 +43,27 @@ public class Account implements Parcelable, Comparable<Account> {
     public Account() {
     }
 
+    /**
+     * Creates a copy of an account that can be modified without affecting the original one.
+     */
+    public Account(Account account) {
+        mRepository = account.mRepository;
+        mToken = account.mToken;
+        mNotificationsSenderId = account.mNotificationsSenderId;
+        mServerVersion = account.mServerVersion;
+        mServerInfo = account.mServerInfo;
+        if (account.mAccount != null) {
+            mAccount = new AccountInfo();
+            mAccount.accountId = account.mAccount.accountId;
+            mAccount.name = account.mAccount.name;
+            mAccount.username = account.mAccount.username;
+            mAccount.email = account.mAccount.email;
+            mAccount.secondaryEmails = account.mAccount.secondaryEmails;
+            mAccount.avatars = account.mAccount.avatars;
+            mAccount.status = account.mAccount.status;
+        }
+    }
+
     protected Account(Parcel in) {
         mRepository = SerializationManager.getInstance().fromJson(in.readString(), Repository.class);
         mAccount = SerializationManager.getInstance().fromJson(in.readString(), AccountInfo.class);
@@ -20,7 +20,9 @@ import com.ruesga.rview.gerrit.model.ChangeStatus;
 import java.util.Date;
 
 public class Stats {
+    public int mLegacyChangeId;
     public Date mDate;
+    public Date mUpdated;
     public ChangeStatus mStatus;
     public String mDescription;
     public String mCrossDescription;
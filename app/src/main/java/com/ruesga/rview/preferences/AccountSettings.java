@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.preferences;
+
+import android.content.SharedPreferences;
+
+import static com.ruesga.rview.preferences.Constants.DEFAULT_DISPLAY_FORMAT;
+import static com.ruesga.rview.preferences.Constants.DEFAULT_FETCHED_ITEMS;
+import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_ANIMATED_AVATARS;
+import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_DIFF_MODE;
+import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_DISPLAY_FORMAT;
+import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_DISPLAY_STATUSES;
+import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_FETCHED_ITEMS;
+import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_HIGHLIGHT_INTRALINE_DIFFS;
+import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_HIGHLIGHT_TABS;
+import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_HIGHLIGHT_TRAILING_WHITESPACES;
+import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_HIGHLIGHT_UNREVIEWED;
+import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_SHORT_FILENAMES;
+import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_TEXT_SIZE_FACTOR;
+import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_WRAP_MODE;
+
+/**
+ * An immutable snapshot of the most used settings of an account. Obtain it through
+ * {@link Preferences#getAccountSettings(android.content.Context, com.ruesga.rview.model.Account)},
+ * which rebuilds it only when the account preferences change.
+ */
+public final class AccountSettings {
+    private final String mDiffMode;
+    private final boolean mWrapMode;
+    private final float mTextSizeFactor;
+    private final boolean mHighlightTabs;
+    private final boolean mHighlightTrailingWhitespaces;
+    private final boolean mHighlightIntralineDiffs;
+    private final int mFetchedItems;
+    private final String mDisplayFormat;
+    private final boolean mHighlightUnreviewed;
+    private final boolean mAnimatedAvatars;
+    private final boolean mDisplayStatuses;
+    private final boolean mShortFilenames;
+
+    AccountSettings(SharedPreferences prefs, String defaultDiffMode) {
+        mDiffMode = prefs.getString(PREF_ACCOUNT_DIFF_MODE, defaultDiffMode);
+        mWrapMode = prefs.getBoolean(PREF_ACCOUNT_WRAP_MODE, true);
+        mTextSizeFactor = prefs.getFloat(
+                PREF_ACCOUNT_TEXT_SIZE_FACTOR, Constants.DEFAULT_TEXT_SIZE_NORMAL);
+        mHighlightTabs = prefs.getBoolean(PREF_ACCOUNT_HIGHLIGHT_TABS, true);
+        mHighlightTrailingWhitespaces =
+                prefs.getBoolean(PREF_ACCOUNT_HIGHLIGHT_TRAILING_WHITESPACES, true);
+        mHighlightIntralineDiffs = prefs.getBoolean(PREF_ACCOUNT_HIGHLIGHT_INTRALINE_DIFFS, true);
+        mFetchedItems = Integer.valueOf(
+                prefs.getString(PREF_ACCOUNT_FETCHED_ITEMS, DEFAULT_FETCHED_ITEMS));
+        mDisplayFormat = prefs.getString(PREF_ACCOUNT_DISPLAY_FORMAT, DEFAULT_DISPLAY_FORMAT);
+        mHighlightUnreviewed = prefs.getBoolean(PREF_ACCOUNT_HIGHLIGHT_UNREVIEWED, true);
+        mAnimatedAvatars = prefs.getBoolean(PREF_ACCOUNT_ANIMATED_AVATARS, true);
+        mDisplayStatuses = prefs.getBoolean(PREF_ACCOUNT_DISPLAY_STATUSES, true);
+        mShortFilenames = prefs.getBoolean(PREF_ACCOUNT_SHORT_FILENAMES, false);
+    }
+
+    public String getDiffMode() {
+        return mDiffMode;
+    }
+
+    public boolean isWrapMode() {
+        return mWrapMode;
+    }
+
+    public float getTextSizeFactor() {
+        return mTextSizeFactor;
+    }
+
+    public boolean isHighlightTabs() {
+        return mHighlightTabs;
+    }
+
+    public boolean isHighlightTrailingWhitespaces() {
+        return mHighlightTrailingWhitespaces;
+    }
+
+    public boolean isHighlightIntralineDiffs() {
+        return mHighlightIntralineDiffs;
+    }
+
+    public int getFetchedItems() {
+        return mFetchedItems;
+    }
+
+    public String getDisplayFormat() {
+        return mDisplayFormat;
+    }
+
+    public boolean isHighlightUnreviewed() {
+        return mHighlightUnreviewed;
+    }
+
+    public boolean isAnimatedAvatars() {
+        return mAnimatedAvatars;
+    }
+
+    public boolean isDisplayStatuses() {
+        return mDisplayStatuses;
+    }
+
+    public boolean isShortFilenames() {
+        return mShortFilenames;
+    }
+}
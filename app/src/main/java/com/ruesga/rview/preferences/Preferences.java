@@ -33,9 +33,11 @@ import com.ruesga.rview.model.CustomFilter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -50,7 +52,6 @@ import static com.ruesga.rview.preferences.Constants.MAX_SEARCH_HISTORY;
 import static com.ruesga.rview.preferences.Constants.MY_FILTERS_GROUP_BASE_ID;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNTS;
-import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_ANIMATED_AVATARS;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_ATTACHMENTS_IMAGE_OPTIMIZATIONS;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_ATTACHMENTS_IMAGE_OPTIMIZATIONS_FORMAT;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_ATTACHMENTS_IMAGE_OPTIMIZATIONS_QUALITY;
@@ -59,15 +60,11 @@ import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_CUSTOM_FILTERS
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_DASHBOARD;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_DASHBOARD_OUTGOING_SORT;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_DIFF_MODE;
-import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_DISPLAY_FORMAT;
-import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_DISPLAY_STATUSES;
-import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_FETCHED_ITEMS;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_FOLLOWING;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_HANDLE_LINKS;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_HIGHLIGHT_INTRALINE_DIFFS;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_HIGHLIGHT_TABS;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_HIGHLIGHT_TRAILING_WHITESPACES;
-import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_HIGHLIGHT_UNREVIEWED;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_HOME_PAGE;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_INLINE_COMMENT_IN_MESSAGES;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_MESSAGES_FOLDED;
@@ -76,7 +73,6 @@ import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_NOTIFICATIONS;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_NOTIFICATIONS_EVENTS;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_SEARCH_HISTORY;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_SEARCH_MODE;
-import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_SHORT_FILENAMES;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_TEXT_SIZE_FACTOR;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_TOGGLE_CI_MESSAGES;
 import static com.ruesga.rview.preferences.Constants.PREF_ACCOUNT_TOGGLE_TAGGED_MESSAGES;
@@ -88,6 +84,23 @@ import static com.ruesga.rview.preferences.Constants.SEARCH_MODE_CHANGE;
 
 public class Preferences {
 
+    // Accounts snapshot. SharedPreferences returns the same instances until a value is
+    // changed, so the raw values are compared by identity to know when to rebuild it
+    private static final Object sAccountsLock = new Object();
+    private static Set<String> sAccountsSource;
+    private static List<Account> sAccounts;
+    private static String sAccountSource;
+    private static List<Account> sAccountAccounts;
+    private static Account sAccount;
+
+    // Account settings snapshots (by account preferences name)
+    private static final Object sAccountSettingsLock = new Object();
+    private static final Map<String, AccountSettings> sAccountSettings = new HashMap<>();
+    private static final Set<String> sObservedAccountPreferences = new HashSet<>();
+    private static int sAccountSettingsGeneration;
+    private static final SharedPreferences.OnSharedPreferenceChangeListener
+            sAccountSettingsListener = (prefs, key) -> invalidateAllAccountSettings();
+
     private static String getPreferencesName(Context context) {
         return context.getPackageName();
     }
@@ -122,22 +135,36 @@ public class Preferences {
         editor.apply();
     }
 
+    /**
+     * Return a copy of the current account. Any change to it must be saved back to
+     * the preferences.
+     */
+    @SuppressWarnings("StringEquality")
     public static Account getAccount(Context context) {
-        final Gson gson = SerializationManager.getInstance();
         String value = getPreferences(context).getString(PREF_ACCOUNT, null);
         if (value == null) {
             return null;
         }
 
-        // Ensure we obtain the most refreshed data from account
-        Account account = gson.fromJson(value, Account.class);
-        List<Account> accounts = getAccounts(context);
-        for (Account acct : accounts) {
-            if (acct.getAccountHash().equals(account.getAccountHash())) {
-                return acct;
+        List<Account> accounts = getAccountsSnapshot(context);
+        synchronized (sAccountsLock) {
+            if (sAccount == null || sAccountSource != value || sAccountAccounts != accounts) {
+                // Ensure we obtain the most refreshed data from account
+                Account account = SerializationManager.getInstance().fromJson(
+                        value, Account.class);
+                final String accountHash = account.getAccountHash();
+                for (Account acct : accounts) {
+                    if (acct.getAccountHash().equals(accountHash)) {
+                        account = acct;
+                        break;
+                    }
+                }
+                sAccount = account;
+                sAccountSource = value;
+                sAccountAccounts = accounts;
             }
+            return new Account(sAccount);
         }
-        return account;
     }
 
     public static void setAccount(Context context, Account account) {
@@ -152,16 +179,31 @@ public class Preferences {
     }
 
     public static List<Account> getAccounts(Context context) {
-        final Gson gson = SerializationManager.getInstance();
+        List<Account> snapshot = getAccountsSnapshot(context);
+        List<Account> accounts = new ArrayList<>(snapshot.size());
+        for (Account account : snapshot) {
+            accounts.add(new Account(account));
+        }
+        return accounts;
+    }
+
+    private static List<Account> getAccountsSnapshot(Context context) {
         Set<String> set = getPreferences(context).getStringSet(PREF_ACCOUNTS, null);
-        List<Account> accounts = new ArrayList<>();
-        if (set != null) {
-            for (String s : set) {
-                accounts.add(gson.fromJson(s, Account.class));
+        synchronized (sAccountsLock) {
+            if (sAccounts == null || sAccountsSource != set) {
+                final Gson gson = SerializationManager.getInstance();
+                List<Account> accounts = new ArrayList<>();
+                if (set != null) {
+                    for (String s : set) {
+                        accounts.add(gson.fromJson(s, Account.class));
+                    }
+                    Collections.sort(accounts);
+                }
+                sAccounts = Collections.unmodifiableList(accounts);
+                sAccountsSource = set;
             }
-            Collections.sort(accounts);
+            return sAccounts;
         }
-        return accounts;
     }
 
     public static List<Account> addOrUpdateAccount(Context context, @NonNull Account account) {
@@ -221,6 +263,55 @@ public class Preferences {
         Editor editor = getAccountPreferences(context, account).edit();
         editor.clear();
         editor.apply();
+        invalidateAllAccountSettings();
+    }
+
+    /**
+     * Return a snapshot of the most used settings of an account, which is only rebuilt
+     * when the account preferences change.
+     */
+    public static AccountSettings getAccountSettings(Context context, @NonNull Account account) {
+        final String name = getAccountPreferencesName(account);
+        final int generation;
+        synchronized (sAccountSettingsLock) {
+            AccountSettings settings = sAccountSettings.get(name);
+            if (settings != null) {
+                return settings;
+            }
+            generation = sAccountSettingsGeneration;
+        }
+
+        SharedPreferences prefs = getAccountPreferences(context, account);
+        AccountSettings settings = new AccountSettings(prefs, getDefaultDiffMode(context));
+        synchronized (sAccountSettingsLock) {
+            if (sObservedAccountPreferences.add(name)) {
+                prefs.registerOnSharedPreferenceChangeListener(sAccountSettingsListener);
+            }
+            // Don't cache it if the preferences changed while we were reading them
+            if (generation == sAccountSettingsGeneration) {
+                sAccountSettings.put(name, settings);
+            }
+        }
+        return settings;
+    }
+
+    private static void invalidateAllAccountSettings() {
+        synchronized (sAccountSettingsLock) {
+            sAccountSettingsGeneration++;
+            sAccountSettings.clear();
+        }
+    }
+
+    private static void applyAccountSettings(Editor editor) {
+        editor.apply();
+
+        // Listeners may be notified later when not called from the main thread
+        invalidateAllAccountSettings();
+    }
+
+    private static String getDefaultDiffMode(Context context) {
+        return context.getResources().getBoolean(R.bool.config_is_tablet)
+                ? Constants.DIFF_MODE_SIDE_BY_SIDE : Constants.DIFF_MODE_UNIFIED;
     }
 
     public static String getAccountHomePage(Context context, Account account) {
@@ -263,31 +354,26 @@ public class Preferences {
         if (account == null) {
             return Integer.valueOf(DEFAULT_FETCHED_ITEMS);
         }
-        return Integer.valueOf(getAccountPreferences(context, account).getString(
-                PREF_ACCOUNT_FETCHED_ITEMS, DEFAULT_FETCHED_ITEMS));
+        return getAccountSettings(context, account).getFetchedItems();
     }
 
     public static String getAccountDisplayFormat(Context context, Account account) {
         if (account == null) {
             return DEFAULT_DISPLAY_FORMAT;
         }
-        return getAccountPreferences(context, account).getString(
-                PREF_ACCOUNT_DISPLAY_FORMAT, DEFAULT_DISPLAY_FORMAT);
+        return getAccountSettings(context, account).getDisplayFormat();
     }
 
     public static boolean isAccountAnimatedAvatars(Context context, Account account) {
-        return account == null || getAccountPreferences(context, account)
-                .getBoolean(PREF_ACCOUNT_ANIMATED_AVATARS, true);
+        return account == null || getAccountSettings(context, account).isAnimatedAvatars();
     }
 
     public static boolean isAccountDisplayStatuses(Context context, Account account) {
-        return account == null || getAccountPreferences(context, account)
-                .getBoolean(PREF_ACCOUNT_DISPLAY_STATUSES, true);
+        return account == null || getAccountSettings(context, account).isDisplayStatuses();
     }
 
     public static boolean isAccountHighlightUnreviewed(Context context, Account account) {
-        return account == null || getAccountPreferences(context, account)
-                .getBoolean(PREF_ACCOUNT_HIGHLIGHT_UNREVIEWED, true);
+        return account == null || getAccountSettings(context, account).isHighlightUnreviewed();
     }
 
     public static boolean isAccountHandleLinks(Context context, Account account) {
@@ -311,12 +397,10 @@ public class Preferences {
     }
 
     public static String getAccountDiffMode(Context context, Account account) {
-        String def = context.getResources().getBoolean(R.bool.config_is_tablet)
-                ? Constants.DIFF_MODE_SIDE_BY_SIDE : Constants.DIFF_MODE_UNIFIED;
         if (account == null) {
-            return def;
+            return getDefaultDiffMode(context);
         }
-        return getAccountPreferences(context, account).getString(PREF_ACCOUNT_DIFF_MODE, def);
+        return getAccountSettings(context, account).getDiffMode();
     }
 
     public static void setAccountDiffMode(Context context, Account account, String mode) {
@@ -326,12 +410,11 @@ public class Preferences {
 
         Editor editor = getAccountPreferences(context, account).edit();
         editor.putString(PREF_ACCOUNT_DIFF_MODE, mode);
-        editor.apply();
+        applyAccountSettings(editor);
     }
 
     public static boolean getAccountWrapMode(Context context, Account account) {
-        return account == null ||
-                getAccountPreferences(context, account).getBoolean(PREF_ACCOUNT_WRAP_MODE, true);
+        return account == null || getAccountSettings(context, account).isWrapMode();
     }
 
     public static void setAccountWrapMode(Context context, Account account, boolean wrap) {
@@ -341,7 +424,7 @@ public class Preferences {
 
         Editor editor = getAccountPreferences(context, account).edit();
         editor.putBoolean(PREF_ACCOUNT_WRAP_MODE, wrap);
-        editor.apply();
+        applyAccountSettings(editor);
     }
 
     public static float getAccountTextSizeFactor(Context context, Account account) {
@@ -349,8 +432,7 @@ public class Preferences {
             return Constants.DEFAULT_TEXT_SIZE_NORMAL;
         }
 
-        return getAccountPreferences(context, account).getFloat(
-                PREF_ACCOUNT_TEXT_SIZE_FACTOR, Constants.DEFAULT_TEXT_SIZE_NORMAL);
+        return getAccountSettings(context, account).getTextSizeFactor();
     }
 
     public static void setAccountTextSizeFactor(
@@ -361,12 +443,11 @@ public class Preferences {
 
         Editor editor = getAccountPreferences(context, account).edit();
         editor.putFloat(PREF_ACCOUNT_TEXT_SIZE_FACTOR, textSizeFactor);
-        editor.apply();
+        applyAccountSettings(editor);
     }
 
     public static boolean isAccountHighlightTabs(Context context, Account account) {
-        return account == null || getAccountPreferences(
-                context, account).getBoolean(PREF_ACCOUNT_HIGHLIGHT_TABS, true);
+        return account == null || getAccountSettings(context, account).isHighlightTabs();
     }
 
     public static void setAccountHighlightTabs(
@@ -377,12 +458,12 @@ public class Preferences {
 
         Editor editor = getAccountPreferences(context, account).edit();
         editor.putBoolean(PREF_ACCOUNT_HIGHLIGHT_TABS, highlight);
-        editor.apply();
+        applyAccountSettings(editor);
     }
 
     public static boolean isAccountHighlightTrailingWhitespaces(Context context, Account account) {
-        return account == null || getAccountPreferences(
-                context, account).getBoolean(PREF_ACCOUNT_HIGHLIGHT_TRAILING_WHITESPACES, true);
+        return account == null
+                || getAccountSettings(context, account).isHighlightTrailingWhitespaces();
     }
 
     public static void setAccountHighlightTrailingWhitespaces(
@@ -393,12 +474,12 @@ public class Preferences {
 
         Editor editor = getAccountPreferences(context, account).edit();
         editor.putBoolean(PREF_ACCOUNT_HIGHLIGHT_TRAILING_WHITESPACES, highlight);
-        editor.apply();
+        applyAccountSettings(editor);
     }
 
     public static boolean isAccountHighlightIntralineDiffs(Context context, Account account) {
-        return account == null || getAccountPreferences(
-                context, account).getBoolean(PREF_ACCOUNT_HIGHLIGHT_INTRALINE_DIFFS, true);
+        return account == null
+                || getAccountSettings(context, account).isHighlightIntralineDiffs();
     }
 
     public static void setAccountHighlightIntralineDiffs(
@@ -409,7 +490,7 @@ public class Preferences {
 
         Editor editor = getAccountPreferences(context, account).edit();
         editor.putBoolean(PREF_ACCOUNT_HIGHLIGHT_INTRALINE_DIFFS, highlight);
-        editor.apply();
+        applyAccountSettings(editor);
     }
 
 
@@ -461,8 +542,7 @@ public class Preferences {
     }
 
     public static boolean isAccountShortFilenames(Context context, Account account) {
-        return account != null && getAccountPreferences(
-                context, account).getBoolean(PREF_ACCOUNT_SHORT_FILENAMES, false);
+        return account != null && getAccountSettings(context, account).isShortFilenames();
     }
 
     public static boolean isAccountImageAttachmentsOptimizations(Context context, Account account) {
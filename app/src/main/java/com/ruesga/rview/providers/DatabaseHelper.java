@@ -24,7 +24,7 @@ class DatabaseHelper extends SQLiteOpenHelper {
 
     private static final String TAG = "DatabaseHelper";
 
-    private static final int VERSION = 1;
+    private static final int VERSION = 2;
     private static final String DATABASE_NAME = "rview.db";
 
     DatabaseHelper(Context context) {
@@ -40,6 +40,9 @@ class DatabaseHelper extends SQLiteOpenHelper {
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
         Log.i(TAG, "Database was upgraded from " + oldVersion + " to " + newVersion + ".");
+        if (oldVersion < 2) {
+            createStatsTables(db);
+        }
     }
 
     @Override
@@ -50,7 +53,10 @@ class DatabaseHelper extends SQLiteOpenHelper {
 
     private void recreateDatabase(SQLiteDatabase db) {
         db.execSQL("DROP TABLE IF EXISTS " + NotificationEntity.TABLE_NAME + ";");
+        db.execSQL("DROP TABLE IF EXISTS " + StatsEntity.TABLE_NAME + ";");
+        db.execSQL("DROP TABLE IF EXISTS " + StatsEntity.SYNC_TABLE_NAME + ";");
         createNotificationsTable(db);
+        createStatsTables(db);
     }
 
     private void createNotificationsTable(SQLiteDatabase db) {
@@ -70,4 +76,28 @@ class DatabaseHelper extends SQLiteOpenHelper {
                 NotificationEntity.TABLE_NAME +"(" + NotificationEntity.ACCOUNT_ID + ");");
         Log.i(TAG, NotificationEntity.TABLE_NAME + " table created.");
     }
+
+    private void createStatsTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + StatsEntity.TABLE_NAME + " (" +
+                StatsEntity._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                StatsEntity.ACCOUNT_ID + " TEXT NOT NULL, " +
+                StatsEntity.STATS_KEY + " TEXT NOT NULL, " +
+                StatsEntity.CHANGE_ID + " INTEGER NOT NULL, " +
+                StatsEntity.STATUS + " TEXT NOT NULL, " +
+                StatsEntity.DATE + " INTEGER NOT NULL, " +
+                StatsEntity.UPDATED + " INTEGER NOT NULL, " +
+                StatsEntity.DESCRIPTION + " TEXT, " +
+                StatsEntity.CROSS_DESCRIPTION + " TEXT, " +
+                StatsEntity.CROSS_ITEM + " TEXT, " +
+                "UNIQUE (" + StatsEntity.ACCOUNT_ID + ", " + StatsEntity.STATS_KEY + ", "
+                        + StatsEntity.CHANGE_ID + ") ON CONFLICT REPLACE);");
+        db.execSQL("CREATE TABLE " + StatsEntity.SYNC_TABLE_NAME + " (" +
+                StatsEntity._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                StatsEntity.ACCOUNT_ID + " TEXT NOT NULL, " +
+                StatsEntity.STATS_KEY + " TEXT NOT NULL, " +
+                StatsEntity.LAST_SYNC + " INTEGER NOT NULL, " +
+                "UNIQUE (" + StatsEntity.ACCOUNT_ID + ", " + StatsEntity.STATS_KEY
+                        + ") ON CONFLICT REPLACE);");
+        Log.i(TAG, StatsEntity.TABLE_NAME + " tables created.");
+    }
 }
\ No newline at end of file
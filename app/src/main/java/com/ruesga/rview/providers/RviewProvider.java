@@ -42,15 +42,21 @@ public class RviewProvider extends ContentProvider {
 
     public static final String AUTHORITY = "com.ruesga.rview";
 
+    static final String QUERY_PARAMETER_GROUP_BY = "group_by";
+
     private DatabaseHelper mOpenHelper;
 
     private static final int NOTIFICATIONS_DATA = 1;
     private static final int NOTIFICATIONS_DATA_ID = 2;
+    private static final int STATS_DATA = 3;
+    private static final int STATS_SYNC_DATA = 4;
 
     private static final UriMatcher sURLMatcher = new UriMatcher(UriMatcher.NO_MATCH);
     static {
         sURLMatcher.addURI(AUTHORITY, NotificationEntity.TABLE_NAME, NOTIFICATIONS_DATA);
         sURLMatcher.addURI(AUTHORITY, NotificationEntity.TABLE_NAME + "/*", NOTIFICATIONS_DATA_ID);
+        sURLMatcher.addURI(AUTHORITY, StatsEntity.TABLE_NAME, STATS_DATA);
+        sURLMatcher.addURI(AUTHORITY, StatsEntity.SYNC_TABLE_NAME, STATS_SYNC_DATA);
     }
 
     public RviewProvider() {
@@ -70,6 +76,10 @@ public class RviewProvider extends ContentProvider {
                 return "vnd.android.cursor.dir/" + NotificationEntity.TABLE_NAME;
             case NOTIFICATIONS_DATA_ID:
                 return "vnd.android.cursor.item/" + NotificationEntity.TABLE_NAME;
+            case STATS_DATA:
+                return "vnd.android.cursor.dir/" + StatsEntity.TABLE_NAME;
+            case STATS_SYNC_DATA:
+                return "vnd.android.cursor.dir/" + StatsEntity.SYNC_TABLE_NAME;
             default:
                 throw new IllegalArgumentException("Unknown URL");
         }
@@ -91,12 +101,21 @@ public class RviewProvider extends ContentProvider {
                 qb.appendWhere(NotificationEntity._ID + "=");
                 qb.appendWhere(checkAndReturnValidId(uri));
                 break;
+            case STATS_DATA:
+                qb.setTables(StatsEntity.TABLE_NAME);
+                break;
+            case STATS_SYNC_DATA:
+                qb.setTables(StatsEntity.SYNC_TABLE_NAME);
+                break;
             default:
                 throw new IllegalArgumentException("Unknown URL " + uri);
         }
 
+        // Allow to aggregate the data in the database
+        String groupBy = uri.getQueryParameter(QUERY_PARAMETER_GROUP_BY);
+
         SQLiteDatabase db = mOpenHelper.getReadableDatabase();
-        Cursor c = qb.query(db, projection, where, args, null, null, sort);
+        Cursor c = qb.query(db, projection, where, args, groupBy, null, sort);
         if (c == null) {
             Log.e(TAG, "Failed query URL: " + uri);
         } else {
@@ -118,6 +137,14 @@ public class RviewProvider extends ContentProvider {
                 rowId = db.insert(NotificationEntity.TABLE_NAME, null, initialValues);
                 contentUri = NotificationEntity.CONTENT_URI;
                 break;
+            case STATS_DATA:
+                rowId = db.insert(StatsEntity.TABLE_NAME, null, initialValues);
+                contentUri = StatsEntity.CONTENT_URI;
+                break;
+            case STATS_SYNC_DATA:
+                rowId = db.insert(StatsEntity.SYNC_TABLE_NAME, null, initialValues);
+                contentUri = StatsEntity.SYNC_CONTENT_URI;
+                break;
         }
 
         if (contentUri != null) {
@@ -141,6 +168,12 @@ public class RviewProvider extends ContentProvider {
                 count = db.update(NotificationEntity.TABLE_NAME, values,
                         NotificationEntity._ID + " = ?", new String[]{id});
                 break;
+            case STATS_DATA:
+                count = db.update(StatsEntity.TABLE_NAME, values, where, args);
+                break;
+            case STATS_SYNC_DATA:
+                count = db.update(StatsEntity.SYNC_TABLE_NAME, values, where, args);
+                break;
         }
 
         if (count > 0) {
@@ -166,6 +199,12 @@ public class RviewProvider extends ContentProvider {
                 }
                 count = db.delete(NotificationEntity.TABLE_NAME, where, args);
                 break;
+            case STATS_DATA:
+                count = db.delete(StatsEntity.TABLE_NAME, where, args);
+                break;
+            case STATS_SYNC_DATA:
+                count = db.delete(StatsEntity.SYNC_TABLE_NAME, where, args);
+                break;
         }
 
         if (count > 0) {
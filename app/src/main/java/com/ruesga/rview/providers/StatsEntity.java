@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.providers;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.OperationApplicationException;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.RemoteException;
+import android.provider.BaseColumns;
+import android.text.format.DateUtils;
+
+import com.ruesga.rview.gerrit.model.ChangeStatus;
+import com.ruesga.rview.model.Stats;
+import com.ruesga.rview.model.StatsSummary;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.ruesga.rview.providers.RviewProvider.AUTHORITY;
+
+/**
+ * A local store of the changes used to build the statistics of an account or project, so
+ * only the changes updated since the last sync need to be fetched from the server.
+ */
+public class StatsEntity implements BaseColumns {
+
+    static final String TABLE_NAME = "stats";
+    static final String SYNC_TABLE_NAME = "stats_sync";
+
+    public static final Uri CONTENT_URI = Uri.parse("content://" + AUTHORITY + "/" + TABLE_NAME);
+    public static final Uri SYNC_CONTENT_URI =
+            Uri.parse("content://" + AUTHORITY + "/" + SYNC_TABLE_NAME);
+
+    static final String ACCOUNT_ID = "account_id";
+    static final String STATS_KEY = "stats_key";
+    static final String CHANGE_ID = "change_id";
+    static final String STATUS = "status";
+    static final String DATE = "date";
+    static final String UPDATED = "updated";
+    static final String DESCRIPTION = "description";
+    static final String CROSS_DESCRIPTION = "cross_description";
+    static final String CROSS_ITEM = "cross_item";
+    static final String LAST_SYNC = "last_sync";
+
+    private static final String[] STATS_PROJECTION = {
+            STATUS,
+            DATE,
+            DESCRIPTION,
+            CROSS_DESCRIPTION,
+            CROSS_ITEM
+    };
+
+    private static final int STATUS_IDX = 0;
+    private static final int DATE_IDX = 1;
+    private static final int DESCRIPTION_IDX = 2;
+    private static final int CROSS_DESCRIPTION_IDX = 3;
+    private static final int CROSS_ITEM_IDX = 4;
+
+    // Stats are aggregated by UTC days, the same way the activity chart does
+    private static final String DAY = "(" + DATE + " / " + DateUtils.DAY_IN_MILLIS + ") * "
+            + DateUtils.DAY_IN_MILLIS;
+
+    private static final String WHERE_STATS = ACCOUNT_ID + " = ? and " + STATS_KEY + " = ?";
+
+    /**
+     * Returns the max updated time of the synced changes (or the time of the last sync if
+     * it didn't return changes), or 0 if the stats were never synced.
+     */
+    public static long getLastSync(Context context, String accountId, String key) {
+        ContentResolver cr = context.getContentResolver();
+        String[] projection = {LAST_SYNC};
+        String[] args = {accountId, key};
+        Cursor c = cr.query(SYNC_CONTENT_URI, projection, WHERE_STATS, args, null);
+        if (c != null) {
+            try {
+                if (c.moveToFirst()) {
+                    return c.getLong(0);
+                }
+            } finally {
+                c.close();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Merges the fetched changes into the store and drops the changes not updated since
+     * {@code minDate}. {@code syncTime} is the time the changes were requested at.
+     */
+    public static void sync(Context context, String accountId, String key,
+            List<Stats> stats, boolean fullSync, long minDate, long syncTime)
+            throws RemoteException, OperationApplicationException {
+        ArrayList<ContentProviderOperation> ops = new ArrayList<>(stats.size() + 3);
+        String[] args = {accountId, key};
+        if (fullSync) {
+            ops.add(ContentProviderOperation.newDelete(CONTENT_URI)
+                    .withSelection(WHERE_STATS, args)
+                    .build());
+        }
+
+        long lastSync = fullSync ? 0 : getLastSync(context, accountId, key);
+        for (Stats s : stats) {
+            // Rows are unique by change, so this replaces any previous version of the change
+            ops.add(ContentProviderOperation.newInsert(CONTENT_URI)
+                    .withValue(ACCOUNT_ID, accountId)
+                    .withValue(STATS_KEY, key)
+                    .withValue(CHANGE_ID, s.mLegacyChangeId)
+                    .withValue(STATUS, s.mStatus.name())
+                    .withValue(DATE, s.mDate.getTime())
+                    .withValue(UPDATED, s.mUpdated.getTime())
+                    .withValue(DESCRIPTION, s.mDescription)
+                    .withValue(CROSS_DESCRIPTION, s.mCrossDescription)
+                    .withValue(CROSS_ITEM, s.mCrossItem)
+                    .build());
+            lastSync = Math.max(lastSync, s.mUpdated.getTime());
+        }
+        if (stats.isEmpty()) {
+            // Nothing changed until the request, so don't ask again for the same changes
+            lastSync = Math.max(lastSync, syncTime);
+        }
+
+        ops.add(ContentProviderOperation.newDelete(CONTENT_URI)
+                .withSelection(WHERE_STATS + " and " + UPDATED + " < ?",
+                        new String[]{accountId, key, String.valueOf(minDate)})
+                .build());
+        ops.add(ContentProviderOperation.newInsert(SYNC_CONTENT_URI)
+                .withValue(ACCOUNT_ID, accountId)
+                .withValue(STATS_KEY, key)
+                .withValue(LAST_SYNC, lastSync)
+                .build());
+
+        context.getContentResolver().applyBatch(AUTHORITY, ops);
+    }
+
+    /**
+     * Builds the statistics of the stored changes, aggregating them in the database.
+     */
+    public static StatsSummary getStatsSummary(Context context, String accountId, String key) {
+        StatsSummary summary = new StatsSummary();
+        summary.mStats = getStats(context, accountId, key);
+
+        for (Map.Entry<String, Integer> status
+                : aggregate(context, accountId, key, STATUS).entrySet()) {
+            switch (ChangeStatus.valueOf(status.getKey())) {
+                case NEW:
+                    summary.mOpen = status.getValue();
+                    break;
+                case MERGED:
+                    summary.mMerged = status.getValue();
+                    break;
+                case ABANDONED:
+                    summary.mAbandoned = status.getValue();
+                    break;
+            }
+        }
+
+        summary.mActivity = new TreeMap<>();
+        for (Map.Entry<String, Integer> day
+                : aggregate(context, accountId, key, DAY).entrySet()) {
+            summary.mActivity.put(Long.parseLong(day.getKey()), day.getValue());
+        }
+        return summary;
+    }
+
+    public static void deleteAccountStats(Context context, String accountId) {
+        ContentResolver cr = context.getContentResolver();
+        String where = ACCOUNT_ID + " = ?";
+        String[] args = new String[]{accountId};
+        cr.delete(CONTENT_URI, where, args);
+        cr.delete(SYNC_CONTENT_URI, where, args);
+    }
+
+    private static List<Stats> getStats(Context context, String accountId, String key) {
+        List<Stats> stats = new ArrayList<>();
+        ContentResolver cr = context.getContentResolver();
+        String[] args = {accountId, key};
+        String sort = DATE + " ASC";
+        Cursor c = cr.query(CONTENT_URI, STATS_PROJECTION, WHERE_STATS, args, sort);
+        if (c != null) {
+            try {
+                if (c.moveToFirst()) {
+                    do {
+                        Stats s = new Stats();
+                        s.mStatus = ChangeStatus.valueOf(c.getString(STATUS_IDX));
+                        s.mDate = new Date(c.getLong(DATE_IDX));
+                        s.mDescription = c.getString(DESCRIPTION_IDX);
+                        s.mCrossDescription = c.getString(CROSS_DESCRIPTION_IDX);
+                        s.mCrossItem = c.getString(CROSS_ITEM_IDX);
+                        stats.add(s);
+                    } while (c.moveToNext());
+                }
+            } finally {
+                c.close();
+            }
+        }
+        return stats;
+    }
+
+    private static Map<String, Integer> aggregate(
+            Context context, String accountId, String key, String groupBy) {
+        Map<String, Integer> aggregated = new TreeMap<>();
+        ContentResolver cr = context.getContentResolver();
+        Uri uri = CONTENT_URI.buildUpon()
+                .appendQueryParameter(RviewProvider.QUERY_PARAMETER_GROUP_BY, groupBy)
+                .build();
+        String[] projection = {groupBy, "count(*)"};
+        String[] args = {accountId, key};
+        Cursor c = cr.query(uri, projection, WHERE_STATS, args, null);
+        if (c != null) {
+            try {
+                if (c.moveToFirst()) {
+                    do {
+                        aggregated.put(c.getString(0), c.getInt(1));
+                    } while (c.moveToNext());
+                }
+            } finally {
+                c.close();
+            }
+        }
+        return aggregated;
+    }
+}
@@ -45,6 +45,7 @@ public class CacheCleanerReceiver extends BroadcastReceiver {
     public static void cleanCache(Context context, boolean force) {
         cleanAttachmentCache(context, false);
         cleanPrivateDirectory(context, force);
+        CacheHelper.trimAccountCaches(context);
         schedule(context);
     }
 
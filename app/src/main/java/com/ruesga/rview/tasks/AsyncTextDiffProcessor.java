@@ -16,20 +16,16 @@
 package com.ruesga.rview.tasks;
 
 import android.content.Context;
-import android.graphics.Typeface;
 import android.os.AsyncTask;
-import android.text.Spannable;
-import android.text.SpannableStringBuilder;
-import android.text.Spanned;
-import android.text.style.BackgroundColorSpan;
-import android.text.style.ForegroundColorSpan;
-import android.text.style.StyleSpan;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
 
 import com.ruesga.rview.R;
 import com.ruesga.rview.gerrit.model.BlameInfo;
 import com.ruesga.rview.gerrit.model.CommentInfo;
 import com.ruesga.rview.gerrit.model.DiffContentInfo;
 import com.ruesga.rview.gerrit.model.DiffInfo;
+import com.ruesga.rview.gerrit.model.DiffIntralineInfo;
 import com.ruesga.rview.gerrit.model.RangeInfo;
 import com.ruesga.rview.misc.AndroidHelper;
 import com.ruesga.rview.misc.Formatter;
@@ -41,24 +37,34 @@ import com.ruesga.rview.widget.DiffView.SkipLineModel;
 import java.lang.ref.WeakReference;
 import java.text.DateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Date;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import androidx.core.content.ContextCompat;
 import androidx.core.util.Pair;
 
-public class AsyncTextDiffProcessor extends AsyncTask<Void, Void, List<DiffView.AbstractModel>> {
+public class AsyncTextDiffProcessor extends AsyncTask<Void, List<DiffView.AbstractModel>,
+        List<DiffView.AbstractModel>> {
 
     public interface OnTextDiffProcessEndedListener {
+        /**
+         * Called in streaming mode every time a new chunk of the model is available.
+         * Chunks are delivered in order, and must be appended to the previous ones.
+         */
+        void onTextDiffChunkProcessed(List<DiffView.AbstractModel> chunk, boolean first);
+
         void onTextDiffProcessEnded(List<DiffView.AbstractModel> model);
     }
 
     public static final int SKIPPED_LINES = 10;
 
-    private final Pattern HIGHLIGHT_TRAIL_SPACES_PATTERN
-            = Pattern.compile("( )+$", Pattern.MULTILINE);
+    // Min number of model items of a chunk in streaming mode
+    private static final int STREAMING_CHUNK_SIZE = 1000;
+
+    // Position of the file comments (before any other model item)
+    private static final int HEAD_POSITION = -1;
 
     private final WeakReference<Context> mContext;
     private final int mMode;
@@ -67,17 +73,34 @@ public class AsyncTextDiffProcessor extends AsyncTask<Void, Void, List<DiffView.
     private final Pair<List<CommentInfo>, List<CommentInfo>> mComments;
     private final Pair<List<CommentInfo>, List<CommentInfo>> mDrafts;
     private final Pair<List<BlameInfo>, List<BlameInfo>> mBlames;
-    private final boolean mHighlightTabs;
-    private final boolean mHighlightTrailingWhitespaces;
-    private final boolean mHighlightIntralineDiffs;
+    private final boolean mStreaming;
+    private final int mFirstChunkSize;
     private final OnTextDiffProcessEndedListener mCallback;
-
+    private int mDeliveredChunks;
+    private BitSet mCommentedLinesA;
+    private BitSet mCommentedLinesB;
+
+    private int mNoColor;
+    private int mAddedBgColor;
+    private int mAddedDueRebaseBgColor;
+    private int mAddedFgColor;
+    private int mAddedDueRebaseFgColor;
+    private int mDeletedBgColor;
+    private int mDeletedDueRebaseBgColor;
+    private int mDeletedFgColor;
+    private int mDeletedDueRebaseFgColor;
+
+    /**
+     * @param streaming deliver the model in chunks while it's being processed, instead
+     *                  of all at once when the process ends.
+     * @param initialPosition the initial scroll position. In streaming mode, the first chunk
+     *                  is not delivered until it contains this position.
+     */
     public AsyncTextDiffProcessor(Context context, int mode, DiffInfo diff,
             Pair<List<CommentInfo>, List<CommentInfo>> comments,
             Pair<List<CommentInfo>, List<CommentInfo>> drafts,
             Pair<List<BlameInfo>, List<BlameInfo>> blames,
-            boolean highlightTabs, boolean highlightTrailingWhitespaces,
-            boolean highlightIntralineDiffs, OnTextDiffProcessEndedListener cb) {
+            boolean streaming, int initialPosition, OnTextDiffProcessEndedListener cb) {
         mContext = new WeakReference<>(context.getApplicationContext());
         mMode = mode;
         mIsBinary = diff.binary;
@@ -85,15 +108,26 @@ public class AsyncTextDiffProcessor extends AsyncTask<Void, Void, List<DiffView.
         mComments = comments;
         mDrafts = drafts;
         mBlames = blames;
-        mHighlightTabs = highlightTabs;
-        mHighlightTrailingWhitespaces = highlightTrailingWhitespaces;
-        mHighlightIntralineDiffs = highlightIntralineDiffs;
+        mStreaming = streaming;
+        mFirstChunkSize = Math.max(0, initialPosition) + STREAMING_CHUNK_SIZE;
         mCallback = cb;
     }
 
     @Override
     protected List<DiffView.AbstractModel> doInBackground(Void... params) {
-        return processDrafts(processComments(processDiffs()));
+        return processDiffs();
+    }
+
+    @Override
+    @SafeVarargs
+    protected final void onProgressUpdate(List<DiffView.AbstractModel>... chunks) {
+        if (isCancelled()) {
+            return;
+        }
+        for (List<DiffView.AbstractModel> chunk : chunks) {
+            mCallback.onTextDiffChunkProcessed(chunk, mDeliveredChunks == 0);
+            mDeliveredChunks++;
+        }
     }
 
     @Override
@@ -102,275 +136,209 @@ public class AsyncTextDiffProcessor extends AsyncTask<Void, Void, List<DiffView.
     }
 
     private List<DiffView.AbstractModel> processDiffs() {
-        List<DiffView.AbstractModel> model;
-        if (mMode == DiffView.SIDE_BY_SIDE_MODE) {
-            model = processSideBySideDiffs();
-        } else {
-            model = processUnifiedDiffs();
-        }
-        if (!model.isEmpty()) {
-            // Process blames
-            processBlames(model);
-
-            // Process hidden lines (show lines with non-visible comments)
-            processHiddenLines(model);
-
-            // Add a decorator line
-            model.add(new DiffView.DecoratorModel());
-        }
-        return model;
-    }
-
-    private List<DiffView.AbstractModel> processSideBySideDiffs() {
         final List<DiffView.AbstractModel> model = new ArrayList<>();
         final Context context = mContext.get();
         if (context == null) {
             return model;
         }
+        resolveColors(context);
 
-        addBinaryAdviseIfNeeded(model);
-
-        if (mDiffs == null) {
-            return model;
-        }
-
-        int lineNumberA = 0;
-        int lineNumberB = 0;
-
-        final Spannable.Factory spannableFactory = Spannable.Factory.getInstance();
-        final int noColor = ContextCompat.getColor(context, android.R.color.transparent);
-        final int addedBgColor = ContextCompat.getColor(
-                context, R.color.diffAddedBackgroundColor);
-        final int addedDueRebaseBgColor = ContextCompat.getColor(
-                context, R.color.diffAddedDueRebaseBackgroundColor);
-        final int addedFgColor = ContextCompat.getColor(
-                context, R.color.diffAddedForegroundColor);
-        final int addedDueRebaseFgColor = ContextCompat.getColor(
-                context, R.color.diffAddedDueRebaseForegroundColor);
-        final int deletedBgColor = ContextCompat.getColor(
-                context, R.color.diffDeletedBackgroundColor);
-        final int deletedDueRebaseBgColor = ContextCompat.getColor(
-                context, R.color.diffDeletedDueRebaseBackgroundColor);
-        final int deletedFgColor = ContextCompat.getColor(
-                context, R.color.diffDeletedForegroundColor);
-        final int deletedDueRebaseFgColor = ContextCompat.getColor(
-                context, R.color.diffDeletedDueRebaseForegroundColor);
+        List<DiffView.AbstractModel> chunk = new ArrayList<>();
+        addBinaryAdviseIfNeeded(chunk);
 
-        boolean noDiffs = mDiffs.length == 1 && mDiffs[0].a == null  && mDiffs[0].b == null;
-        int j = 0;
-        for (DiffContentInfo diff : mDiffs) {
-            if (diff.ab != null) {
-                // Unchanged lines
-                int[] p = processUnchangedLines(
-                        diff, model, j, lineNumberA, lineNumberB, noColor, noDiffs);
-                lineNumberA = p[0];
-                lineNumberB = p[1];
-            } else {
-                int posA = 0;
-                int posB = 0;
-                int count = Math.max(
-                        diff.a == null ? 0 : diff.a.length,
-                        diff.b == null ? 0 : diff.b.length);
-                for (int i = 0; i < count; i++) {
-                    DiffInfoModel m = new DiffInfoModel();
-                    m.colorA = noColor;
-                    m.colorB = noColor;
-
-                    if (diff.a != null && i < diff.a.length) {
-                        int bg = diff.dueToRebase ? deletedDueRebaseBgColor : deletedBgColor;
-                        int fg = diff.dueToRebase ? deletedDueRebaseFgColor : deletedFgColor;
-
-                        String line = diff.a[i];
-                        m.a = ++lineNumberA;
-                        m.lineNumberA = String.valueOf(m.a);
-                        if (diff.editA != null) {
-                            Spannable span = spannableFactory.newSpannable(prepareTabs(line));
-                            if (mHighlightIntralineDiffs) {
-                                int s2 = 0;
-                                for (ArrayList<Integer> intra : diff.editA) {
-                                    int s1 = s2 + intra.get(0);
-                                    s2 = s1 + intra.get(1);
-                                    int l = posA + line.length();
-                                    if ((s1 >= posA && s1 <= l) || (s2 >= posA && s2 <= l)
-                                            || (s1 <= posA && s2 >= l)) {
-                                        span.setSpan(new BackgroundColorSpan(fg),
-                                                Math.max(posA, s1) - posA, Math.min(l, s2) - posA,
-                                                Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
-                                    }
-                                }
-                            }
-                            m.lineA = span;
-                        } else {
-                            // No intraline data, but it still could differ at start or at end
-                            processNoIntralineDataA(diff, m, line, fg);
-                        }
-                        m.colorA = bg;
-                        posA += line.length() + 1;
-                    }
+        boolean first = true;
+        if (mDiffs != null) {
+            int[] lineNumbers = new int[]{0, 0};
+            boolean noDiffs = mDiffs.length == 1 && mDiffs[0].a == null  && mDiffs[0].b == null;
+            int count = mDiffs.length;
+            for (int j = 0; j < count; j++) {
+                if (isCancelled()) {
+                    return model;
+                }
 
-                    if (diff.b != null && i < diff.b.length) {
-                        int bg = diff.dueToRebase ? addedDueRebaseBgColor : addedBgColor;
-                        int fg = diff.dueToRebase ? addedDueRebaseFgColor : addedFgColor;
+                DiffContentInfo diff = mDiffs[j];
+                if (diff.ab != null) {
+                    // Unchanged lines
+                    lineNumbers = processUnchangedLines(diff, chunk, j,
+                            lineNumbers[0], lineNumbers[1], mNoColor, noDiffs);
+                } else if (mMode == DiffView.SIDE_BY_SIDE_MODE) {
+                    processSideBySideDiff(diff, chunk, lineNumbers);
+                } else {
+                    processUnifiedDiff(diff, chunk, lineNumbers);
+                }
 
-                        String line = diff.b[i];
-                        m.b = ++lineNumberB;
-                        m.lineNumberB = String.valueOf(m.b);
-                        if (diff.editB != null) {
-                            Spannable span = spannableFactory.newSpannable(prepareTabs(line));
-                            if (mHighlightIntralineDiffs) {
-                                int s2 = 0;
-                                for (ArrayList<Integer> intra : diff.editB) {
-                                    int s1 = s2 + intra.get(0);
-                                    s2 = s1 + intra.get(1);
-                                    int l = posB + line.length();
-                                    if ((s1 >= posB && s1 <= l) || (s2 >= posB && s2 <= l)
-                                            || (s1 <= posB && s2 >= l)) {
-                                        span.setSpan(new BackgroundColorSpan(fg),
-                                                Math.max(posB, s1) - posB, Math.min(l, s2) - posB,
-                                                Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
-                                    }
-                                }
-                            }
-                            m.lineB = span;
-                        } else {
-                            // No intraline data, but it still could differ at start or at end
-                            processNoIntralineDataB(diff, m, line, fg);
-                        }
-                        m.colorB = bg;
-                        posB += line.length() + 1;
-                    }
-                    processHighlights(m);
-                    model.add(m);
+                // Chunks are always split at the edges of a diff content, so comments,
+                // blames and skipped lines never cross a chunk and can be processed per chunk
+                int chunkSize = first ? mFirstChunkSize : STREAMING_CHUNK_SIZE;
+                if (mStreaming && j < (count - 1) && chunk.size() >= chunkSize) {
+                    processChunk(chunk, first, false, false);
+                    model.addAll(chunk);
+                    deliverChunk(chunk);
+                    chunk = new ArrayList<>();
+                    first = false;
                 }
             }
-            j++;
+        }
+
+        boolean empty = model.isEmpty() && chunk.isEmpty();
+        processChunk(chunk, first, true, empty);
+        model.addAll(chunk);
+        if (mStreaming) {
+            deliverChunk(chunk);
         }
         return model;
     }
 
-    private List<DiffView.AbstractModel> processUnifiedDiffs() {
-        final List<DiffView.AbstractModel> model = new ArrayList<>();
-        final Context context = mContext.get();
-        if (context == null) {
-            return model;
-        }
+    @SuppressWarnings("unchecked")
+    private void deliverChunk(List<DiffView.AbstractModel> chunk) {
+        publishProgress(chunk);
+    }
+
+    private void processChunk(List<DiffView.AbstractModel> chunk,
+            boolean first, boolean last, boolean empty) {
+        List<DiffView.AbstractModel> model = chunk;
+        if (!chunk.isEmpty()) {
+            // Process blames
+            processBlames(model);
 
-        addBinaryAdviseIfNeeded(model);
+            // Process hidden lines (show lines with non-visible comments)
+            model = processHiddenLines(model);
+        }
 
-        if (mDiffs == null) {
-            return model;
+        if (last && !empty) {
+            // Add a decorator line
+            model.add(new DiffView.DecoratorModel());
         }
 
-        int lineNumberA = 0;
-        int lineNumberB = 0;
+        model = processComments(model, first);
+        if (model != chunk) {
+            chunk.clear();
+            chunk.addAll(model);
+        }
+    }
 
-        final Spannable.Factory spannableFactory = Spannable.Factory.getInstance();
-        final int noColor = ContextCompat.getColor(context, android.R.color.transparent);
-        final int addedBgColor = ContextCompat.getColor(
+    private void resolveColors(Context context) {
+        mNoColor = ContextCompat.getColor(context, android.R.color.transparent);
+        mAddedBgColor = ContextCompat.getColor(
                 context, R.color.diffAddedBackgroundColor);
-        final int addedDueRebaseBgColor = ContextCompat.getColor(
+        mAddedDueRebaseBgColor = ContextCompat.getColor(
                 context, R.color.diffAddedDueRebaseBackgroundColor);
-        final int addedFgColor = ContextCompat.getColor(
+        mAddedFgColor = ContextCompat.getColor(
                 context, R.color.diffAddedForegroundColor);
-        final int addedDueRebaseFgColor = ContextCompat.getColor(
+        mAddedDueRebaseFgColor = ContextCompat.getColor(
                 context, R.color.diffAddedDueRebaseForegroundColor);
-        final int deletedBgColor = ContextCompat.getColor(
+        mDeletedBgColor = ContextCompat.getColor(
                 context, R.color.diffDeletedBackgroundColor);
-        final int deletedDueRebaseBgColor = ContextCompat.getColor(
+        mDeletedDueRebaseBgColor = ContextCompat.getColor(
                 context, R.color.diffDeletedDueRebaseBackgroundColor);
-        final int deletedFgColor = ContextCompat.getColor(
+        mDeletedFgColor = ContextCompat.getColor(
                 context, R.color.diffDeletedForegroundColor);
-        final int deletedDueRebaseFgColor = ContextCompat.getColor(
+        mDeletedDueRebaseFgColor = ContextCompat.getColor(
                 context, R.color.diffDeletedDueRebaseForegroundColor);
+    }
 
-        boolean noDiffs = mDiffs.length == 1 && mDiffs[0].a == null  && mDiffs[0].b == null;
-        int j = 0;
-        for (DiffContentInfo diff : mDiffs) {
-            if (diff.ab != null) {
-                // Unchanged lines
-                int[] p = processUnchangedLines(
-                        diff, model, j, lineNumberA, lineNumberB, noColor, noDiffs);
-                lineNumberA = p[0];
-                lineNumberB = p[1];
-            } else {
-                if (diff.a != null) {
-                    int bg = diff.dueToRebase ? deletedDueRebaseBgColor : deletedBgColor;
-                    int fg = diff.dueToRebase ? deletedDueRebaseFgColor : deletedFgColor;
+    private void processSideBySideDiff(DiffContentInfo diff,
+            List<DiffView.AbstractModel> model, int[] lineNumbers) {
+        int posA = 0;
+        int posB = 0;
+        int[] cursorA = new int[2];
+        int[] cursorB = new int[2];
+        int count = Math.max(
+                diff.a == null ? 0 : diff.a.length,
+                diff.b == null ? 0 : diff.b.length);
+        for (int i = 0; i < count; i++) {
+            DiffInfoModel m = new DiffInfoModel();
+            m.colorA = mNoColor;
+            m.colorB = mNoColor;
+
+            if (diff.a != null && i < diff.a.length) {
+                String line = diff.a[i];
+                m.a = ++lineNumbers[0];
+                m.lineNumberA = String.valueOf(m.a);
+                processLineA(diff, m, line, posA, cursorA);
+                posA += line.length() + 1;
+            }
 
-                    int pos = 0;
-                    for (String line : diff.a) {
-                        DiffInfoModel m = new DiffInfoModel();
-                        m.a = ++lineNumberA;
-                        m.lineNumberA = String.valueOf(m.a);
-                        if (diff.editA != null) {
-                            Spannable span = spannableFactory.newSpannable(prepareTabs(line));
-                            if (mHighlightIntralineDiffs) {
-                                int s2 = 0;
-                                for (ArrayList<Integer> intra : diff.editA) {
-                                    int s1 = s2 + intra.get(0);
-                                    s2 = s1 + intra.get(1);
-                                    int l = pos + line.length();
-                                    if ((s1 >= pos && s1 <= l) || (s2 >= pos && s2 <= l)
-                                            || (s1 <= pos && s2 >= l)) {
-                                        span.setSpan(new BackgroundColorSpan(fg),
-                                                Math.max(pos, s1) - pos, Math.min(l, s2) - pos,
-                                                Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
-                                    }
-                                }
-                            }
-                            m.lineA = span;
-                        } else {
-                            // No intraline data, but it still could differ at start or at end
-                            processNoIntralineDataA(diff, m, line, fg);
-                        }
-                        m.colorA = bg;
-                        m.colorB = noColor;
-                        processHighlights(m);
-                        model.add(m);
-                        pos += line.length() + 1;
-                    }
-                }
-                if (diff.b != null) {
-                    int bg = diff.dueToRebase ? addedDueRebaseBgColor : addedBgColor;
-                    int fg = diff.dueToRebase ? addedDueRebaseFgColor : addedFgColor;
+            if (diff.b != null && i < diff.b.length) {
+                String line = diff.b[i];
+                m.b = ++lineNumbers[1];
+                m.lineNumberB = String.valueOf(m.b);
+                processLineB(diff, m, line, posB, cursorB);
+                posB += line.length() + 1;
+            }
+            model.add(m);
+        }
+    }
 
-                    int pos = 0;
-                    for (String line : diff.b) {
-                        DiffInfoModel m = new DiffInfoModel();
-                        m.b = ++lineNumberB;
-                        m.lineNumberB = String.valueOf(m.b);
-                        if (diff.editB != null) {
-                            Spannable span = spannableFactory.newSpannable(prepareTabs(line));
-                            if (mHighlightIntralineDiffs) {
-                                int s2 = 0;
-                                for (ArrayList<Integer> intra : diff.editB) {
-                                    int s1 = s2 + intra.get(0);
-                                    s2 = s1 + intra.get(1);
-                                    int l = pos + line.length();
-                                    if ((s1 >= pos && s1 <= l) || (s2 >= pos && s2 <= l)
-                                            || (s1 <= pos && s2 >= l)) {
-                                        span.setSpan(new BackgroundColorSpan(fg),
-                                                Math.max(pos, s1) - pos, Math.min(l, s2) - pos,
-                                                Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
-                                    }
-                                }
-                            }
-                            m.lineB = span;
-                        } else {
-                            // No intraline data, but it still could differ at start or at end
-                            processNoIntralineDataB(diff, m, line, fg);
-                        }
-                        m.colorA = bg;
-                        m.colorB = noColor;
-                        processHighlights(m);
-                        model.add(m);
-                        pos += line.length() + 1;
-                    }
-                }
+    private void processUnifiedDiff(DiffContentInfo diff,
+            List<DiffView.AbstractModel> model, int[] lineNumbers) {
+        if (diff.a != null) {
+            int pos = 0;
+            int[] cursor = new int[2];
+            for (String line : diff.a) {
+                DiffInfoModel m = new DiffInfoModel();
+                m.a = ++lineNumbers[0];
+                m.lineNumberA = String.valueOf(m.a);
+                processLineA(diff, m, line, pos, cursor);
+                m.colorB = mNoColor;
+                model.add(m);
+                pos += line.length() + 1;
             }
-            j++;
         }
-        return model;
+        if (diff.b != null) {
+            int pos = 0;
+            int[] cursor = new int[2];
+            for (String line : diff.b) {
+                DiffInfoModel m = new DiffInfoModel();
+                m.b = ++lineNumbers[1];
+                m.lineNumberB = String.valueOf(m.b);
+                processLineB(diff, m, line, pos, cursor);
+                m.colorA = m.colorB;
+                m.colorB = mNoColor;
+                model.add(m);
+                pos += line.length() + 1;
+            }
+        }
+    }
+
+    private void processLineA(
+            DiffContentInfo diff, DiffInfoModel m, String line, int pos, int[] cursor) {
+        int fg = diff.dueToRebase ? mDeletedDueRebaseFgColor : mDeletedFgColor;
+        m.lineA = prepareTabs(line);
+        m.intralineColorA = fg;
+        if (diff.editA != null) {
+            // Intraline spans are created lazily when the line is displayed. Lines are
+            // processed in order, so the edits before this line are never visited again
+            diff.editA.seek(cursor, pos);
+            m.intralineA = diff.editA;
+            m.intralinePosA = pos;
+            m.intralineIndexA = cursor[DiffIntralineInfo.CURSOR_INDEX];
+            m.intralineOffsetA = cursor[DiffIntralineInfo.CURSOR_OFFSET];
+        } else {
+            // No intraline data, but it still could differ at start or at end
+            m.highlightsA = processNoIntralineData(diff.a, diff.b);
+        }
+        m.colorA = diff.dueToRebase ? mDeletedDueRebaseBgColor : mDeletedBgColor;
+    }
+
+    private void processLineB(
+            DiffContentInfo diff, DiffInfoModel m, String line, int pos, int[] cursor) {
+        int fg = diff.dueToRebase ? mAddedDueRebaseFgColor : mAddedFgColor;
+        m.lineB = prepareTabs(line);
+        m.intralineColorB = fg;
+        if (diff.editB != null) {
+            // Intraline spans are created lazily when the line is displayed. Lines are
+            // processed in order, so the edits before this line are never visited again
+            diff.editB.seek(cursor, pos);
+            m.intralineB = diff.editB;
+            m.intralinePosB = pos;
+            m.intralineIndexB = cursor[DiffIntralineInfo.CURSOR_INDEX];
+            m.intralineOffsetB = cursor[DiffIntralineInfo.CURSOR_OFFSET];
+        } else {
+            // No intraline data, but it still could differ at start or at end
+            m.highlightsB = processNoIntralineData(diff.b, diff.a);
+        }
+        m.colorB = diff.dueToRebase ? mAddedDueRebaseBgColor : mAddedBgColor;
     }
 
     private void addBinaryAdviseIfNeeded(List<DiffView.AbstractModel> model) {
@@ -435,9 +403,9 @@ public class AsyncTextDiffProcessor extends AsyncTask<Void, Void, List<DiffView.
                         m.lineNumberA = String.valueOf(m.a);
                         m.lineNumberB = String.valueOf(m.b);
                         if (mMode == DiffView.SIDE_BY_SIDE_MODE) {
-                            m.lineA = m.lineB = processHighlights(prepareTabs(diff.ab[k]));
+                            m.lineA = m.lineB = prepareTabs(diff.ab[k]);
                         } else {
-                            m.lineA = processHighlights(prepareTabs(diff.ab[k]));
+                            m.lineA = prepareTabs(diff.ab[k]);
                         }
                         m.colorA = m.colorB = noColor;
                         skip.skippedLines[l] = m;
@@ -457,405 +425,274 @@ public class AsyncTextDiffProcessor extends AsyncTask<Void, Void, List<DiffView.
             m.lineNumberB = String.valueOf(m.b);
             m.lineA = m.lineB = prepareTabs(line);
             m.colorA = m.colorB = noColor;
-            processHighlights(m);
             model.add(m);
         }
 
         return new int[]{lineNumberA, lineNumberB};
     }
 
-    private void processNoIntralineDataA(
-            DiffContentInfo diff, DiffInfoModel m, String line, int color) {
-        final Spannable.Factory spannableFactory = Spannable.Factory.getInstance();
-        if (diff.a != null && diff.b != null
-                && diff.a.length == 1 && diff.b.length == 1) {
-            Spannable span = spannableFactory.newSpannable(prepareTabs(line));
-            int z = diff.a[0].indexOf(diff.b[0]);
+    private int[] processNoIntralineData(String[] lines, String[] other) {
+        if (lines != null && other != null && lines.length == 1 && other.length == 1) {
+            int z = lines[0].indexOf(other[0]);
             if (z != -1) {
+                int[] highlights = new int[4];
+                int n = 0;
                 if (z > 0) {
-                    span.setSpan(new BackgroundColorSpan(color),
-                            0, z, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                    highlights[n++] = 0;
+                    highlights[n++] = z;
                 }
-                if (z + diff.b[0].length() < diff.a[0].length()) {
-                    z = z + diff.b[0].length();
-                    span.setSpan(new BackgroundColorSpan(color),
-                            z, diff.a[0].length(),
-                            Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                if (z + other[0].length() < lines[0].length()) {
+                    highlights[n++] = z + other[0].length();
+                    highlights[n++] = lines[0].length();
                 }
-            }
-            m.lineA = span;
-        } else {
-            m.lineA = prepareTabs(line);
-        }
-    }
-
-    private void processNoIntralineDataB(
-            DiffContentInfo diff, DiffInfoModel m, String line, int color) {
-        final Spannable.Factory spannableFactory = Spannable.Factory.getInstance();
-        if (diff.a != null && diff.b != null
-                && diff.a.length == 1 && diff.b.length == 1) {
-            Spannable span = spannableFactory.newSpannable(prepareTabs(line));
-            int z = diff.b[0].indexOf(diff.a[0]);
-            if (z != -1) {
-                if (z > 0) {
-                    span.setSpan(new BackgroundColorSpan(color),
-                            0, z, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                if (n == 0) {
+                    return null;
                 }
-                if (z + diff.a[0].length() < diff.b[0].length()) {
-                    z = z + diff.a[0].length();
-                    span.setSpan(new BackgroundColorSpan(color),
-                            z, diff.b[0].length(),
-                            Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                if (n < highlights.length) {
+                    int[] copy = new int[n];
+                    System.arraycopy(highlights, 0, copy, 0, n);
+                    highlights = copy;
                 }
+                return highlights;
             }
-            m.lineB = span;
-        } else {
-            m.lineB = prepareTabs(line);
-        }
-    }
-
-    private void processHighlights(DiffInfoModel model) {
-        if (model.lineA != null) {
-            model.lineA = processHighlightTrailingSpaces(processHighlightTabs(model.lineA));
         }
-        if (model.lineB != null) {
-            model.lineB = processHighlightTrailingSpaces(processHighlightTabs(model.lineB));
-        }
-    }
-
-    private CharSequence processHighlights(CharSequence line) {
-        return processHighlightTrailingSpaces(processHighlightTabs(line));
+        return null;
     }
 
-    private CharSequence processHighlightTabs(CharSequence text) {
-        final Context context = mContext.get();
-        if (context == null) {
-            return text;
-        }
-
-        if (!mHighlightTabs || !text.toString().contains(StringHelper.NON_PRINTABLE_CHAR)) {
-            return text;
-        }
-
-        int color = ContextCompat.getColor(context, R.color.diffHighlightColor);
-        SpannableStringBuilder ssb = new SpannableStringBuilder(text);
-        String line = text.toString();
-        int index = line.length();
-        while ((index = line.lastIndexOf(StringHelper.NON_PRINTABLE_CHAR, index)) != -1) {
-            ssb.replace(index, index + 1, "\u00BB    ");
-            ssb.setSpan(new ForegroundColorSpan(color),
-                    index, index + 1, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
-            ssb.setSpan(new StyleSpan(Typeface.BOLD),
-                    index, index + 1, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
-            index--;
-        }
-        return ssb;
+    private String prepareTabs(String line) {
+        return line.replace("\t", StringHelper.NON_PRINTABLE_CHAR);
     }
 
-    private CharSequence processHighlightTrailingSpaces(CharSequence text) {
-        final Context context = mContext.get();
-        if (context == null) {
-            return text;
-        }
-
-        if (!mHighlightTrailingWhitespaces) {
-            return text;
+    private List<DiffView.AbstractModel> processComments(
+            List<DiffView.AbstractModel> model, boolean first) {
+        if (mComments == null && mDrafts == null) {
+            return model;
         }
 
-        int color = ContextCompat.getColor(context, R.color.diffHighlightColor);
-        final Spannable.Factory spannableFactory = Spannable.Factory.getInstance();
-        String line = text.toString();
-        final Matcher matcher = HIGHLIGHT_TRAIL_SPACES_PATTERN.matcher(line);
-        if (matcher.find()) {
-            int start = matcher.start();
-            int end = matcher.end();
-            Spannable span = spannableFactory.newSpannable(text);
-            span.setSpan(new BackgroundColorSpan(color),
-                    start, end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
-            return span;
+        // Index the position of every line in the model, so comments can be placed
+        // without scanning the model per comment
+        SparseIntArray positionsA = new SparseIntArray();
+        SparseIntArray positionsB = new SparseIntArray();
+        int count = model.size();
+        for (int i = 0; i < count; i++) {
+            DiffView.AbstractModel m = model.get(i);
+            if (m instanceof DiffInfoModel) {
+                DiffInfoModel diff = (DiffInfoModel) m;
+                indexLine(positionsA, diff.a, i);
+                indexLine(positionsB, diff.b, i);
+            }
         }
-        return text;
-    }
 
-    private String prepareTabs(String line) {
-        return line.replaceAll("\t", StringHelper.NON_PRINTABLE_CHAR);
-    }
-
-    private List<DiffView.AbstractModel> processComments(List<DiffView.AbstractModel> model) {
+        // Comments are grouped by the position of the line they belong to (file
+        // comments under HEAD_POSITION) and merged with the model in a single pass
+        SparseArray<List<DiffView.CommentModel>> buckets = new SparseArray<>();
         if (mComments != null) {
-            // Comments on A
-            if (mComments.first != null) {
-                addCommentsToModel(model, mComments.first, true, false);
-            }
-
-            // Comments on B
-            if (mComments.second != null) {
-                addCommentsToModel(model, mComments.second, false, false);
-            }
+            addCommentsToBuckets(model, buckets, positionsA, positionsB,
+                    mComments.first, true, false, first);
+            addCommentsToBuckets(model, buckets, positionsA, positionsB,
+                    mComments.second, false, false, first);
         }
-        return model;
-    }
-
-    private List<DiffView.AbstractModel> processDrafts(List<DiffView.AbstractModel> model) {
         if (mDrafts != null) {
-            // Comments on A
-            if (mDrafts.first != null) {
-                addCommentsToModel(model, mDrafts.first, true, true);
-            }
+            addCommentsToBuckets(model, buckets, positionsA, positionsB,
+                    mDrafts.first, true, true, first);
+            addCommentsToBuckets(model, buckets, positionsA, positionsB,
+                    mDrafts.second, false, true, first);
+        }
+        if (buckets.size() == 0) {
+            return model;
+        }
 
-            // Comments on B
-            if (mDrafts.second != null) {
-                addCommentsToModel(model, mDrafts.second, false, true);
-            }
+        List<DiffView.AbstractModel> result = new ArrayList<>(count + buckets.size());
+        addBucket(result, buckets.get(HEAD_POSITION));
+        for (int i = 0; i < count; i++) {
+            result.add(model.get(i));
+            addBucket(result, buckets.get(i));
         }
-        return model;
+        return result;
     }
 
-    private void addCommentsToModel(List<DiffView.AbstractModel> model,
-            List<CommentInfo> comments, boolean isA, boolean isDraft) {
+    private void addCommentsToBuckets(List<DiffView.AbstractModel> model,
+            SparseArray<List<DiffView.CommentModel>> buckets, SparseIntArray positionsA,
+            SparseIntArray positionsB, List<CommentInfo> comments, boolean isA,
+            boolean isDraft, boolean first) {
         if (comments == null) {
             return;
         }
         int count = comments.size();
         for (int i = 0; i < count; i++) {
             CommentInfo comment = comments.get(i);
-            boolean isLeft = comment.patchSet == 0 || isA;
+            boolean isLeft = isLeftComment(comment, isA);
 
+            int pos;
+            DiffInfoModel diff = null;
             if (comment.line == null && comment.range == null) {
-                // File comment
-                if (mMode == DiffView.UNIFIED_MODE) {
-                    DiffView.CommentModel commentModel = new DiffView.CommentModel();
-                    commentModel.diff = null;
-                    commentModel.isDraft = isDraft;
-                    commentModel.commentA = comment;
-                    int pos = findNextPositionWithoutComment(model, -1);
-                    model.add(pos == -1 ? 0 : pos, commentModel);
-                } else {
-                    int reusablePos = findReusableCommentView(model, -1, isLeft);
-                    if (reusablePos != -1) {
-                        DiffView.CommentModel commentModel =
-                                (DiffView.CommentModel) model.get(reusablePos);
-                        commentModel.isDraft = isDraft;
-                        if (isLeft) {
-                            commentModel.commentA = comment;
-                        } else {
-                            commentModel.commentB = comment;
-                        }
-                    } else {
-                        DiffView.CommentModel commentModel = new DiffView.CommentModel();
-                        commentModel.isDraft = isDraft;
-                        if (isLeft) {
-                            commentModel.commentA = comment;
-                        } else {
-                            commentModel.commentB = comment;
-                        }
-                        int pos = findNextPositionWithoutComment(model, -1);
-                        model.add(pos == -1 ? 0 : pos, commentModel);
-                    }
+                // File comment (only in the first chunk)
+                if (!first) {
+                    continue;
                 }
+                pos = HEAD_POSITION;
+            } else if (comment.line == null) {
+                // We don't support comment range yet, so skip this comment
                 continue;
+            } else {
+                pos = (isLeft ? positionsA : positionsB).get(comment.line, -1);
+                if (pos == -1) {
+                    continue;
+                }
+                diff = (DiffInfoModel) model.get(pos);
             }
 
+            List<DiffView.CommentModel> bucket = buckets.get(pos);
+            if (bucket == null) {
+                bucket = new ArrayList<>();
+                buckets.put(pos, bucket);
+            }
 
-            // We don't support comment range yet, so skip this comment
-            if (comment.line == null) {
+            if (mMode == DiffView.UNIFIED_MODE) {
+                DiffView.CommentModel commentModel = new DiffView.CommentModel();
+                commentModel.diff = diff;
+                commentModel.isDraft = isDraft;
+                commentModel.commentA = comment;
+                bucket.add(commentModel);
                 continue;
             }
 
-            int pos = findLineInModel(model, isLeft, comment.line);
-            if (pos != -1) {
-                if (mMode == DiffView.UNIFIED_MODE) {
-                    DiffInfoModel diff = (DiffInfoModel) model.get(findDiffForComment(model, pos));
-                    DiffView.CommentModel commentModel = new DiffView.CommentModel();
-                    commentModel.diff = diff;
-                    commentModel.isDraft = isDraft;
-                    commentModel.commentA = comment;
-                    int nextPos = findNextPositionWithoutComment(model, pos);
-                    if (nextPos != -1) {
-                        model.add(nextPos, commentModel);
-                    } else {
-                        model.add(pos + 1, commentModel);
-                    }
-                } else {
-                    int reusablePos = findReusableCommentView(model, pos, isLeft);
-                    if (reusablePos != -1) {
-                        DiffInfoModel diff = (DiffInfoModel) model.get(
-                                findDiffForComment(model, reusablePos));
-                        DiffView.CommentModel commentModel =
-                                (DiffView.CommentModel) model.get(reusablePos);
-                        commentModel.diff = diff;
-                        commentModel.isDraft = isDraft;
-                        if (isLeft) {
-                            commentModel.commentA = comment;
-                        } else {
-                            commentModel.commentB = comment;
-                        }
-                    } else {
-                        DiffInfoModel diff = (DiffInfoModel) model.get(
-                                findDiffForComment(model, pos));
-                        DiffView.CommentModel commentModel = new DiffView.CommentModel();
-                        commentModel.diff = diff;
-                        commentModel.isDraft = isDraft;
-                        if (isLeft) {
-                            commentModel.commentA = comment;
-                        } else {
-                            commentModel.commentB = comment;
-                        }
-                        int nextPos = findNextPositionWithoutComment(model, pos);
-                        if (nextPos != -1) {
-                            model.add(nextPos, commentModel);
-                        } else {
-                            model.add(pos + 1, commentModel);
-                        }
-                    }
-                }
+            DiffView.CommentModel commentModel = findReusableCommentView(bucket, isLeft);
+            if (commentModel == null) {
+                commentModel = new DiffView.CommentModel();
+                bucket.add(commentModel);
+            }
+            if (diff != null) {
+                commentModel.diff = diff;
+            }
+            commentModel.isDraft = isDraft;
+            if (isLeft) {
+                commentModel.commentA = comment;
+            } else {
+                commentModel.commentB = comment;
             }
         }
     }
 
-    private int findLineInModel(List<DiffView.AbstractModel> model, boolean isA, int line) {
-        int count = model.size();
-        for (int i = 0; i < count; i++) {
-            DiffView.AbstractModel m = model.get(i);
-            if (m instanceof DiffInfoModel) {
-                DiffInfoModel diff = (DiffInfoModel) m;
-                if (isA && diff.a == line) {
-                    return i;
-                } else if (!isA && diff.b == line) {
-                    return i;
-                }
+    private DiffView.CommentModel findReusableCommentView(
+            List<DiffView.CommentModel> bucket, boolean isA) {
+        for (DiffView.CommentModel comment : bucket) {
+            if ((isA && comment.commentA == null && comment.commentB != null)
+                    || (!isA && comment.commentB == null && comment.commentA != null)) {
+                return comment;
             }
         }
-        return -1;
+        return null;
     }
 
-    private int findDiffForComment(List<DiffView.AbstractModel> model, int pos) {
-        for (int i = pos; i >= 0; i--) {
-            if (model.get(i) instanceof DiffInfoModel) {
-                return i;
-            }
+    private void addBucket(List<DiffView.AbstractModel> model,
+            List<DiffView.CommentModel> bucket) {
+        if (bucket != null) {
+            model.addAll(bucket);
         }
-        return -1;
     }
 
-    private int findReusableCommentView(List<DiffView.AbstractModel> model, int pos, boolean isA) {
-        int count = model.size();
-        for (int i = pos + 1; i < count; i++) {
-            DiffView.AbstractModel m = model.get(i);
-            if (!(m instanceof DiffView.CommentModel)) {
-                break;
-            }
-
-            DiffView.CommentModel comment = (DiffView.CommentModel) m;
-            if ((isA && comment.commentA == null && comment.commentB != null)
-                    || (!isA && comment.commentB == null && comment.commentA != null)) {
-                return i;
-            }
+    private void indexLine(SparseIntArray index, int line, int pos) {
+        // Lines are indexed in ascending order. Only the first occurrence is indexed.
+        if (line > 0 && index.indexOfKey(line) < 0) {
+            index.append(line, pos);
         }
-        return -1;
     }
 
-    private int findNextPositionWithoutComment(List<DiffView.AbstractModel> model, int pos) {
-        int count = model.size();
-        for (int i = pos + 1; i < count; i++) {
-            DiffView.AbstractModel m = model.get(i);
-            if (!(m instanceof DiffView.CommentModel)) {
-                return i;
-            }
-        }
-        return -1;
+    private boolean isLeftComment(CommentInfo comment, boolean isA) {
+        return comment.patchSet == 0 || isA;
     }
 
-    private void processHiddenLines(List<DiffView.AbstractModel> model) {
+    private List<DiffView.AbstractModel> processHiddenLines(List<DiffView.AbstractModel> model) {
         final Context context = mContext.get();
         if (context == null) {
-            return;
+            return model;
         }
 
-        int count = model.size();
-        for (int i = 0; i < count; i++) {
-            DiffView.AbstractModel line = model.get(i);
-            if (line instanceof SkipLineModel) {
-                SkipLineModel skip = (SkipLineModel) line;
-
-                int c = skip.skippedLines.length;
-                for (int j = 0; j < c; j++) {
-                    if (hasCommentOrDraftInSkippedLine(skip.skippedLines[j])) {
-                        // Add the needed skipped lines
-                        int n = 0;
-                        int from = Math.max(0, j - SKIPPED_LINES + 1);
-                        for (int m = from; m <= j; m++, n++) {
-                            model.add(i + n + 1, skip.skippedLines[m]);
-                        }
-                        int to = Math.min(skip.skippedLines.length - 1, j + SKIPPED_LINES);
-                        for (int m = j + 1; m <= to; m++, n++) {
-                            model.add(i + n + 1, skip.skippedLines[m]);
-                        }
-
-                        // Add the new skip marker
-                        int next = to + 1;
-                        if (next < skip.skippedLines.length) {
-                            int length = skip.skippedLines.length - next;
-                            DiffInfoModel[] copy = new DiffInfoModel[length];
-                            SkipLineModel newSkip = new SkipLineModel();
-                            System.arraycopy(skip.skippedLines, next, copy, 0, length);
-                            newSkip.skippedLines = copy;
-                            newSkip.msg = context.getResources().getQuantityString(
-                                    R.plurals.skipped_lines,
-                                    newSkip.skippedLines.length, newSkip.skippedLines.length);
-                            model.add(i + n + 1, newSkip);
-                        }
-
-                        // Remove or update the previous marker
-                        if (from == 0) {
-                            model.remove(i);
-                        } else {
-                            // Update the marker
-                            DiffInfoModel[] copy = new DiffInfoModel[from];
-                            System.arraycopy(skip.skippedLines, 0, copy, 0, from);
-                            skip.skippedLines = copy;
-                            skip.msg = context.getResources().getQuantityString(
-                                    R.plurals.skipped_lines,
-                                        skip.skippedLines.length, skip.skippedLines.length);
-                        }
+        if (mCommentedLinesA == null) {
+            mCommentedLinesA = new BitSet();
+            mCommentedLinesB = new BitSet();
+            if (mComments != null) {
+                indexCommentedLines(mComments.first, true);
+                indexCommentedLines(mComments.second, false);
+            }
+            if (mDrafts != null) {
+                indexCommentedLines(mDrafts.first, true);
+                indexCommentedLines(mDrafts.second, false);
+            }
+        }
+        if (mCommentedLinesA.isEmpty() && mCommentedLinesB.isEmpty()) {
+            return model;
+        }
 
-                        // Recompute model counters
-                        count = model.size();
-                        break;
-                    }
-                }
+        List<DiffView.AbstractModel> result = new ArrayList<>(model.size());
+        for (DiffView.AbstractModel line : model) {
+            if (line instanceof SkipLineModel) {
+                expandSkippedLines(context, (SkipLineModel) line, result);
+            } else {
+                result.add(line);
             }
         }
+        return result;
     }
 
-    @SuppressWarnings("RedundantIfStatement")
-    private boolean hasCommentOrDraftInSkippedLine(DiffInfoModel diff) {
-        if (mComments != null && mComments.first != null
-                && hasComment(diff.a, mComments.first)) {
-            return true;
-        }
-        if (mComments != null && mComments.second != null
-                && hasComment(diff.b, mComments.second)) {
-            return true;
+    private void expandSkippedLines(Context context,
+            SkipLineModel skip, List<DiffView.AbstractModel> model) {
+        final DiffInfoModel[] lines = skip.skippedLines;
+        final int count = lines.length;
+        int start = 0;
+        SkipLineModel marker = skip;
+        for (int j = 0; j < count; j++) {
+            if (!hasCommentOrDraftInSkippedLine(lines[j])) {
+                continue;
+            }
+
+            // Keep the previous lines hidden and add the ones around the commented line
+            int from = Math.max(start, j - SKIPPED_LINES + 1);
+            int to = Math.min(count - 1, j + SKIPPED_LINES);
+            if (from > start) {
+                model.add(createSkipLineModel(context, marker, lines, start, from));
+            }
+            model.addAll(Arrays.asList(lines).subList(from, to + 1));
+            marker = null;
+            start = to + 1;
+            j = to;
         }
-        if (mDrafts != null && mDrafts.first != null
-                && hasComment(diff.a, mDrafts.first)) {
-            return true;
+        if (start < count) {
+            model.add(createSkipLineModel(context, marker, lines, start, count));
         }
-        if (mDrafts != null && mDrafts.second != null
-                && hasComment(diff.b, mDrafts.second)) {
-            return true;
+    }
+
+    private SkipLineModel createSkipLineModel(Context context,
+            SkipLineModel marker, DiffInfoModel[] lines, int from, int to) {
+        if (marker != null && from == 0 && to == lines.length) {
+            return marker;
         }
-        return false;
+
+        SkipLineModel skip = marker != null ? marker : new SkipLineModel();
+        int length = to - from;
+        DiffInfoModel[] copy = new DiffInfoModel[length];
+        System.arraycopy(lines, from, copy, 0, length);
+        skip.skippedLines = copy;
+        skip.msg = context.getResources().getQuantityString(
+                R.plurals.skipped_lines, length, length);
+        return skip;
     }
 
-    private boolean hasComment(int diffLine, List<CommentInfo> comments) {
+    private void indexCommentedLines(List<CommentInfo> comments, boolean isA) {
+        if (comments == null) {
+            return;
+        }
         for (CommentInfo c : comments) {
-            if (c.line != null && c.line == diffLine) {
-                return true;
+            if (c.line != null && c.line > 0) {
+                (isLeftComment(c, isA) ? mCommentedLinesA : mCommentedLinesB).set(c.line);
             }
         }
-        return false;
+    }
+
+    private boolean hasCommentOrDraftInSkippedLine(DiffInfoModel diff) {
+        return (diff.a > 0 && mCommentedLinesA.get(diff.a))
+                || (diff.b > 0 && mCommentedLinesB.get(diff.b));
     }
 
     private void processBlames(List<DiffView.AbstractModel> model) {
@@ -868,23 +705,33 @@ public class AsyncTextDiffProcessor extends AsyncTask<Void, Void, List<DiffView.
             return;
         }
 
+        // Index every line of the chunk, including the ones hidden by a skip marker
+        SparseArray<DiffInfoModel> linesA = new SparseArray<>();
+        SparseArray<DiffInfoModel> linesB = new SparseArray<>();
+        for (DiffView.AbstractModel m : model) {
+            if (m instanceof DiffInfoModel) {
+                indexLine(linesA, linesB, (DiffInfoModel) m);
+            } else if (m instanceof SkipLineModel) {
+                if (((SkipLineModel) m).skippedLines != null) {
+                    for (DiffInfoModel m1 : ((SkipLineModel) m).skippedLines) {
+                        indexLine(linesA, linesB, m1);
+                    }
+                }
+            }
+        }
+
         final DateFormat df = DateFormat.getDateInstance(
                 DateFormat.SHORT, AndroidHelper.getCurrentLocale(context));
-
         if (mBlames.first != null) {
             for (BlameInfo blame : mBlames.first) {
-                int start = 0;
+                String text = null;
                 for (RangeInfo range : blame.ranges) {
-                    Pair<Integer, DiffInfoModel> p =
-                            findDiffModelByLine(model, range.start, start, true);
-                    if (p != null) {
-                        //noinspection ConstantConditions
-                        start = p.first;
-                        String commit = Formatter.toShortenCommit(blame.id);
-                        String date = df.format(new Date(blame.time * 1000L)); //Unix time
-                        //noinspection ConstantConditions
-                        p.second.blameA = context.getString(
-                                R.string.blame_format, commit, date, blame.author);
+                    DiffInfoModel diff = linesA.get(range.start);
+                    if (diff != null) {
+                        if (text == null) {
+                            text = toBlameText(context, df, blame);
+                        }
+                        diff.blameA = text;
                     }
                 }
             }
@@ -892,44 +739,33 @@ public class AsyncTextDiffProcessor extends AsyncTask<Void, Void, List<DiffView.
 
         if (mBlames.second != null) {
             for (BlameInfo blame : mBlames.second) {
-                int start = 0;
+                String text = null;
                 for (RangeInfo range : blame.ranges) {
-                    Pair<Integer, DiffInfoModel> p =
-                            findDiffModelByLine(model, range.start, start, false);
-                    if (p != null) {
-                        //noinspection ConstantConditions
-                        start = p.first;
-                        String commit = Formatter.toShortenCommit(blame.id);
-                        String date = df.format(new Date(blame.time * 1000L)); //Unix time
-                        //noinspection ConstantConditions
-                        p.second.blameB = context.getString(
-                                R.string.blame_format, commit, date, blame.author);
+                    DiffInfoModel diff = linesB.get(range.start);
+                    if (diff != null) {
+                        if (text == null) {
+                            text = toBlameText(context, df, blame);
+                        }
+                        diff.blameB = text;
                     }
                 }
             }
         }
     }
 
-    private Pair<Integer, DiffInfoModel> findDiffModelByLine(
-            List<DiffView.AbstractModel> model, int line, int start, boolean isLeft) {
-        int count = model.size();
-        for (int i = start; i < count; i++) {
-            DiffView.AbstractModel m = model.get(i);
-            if (m instanceof DiffInfoModel) {
-                if ((isLeft && ((DiffInfoModel) m).a == line)
-                        || (!isLeft && ((DiffInfoModel) m).b == line)) {
-                    return new Pair<>(i, (DiffInfoModel) m);
-                }
-            } else if (m instanceof SkipLineModel) {
-                if (((SkipLineModel) m).skippedLines != null) {
-                    for (DiffInfoModel m1 : ((SkipLineModel) m).skippedLines) {
-                        if ((isLeft && m1.a == line) || (!isLeft && m1.b == line)) {
-                            return new Pair<>(i, m1);
-                        }
-                    }
-                }
-            }
+    private void indexLine(SparseArray<DiffInfoModel> linesA,
+            SparseArray<DiffInfoModel> linesB, DiffInfoModel diff) {
+        if (diff.a > 0 && linesA.indexOfKey(diff.a) < 0) {
+            linesA.append(diff.a, diff);
         }
-        return null;
+        if (diff.b > 0 && linesB.indexOfKey(diff.b) < 0) {
+            linesB.append(diff.b, diff);
+        }
+    }
+
+    private String toBlameText(Context context, DateFormat df, BlameInfo blame) {
+        String commit = Formatter.toShortenCommit(blame.id);
+        String date = df.format(new Date(blame.time * 1000L)); //Unix time
+        return context.getString(R.string.blame_format, commit, date, blame.author);
     }
 }
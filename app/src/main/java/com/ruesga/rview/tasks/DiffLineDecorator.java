@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.tasks;
+
+import android.content.Context;
+import android.graphics.Typeface;
+import android.text.Spannable;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.BackgroundColorSpan;
+import android.text.style.ForegroundColorSpan;
+import android.text.style.StyleSpan;
+
+import com.ruesga.rview.R;
+import com.ruesga.rview.gerrit.model.DiffIntralineInfo;
+import com.ruesga.rview.misc.StringHelper;
+import com.ruesga.rview.widget.DiffView.DiffInfoModel;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import androidx.core.content.ContextCompat;
+
+/**
+ * Creates the spans (intraline diffs, tabs and trailing whitespaces highlights) of
+ * a diff line. Spans are created lazily, only when the line is going to be displayed.
+ */
+public class DiffLineDecorator {
+
+    public static final String TAB_HIGHLIGHT = "\u00BB    ";
+
+    private static final Pattern HIGHLIGHT_TRAIL_SPACES_PATTERN
+            = Pattern.compile("( )+$", Pattern.MULTILINE);
+
+    private final boolean mHighlightTabs;
+    private final boolean mHighlightTrailingWhitespaces;
+    private final boolean mHighlightIntralineDiffs;
+    private final int mHighlightColor;
+
+    public DiffLineDecorator(Context context, boolean highlightTabs,
+            boolean highlightTrailingWhitespaces, boolean highlightIntralineDiffs) {
+        mHighlightTabs = highlightTabs;
+        mHighlightTrailingWhitespaces = highlightTrailingWhitespaces;
+        mHighlightIntralineDiffs = highlightIntralineDiffs;
+        mHighlightColor = ContextCompat.getColor(context, R.color.diffHighlightColor);
+    }
+
+    public void decorate(DiffInfoModel model) {
+        if (model.decorated) {
+            return;
+        }
+
+        boolean shared = model.lineA == model.lineB;
+        if (model.lineA != null) {
+            model.lineA = decorate(model.lineA, model.intralineA, model.intralinePosA,
+                    model.intralineIndexA, model.intralineOffsetA, model.highlightsA,
+                    model.intralineColorA);
+        }
+        if (model.lineB != null) {
+            if (shared && model.intralineB == null && model.highlightsB == null) {
+                model.lineB = model.lineA;
+            } else {
+                model.lineB = decorate(model.lineB, model.intralineB, model.intralinePosB,
+                        model.intralineIndexB, model.intralineOffsetB, model.highlightsB,
+                        model.intralineColorB);
+            }
+        }
+
+        // Release the pending decoration data
+        model.intralineA = model.intralineB = null;
+        model.highlightsA = model.highlightsB = null;
+        model.decorated = true;
+    }
+
+    /**
+     * Returns the text of the line as it will be displayed once decorated, suitable
+     * to be measured without create any span.
+     */
+    public String toDisplayText(DiffInfoModel model, CharSequence line) {
+        String text = String.valueOf(line);
+        if (!model.decorated && mHighlightTabs
+                && text.contains(StringHelper.NON_PRINTABLE_CHAR)) {
+            return text.replace(StringHelper.NON_PRINTABLE_CHAR, TAB_HIGHLIGHT);
+        }
+        return text;
+    }
+
+    private CharSequence decorate(CharSequence line, DiffIntralineInfo intraline,
+            int pos, int index, int offset, int[] highlights, int color) {
+        CharSequence text = line;
+        if (intraline != null) {
+            text = processIntraline(line, intraline, pos, index, offset, color);
+        } else if (highlights != null) {
+            Spannable span = Spannable.Factory.getInstance().newSpannable(line);
+            for (int i = 0; i < highlights.length; i += 2) {
+                span.setSpan(new BackgroundColorSpan(color),
+                        highlights[i], highlights[i + 1], Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+            }
+            text = span;
+        }
+        return processHighlightTrailingSpaces(processHighlightTabs(text));
+    }
+
+    private CharSequence processIntraline(
+            CharSequence line, DiffIntralineInfo intraline,
+            int pos, int index, int offset, int color) {
+        Spannable span = Spannable.Factory.getInstance().newSpannable(line);
+        if (mHighlightIntralineDiffs) {
+            // Start from the first edit that could touch the line (see DiffIntralineInfo#seek)
+            int s2 = offset;
+            int l = pos + line.length();
+            final int count = intraline.size();
+            for (int i = index; i < count; i++) {
+                int s1 = s2 + intraline.getSkip(i);
+                s2 = s1 + intraline.getMark(i);
+                if (s1 > l) {
+                    // Edits after the line
+                    break;
+                }
+                if ((s1 >= pos && s1 <= l) || (s2 >= pos && s2 <= l)
+                        || (s1 <= pos && s2 >= l)) {
+                    span.setSpan(new BackgroundColorSpan(color),
+                            Math.max(pos, s1) - pos, Math.min(l, s2) - pos,
+                            Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                }
+            }
+        }
+        return span;
+    }
+
+    private CharSequence processHighlightTabs(CharSequence text) {
+        if (!mHighlightTabs || !text.toString().contains(StringHelper.NON_PRINTABLE_CHAR)) {
+            return text;
+        }
+
+        SpannableStringBuilder ssb = new SpannableStringBuilder(text);
+        String line = text.toString();
+        int index = line.length();
+        while ((index = line.lastIndexOf(StringHelper.NON_PRINTABLE_CHAR, index)) != -1) {
+            ssb.replace(index, index + 1, TAB_HIGHLIGHT);
+            ssb.setSpan(new ForegroundColorSpan(mHighlightColor),
+                    index, index + 1, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+            ssb.setSpan(new StyleSpan(Typeface.BOLD),
+                    index, index + 1, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+            index--;
+        }
+        return ssb;
+    }
+
+    private CharSequence processHighlightTrailingSpaces(CharSequence text) {
+        if (!mHighlightTrailingWhitespaces) {
+            return text;
+        }
+
+        final Matcher matcher = HIGHLIGHT_TRAIL_SPACES_PATTERN.matcher(text);
+        if (matcher.find()) {
+            int start = matcher.start();
+            int end = matcher.end();
+            Spannable span = Spannable.Factory.getInstance().newSpannable(text);
+            span.setSpan(new BackgroundColorSpan(mHighlightColor),
+                    start, end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+            return span;
+        }
+        return text;
+    }
+}
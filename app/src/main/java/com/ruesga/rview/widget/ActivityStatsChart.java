@@ -53,16 +53,19 @@ public class ActivityStatsChart extends View {
 
     private static class AggregateStatsTask extends AsyncTask<Void, Void, Void> {
         private final List<Stats> mStats;
+        private final Map<Long, Integer> mActivity;
         private final WeakReference<ActivityStatsChart> mView;
 
-        AggregateStatsTask(ActivityStatsChart view, List<Stats> stats) {
+        AggregateStatsTask(ActivityStatsChart view,
+                List<Stats> stats, Map<Long, Integer> activity) {
             mView = new WeakReference<>(view);
             mStats = stats;
+            mActivity = activity;
         }
 
         @Override
         protected Void doInBackground(Void... params) {
-            updateView(aggregateStats(mStats));
+            updateView(aggregateStats(mStats, mActivity));
             return null;
         }
 
@@ -76,7 +79,8 @@ public class ActivityStatsChart extends View {
         }
 
         @SuppressLint("UseSparseArrays")
-        private Map<Long, Integer> aggregateStats(List<Stats> stats) {
+        private Map<Long, Integer> aggregateStats(
+                List<Stats> stats, Map<Long, Integer> activity) {
             Map<Long, Integer> aggregatedStats = new TreeMap<>();
             Calendar e = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
             truncateCalendar(e);
@@ -88,6 +92,16 @@ public class ActivityStatsChart extends View {
                 s.add(Calendar.DAY_OF_YEAR, 1);
             }
 
+            if (activity != null) {
+                // Already aggregated by day. Just pick the days of our map
+                for (Map.Entry<Long, Integer> day : activity.entrySet()) {
+                    if (aggregatedStats.containsKey(day.getKey())) {
+                        aggregatedStats.put(day.getKey(), day.getValue());
+                    }
+                }
+                return aggregatedStats;
+            }
+
             Calendar c = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
             for (Stats stat : stats) {
                 c.setTimeInMillis(stat.mDate.getTime());
@@ -256,7 +270,19 @@ public class ActivityStatsChart extends View {
             mTask.cancel(true);
         }
 
-        mTask = new AggregateStatsTask(this, stats);
+        mTask = new AggregateStatsTask(this, stats, null);
+        mTask.execute();
+    }
+
+    /**
+     * Updates the chart with the number of changes per UTC day (day start in millis).
+     */
+    public void update(Map<Long, Integer> activity) {
+        if (mTask != null) {
+            mTask.cancel(true);
+        }
+
+        mTask = new AggregateStatsTask(this, null, activity);
         mTask.execute();
     }
 
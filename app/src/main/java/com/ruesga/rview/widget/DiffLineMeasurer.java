@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.widget;
+
+import android.graphics.Typeface;
+import android.text.TextPaint;
+
+import com.ruesga.rview.misc.StringHelper;
+import com.ruesga.rview.tasks.DiffLineDecorator;
+import com.ruesga.rview.widget.DiffView.DiffInfoModel;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Finds the widest line and line number of a diff, which is rendered with a monospace font.
+ * <p/>
+ * Lines are ranked by an estimation built from cached glyph advances, and only the widest
+ * candidates are measured exactly. The ranking doesn't depend on the text size, so a text
+ * size change only needs to measure the candidates again.
+ */
+final class DiffLineMeasurer {
+
+    private static final int MAX_CANDIDATES = 8;
+    private static final int ASCII = 128;
+
+    // Shaping could render non ascii lines wider than the sum of their glyphs. Rank them
+    // pessimistically, so they are measured exactly
+    private static final float NON_ASCII_FACTOR = 1.2f;
+
+    private static final int SIDE_A = 0;
+    private static final int SIDE_B = 1;
+
+    private final TextPaint mReferencePaint = new TextPaint();
+    private final TextPaint mPaint = new TextPaint();
+    private final float[] mAsciiAdvances = new float[ASCII];
+    private final Map<Integer, Float> mAdvances = new HashMap<>();
+    private float mTabAdvance;
+
+    private final float[] mEstimations = new float[MAX_CANDIDATES];
+    private final DiffInfoModel[] mCandidates = new DiffInfoModel[MAX_CANDIDATES];
+    private final int[] mSides = new int[MAX_CANDIDATES];
+    private int mCount;
+    private String mLongestLineNumber;
+
+    private float mMeasuredTextSize = -1;
+    private float mMaxLineWidth;
+    private float mMaxLineNumberWidth;
+
+    DiffLineMeasurer(Typeface typeface, float referenceTextSize) {
+        mReferencePaint.setTypeface(typeface);
+        mReferencePaint.setTextSize(referenceTextSize);
+        mPaint.setTypeface(typeface);
+        for (int i = 0; i < ASCII; i++) {
+            mAsciiAdvances[i] = mReferencePaint.measureText(String.valueOf((char) i));
+        }
+        setTabExpansion(StringHelper.NON_PRINTABLE_CHAR);
+    }
+
+    /**
+     * Sets how the tabs (already replaced by {@link StringHelper#NON_PRINTABLE_CHAR}) are
+     * finally displayed.
+     */
+    void setTabExpansion(String tab) {
+        mTabAdvance = mReferencePaint.measureText(tab);
+    }
+
+    void clear() {
+        for (int i = 0; i < mCount; i++) {
+            mCandidates[i] = null;
+        }
+        mCount = 0;
+        mLongestLineNumber = null;
+        mMeasuredTextSize = -1;
+    }
+
+    /**
+     * Adds the lines of a diff model. Returns whether the candidates changed.
+     */
+    boolean add(DiffInfoModel diff, boolean unified) {
+        boolean changed = false;
+        if (unified) {
+            // All lines are displayed in A
+            if (diff.lineA != null) {
+                changed = offer(diff, SIDE_A, diff.lineA);
+            } else if (diff.lineB != null) {
+                changed = offer(diff, SIDE_B, diff.lineB);
+            }
+        } else {
+            if (diff.lineA != null) {
+                changed = offer(diff, SIDE_A, diff.lineA);
+            }
+            if (diff.lineB != null && diff.lineB != diff.lineA) {
+                changed |= offer(diff, SIDE_B, diff.lineB);
+            }
+        }
+
+        changed |= offerLineNumber(diff.lineNumberA);
+        changed |= offerLineNumber(diff.lineNumberB);
+        if (changed) {
+            mMeasuredTextSize = -1;
+        }
+        return changed;
+    }
+
+    boolean isEmpty() {
+        return mCount == 0 && mLongestLineNumber == null;
+    }
+
+    /**
+     * Returns the width of the widest line at the given text size, or -1 if there are no lines.
+     */
+    float getMaxLineWidth(float textSize, DiffLineDecorator decorator) {
+        measureIfNeeded(textSize, decorator);
+        return mMaxLineWidth;
+    }
+
+    float getMaxLineNumberWidth(float textSize, DiffLineDecorator decorator) {
+        measureIfNeeded(textSize, decorator);
+        return mMaxLineNumberWidth;
+    }
+
+    private void measureIfNeeded(float textSize, DiffLineDecorator decorator) {
+        if (mMeasuredTextSize == textSize) {
+            return;
+        }
+
+        mPaint.setTextSize(textSize);
+        mMaxLineWidth = -1;
+        for (int i = 0; i < mCount; i++) {
+            DiffInfoModel diff = mCandidates[i];
+            CharSequence line = mSides[i] == SIDE_A ? diff.lineA : diff.lineB;
+            String text = decorator != null
+                    ? decorator.toDisplayText(diff, line) : String.valueOf(line);
+            mMaxLineWidth = Math.max(mMaxLineWidth, mPaint.measureText(text));
+        }
+        mMaxLineNumberWidth = mLongestLineNumber == null
+                ? -1 : mPaint.measureText(mLongestLineNumber);
+        mMeasuredTextSize = textSize;
+    }
+
+    private boolean offer(DiffInfoModel diff, int side, CharSequence line) {
+        float estimation = estimate(line);
+        if (mCount == MAX_CANDIDATES && estimation <= mEstimations[mCount - 1]) {
+            return false;
+        }
+
+        // Keep the candidates sorted by its estimation (widest first)
+        int pos = mCount == MAX_CANDIDATES ? mCount - 1 : mCount++;
+        while (pos > 0 && mEstimations[pos - 1] < estimation) {
+            mEstimations[pos] = mEstimations[pos - 1];
+            mCandidates[pos] = mCandidates[pos - 1];
+            mSides[pos] = mSides[pos - 1];
+            pos--;
+        }
+        mEstimations[pos] = estimation;
+        mCandidates[pos] = diff;
+        mSides[pos] = side;
+        return true;
+    }
+
+    private boolean offerLineNumber(String lineNumber) {
+        // Digits have all the same advance
+        if (lineNumber != null && (mLongestLineNumber == null
+                || lineNumber.length() > mLongestLineNumber.length())) {
+            mLongestLineNumber = lineNumber;
+            return true;
+        }
+        return false;
+    }
+
+    private float estimate(CharSequence line) {
+        final char tab = StringHelper.NON_PRINTABLE_CHAR.charAt(0);
+        final int count = line.length();
+        float width = 0;
+        boolean ascii = true;
+        for (int i = 0; i < count; i++) {
+            final char c = line.charAt(i);
+            if (c == tab) {
+                width += mTabAdvance;
+            } else if (c < ASCII) {
+                width += mAsciiAdvances[c];
+            } else {
+                ascii = false;
+                int codePoint = Character.codePointAt(line, i);
+                Float advance = mAdvances.get(codePoint);
+                if (advance == null) {
+                    advance = mReferencePaint.measureText(new String(Character.toChars(codePoint)));
+                    mAdvances.put(codePoint, advance);
+                }
+                width += advance;
+                i += Character.charCount(codePoint) - 1;
+            }
+        }
+        return ascii ? width : width * NON_ASCII_FACTOR;
+    }
+}
@@ -21,7 +21,6 @@ import android.graphics.drawable.Drawable;
 import android.os.AsyncTask;
 import android.os.Parcel;
 import android.os.Parcelable;
-import android.text.TextPaint;
 import android.util.AttributeSet;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -42,13 +41,16 @@ import com.ruesga.rview.databinding.DiffViewBinding;
 import com.ruesga.rview.gerrit.model.BlameInfo;
 import com.ruesga.rview.gerrit.model.CommentInfo;
 import com.ruesga.rview.gerrit.model.DiffInfo;
+import com.ruesga.rview.gerrit.model.DiffIntralineInfo;
 import com.ruesga.rview.misc.SerializationManager;
+import com.ruesga.rview.misc.StringHelper;
 import com.ruesga.rview.misc.TypefaceCache;
 import com.ruesga.rview.preferences.Constants;
 import com.ruesga.rview.tasks.AsyncImageDiffProcessor;
 import com.ruesga.rview.tasks.AsyncImageDiffProcessor.OnImageDiffProcessEndedListener;
 import com.ruesga.rview.tasks.AsyncTextDiffProcessor;
 import com.ruesga.rview.tasks.AsyncTextDiffProcessor.OnTextDiffProcessEndedListener;
+import com.ruesga.rview.tasks.DiffLineDecorator;
 
 import java.io.File;
 import java.lang.reflect.Type;
@@ -255,6 +257,21 @@ public class DiffView extends FrameLayout {
         public CharSequence lineB;
         public String blameA;
         public String blameB;
+
+        // Pending decoration of the lines (see DiffLineDecorator)
+        public boolean decorated;
+        public DiffIntralineInfo intralineA;
+        public DiffIntralineInfo intralineB;
+        public int intralinePosA;
+        public int intralinePosB;
+        public int intralineIndexA;
+        public int intralineIndexB;
+        public int intralineOffsetA;
+        public int intralineOffsetB;
+        public int intralineColorA;
+        public int intralineColorB;
+        public int[] highlightsA;
+        public int[] highlightsB;
     }
 
     @Keep
@@ -323,6 +340,10 @@ public class DiffView extends FrameLayout {
         private final List<AbstractModel> mModel = new ArrayList<>();
         private final DiffViewMeasurement mDiffViewMeasurement = new DiffViewMeasurement();
         private final int mMode;
+        private float mMaxLineWidth = -1;
+        private float mMaxLineNumWidth = -1;
+        private DiffLineMeasurer mMeasurer;
+        private DiffLineDecorator mMeasuredDecorator;
 
         private final List<SkipLinesOpHistory> mSkipLinesOpHistory = new ArrayList<>();
 
@@ -336,12 +357,27 @@ public class DiffView extends FrameLayout {
             mModel.clear();
             mModel.addAll(diffs);
             mDiffViewMeasurement.clear();
+            if (mMeasurer != null) {
+                // Keep the glyph advances, only the lines changed
+                mMeasurer.clear();
+            }
             if (skipLinesOpHistory != null) {
                 processSkipLinesOpHistory(skipLinesOpHistory);
             }
             refresh();
         }
 
+        private void append(List<AbstractModel> diffs) {
+            int start = mModel.size();
+            mModel.addAll(diffs);
+            if (measureModels(diffs)) {
+                applyViewChildMeasures();
+                notifyDataSetChanged();
+            } else {
+                notifyItemRangeInserted(start, diffs.size());
+            }
+        }
+
         private void refresh() {
             computeViewChildMeasuresIfNeeded();
             notifyDataSetChanged();
@@ -372,6 +408,7 @@ public class DiffView extends FrameLayout {
                 int count = m.skippedLines.length;
                 for (int i = 0; i < count; i++, position++) {
                     mDiffAdapter.mModel.add(position, m.skippedLines[i]);
+                    addToMeasurer(m.skippedLines[i]);
                 }
             }
             mSkipLinesOpHistory.add(new SkipLinesOpHistory(SkipLinesOpHistory.SKIP_ALL, at));
@@ -384,6 +421,7 @@ public class DiffView extends FrameLayout {
                 SkipLineModel m = (SkipLineModel) model;
                 for (int i = 0; i < AsyncTextDiffProcessor.SKIPPED_LINES; i++, position++) {
                     mDiffAdapter.mModel.add(position, m.skippedLines[i]);
+                    addToMeasurer(m.skippedLines[i]);
                 }
 
                 // Trim skipped lines array
@@ -408,6 +446,7 @@ public class DiffView extends FrameLayout {
                 position++;
                 for (int i = from; i < count; i++, position++) {
                     mDiffAdapter.mModel.add(position, m.skippedLines[i]);
+                    addToMeasurer(m.skippedLines[i]);
                 }
 
                 // Trim skipped lines array
@@ -454,6 +493,9 @@ public class DiffView extends FrameLayout {
             if (vh instanceof DiffSourceViewHolder) {
                 DiffSourceViewHolder holder = ((DiffSourceViewHolder) vh);
                 DiffInfoModel diff = (DiffInfoModel) model;
+                if (mDecorator != null) {
+                    mDecorator.decorate(diff);
+                }
                 if (mMode == UNIFIED_MODE) {
                     CharSequence text = diff.lineA != null ? diff.lineA : diff.lineB;
                     holder.mBinding.diffA.setText(text, TextView.BufferType.NORMAL);
@@ -556,24 +598,90 @@ public class DiffView extends FrameLayout {
             return mModel.size();
         }
 
-        @SuppressWarnings("Convert2streamapi")
         private void computeViewChildMeasuresIfNeeded() {
-            boolean wrap = isWrapMode();
+            // Only rank the lines again if the displayed text changed. A text size or a
+            // wrap mode change just needs to measure the widest candidates
+            if (mMeasuredDecorator != mDecorator) {
+                mMeasurer = null;
+            }
+            if (mMeasurer == null || mMeasurer.isEmpty()) {
+                measureModels(mModel);
+            } else {
+                computeMaxWidths();
+            }
+            applyViewChildMeasures();
+        }
+
+        // Returns whether the max measures changed
+        private boolean measureModels(List<AbstractModel> models) {
+            if (models.isEmpty()) {
+                return false;
+            }
+
+            if (mMeasurer == null) {
+                final Resources res = getResources();
+                mMeasurer = new DiffLineMeasurer(
+                        TypefaceCache.getTypeface(getContext(), TypefaceCache.TF_MONOSPACE),
+                        res.getDimension(R.dimen.diff_line_text_size));
+                mMeasurer.setTabExpansion(mHighlightTabs
+                        ? DiffLineDecorator.TAB_HIGHLIGHT : StringHelper.NON_PRINTABLE_CHAR);
+                mMeasuredDecorator = mDecorator;
+            }
+
+            boolean changed = false;
+            for (AbstractModel model : models) {
+                if (model instanceof DiffInfoModel) {
+                    changed |= mMeasurer.add((DiffInfoModel) model, mMode == UNIFIED_MODE);
+                }
+            }
+            if (!changed) {
+                return false;
+            }
+
+            float lineWidth = mMaxLineWidth;
+            float lineNumWidth = mMaxLineNumWidth;
+            computeMaxWidths();
+            return lineWidth != mMaxLineWidth || lineNumWidth != mMaxLineNumWidth;
+        }
+
+        private void addToMeasurer(DiffInfoModel diff) {
+            // Skipped lines expanded before the first measure are ranked with the rest
+            if (mMeasurer != null) {
+                mMeasurer.add(diff, mMode == UNIFIED_MODE);
+            }
+        }
+
+        private void computeMaxWidths() {
+            mMaxLineWidth = -1;
+            mMaxLineNumWidth = -1;
+            if (mMeasurer == null || mMeasurer.isEmpty()) {
+                return;
+            }
+
+            final Resources res = getResources();
+            float textSize = res.getDimension(R.dimen.diff_line_text_size) * mTextSizeFactor;
+            float padding = res.getDimension(R.dimen.diff_line_text_padding);
+            float margin = res.getDimension(R.dimen.diff_line_separator_width) * 2;
+
+            if (isWrapMode()) {
+                mMaxLineWidth = MATCH_PARENT;
+            } else {
+                float lineWidth = mMeasurer.getMaxLineWidth(textSize, mDecorator);
+                if (lineWidth >= 0) {
+                    mMaxLineWidth = lineWidth + padding + margin;
+                }
+            }
+            mMaxLineNumWidth = mMeasurer.getMaxLineNumberWidth(textSize, mDecorator);
+        }
+
+        private void applyViewChildMeasures() {
             if (!mModel.isEmpty()) {
                 final Resources res = getResources();
-                TextPaint paint = new TextPaint();
-                paint.setTextSize(res.getDimension(R.dimen.diff_line_text_size) * mTextSizeFactor);
-                paint.setTypeface(TypefaceCache.getTypeface(getContext(), TypefaceCache.TF_MONOSPACE));
-                float padding = res.getDimension(R.dimen.diff_line_text_padding);
-                float margin = res.getDimension(R.dimen.diff_line_separator_width) * 2;
                 float blameWidth = res.getDimension(R.dimen.diff_line_blame_width);
+                float padding = res.getDimension(R.dimen.diff_line_text_padding);
                 mDiffViewMeasurement.clear();
-
-                for (AbstractModel model : mModel) {
-                    if (model instanceof DiffInfoModel) {
-                        measureDiffInfoModel((DiffInfoModel) model, wrap, paint, padding, margin);
-                    }
-                }
+                mDiffViewMeasurement.lineWidth = mMaxLineWidth;
+                mDiffViewMeasurement.lineNumWidth = mMaxLineNumWidth;
 
                 // Give line number a minimum width
                 mDiffViewMeasurement.lineNumWidth = Math.max(
@@ -617,61 +725,41 @@ public class DiffView extends FrameLayout {
                 }
             }
         }
+    }
 
-        private void measureDiffInfoModel(
-                DiffInfoModel diff, boolean wrap, TextPaint paint, float padding, float margin) {
-            if (wrap) {
-                mDiffViewMeasurement.lineWidth = MATCH_PARENT;
-            } else {
-                if (mMode == UNIFIED_MODE) {
-                    // All lines are displayed in A
-                    CharSequence line = diff.lineA != null ? diff.lineA : diff.lineB;
-                    mDiffViewMeasurement.lineWidth = Math.max(
-                            mDiffViewMeasurement.lineWidth,
-                            paint.measureText(String.valueOf(line)) + padding + margin);
-                } else {
-                    // Lines are displayed in A and B and both have the same size
-                    if (diff.lineA != null) {
-                        String lineA = String.valueOf(diff.lineA);
-                        mDiffViewMeasurement.lineWidth = Math.max(
-                                mDiffViewMeasurement.lineWidth,
-                                paint.measureText(lineA) + padding + margin);
-                    }
-                    if (diff.lineB != null) {
-                        String lineB = String.valueOf(diff.lineB);
-                        mDiffViewMeasurement.lineWidth = Math.max(
-                                mDiffViewMeasurement.lineWidth,
-                                paint.measureText(lineB) + padding + margin);
-                    }
-                }
+    private OnTextDiffProcessEndedListener mTextProcessorListener
+            = new OnTextDiffProcessEndedListener() {
+        @Override
+        public void onTextDiffChunkProcessed(List<AbstractModel> chunk, boolean first) {
+            if (!first) {
+                mDiffAdapter.append(chunk);
+                return;
             }
 
-            if (diff.lineNumberA != null) {
-                mDiffViewMeasurement.lineNumWidth = Math.max(
-                        mDiffViewMeasurement.lineNumWidth, paint.measureText(diff.lineNumberA));
-            }
-            if (diff.lineNumberB != null) {
-                mDiffViewMeasurement.lineNumWidth = Math.max(
-                        mDiffViewMeasurement.lineNumWidth, paint.measureText(diff.lineNumberB));
+            // Display the first chunk right now. The rest are appended as they arrive
+            mStreamed = true;
+            setupAdapterIfNeeded();
+            mDiffAdapter.update(chunk, null);
+            if (mPendingScrollToPosition != -1) {
+                performScrollToPosition();
             }
+            mPendingScrollToPosition = -1;
+
+            mBinding.setProcessing(false);
+            mBinding.executePendingBindings();
         }
-    }
 
-    private OnTextDiffProcessEndedListener mTextProcessorListener
-            = new OnTextDiffProcessEndedListener() {
         @Override
         public void onTextDiffProcessEnded(List<AbstractModel> model) {
-            if (mNeedsNewLayoutManager || !mLayoutManager.equals(mTmpLayoutManager)) {
-                mDiffAdapter = new DiffView.DiffAdapter(mDiffMode);
-                if (mTmpLayoutManager != null) {
-                    mLayoutManager = mTmpLayoutManager;
-                }
-                mRecyclerView.setLayoutManager(mLayoutManager);
-                mRecyclerView.setAdapter(mDiffAdapter);
-                mNeedsNewLayoutManager = false;
+            if (mStreamed) {
+                // The whole model was already delivered in chunks
+                mPendingScrollToComment = null;
+                mPendingSkipLinesOpHistory = null;
+                return;
             }
+
+            setupAdapterIfNeeded();
             mDiffAdapter.update(model, mPendingSkipLinesOpHistory);
-            mTmpLayoutManager = null;
 
             // Should scroll?
             if (mPendingScrollToPosition != -1) {
@@ -688,6 +776,19 @@ public class DiffView extends FrameLayout {
         }
     };
 
+    private void setupAdapterIfNeeded() {
+        if (mNeedsNewLayoutManager || !mLayoutManager.equals(mTmpLayoutManager)) {
+            mDiffAdapter = new DiffView.DiffAdapter(mDiffMode);
+            if (mTmpLayoutManager != null) {
+                mLayoutManager = mTmpLayoutManager;
+            }
+            mRecyclerView.setLayoutManager(mLayoutManager);
+            mRecyclerView.setAdapter(mDiffAdapter);
+            mNeedsNewLayoutManager = false;
+        }
+        mTmpLayoutManager = null;
+    }
+
     private OnImageDiffProcessEndedListener mImageProcessorListener
             = new OnImageDiffProcessEndedListener() {
         @Override
@@ -732,6 +833,8 @@ public class DiffView extends FrameLayout {
 
     private AsyncTextDiffProcessor mTextDiffTask;
     private AsyncImageDiffProcessor mImageDiffTask;
+    private DiffLineDecorator mDecorator;
+    private boolean mStreamed;
 
     private int mPendingScrollToPosition = -1;
     private String mPendingScrollToComment;
@@ -937,9 +1040,14 @@ public class DiffView extends FrameLayout {
         stopTasks();
 
         if (mDiffMode != IMAGE_MODE) {
+            // Stream the model unless we need the full model to restore the previous state
+            boolean streaming = mPendingSkipLinesOpHistory == null
+                    && mPendingScrollToComment == null;
+            mStreamed = false;
+            mDecorator = new DiffLineDecorator(getContext(), mHighlightTabs,
+                    mHighlightTrailingWhitespaces, mHighlightIntralineDiffs);
             mTextDiffTask = new AsyncTextDiffProcessor(getContext(), mDiffMode, mDiffInfo, mComments,
-                    mDrafts, mBlames, mHighlightTabs, mHighlightTrailingWhitespaces,
-                    mHighlightIntralineDiffs, mTextProcessorListener);
+                    mDrafts, mBlames, streaming, mPendingScrollToPosition, mTextProcessorListener);
             mTextDiffTask.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
         } else {
             mImageDiffTask = new AsyncImageDiffProcessor(getContext(),
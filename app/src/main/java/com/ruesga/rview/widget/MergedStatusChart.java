@@ -211,6 +211,14 @@ public class MergedStatusChart extends View {
             }
             total++;
         }
+        update(open, merged, abandoned, total);
+    }
+
+    public void update(int open, int merged, int abandoned) {
+        update(open, merged, abandoned, open + merged + abandoned);
+    }
+
+    private void update(int open, int merged, int abandoned, int total) {
         synchronized (mLock) {
             mOpen = open;
             mMerged = merged;
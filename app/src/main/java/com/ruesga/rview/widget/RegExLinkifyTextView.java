@@ -34,11 +34,15 @@ import com.ruesga.rview.model.Repository;
 import com.ruesga.rview.preferences.Constants;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -59,32 +63,198 @@ public class RegExLinkifyTextView extends StyleableTextView {
         private final String mLink;
         private final boolean mMultiGroup;
         private final RegExLinkExtractor mExtractor;
+        // Lowercase literals. The pattern can only match if the text contains any of them
+        private final String[] mPrefilters;
 
         public RegExLink(String type, String regEx, String link, boolean multiGroup) {
-            this(type, regEx, link, multiGroup, null);
+            this(type, regEx, link, multiGroup, null, null);
         }
 
         private RegExLink(String type, String regEx, String link,
-                boolean multiGroup, RegExLinkExtractor extractor) {
+                boolean multiGroup, RegExLinkExtractor extractor, String[] prefilters) {
             mType = type;
-            mPattern = Pattern.compile(regEx,
-                    Pattern.CASE_INSENSITIVE | Pattern.MULTILINE | Pattern.DOTALL);
+            mPattern = compile(regEx);
             mLink = link;
             mMultiGroup = multiGroup;
             mExtractor = extractor;
+            mPrefilters = prefilters;
+        }
+
+        private static Pattern compile(String regEx) {
+            Pattern pattern = sPatterns.get(regEx);
+            if (pattern == null) {
+                pattern = Pattern.compile(regEx,
+                        Pattern.CASE_INSENSITIVE | Pattern.MULTILINE | Pattern.DOTALL);
+                sPatterns.put(regEx, pattern);
+            }
+            return pattern;
+        }
+
+        private boolean canMatch(String lowerCaseText) {
+            if (mPrefilters == null) {
+                return true;
+            }
+            for (String prefilter : mPrefilters) {
+                if (lowerCaseText.contains(prefilter)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private String toKey() {
+            return mType + "|" + mPattern.pattern() + "|" + mLink + "|" + mMultiGroup
+                    + "|" + System.identityHashCode(mExtractor);
+        }
+    }
+
+    @VisibleForTesting
+    static class LinkMatch {
+        final int mStart;
+        final int mEnd;
+        final String mLink;
+
+        private LinkMatch(int start, int end, String link) {
+            mStart = start;
+            mEnd = end;
+            mLink = link;
+        }
+    }
+
+    // Finds the links of a set of patterns. The matches of the last scanned texts are
+    // kept, so binding the same text again doesn't need to scan it
+    @VisibleForTesting
+    static class Scanner {
+        private static final int MAX_CACHED_TEXTS = 64;
+
+        private final RegExLink[] mRegEx;
+        private final Map<String, List<LinkMatch>> mMatches =
+                new LinkedHashMap<String, List<LinkMatch>>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, List<LinkMatch>> e) {
+                        return size() > MAX_CACHED_TEXTS;
+                    }
+                };
+
+        Scanner(List<RegExLink> regEx) {
+            mRegEx = regEx.toArray(new RegExLink[0]);
+        }
+
+        List<LinkMatch> scan(String text) {
+            List<LinkMatch> matches = mMatches.get(text);
+            if (matches == null) {
+                matches = doScan(text);
+                mMatches.put(text, matches);
+            }
+            return matches;
+        }
+
+        private List<LinkMatch> doScan(String text) {
+            final String lowerCaseText = text.toLowerCase(Locale.US);
+            final Set<Integer> starts = new HashSet<>();
+            final TreeMap<Integer, LinkMatch> matches = new TreeMap<>();
+            for (final RegExLink regEx : mRegEx) {
+                if (regEx.mLink == null || !regEx.canMatch(lowerCaseText)) {
+                    continue;
+                }
+
+                final Matcher matcher = regEx.mPattern.matcher(text);
+                while (matcher.find()) {
+                    if (!starts.add(matcher.start())) {
+                        continue;
+                    }
+
+                    final String link = replaceLink(regEx, matcher);
+                    if (link == null) {
+                        continue;
+                    }
+
+                    // Try to deal with ".", ")", "]" catches by the regexp (this shouldn't
+                    // be the case for the 99% of the urls). Also trim up spaces.
+                    String group = matcher.group();
+                    int start = matcher.start();
+                    int end = matcher.end();
+                    if (StringHelper.endsWithPunctuationMark(group)) {
+                        group = group.substring(0, group.length() - 1);
+                        end--;
+                    }
+                    while (group.startsWith(" ") || group.startsWith("\n")) {
+                        group = group.substring(1);
+                        start++;
+                    }
+                    while (group.endsWith(" ") || group.endsWith("\n")) {
+                        group = group.substring(0, group.length() - 1);
+                        end--;
+                    }
+                    if (start >= end) {
+                        continue;
+                    }
+
+                    // The last match wins over the previous overlapping ones
+                    Map.Entry<Integer, LinkMatch> previous = matches.lowerEntry(end);
+                    while (previous != null && previous.getValue().mEnd > start) {
+                        matches.remove(previous.getKey());
+                        previous = matches.lowerEntry(end);
+                    }
+                    matches.put(start, new LinkMatch(start, end, link));
+                }
+            }
+            return new ArrayList<>(matches.values());
         }
     }
 
+    private static class LinkSpan extends ClickableSpan {
+        private final String mLink;
+
+        private LinkSpan(String link) {
+            mLink = link;
+        }
+
+        @Override
+        public void onClick(@NonNull View v) {
+            // Click on span doesn't provide sound feedback it the text view doesn't
+            // handle a click event. Just perform a click effect.
+            v.playSoundEffect(SoundEffectConstants.CLICK);
+
+            final Context ctx = v.getContext();
+            Uri uri = StringHelper.buildUriAndEnsureScheme(mLink);
+            boolean isHttpScheme = uri.getScheme().equals("http")
+                    || uri.getScheme().equals("https");
+            if (!isHttpScheme || ModelHelper.canAnyAccountHandleUrl(ctx, mLink)) {
+                ActivityHelper.handleUri(ctx, uri);
+            } else {
+                ActivityHelper.openUriInCustomTabs((Activity) ctx, uri);
+            }
+        }
+    }
+
+    private static final int MAX_SCANNERS = 16;
+
+    private static final Map<String, Pattern> sPatterns = new ConcurrentHashMap<>();
+    private static final Map<String, List<RegExLink>> sRepositoryRegExLinks =
+            new ConcurrentHashMap<>();
+    private static final Map<String, Scanner> sScanners =
+            new LinkedHashMap<String, Scanner>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Scanner> eldest) {
+                    return size() > MAX_SCANNERS;
+                }
+            };
+
     public static final RegExLink EMAIL_REGEX = new RegExLink(
             "email",
             StringHelper.EMAIL_REGEXP,
             "mailto:$1",
-            false);
+            false,
+            null,
+            new String[]{"@"});
     public static final RegExLink WEB_LINK_REGEX = new RegExLink(
             "web",
             StringHelper.WEB_REGEXP,
             "$1",
-            false);
+            false,
+            null,
+            new String[]{"://", "www."});
     public static final RegExLink GERRIT_CHANGE_ID_REGEX = new RegExLink(
             Constants.CUSTOM_URI_CHANGE,
             StringHelper.CHANGE_ID_REGEXP,
@@ -97,6 +267,8 @@ public class RegExLinkifyTextView extends StyleableTextView {
             false);
 
     private final List<RegExLink> mRegEx = new ArrayList<>();
+    private final Set<String> mRegExKeys = new HashSet<>();
+    private Scanner mScanner;
 
     public RegExLinkifyTextView(Context context) {
         this(context, null);
@@ -113,6 +285,17 @@ public class RegExLinkifyTextView extends StyleableTextView {
     }
 
     public static List<RegExLink> createRepositoryRegExpLinks(Repository repository) {
+        List<RegExLink> regexLinks = sRepositoryRegExLinks.get(repository.mUrl);
+        if (regexLinks == null) {
+            regexLinks = Collections.unmodifiableList(doCreateRepositoryRegExpLinks(repository));
+            sRepositoryRegExLinks.put(repository.mUrl, regexLinks);
+        }
+        return regexLinks;
+    }
+
+    private static List<RegExLink> doCreateRepositoryRegExpLinks(Repository repository) {
+        // All the links are absolute urls
+        final String[] prefilters = {"://"};
         String uri = repository.mUrl.substring(
                 repository.mUrl.toLowerCase(Locale.US).indexOf("://") + 3);
         if (!uri.endsWith("/")) {
@@ -127,13 +310,15 @@ public class RegExLinkifyTextView extends StyleableTextView {
                 "http(s)?://" + uri + "((\\?polygerrit=\\d)?(#/)?c/)?(\\d)+(/(((\\d)+\\.\\.)?(\\d)+)?(/(\\S)*+)?)?",
                 "com.ruesga.rview://" + Constants.CUSTOM_URI_CHANGE_ID + "/$1",
                 false,
-                group -> UriHelper.extractChangeId(group, repository)));
+                group -> UriHelper.extractChangeId(group, repository),
+                prefilters));
         regexLinks.add(new RegExLink(
                 Constants.CUSTOM_URI_CHANGE_ID,
                 "http(s)?://" + uri + "(\\?polygerrit=\\d)?(#/)?c/[\\w|\\-|\\d|\\/]*/\\+/\\d+(/(\\S)*+)?",
                 "com.ruesga.rview://" + Constants.CUSTOM_URI_CHANGE_ID + "/$1",
                 false,
-                group -> UriHelper.extractChangeId(group, repository)));
+                group -> UriHelper.extractChangeId(group, repository),
+                prefilters));
 
         // Queries
         regexLinks.add(new RegExLink(
@@ -141,7 +326,8 @@ public class RegExLinkifyTextView extends StyleableTextView {
                 "http(s)?://" + uri + "(\\?polygerrit=\\d)?(#/)?q/.*(\\\\s|$)",
                 "$1",
                 false,
-                null));
+                null,
+                prefilters));
 
         // Dashboards
         regexLinks.add(new RegExLink(
@@ -149,7 +335,8 @@ public class RegExLinkifyTextView extends StyleableTextView {
                 "http(s)?://" + uri + "(#/)?dashboard/\\S+",
                 "$1",
                 false,
-                null));
+                null,
+                prefilters));
 
         return regexLinks;
     }
@@ -160,79 +347,19 @@ public class RegExLinkifyTextView extends StyleableTextView {
         if (text != null) {
             Spannable span = text instanceof Spannable
                     ? (Spannable) text : Spannable.Factory.getInstance().newSpannable(text);
-            if (mRegEx != null) {
-                Set<Integer> links = new HashSet<>();
-                for (final RegExLink regEx : mRegEx) {
-                    if (regEx == null || regEx.mLink == null || regEx.mPattern == null) {
-                        continue;
-                    }
-
-                    final Matcher matcher = regEx.mPattern.matcher(text);
-                    while (matcher.find()) {
-                        if (links.contains(matcher.start())) {
-                            continue;
+            if (mRegEx != null && !mRegEx.isEmpty()) {
+                for (LinkMatch match : getScanner().scan(text.toString())) {
+                    // Remove previous spans
+                    ClickableSpan[] old = span.getSpans(
+                            match.mStart, match.mEnd, ClickableSpan.class);
+                    if (old != null) {
+                        for (ClickableSpan s : old) {
+                            span.removeSpan(s);
                         }
-                        links.add(matcher.start());
-
-                        final String link = replaceLink(regEx, matcher);
-                        if (link == null) {
-                            return;
-                        }
-
-                        // Try to deal with ".", ")", "]" catches by the regexp (this shouldn't
-                        // be the case for the 99% of the urls). Also trim up spaces.
-                        String group = matcher.group();
-                        int start = matcher.start();
-                        int end = matcher.end();
-                        if (group == null || start == -1 || end == -1) {
-                            return;
-                        }
-                        if (StringHelper.endsWithPunctuationMark(group)) {
-                            group = group.substring(0, group.length() - 1);
-                            end--;
-                        }
-                        while (group.startsWith(" ") || group.startsWith("\n")) {
-                            group = group.substring(1);
-                            start++;
-                        }
-                        while (group.endsWith(" ") || group.endsWith("\n")) {
-                            group = group.substring(0, group.length() - 1);
-                            end++;
-                        }
-
-                        // Remove previous spans
-                        ClickableSpan[] old = span.getSpans(start, end, ClickableSpan.class);
-                        if (old != null) {
-                            for (ClickableSpan s : old) {
-                                span.removeSpan(s);
-                            }
-                        }
-
-                        // Avoid to apply more than one clickable span over the same range
-                        ClickableSpan[] spans = span.getSpans(start, end, ClickableSpan.class);
-                        if (spans != null && spans.length > 0) {
-                            continue;
-                        }
-
-                        span.setSpan(new ClickableSpan() {
-                            @Override
-                            public void onClick(@NonNull View v) {
-                                // Click on span doesn't provide sound feedback it the text view doesn't
-                                // handle a click event. Just perform a click effect.
-                                v.playSoundEffect(SoundEffectConstants.CLICK);
-
-                                Uri uri = StringHelper.buildUriAndEnsureScheme(link);
-                                boolean isHttpScheme = uri.getScheme().equals("http")
-                                        || uri.getScheme().equals("https");
-                                if (!isHttpScheme ||
-                                        ModelHelper.canAnyAccountHandleUrl(getContext(), link)) {
-                                    ActivityHelper.handleUri(getContext(), uri);
-                                } else {
-                                    ActivityHelper.openUriInCustomTabs((Activity) getContext(), uri);
-                                }
-                            }
-                        }, start, end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
                     }
+
+                    span.setSpan(new LinkSpan(match.mLink), match.mStart, match.mEnd,
+                            Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
                 }
             }
             super.setText(span, BufferType.SPANNABLE);
@@ -242,8 +369,34 @@ public class RegExLinkifyTextView extends StyleableTextView {
     }
 
     public void addRegEx(RegExLink... regexs) {
-        mRegEx.addAll(Arrays.asList(regexs));
-        setText(getText(), BufferType.SPANNABLE);
+        // Views are rebound, so skip the scanners we already have
+        boolean changed = false;
+        for (RegExLink regEx : regexs) {
+            if (regEx != null && mRegExKeys.add(regEx.toKey())) {
+                mRegEx.add(regEx);
+                changed = true;
+            }
+        }
+        if (changed) {
+            mScanner = null;
+            setText(getText(), BufferType.SPANNABLE);
+        }
+    }
+
+    private Scanner getScanner() {
+        if (mScanner == null) {
+            StringBuilder sb = new StringBuilder();
+            for (RegExLink regEx : mRegEx) {
+                sb.append(regEx.toKey()).append('\n');
+            }
+            final String key = sb.toString();
+            mScanner = sScanners.get(key);
+            if (mScanner == null) {
+                mScanner = new Scanner(mRegEx);
+                sScanners.put(key, mScanner);
+            }
+        }
+        return mScanner;
     }
 
     @VisibleForTesting
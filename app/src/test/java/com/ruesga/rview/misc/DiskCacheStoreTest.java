@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.misc;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DiskCacheStoreTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private File mDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        mDirectory = mFolder.newFolder("cache");
+    }
+
+    @After
+    public void tearDown() {
+        DiskCacheStore.invalidate(mDirectory);
+    }
+
+    @Test
+    public void testReadWrite() throws IOException {
+        DiskCacheStore store = DiskCacheStore.open(mDirectory, 100);
+        assertFalse(store.contains("a"));
+        assertNull(store.read("a"));
+
+        store.write("a", new byte[]{1, 2, 3}, "rev1");
+        assertTrue(store.contains("a"));
+        assertArrayEquals(new byte[]{1, 2, 3}, store.read("a"));
+        assertEquals(3, store.size());
+        assertEquals("rev1", store.getEntry("a").revision);
+
+        store.remove("a");
+        assertFalse(store.contains("a"));
+        assertFalse(new File(mDirectory, "a").exists());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void testLruEviction() throws IOException {
+        DiskCacheStore store = DiskCacheStore.open(mDirectory, 10);
+        store.write("a", new byte[4], null);
+        store.write("b", new byte[4], null);
+        store.read("a");
+        store.write("c", new byte[4], null);
+
+        assertTrue(store.contains("a"));
+        assertFalse(store.contains("b"));
+        assertTrue(store.contains("c"));
+        assertEquals(8, store.size());
+    }
+
+    @Test
+    public void testPinnedEntriesAreNeverEvicted() throws IOException {
+        DiskCacheStore store = DiskCacheStore.open(mDirectory, 4, ".edit");
+        store.write("1.edit", new byte[8], null);
+        store.write("a", new byte[4], null);
+        store.write("b", new byte[4], null);
+
+        assertTrue(store.contains("1.edit"));
+        assertFalse(store.contains("a"));
+        assertTrue(store.contains("b"));
+    }
+
+    @Test
+    public void testJournalIsReplayed() throws IOException {
+        DiskCacheStore store = DiskCacheStore.open(mDirectory, 100);
+        store.write("a", new byte[]{1}, "rev1");
+        store.write("b", new byte[]{2, 3}, "rev2");
+        store.remove("a");
+        DiskCacheStore.invalidate(mDirectory);
+
+        // A partial write from a previous crash, and a file being written by other writer
+        FileUtils.writeByteArrayToFile(new File(mDirectory, ".store-1.tmp"), new byte[]{4});
+        FileUtils.writeByteArrayToFile(new File(mDirectory, "c.tmp"), new byte[]{5});
+
+        store = DiskCacheStore.open(mDirectory, 100);
+        assertFalse(store.contains("a"));
+        assertNotNull(store.getEntry("b"));
+        assertEquals("rev2", store.getEntry("b").revision);
+        assertEquals(2, store.getEntry("b").size);
+        assertFalse(new File(mDirectory, ".store-1.tmp").exists());
+        assertTrue(new File(mDirectory, "c.tmp").exists());
+    }
+
+    @Test
+    public void testUntrackedFilesAreAdopted() throws IOException {
+        FileUtils.writeByteArrayToFile(new File(mDirectory, "a"), new byte[]{1, 2});
+
+        DiskCacheStore store = DiskCacheStore.open(mDirectory, 100);
+        assertTrue(store.contains("a"));
+        assertEquals(2, store.size());
+
+        FileUtils.writeByteArrayToFile(new File(mDirectory, "b"), new byte[]{3});
+        assertTrue(store.contains("b"));
+        assertEquals(3, store.size());
+    }
+}
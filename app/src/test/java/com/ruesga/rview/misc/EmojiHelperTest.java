@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.misc;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+public class EmojiHelperTest {
+
+    // The regexp based implementation the automaton replaced (o.O matched any middle char)
+    private static final String[][] LEGACY = {
+            {"<3", "^<3", " <3"},
+            {"^_^", "^\\^_\\^", " \\^_\\^"},
+            {"-_-", "^-_-", " -_-"},
+            {"o.O", "^o\\.O", " o\\.O"},
+            {">:O", "^>:O", " >:O"},
+            {"X(", "^X\\(", " X\\("},
+            {"\\o/", "^\\\\o/", " \\\\o/"},
+            {"3:)", "^3:\\)", " 3:\\)"},
+            {"O:)", "^O:\\)", " O:\\)"},
+            {">:(", "^>:\\(", " >:\\("},
+            {"B-)", "^B-\\)", " B-\\)"},
+            {"B|", "^B\\|", " B\\|"},
+            {":'(", "^:'\\(", " :'\\("},
+            {":*", "^:\\*", " :\\*"},
+            {":P", "^:P", " :P"},
+            {":D", "^:D", " :D"},
+            {":'D", "^:'D", " :'D"},
+            {":))", "^:\\)\\)", " :\\)\\)"},
+            {":((", "^:\\(\\(", " :\\(\\("},
+            {":O", "^:O", " :O"},
+            {";)", "^;\\)", " ;\\)"},
+            {":/", "^:/", " :/"},
+            {":-)", "^:-\\)", " :-\\)"},
+            {":)", "^:\\)", " :\\)"},
+            {":(", "^:\\(", " :\\("},
+            {":-(", "^:-\\(", " :-\\("},
+            {":-B", "^:-B", " :-B"},
+            {":-?", "^:-\\?", " :-\\?"},
+            {"|-)", "^\\|-\\)", " \\|-\\)"},
+            {":-&", "^:-&", " :-&"},
+            {":S", "^:S", " :S"},
+            {":+1:", "^:\\+1:", " :\\+1:"},
+            {":-1:", "^:-1:", " :-1:"}
+    };
+    private static final int[] LEGACY_CODES = {
+            0x1F60D, 0x1F60A, 0x1F611, 0x1F632, 0x1F62C, 0x1F62C, 0x1F64C, 0x1F47F, 0x1F607,
+            0x1F620, 0x1F60E, 0x1F60E, 0x1F622, 0x1F61A, 0x1F61B, 0x1F601, 0x1F602, 0x1F606,
+            0x1F62D, 0x1F62E, 0x1F609, 0x1F615, 0x1F600, 0x1F600, 0x1F641, 0x1F641, 0x1F913,
+            0x1F914, 0x1F634, 0x1F912, 0x1F615, 0x1F44D, 0x1F44E
+    };
+    private static final Pattern[] LEGACY_REGEXP1 = new Pattern[LEGACY.length];
+    private static final Pattern[] LEGACY_REGEXP2 = new Pattern[LEGACY.length];
+    static {
+        for (int i = 0; i < LEGACY.length; i++) {
+            LEGACY_REGEXP1[i] = Pattern.compile(LEGACY[i][1], Pattern.MULTILINE);
+            LEGACY_REGEXP2[i] = Pattern.compile(LEGACY[i][2]);
+        }
+    }
+
+    private static final String[] TOKENS = {
+            " ", "\n", "\r\n", "a", "word", "http://example.com/a", ":", ")", "(", "-",
+            ":)", ":))", ":-)", ":P", ":D", ":'D", ":(", ":((", "<3", "o.O", "\\o/",
+            "3:)", ":+1:", ":-1:", "B|", ";)", ":/", ":S", "|-)", ":-?"
+    };
+
+    @Test
+    public void testReplaceEmoticons() {
+        assertEquals("", EmojiHelper.replaceEmoticons(""));
+        assertEquals("no emoticons", EmojiHelper.replaceEmoticons("no emoticons"));
+        assertEquals(emoji(0x1F600) + " a " + emoji(0x1F606) + ")",
+                EmojiHelper.replaceEmoticons(":) a :)))"));
+        assertEquals("a:) http://example.com",
+                EmojiHelper.replaceEmoticons("a:) http://example.com"));
+        assertEquals("line\n" + emoji(0x1F44D), EmojiHelper.replaceEmoticons("line\n:+1:"));
+    }
+
+    @Test
+    public void testSameAsLegacyImplementation() {
+        Random random = new Random(1);
+        for (int i = 0; i < 20000; i++) {
+            String msg = createMessage(random, random.nextInt(30));
+            assertEquals(msg, legacyReplaceEmoticons(msg), EmojiHelper.replaceEmoticons(msg));
+        }
+    }
+
+    // Compares the automaton with the legacy implementation. Timings are not reliable in
+    // the unit tests runs, so run it manually
+    @Ignore("Benchmark")
+    @Test
+    public void benchmark() {
+        Random random = new Random(1);
+        String[] messages = new String[200];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = createMessage(random, 2000);
+        }
+
+        // Warm up
+        for (int i = 0; i < 5; i++) {
+            run(messages, true);
+            run(messages, false);
+        }
+
+        long legacy = run(messages, true);
+        long automaton = run(messages, false);
+        System.out.println(String.format(Locale.US,
+                "createEmoji (%d messages): regexp %.2fms, automaton %.2fms",
+                messages.length, legacy / 1e6, automaton / 1e6));
+    }
+
+    private static long run(String[] messages, boolean legacy) {
+        long start = System.nanoTime();
+        for (String msg : messages) {
+            if (legacy) {
+                legacyReplaceEmoticons(msg);
+            } else {
+                EmojiHelper.replaceEmoticons(msg);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static String createMessage(Random random, int tokens) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < tokens; i++) {
+            sb.append(TOKENS[random.nextInt(TOKENS.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static String legacyReplaceEmoticons(String msg) {
+        for (int i = 0; i < LEGACY.length; i++) {
+            if (msg.contains(LEGACY[i][0])) {
+                String emoji = emoji(LEGACY_CODES[i]);
+                msg = LEGACY_REGEXP1[i].matcher(msg).replaceAll(emoji);
+                msg = LEGACY_REGEXP2[i].matcher(msg).replaceAll(" " + emoji);
+            }
+        }
+        return msg;
+    }
+
+    private static String emoji(int code) {
+        return new String(Character.toChars(code));
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.providers;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.text.format.DateUtils;
+
+import com.ruesga.rview.gerrit.model.ChangeStatus;
+import com.ruesga.rview.model.Stats;
+import com.ruesga.rview.model.StatsSummary;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk=Config.NEWEST_SDK, manifest = Config.NONE)
+public class StatsEntityTest {
+
+    private static final String ACCOUNT = "account";
+    private static final String KEY = "stats/owner:self";
+
+    private static final long DAY1 = 100 * DateUtils.DAY_IN_MILLIS;
+    private static final long DAY2 = 101 * DateUtils.DAY_IN_MILLIS;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        Robolectric.setupContentProvider(RviewProvider.class, RviewProvider.AUTHORITY);
+        mContext = RuntimeEnvironment.application;
+    }
+
+    @Test
+    public void testSync() throws Exception {
+        StatsEntity.sync(mContext, ACCOUNT, KEY, Arrays.asList(
+                createStats(1, ChangeStatus.NEW, DAY1, DAY1 + 10),
+                createStats(2, ChangeStatus.MERGED, DAY1 + 20, DAY1 + 20),
+                createStats(3, ChangeStatus.ABANDONED, DAY2, DAY2 + 30)),
+                true, 0, DAY2 + 100);
+        assertEquals(DAY2 + 30, StatsEntity.getLastSync(mContext, ACCOUNT, KEY));
+
+        StatsSummary summary = StatsEntity.getStatsSummary(mContext, ACCOUNT, KEY);
+        assertEquals(3, summary.mStats.size());
+        assertEquals(1, summary.mOpen);
+        assertEquals(1, summary.mMerged);
+        assertEquals(1, summary.mAbandoned);
+        assertEquals(2, summary.mActivity.size());
+        assertEquals(2, (int) summary.mActivity.get(DAY1));
+        assertEquals(1, (int) summary.mActivity.get(DAY2));
+
+        // Other stats aren't affected
+        assertEquals(0, StatsEntity.getLastSync(mContext, ACCOUNT, "other"));
+        assertEquals(0, StatsEntity.getStatsSummary(mContext, ACCOUNT, "other").mStats.size());
+    }
+
+    @Test
+    public void testIncrementalSync() throws Exception {
+        StatsEntity.sync(mContext, ACCOUNT, KEY, Arrays.asList(
+                createStats(1, ChangeStatus.NEW, DAY1, DAY1),
+                createStats(2, ChangeStatus.NEW, DAY1, DAY1 + 10)),
+                true, 0, DAY1 + 100);
+
+        // Updated changes replace the stored ones, and old changes are dropped
+        StatsEntity.sync(mContext, ACCOUNT, KEY, Collections.singletonList(
+                createStats(2, ChangeStatus.MERGED, DAY2, DAY2)),
+                false, DAY1 + 5, DAY2 + 100);
+        assertEquals(DAY2, StatsEntity.getLastSync(mContext, ACCOUNT, KEY));
+
+        StatsSummary summary = StatsEntity.getStatsSummary(mContext, ACCOUNT, KEY);
+        assertEquals(1, summary.mStats.size());
+        assertEquals(ChangeStatus.MERGED, summary.mStats.get(0).mStatus);
+        assertEquals(0, summary.mOpen);
+        assertEquals(1, summary.mMerged);
+    }
+
+    @Test
+    public void testEmptySyncRecordsSyncTime() throws Exception {
+        StatsEntity.sync(mContext, ACCOUNT, KEY, Collections.emptyList(), true, 0, DAY1);
+        assertEquals(DAY1, StatsEntity.getLastSync(mContext, ACCOUNT, KEY));
+
+        StatsEntity.sync(mContext, ACCOUNT, KEY, Collections.singletonList(
+                createStats(1, ChangeStatus.NEW, DAY1, DAY1 + 10)),
+                false, 0, DAY2);
+        assertEquals(DAY1 + 10, StatsEntity.getLastSync(mContext, ACCOUNT, KEY));
+
+        StatsEntity.sync(mContext, ACCOUNT, KEY, Collections.emptyList(), false, 0, DAY2);
+        assertEquals(DAY2, StatsEntity.getLastSync(mContext, ACCOUNT, KEY));
+    }
+
+    @Test
+    public void testGroupByQuery() throws Exception {
+        StatsEntity.sync(mContext, ACCOUNT, KEY, Arrays.asList(
+                createStats(1, ChangeStatus.NEW, DAY1, DAY1),
+                createStats(2, ChangeStatus.NEW, DAY1, DAY1),
+                createStats(3, ChangeStatus.MERGED, DAY2, DAY2)),
+                true, 0, DAY2);
+
+        Uri uri = StatsEntity.CONTENT_URI.buildUpon()
+                .appendQueryParameter(RviewProvider.QUERY_PARAMETER_GROUP_BY,
+                        StatsEntity.STATUS)
+                .build();
+        Map<String, Integer> counts = new HashMap<>();
+        Cursor c = mContext.getContentResolver().query(uri,
+                new String[]{StatsEntity.STATUS, "count(*)"},
+                StatsEntity.ACCOUNT_ID + " = ?", new String[]{ACCOUNT}, null);
+        try {
+            while (c.moveToNext()) {
+                counts.put(c.getString(0), c.getInt(1));
+            }
+        } finally {
+            c.close();
+        }
+        assertEquals(2, counts.size());
+        assertEquals(2, (int) counts.get(ChangeStatus.NEW.name()));
+        assertEquals(1, (int) counts.get(ChangeStatus.MERGED.name()));
+
+        // Without group_by every row is returned
+        c = mContext.getContentResolver().query(StatsEntity.CONTENT_URI,
+                new String[]{StatsEntity.STATUS}, null, null, null);
+        try {
+            assertEquals(3, c.getCount());
+        } finally {
+            c.close();
+        }
+    }
+
+    private static Stats createStats(int id, ChangeStatus status, long date, long updated) {
+        Stats s = new Stats();
+        s.mLegacyChangeId = id;
+        s.mStatus = status;
+        s.mDate = new Date(date);
+        s.mUpdated = new Date(updated);
+        s.mDescription = "Change " + id;
+        return s;
+    }
+}
@@ -17,10 +17,14 @@ package com.ruesga.rview.widget;
 
 import com.ruesga.rview.model.Repository;
 import com.ruesga.rview.preferences.Constants;
+import com.ruesga.rview.widget.RegExLinkifyTextView.LinkMatch;
 import com.ruesga.rview.widget.RegExLinkifyTextView.RegExLink;
+import com.ruesga.rview.widget.RegExLinkifyTextView.Scanner;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.regex.Matcher;
 
@@ -126,6 +130,58 @@ public class RegExLinkifyTextViewTest {
                         "#JIRA-894"));
     }
 
+    @Test
+    public void testOverlappingMatches() {
+        RegExLink foo = createRegExLink("(foo-\\w+)", "http://foo/$1");
+        RegExLink qux = createRegExLink("(\\w+-qux)", "http://qux/$1");
+
+        // The last pattern wins over the previous overlapping matches
+        List<LinkMatch> matches = new Scanner(Arrays.asList(foo, qux)).scan("foo-bar-qux");
+        assertEquals(1, matches.size());
+        assertMatch(matches.get(0), 4, 11, "http://qux/bar-qux");
+
+        matches = new Scanner(Arrays.asList(qux, foo)).scan("foo-bar-qux");
+        assertEquals(1, matches.size());
+        assertMatch(matches.get(0), 0, 7, "http://foo/foo-bar");
+
+        // Only the first pattern matching at a position is used
+        RegExLink bar = createRegExLink("(foo-\\w+-\\w+)", "http://bar/$1");
+        matches = new Scanner(Arrays.asList(foo, bar)).scan("foo-bar-qux");
+        assertEquals(1, matches.size());
+        assertMatch(matches.get(0), 0, 7, "http://foo/foo-bar");
+    }
+
+    @Test
+    public void testAdjacentMatches() {
+        RegExLink foo = createRegExLink("(foo-\\d+)", "http://foo/$1");
+        List<LinkMatch> matches = new Scanner(Collections.singletonList(foo))
+                .scan("foo-1foo-2 foo-3");
+        assertEquals(3, matches.size());
+        assertMatch(matches.get(0), 0, 5, "http://foo/foo-1");
+        assertMatch(matches.get(1), 5, 10, "http://foo/foo-2");
+        assertMatch(matches.get(2), 11, 16, "http://foo/foo-3");
+    }
+
+    @Test
+    public void testMatchAtEndOfText() {
+        Scanner scanner = new Scanner(Collections.singletonList(
+                RegExLinkifyTextView.WEB_LINK_REGEX));
+        List<LinkMatch> matches = scanner.scan("see http://test.com/a");
+        assertEquals(1, matches.size());
+        assertMatch(matches.get(0), 4, 21, "http://test.com/a");
+
+        // Trailing punctuation marks aren't part of the link
+        matches = scanner.scan("see http://test.com/a.");
+        assertEquals(1, matches.size());
+        assertMatch(matches.get(0), 4, 21, "http://test.com/a");
+    }
+
+    private static void assertMatch(LinkMatch match, int start, int end, String link) {
+        assertEquals(start, match.mStart);
+        assertEquals(end, match.mEnd);
+        assertEquals(link, match.mLink);
+    }
+
     private String replaceLink(RegExLink regEx, String test) {
         Matcher matcher = regEx.mPattern.matcher(test);
         if (!matcher.find()) {
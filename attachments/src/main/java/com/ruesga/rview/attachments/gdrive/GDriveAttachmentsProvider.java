@@ -15,7 +15,6 @@
  */
 package com.ruesga.rview.attachments.gdrive;
 
-import android.annotation.SuppressLint;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.text.TextUtils;
@@ -36,21 +35,22 @@ import com.ruesga.rview.attachments.gdrive.model.GranteeType;
 import com.ruesga.rview.attachments.gdrive.model.PermissionMetadataInput;
 import com.ruesga.rview.attachments.gdrive.model.RoleType;
 import com.ruesga.rview.attachments.gdrive.oauth.OAuthProxyFragment;
+import com.ruesga.rview.attachments.misc.ContentUriRequestBody;
+import com.ruesga.rview.attachments.misc.ExceptionHelper;
 import com.ruesga.rview.attachments.preferences.Preferences;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.util.List;
 import java.util.Locale;
 
 import androidx.annotation.DrawableRes;
 import androidx.annotation.StringRes;
 import androidx.fragment.app.FragmentManager;
+import io.reactivex.Observable;
+import io.reactivex.schedulers.Schedulers;
 import okhttp3.MediaType;
 import okhttp3.RequestBody;
+import retrofit2.Response;
 
 public class GDriveAttachmentsProvider implements AttachmentsProvider {
 
@@ -60,6 +60,13 @@ public class GDriveAttachmentsProvider implements AttachmentsProvider {
 
     private static final String ATTACHMENT_PACKAGE = "com.ruesga.rview.attachments";
 
+    private static final String OCTET_STREAM = "application/octet-stream";
+    private static final MediaType OCTET_STREAM_MEDIA_TYPE = MediaType.parse(OCTET_STREAM);
+
+    // Chunks must be multiple of 256Kb. Small enough to not lose much on mobile networks
+    private static final long UPLOAD_CHUNK_SIZE = 4 * 256 * 1024;
+    private static final int MAX_PARALLEL_REQUESTS = 3;
+
     public GDriveAttachmentsProvider(Context context) {
         mContext = context.getApplicationContext();
     }
@@ -111,88 +118,164 @@ public class GDriveAttachmentsProvider implements AttachmentsProvider {
     }
 
     @Override
-    @SuppressLint("CheckResult")
     public boolean createAttachmentsMetadata(List<Attachment> attachments) {
         // Check
         final String folderId = createFolderIfNeeded();
 
         GDriveRestApiClient api = GDriveRestApiClient.newClientInstance(mContext);
-        for (Attachment attachment : attachments) {
-            // Don't upload url attachments
-            if (attachment.mMimeType.equals("application/internet-shortcut")
-                    || attachment.mMimeType.equals("application/x-url")) {
-                attachment.mId = attachment.mUrl = attachment.mLocalUri.toString();
-                continue;
-            }
-
-
-            Log.i(TAG, "Creating and sharing attachment metadata: " + attachment.mName
-                    + " from " + attachment.mLocalUri);
-            // Create metadata
-            FileMetadataInput file = new FileMetadataInput();
-            file.name = attachment.mName;
-            file.mimeType = attachment.mMimeType;
-            file.parents = new String[]{folderId};
-            FileMetadata metadata = api.createFileMetadata(file).blockingFirst();
-
-            // Create permissions
-            PermissionMetadataInput permission = new PermissionMetadataInput();
-            permission.type = GranteeType.anyone;
-            permission.role = RoleType.reader;
-            permission.allowFileDiscovery = false;
-            api.createFilePermission(metadata.id, permission).blockingFirst();
-            Log.i(TAG, "New attachment metadata created: " + metadata.id);
-
-            // Assign the shared url
-            boolean image = file.mimeType.startsWith("image/") && !file.mimeType.contains("+xml");
-            final String mode = image ? Constants.SHARED_MODE_VIEW : Constants.SHARED_MODE_DOWNLOAD;
-            attachment.mId = metadata.id;
-            attachment.mUrl = String.format(Locale.US, Constants.SHARED_URL, mode, metadata.id);
-            Log.i(TAG, "New attachment url: " + attachment.mUrl);
-        }
-
+        Observable.fromIterable(attachments)
+                .flatMap(attachment -> Observable.fromCallable(() ->
+                        createAttachmentMetadata(api, folderId, attachment))
+                                .subscribeOn(Schedulers.io()), MAX_PARALLEL_REQUESTS)
+                .toList()
+                .blockingGet();
         return true;
     }
 
     @Override
-    @SuppressLint("CheckResult")
     public boolean uploadAttachmentsContent(List<Attachment> attachments) {
         GDriveRestApiClient api = GDriveRestApiClient.newClientInstance(mContext);
         Log.i(TAG, "Uploading " + attachments.size() + " content attachments");
-        boolean success = true;
-        for (Attachment attachment : attachments) {
-            // Don't upload url attachments
-            if (attachment.mMimeType.equals("application/internet-shortcut")
-                    || attachment.mMimeType.equals("application/x-url")) {
-                attachment.mUrl = attachment.mLocalUri.toString();
-                continue;
+        List<Boolean> results = Observable.fromIterable(attachments)
+                .flatMap(attachment -> Observable.fromCallable(() ->
+                        uploadAttachmentContent(api, attachment))
+                                .subscribeOn(Schedulers.io()), MAX_PARALLEL_REQUESTS)
+                .toList()
+                .blockingGet();
+        return !results.contains(false);
+    }
+
+    private Attachment createAttachmentMetadata(
+            GDriveRestApiClient api, String folderId, Attachment attachment) {
+        // Don't upload url attachments
+        if (isUrlAttachment(attachment)) {
+            attachment.mId = attachment.mUrl = attachment.mLocalUri.toString();
+            return attachment;
+        }
+
+
+        Log.i(TAG, "Creating and sharing attachment metadata: " + attachment.mName
+                + " from " + attachment.mLocalUri);
+        // Create metadata
+        FileMetadataInput file = new FileMetadataInput();
+        file.name = attachment.mName;
+        file.mimeType = attachment.mMimeType;
+        file.parents = new String[]{folderId};
+        FileMetadata metadata = api.createFileMetadata(file).blockingFirst();
+
+        // Create permissions
+        PermissionMetadataInput permission = new PermissionMetadataInput();
+        permission.type = GranteeType.anyone;
+        permission.role = RoleType.reader;
+        permission.allowFileDiscovery = false;
+        api.createFilePermission(metadata.id, permission).blockingFirst();
+        Log.i(TAG, "New attachment metadata created: " + metadata.id);
+
+        // Assign the shared url
+        boolean image = file.mimeType.startsWith("image/") && !file.mimeType.contains("+xml");
+        final String mode = image ? Constants.SHARED_MODE_VIEW : Constants.SHARED_MODE_DOWNLOAD;
+        attachment.mId = metadata.id;
+        attachment.mUrl = String.format(Locale.US, Constants.SHARED_URL, mode, metadata.id);
+        Log.i(TAG, "New attachment url: " + attachment.mUrl);
+        return attachment;
+    }
+
+    private boolean uploadAttachmentContent(GDriveRestApiClient api, Attachment attachment) {
+        // Don't upload url attachments
+        if (isUrlAttachment(attachment)) {
+            attachment.mUrl = attachment.mLocalUri.toString();
+            return true;
+        }
+
+        try {
+            Log.i(TAG, "Uploading attachment: " + attachment.mId);
+            ContentResolver cr = mContext.getContentResolver();
+            if (attachment.mSize <= 0) {
+                // Without the size we can't upload it by chunks. Just stream the content
+                RequestBody content = new ContentUriRequestBody(
+                        cr, attachment.mLocalUri, OCTET_STREAM_MEDIA_TYPE);
+                api.uploadFileContent(attachment.mId, content).blockingFirst();
+            } else {
+                uploadAttachmentContentChunks(api, cr, attachment);
             }
+            Log.i(TAG, "Attachment uploaded successfully: " + attachment.mId);
+            return true;
 
+        } catch (Exception ex) {
+            Log.e(TAG, "Failed to upload attachment content: " + attachment.mId, ex);
+            return false;
+        }
+    }
+
+    private void uploadAttachmentContentChunks(
+            GDriveRestApiClient api, ContentResolver cr, Attachment attachment)
+            throws IOException {
+        final long size = attachment.mSize;
+        long offset = 0;
+
+        // Resume a previous upload session (the service could have been restarted)
+        String session = Preferences.getUploadSession(mContext, attachment.mId);
+        if (session != null) {
             try {
-                File temp = createTemporaryAttachmentFile(attachment);
-                if (temp != null) {
-                    try {
-                        Log.i(TAG, "Uploading attachment: " + attachment.mId);
-
-                        // Upload the attachment
-                        RequestBody content = RequestBody.create(
-                                MediaType.parse("application/octet-stream"), temp);
-                        api.uploadFileContent(attachment.mId, content).blockingFirst();
-
-                        Log.i(TAG, "Attachment uploaded successfully: " + attachment.mId);
-                    } finally {
-                        //noinspection ResultOfMethodCallIgnored
-                        temp.delete();
-                    }
+                Response<Void> response = api.uploadFileContentChunk(session,
+                        "bytes */" + size, RequestBody.create(null, new byte[0]))
+                        .blockingFirst();
+                if (response.isSuccessful()) {
+                    Preferences.setUploadSession(mContext, attachment.mId, null);
+                    return;
                 }
-
+                offset = getUploadedBytes(response);
+                Log.i(TAG, "Resuming attachment upload: " + attachment.mId + " at " + offset);
             } catch (Exception ex) {
-                Log.e(TAG, "Failed to upload attachment content: " + attachment.mId, ex);
-                success = false;
+                if (!ExceptionHelper.isResourceNotFoundException(ex)) {
+                    throw ex;
+                }
+                Log.w(TAG, "Upload session expired: " + attachment.mId);
+                session = null;
+            }
+        }
+        if (session == null) {
+            Response<Void> response = api.createUploadSession(
+                    attachment.mId, OCTET_STREAM, size).blockingFirst();
+            session = response.headers().get("Location");
+            if (session == null) {
+                throw new IOException("No upload session for " + attachment.mId);
             }
+            Preferences.setUploadSession(mContext, attachment.mId, session);
         }
 
-        return success;
+        while (offset < size) {
+            long length = Math.min(UPLOAD_CHUNK_SIZE, size - offset);
+            RequestBody chunk = new ContentUriRequestBody(
+                    cr, attachment.mLocalUri, OCTET_STREAM_MEDIA_TYPE, offset, length);
+            String range = "bytes " + offset + "-" + (offset + length - 1) + "/" + size;
+            Response<Void> response =
+                    api.uploadFileContentChunk(session, range, chunk).blockingFirst();
+            if (response.isSuccessful()) {
+                break;
+            }
+
+            long uploaded = getUploadedBytes(response);
+            if (uploaded <= offset) {
+                throw new IOException("Upload of " + attachment.mId + " doesn't progress");
+            }
+            offset = uploaded;
+        }
+        Preferences.setUploadSession(mContext, attachment.mId, null);
+    }
+
+    // The range header of an incomplete upload has the form "bytes=0-<last byte>"
+    private static long getUploadedBytes(Response<Void> response) {
+        String range = response.headers().get("Range");
+        if (range == null) {
+            return 0;
+        }
+        return Long.parseLong(range.substring(range.lastIndexOf('-') + 1)) + 1;
+    }
+
+    private static boolean isUrlAttachment(Attachment attachment) {
+        return attachment.mMimeType.equals("application/internet-shortcut")
+                || attachment.mMimeType.equals("application/x-url");
     }
 
     private String createFolderIfNeeded() {
@@ -218,47 +301,4 @@ public class GDriveAttachmentsProvider implements AttachmentsProvider {
         Log.i(TAG, ATTACHMENT_PACKAGE + " folder created in GDrive: " + metadata.id);
         return metadata.id;
     }
-
-    @SuppressWarnings("TryFinallyCanBeTryWithResources")
-    private File createTemporaryAttachmentFile(Attachment attachment) throws IOException {
-        InputStream is = null;
-        OutputStream os = null;
-        try {
-            ContentResolver cr = mContext.getContentResolver();
-            is = cr.openInputStream(attachment.mLocalUri);
-            if (is == null) {
-                return null;
-            }
-
-            File temp = new File(mContext.getFilesDir(),
-                    System.currentTimeMillis() + "." + attachment.mId);
-            os = new FileOutputStream(temp, false);
-
-            // Copy the attachment to a temporary file
-            byte[] data = new byte[4096];
-            int read;
-            while ((read = is.read(data, 0, 4096)) != -1) {
-                os.write(data, 0, read);
-            }
-            os.close();
-
-            return temp;
-
-        } finally {
-            try {
-                if (is != null) {
-                    is.close();
-                }
-            } catch (IOException ex) {
-                // Ignore
-            }
-            try {
-                if (os != null) {
-                    os.close();
-                }
-            } catch (IOException ex) {
-                // Ignore
-            }
-        }
-    }
 }
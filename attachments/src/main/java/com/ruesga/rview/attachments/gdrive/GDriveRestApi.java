@@ -27,15 +27,19 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import io.reactivex.Observable;
 import okhttp3.RequestBody;
+import retrofit2.Response;
 import retrofit2.http.Body;
 import retrofit2.http.Field;
 import retrofit2.http.FormUrlEncoded;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
 import retrofit2.http.Headers;
 import retrofit2.http.PATCH;
 import retrofit2.http.POST;
+import retrofit2.http.PUT;
 import retrofit2.http.Path;
 import retrofit2.http.Query;
+import retrofit2.http.Url;
 
 public interface GDriveRestApi {
 
@@ -43,6 +47,9 @@ public interface GDriveRestApi {
     String OAUTH_GRANT_TYPE_AUTH_TOKEN = "authorization_code";
     String OAUTH_GRANT_TYPE_REFRESH_TOKEN = "refresh_token";
 
+    // Returned by an upload session while the upload is incomplete
+    int HTTP_RESUME_INCOMPLETE = 308;
+
     // OAuth2 EntryPoints
 
     @FormUrlEncoded
@@ -86,6 +93,18 @@ public interface GDriveRestApi {
             @NonNull @Path("file-id") String fileId,
             @NonNull @Body RequestBody input);
 
+    @PATCH("upload/drive/v3/files/{file-id}?uploadType=resumable")
+    Observable<Response<Void>> createUploadSession(
+            @NonNull @Path("file-id") String fileId,
+            @NonNull @Header("X-Upload-Content-Type") String contentType,
+            @Header("X-Upload-Content-Length") long contentLength);
+
+    @PUT
+    Observable<Response<Void>> uploadFileContentChunk(
+            @NonNull @Url String session,
+            @NonNull @Header("Content-Range") String contentRange,
+            @NonNull @Body RequestBody input);
+
     @GET("drive/v3/files/{file-id}/permissions")
     Observable<PermissionMetadataPageInfo> listFilePermissions(
             @NonNull @Path("file-id") String fileId,
@@ -49,6 +49,8 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.logging.HttpLoggingInterceptor;
+import retrofit2.HttpException;
+import retrofit2.Response;
 import retrofit2.Retrofit;
 import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
 import retrofit2.converter.gson.GsonConverterFactory;
@@ -166,42 +168,54 @@ public class GDriveRestApiClient implements GDriveRestApi {
         });
     }
 
+    private static Response<Void> checkUploadResponse(Response<Void> response) {
+        // An incomplete upload isn't an error
+        if (!response.isSuccessful() && response.code() != HTTP_RESUME_INCOMPLETE) {
+            throw new HttpException(response);
+        }
+        return response;
+    }
+
     private <T> Observable<T> withTokenRefreshCheck(final Observable<T> observable) {
         return SafeObservable.fromNullCallable(() -> {
-            final AuthenticationInfo auth = Preferences.getAuthenticationInfo(
-                    mContext, Provider.GDRIVE);
-            if (auth != null && auth.expiresIn > 0
-                    && auth.expiresIn < System.currentTimeMillis()) {
-                // Token expired. Refresh it
-                try {
-                    final String clientId = mContext.getString(R.string.gdrive_client_id);
-                    final String secret = mContext.getString(R.string.gdrive_client_secret);
-                    AccessToken token = refreshAccessToken(auth.refreshToken, clientId, secret,
-                            GDriveRestApi.OAUTH_GRANT_TYPE_REFRESH_TOKEN)
-                                    .blockingFirst();
-                    auth.accessToken = token.accessToken;
-                    auth.tokenType = token.tokenType;
-                    auth.expiresIn = System.currentTimeMillis() + (token.expiresIn * 1000L);
-                    Preferences.setAuthenticationInfo(mContext, Provider.GDRIVE, auth);
-                    Log.i(TAG, "GDrive access token refreshed. Will expired in " + auth.expiresIn);
-
-                } catch (Throwable cause) {
-                    if (ExceptionHelper.isAuthenticationException(cause)) {
-                        Log.w(TAG, "Got authentication exception refreshing GDrive access token."
-                                + " Disable account", cause);
-                        Preferences.setAuthenticationInfo(mContext, Provider.GDRIVE, null);
-                        Preferences.setProvider(mContext, Provider.NONE);
-                        throw new AuthenticationException(Provider.GDRIVE.name());
-                    }
-
-                    Log.w(TAG, "Can't refresh GDrive access token", cause);
-                }
-            }
-
+            refreshAccessTokenIfNeeded();
             return observable.blockingFirst();
         });
     }
 
+    // Uploads run in parallel. Only one of them should refresh the token
+    private synchronized void refreshAccessTokenIfNeeded() throws AuthenticationException {
+        final AuthenticationInfo auth = Preferences.getAuthenticationInfo(
+                mContext, Provider.GDRIVE);
+        if (auth != null && auth.expiresIn > 0
+                && auth.expiresIn < System.currentTimeMillis()) {
+            // Token expired. Refresh it
+            try {
+                final String clientId = mContext.getString(R.string.gdrive_client_id);
+                final String secret = mContext.getString(R.string.gdrive_client_secret);
+                AccessToken token = refreshAccessToken(auth.refreshToken, clientId, secret,
+                        GDriveRestApi.OAUTH_GRANT_TYPE_REFRESH_TOKEN)
+                                .blockingFirst();
+                auth.accessToken = token.accessToken;
+                auth.tokenType = token.tokenType;
+                auth.expiresIn = System.currentTimeMillis() + (token.expiresIn * 1000L);
+                Preferences.setAuthenticationInfo(mContext, Provider.GDRIVE, auth);
+                Log.i(TAG, "GDrive access token refreshed. Will expired in " + auth.expiresIn);
+
+            } catch (Throwable cause) {
+                if (ExceptionHelper.isAuthenticationException(cause)) {
+                    Log.w(TAG, "Got authentication exception refreshing GDrive access token."
+                            + " Disable account", cause);
+                    Preferences.setAuthenticationInfo(mContext, Provider.GDRIVE, null);
+                    Preferences.setProvider(mContext, Provider.NONE);
+                    throw new AuthenticationException(Provider.GDRIVE.name());
+                }
+
+                Log.w(TAG, "Can't refresh GDrive access token", cause);
+            }
+        }
+    }
+
 
 
     @Override
@@ -249,6 +263,24 @@ public class GDriveRestApiClient implements GDriveRestApi {
                         mApi.uploadFileContent(fileId, input)));
     }
 
+    @Override
+    public Observable<Response<Void>> createUploadSession(
+            @NonNull String fileId, @NonNull String contentType, long contentLength) {
+        return withAccessTokenCheck(
+                withTokenRefreshCheck(
+                        mApi.createUploadSession(fileId, contentType, contentLength)
+                                .map(GDriveRestApiClient::checkUploadResponse)));
+    }
+
+    @Override
+    public Observable<Response<Void>> uploadFileContentChunk(
+            @NonNull String session, @NonNull String contentRange, @NonNull RequestBody input) {
+        return withAccessTokenCheck(
+                withTokenRefreshCheck(
+                        mApi.uploadFileContentChunk(session, contentRange, input)
+                                .map(GDriveRestApiClient::checkUploadResponse)));
+    }
+
     @Override
     public Observable<PermissionMetadataPageInfo> listFilePermissions(
             @NonNull String fileId, @Nullable Integer pageSize, @Nullable String pageToken) {
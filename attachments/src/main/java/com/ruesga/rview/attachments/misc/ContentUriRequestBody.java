@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2017 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.attachments.misc;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import androidx.annotation.Nullable;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * A {@link RequestBody} that streams the content of an uri (or a range of it) directly
+ * from its {@link ContentResolver}, without copying it first.
+ */
+public class ContentUriRequestBody extends RequestBody {
+
+    private final ContentResolver mContentResolver;
+    private final Uri mUri;
+    private final MediaType mContentType;
+    private final long mOffset;
+    private final long mLength;
+
+    public ContentUriRequestBody(ContentResolver cr, Uri uri, MediaType contentType) {
+        this(cr, uri, contentType, 0, -1);
+    }
+
+    public ContentUriRequestBody(ContentResolver cr, Uri uri, MediaType contentType,
+            long offset, long length) {
+        mContentResolver = cr;
+        mUri = uri;
+        mContentType = contentType;
+        mOffset = offset;
+        mLength = length;
+    }
+
+    @Nullable
+    @Override
+    public MediaType contentType() {
+        return mContentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return mLength;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        // Opened on every write, so the request can be retried
+        InputStream is = mContentResolver.openInputStream(mUri);
+        if (is == null) {
+            throw new FileNotFoundException("Can't open " + mUri);
+        }
+
+        Source source = null;
+        try {
+            skip(is, mOffset);
+            source = Okio.source(is);
+            if (mLength < 0) {
+                sink.writeAll(source);
+            } else {
+                sink.write(source, mLength);
+            }
+        } finally {
+            try {
+                if (source != null) {
+                    source.close();
+                } else {
+                    is.close();
+                }
+            } catch (IOException ex) {
+                // Ignore
+            }
+        }
+    }
+
+    private static void skip(InputStream is, long count) throws IOException {
+        while (count > 0) {
+            long skipped = is.skip(count);
+            if (skipped <= 0) {
+                // Some streams can't skip. Check whether we reached the end of the stream
+                if (is.read() == -1) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+}
@@ -39,6 +39,10 @@ public class ExceptionHelper {
         return isHttpException(cause, 401);
     }
 
+    public static boolean isResourceNotFoundException(Throwable cause) {
+        return isHttpException(cause, 404) || isHttpException(cause, 410);
+    }
+
     @SuppressWarnings({"ThrowableResultOfMethodCallIgnored", "ConstantConditions", "deprecation"})
     private static boolean isHttpException(Throwable cause, int httpCode) {
         if (isException(cause, retrofit2.HttpException.class)) {
@@ -79,8 +79,22 @@ public class OkHttpHelper {
     }
 
     private static DelegatingSocketFactory sDelegatingSocketFactory;
+    private static OkHttpClient sSharedClient;
+
+    /**
+     * Sets the application-wide client to derive the clients from, so they can share
+     * its connection pool and dispatcher.
+     */
+    public static synchronized void setSharedClient(OkHttpClient client) {
+        sSharedClient = client;
+    }
+
+    public static synchronized OkHttpClient.Builder getSafeClientBuilder() {
+        if (sSharedClient != null) {
+            return sSharedClient.newBuilder()
+                    .connectionSpecs(createConnectionSpecs());
+        }
 
-    public static OkHttpClient.Builder getSafeClientBuilder() {
         if (sDelegatingSocketFactory == null) {
             sDelegatingSocketFactory = new DelegatingSocketFactory(SocketFactory.getDefault());
         }
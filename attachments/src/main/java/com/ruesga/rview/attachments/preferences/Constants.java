@@ -23,4 +23,5 @@ public class Constants {
 
     static final String PREF_PROVIDER = "provider";
     static final String PREF_AUTH = "auth";
+    static final String PREF_UPLOAD_SESSION = "upload_session";
 }
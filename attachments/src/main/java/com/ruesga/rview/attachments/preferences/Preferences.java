@@ -65,4 +65,21 @@ public class Preferences {
         editor.putString(key, mGson.toJson(auth));
         editor.apply();
     }
+
+    public static String getUploadSession(Context context, String fileId) {
+        final String key = Constants.PREF_UPLOAD_SESSION + "." + fileId;
+        return getPreferences(context).getString(key, null);
+    }
+
+    public static void setUploadSession(Context context, String fileId, String session) {
+        final String key = Constants.PREF_UPLOAD_SESSION + "." + fileId;
+        Editor editor = getPreferences(context).edit();
+        if (session == null) {
+            editor.remove(key);
+        } else {
+            editor.putString(key, session);
+        }
+        // The session must survive a kill of the upload service
+        editor.commit();
+    }
 }
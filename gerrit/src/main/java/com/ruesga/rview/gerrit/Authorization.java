@@ -19,17 +19,26 @@ public class Authorization {
     public final String mUsername;
     public final transient String mPassword;
     public final boolean mTrustAllCertificates;
+    // Max size in bytes of the http response cache of this authorization (0 means no cache)
+    public final transient long mHttpCacheSize;
 
     public Authorization() {
         mUsername = null;
         mPassword = null;
         mTrustAllCertificates = false;
+        mHttpCacheSize = 0;
     }
 
     public Authorization(String username, String password, boolean trustAllCertificates) {
+        this(username, password, trustAllCertificates, 0);
+    }
+
+    public Authorization(String username, String password,
+            boolean trustAllCertificates, long httpCacheSize) {
         mUsername = username;
         mPassword = password;
         mTrustAllCertificates = trustAllCertificates;
+        mHttpCacheSize = httpCacheSize;
     }
 
     public boolean isAnonymousUser() {
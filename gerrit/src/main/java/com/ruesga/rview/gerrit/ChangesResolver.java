@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.gerrit;
+
+import com.ruesga.rview.gerrit.filter.ChangeQuery;
+import com.ruesga.rview.gerrit.model.ChangeInfo;
+import com.ruesga.rview.gerrit.model.ChangeOptions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import io.reactivex.Observable;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Fetches a list of changes with a few OR'ed queries instead of one request per change.
+ * Queries are split in batches that are requested concurrently.
+ */
+public final class ChangesResolver {
+
+    // Keep the queries far from the server limits (terms and url length)
+    public static final int MAX_BATCH_SIZE = 20;
+    private static final int MAX_CONCURRENT_BATCHES = 4;
+
+    private ChangesResolver() {
+    }
+
+    /**
+     * Returns the changes of the given ids (legacy numbers, Change-Ids or triplets), in the
+     * same order. Changes not found are returned as {@code null}.
+     */
+    public static List<ChangeInfo> resolveChanges(
+            GerritApi api, List<String> changeIds, List<ChangeOptions> options) {
+        return resolve(api, changeIds, false, options);
+    }
+
+    /**
+     * Returns the changes of the given commits, in the same order. Commits without
+     * a change are returned as {@code null}.
+     */
+    public static List<ChangeInfo> resolveCommits(
+            GerritApi api, List<String> commits, List<ChangeOptions> options) {
+        // Commits are mapped back to its change through the revisions
+        List<ChangeOptions> o = options == null ? new ArrayList<>() : new ArrayList<>(options);
+        if (!o.contains(ChangeOptions.ALL_REVISIONS)) {
+            o.remove(ChangeOptions.CURRENT_REVISION);
+            o.add(ChangeOptions.ALL_REVISIONS);
+        }
+        return resolve(api, commits, true, o);
+    }
+
+    private static List<ChangeInfo> resolve(GerritApi api, List<String> keys,
+            boolean commits, List<ChangeOptions> options) {
+        List<List<String>> batches = new ArrayList<>();
+        List<String> batch = null;
+        for (String key : new LinkedHashSet<>(keys)) {
+            if (batch == null || batch.size() == MAX_BATCH_SIZE) {
+                batch = new ArrayList<>(MAX_BATCH_SIZE);
+                batches.add(batch);
+            }
+            batch.add(key);
+        }
+
+        List<List<ChangeInfo>> results = Observable.fromIterable(batches)
+                .flatMap(b -> Observable.fromCallable(() ->
+                        api.getChanges(createQuery(b, commits),
+                                commits ? null : b.size(), 0, options).blockingFirst())
+                                .subscribeOn(Schedulers.io()), MAX_CONCURRENT_BATCHES)
+                .toList()
+                .blockingGet();
+
+        Map<String, ChangeInfo> resolved = new HashMap<>();
+        for (List<ChangeInfo> changes : results) {
+            for (ChangeInfo change : changes) {
+                if (commits) {
+                    if (change.revisions != null) {
+                        for (String commit : change.revisions.keySet()) {
+                            resolved.put(commit, change);
+                        }
+                    }
+                } else {
+                    resolved.put(String.valueOf(change.legacyChangeId), change);
+                    resolved.put(change.changeId, change);
+                    resolved.put(change.id, change);
+                }
+            }
+        }
+
+        List<ChangeInfo> changes = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            changes.add(resolved.get(key));
+        }
+        return changes;
+    }
+
+    private static ChangeQuery createQuery(List<String> keys, boolean commits) {
+        ChangeQuery query = null;
+        for (String key : keys) {
+            ChangeQuery term = commits
+                    ? new ChangeQuery().commit(key) : new ChangeQuery().change(key);
+            if (query == null) {
+                query = term;
+            } else {
+                query.or(term);
+            }
+        }
+        return query;
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.gerrit;
+
+import com.ruesga.rview.gerrit.annotations.Coalesced;
+import com.ruesga.rview.gerrit.annotations.Mutation;
+import com.ruesga.rview.gerrit.filter.Option;
+import com.ruesga.rview.gerrit.filter.Query;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Observable;
+import okhttp3.ResponseBody;
+
+/**
+ * A {@link GerritApi} decorator that coalesces the read requests marked as
+ * {@link Coalesced}. Concurrent identical reads share the same network call, and its
+ * result is reused for a short time after it completes. Every operation marked as
+ * {@link Mutation} invalidates the reused results once it finishes, so a read after a
+ * write always hits the server.
+ * <p/>
+ * All the callers of a coalesced read receive the same result instance, so they must not
+ * modify it. Callers that need to modify the result must work on their own copy.
+ */
+public final class CoalescingGerritApi implements InvocationHandler {
+
+    public static final long DEFAULT_TTL = 3000L;
+
+    private static class Entry {
+        private Observable<Object> mObservable;
+        private volatile long mCompletedAt;
+        private volatile boolean mFailed;
+    }
+
+    private final GerritApi mApi;
+    private final long mTtl;
+    private final Map<List<Object>, Entry> mEntries = new HashMap<>();
+    private final Map<Method, Type> mCoalescedTypes = new ConcurrentHashMap<>();
+    private final AtomicLong mHits = new AtomicLong();
+    private final AtomicLong mMisses = new AtomicLong();
+
+    private CoalescingGerritApi(GerritApi api, long ttl) {
+        mApi = api;
+        mTtl = ttl;
+    }
+
+    public static GerritApi wrap(GerritApi api) {
+        return wrap(api, DEFAULT_TTL);
+    }
+
+    public static GerritApi wrap(GerritApi api, long ttl) {
+        return (GerritApi) Proxy.newProxyInstance(GerritApi.class.getClassLoader(),
+                new Class[]{GerritApi.class}, new CoalescingGerritApi(api, ttl));
+    }
+
+    /**
+     * Return the decorator of an api or null if the api isn't decorated.
+     */
+    public static CoalescingGerritApi of(GerritApi api) {
+        if (api != null && Proxy.isProxyClass(api.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(api);
+            if (handler instanceof CoalescingGerritApi) {
+                return (CoalescingGerritApi) handler;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return the number of reads served from a shared or a recent call.
+     */
+    public long getHitCount() {
+        return mHits.get();
+    }
+
+    /**
+     * Return the number of reads that needed a new call.
+     */
+    public long getMissCount() {
+        return mMisses.get();
+    }
+
+    /**
+     * Discards all the reused results.
+     */
+    public void invalidate() {
+        synchronized (mEntries) {
+            mEntries.clear();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            return invokeApi(method, args);
+        }
+
+        final Type type = getCoalescedType(method);
+        if (type == null) {
+            Object result = invokeApi(method, args);
+            if (result instanceof Observable && method.isAnnotationPresent(Mutation.class)) {
+                // Invalidate once the server has the changes. Reads issued meanwhile
+                // could miss them, so they are discarded too
+                return ((Observable<?>) result).doFinally(this::invalidate);
+            }
+            return result;
+        }
+
+        final List<Object> key = createKey(method, args);
+        final long now = System.currentTimeMillis();
+        synchronized (mEntries) {
+            purge(now);
+            Entry entry = mEntries.get(key);
+            if (entry != null) {
+                mHits.incrementAndGet();
+                return entry.mObservable;
+            }
+
+            mMisses.incrementAndGet();
+            final Entry newEntry = new Entry();
+            newEntry.mObservable = ((Observable<Object>) invokeApi(method, args))
+                    .doOnComplete(() -> newEntry.mCompletedAt = System.currentTimeMillis())
+                    .doOnError(cause -> {
+                        newEntry.mFailed = true;
+                        synchronized (mEntries) {
+                            if (mEntries.get(key) == newEntry) {
+                                mEntries.remove(key);
+                            }
+                        }
+                    })
+                    .cache();
+            mEntries.put(key, newEntry);
+            return newEntry.mObservable;
+        }
+    }
+
+    private Object invokeApi(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(mApi, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private void purge(long now) {
+        Iterator<Entry> it = mEntries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.mFailed || (entry.mCompletedAt > 0 && now - entry.mCompletedAt > mTtl)) {
+                it.remove();
+            }
+        }
+    }
+
+    // Returns the type of the results of a coalesced method, or null if the method
+    // isn't coalesced
+    private Type getCoalescedType(Method method) {
+        Type type = mCoalescedTypes.get(method);
+        if (type == null) {
+            type = resolveCoalescedType(method);
+            mCoalescedTypes.put(method, type);
+        }
+        return type == Void.class ? null : type;
+    }
+
+    private static Type resolveCoalescedType(Method method) {
+        Type type = method.getGenericReturnType();
+        if (!method.isAnnotationPresent(Coalesced.class)
+                || !Observable.class.equals(method.getReturnType())
+                || !(type instanceof ParameterizedType)) {
+            return Void.class;
+        }
+
+        // Response bodies can only be consumed once
+        Type resultType = ((ParameterizedType) type).getActualTypeArguments()[0];
+        if (ResponseBody.class.equals(resultType)) {
+            return Void.class;
+        }
+        return resultType;
+    }
+
+    private static List<Object> createKey(Method method, Object[] args) {
+        if (args == null) {
+            return Collections.singletonList(method);
+        }
+        List<Object> key = new ArrayList<>(args.length + 1);
+        key.add(method);
+        for (Object arg : args) {
+            if (arg instanceof Query || arg instanceof Option) {
+                // Filters don't implement equals
+                key.add(arg.getClass());
+                key.add(arg.toString());
+            } else if (arg instanceof List && isQueryList((List<?>) arg)) {
+                key.add(Query.class);
+                key.add(arg.toString());
+            } else if (arg instanceof Object[]) {
+                key.add(Arrays.asList((Object[]) arg));
+            } else {
+                key.add(arg);
+            }
+        }
+        return key;
+    }
+
+    private static boolean isQueryList(List<?> list) {
+        for (Object o : list) {
+            if (o instanceof Query) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
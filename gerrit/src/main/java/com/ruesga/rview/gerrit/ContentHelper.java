@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.gerrit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * Writes file contents to disk as they are read from the network, using a fixed amount
+ * of memory whatever the size of the file is.
+ */
+public class ContentHelper {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int[] BASE64_DECODE_TABLE = new int[128];
+    static {
+        Arrays.fill(BASE64_DECODE_TABLE, -1);
+        final String alphabet =
+                "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_DECODE_TABLE[alphabet.charAt(i)] = i;
+        }
+        // Url safe alphabet
+        BASE64_DECODE_TABLE['-'] = 62;
+        BASE64_DECODE_TABLE['_'] = 63;
+    }
+
+    /**
+     * Decodes a base64 encoded body (as returned by the file content endpoints) into a
+     * file. The body is closed. Returns the number of decoded bytes.
+     */
+    public static long writeBase64Content(ResponseBody body, File file) throws IOException {
+        try (BufferedSource source = body.source();
+                BufferedSink sink = Okio.buffer(Okio.sink(file))) {
+            return decodeBase64(source, sink);
+        }
+    }
+
+    /**
+     * Writes a body into a file as is. The body is closed. Returns the number of
+     * written bytes.
+     */
+    public static long writeContent(ResponseBody body, File file) throws IOException {
+        try (BufferedSource source = body.source();
+                BufferedSink sink = Okio.buffer(Okio.sink(file))) {
+            return source.readAll(sink);
+        }
+    }
+
+    /**
+     * Decodes a base64 stream. Line breaks, whitespaces and paddings are ignored.
+     */
+    public static long decodeBase64(BufferedSource source, BufferedSink sink)
+            throws IOException {
+        final byte[] in = new byte[BUFFER_SIZE];
+        final byte[] out = new byte[BUFFER_SIZE / 4 * 3 + 3];
+        int bits = 0;
+        int count = 0;
+        long total = 0;
+        int read;
+        while ((read = source.read(in)) != -1) {
+            int written = 0;
+            for (int i = 0; i < read; i++) {
+                final int c = in[i] & 0xff;
+                final int value = c < BASE64_DECODE_TABLE.length ? BASE64_DECODE_TABLE[c] : -1;
+                if (value == -1) {
+                    if (c == '=' || c == '\n' || c == '\r' || c == ' ' || c == '\t') {
+                        continue;
+                    }
+                    throw new IOException("Invalid base64 character: " + c);
+                }
+
+                bits = (bits << 6) | value;
+                if (++count == 4) {
+                    out[written++] = (byte) (bits >> 16);
+                    out[written++] = (byte) (bits >> 8);
+                    out[written++] = (byte) bits;
+                    bits = 0;
+                    count = 0;
+                }
+            }
+            sink.write(out, 0, written);
+            total += written;
+        }
+
+        // The last unpadded quantum
+        switch (count) {
+            case 1:
+                throw new IOException("Truncated base64 data");
+            case 2:
+                sink.writeByte(bits >> 4);
+                total += 1;
+                break;
+            case 3:
+                sink.writeByte(bits >> 10);
+                sink.writeByte(bits >> 2);
+                total += 2;
+                break;
+        }
+        sink.flush();
+        return total;
+    }
+}
@@ -17,6 +17,8 @@ package com.ruesga.rview.gerrit;
 
 import android.net.Uri;
 
+import com.ruesga.rview.gerrit.annotations.Coalesced;
+import com.ruesga.rview.gerrit.annotations.Mutation;
 import com.ruesga.rview.gerrit.filter.AccountQuery;
 import com.ruesga.rview.gerrit.filter.ChangeQuery;
 import com.ruesga.rview.gerrit.filter.GroupQuery;
@@ -149,6 +151,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#query-account"
      */
+    @Coalesced
     Observable<List<AccountInfo>> getAccountsSuggestions(
             @NonNull String query,
             @Nullable Integer count,
@@ -166,11 +169,13 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#get-account"
      */
+    @Coalesced
     Observable<AccountInfo> getAccount(@NonNull String accountId);
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#create-account"
      */
+    @Mutation
     Observable<AccountInfo> createAccount(
             @NonNull String username,
             @NonNull AccountInput input);
@@ -178,6 +183,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#get-detail"
      */
+    @Coalesced
     Observable<AccountDetailInfo> getAccountDetails(@NonNull String accountId);
 
     /**
@@ -188,6 +194,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#set-account-name"
      */
+    @Mutation
     Observable<String> setAccountName(
             @NonNull String accountId,
             @NonNull AccountNameInput input);
@@ -195,16 +202,19 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#delete-account-name"
      */
+    @Mutation
     Observable<Void> deleteAccountName(@NonNull String accountId);
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#get-account-status"
      */
+    @Coalesced
     Observable<String> getAccountStatus(@NonNull String accountId);
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#set-account-status"
      */
+    @Mutation
     Observable<String> setAccountStatus(
             @NonNull String accountId,
             @NonNull AccountStatusInput input);
@@ -217,6 +227,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#set-username"
      */
+    @Mutation
     Observable<String> setAccountUsername(
             @NonNull String accountId,
             @NonNull UsernameInput input);
@@ -229,11 +240,13 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#set-active"
      */
+    @Mutation
     Observable<Void> setAccountAsActive(@NonNull String accountId);
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#delete-active"
      */
+    @Mutation
     Observable<Void> setAccountAsInactive(@NonNull String accountId);
 
     /**
@@ -244,6 +257,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#set-http-password"
      */
+    @Mutation
     Observable<String> setHttpPassword(
             @NonNull String accountId,
             @NonNull HttpPasswordInput input);
@@ -251,6 +265,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#delete-http-password"
      */
+    @Mutation
     Observable<Void> deleteHttpPassword(@NonNull String accountId);
 
     /**
@@ -261,6 +276,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#list-account-emails"
      */
+    @Coalesced
     Observable<List<EmailInfo>> getAccountEmails(@NonNull String accountId);
 
     /**
@@ -273,6 +289,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#create-account-email"
      */
+    @Mutation
     Observable<EmailInfo> createAccountEmail(
             @NonNull String accountId,
             @NonNull String emailId,
@@ -281,6 +298,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#delete-account-email"
      */
+    @Mutation
     Observable<Void> deleteAccountEmail(
             @NonNull String accountId,
             @NonNull String emailId);
@@ -288,6 +306,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#set-preferred-email"
      */
+    @Mutation
     Observable<Void> setAccountPreferredEmail(
             @NonNull String accountId,
             @NonNull String emailId);
@@ -307,6 +326,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#add-ssh-key"
      */
+    @Mutation
     Observable<SshKeyInfo> addAccountSshKey(
             @NonNull String accountId,
             @NonNull String encodedKey);
@@ -314,6 +334,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#delete-ssh-key"
      */
+    @Mutation
     Observable<Void> deleteAccountSshKey(
             @NonNull String accountId,
             int sshKeyId);
@@ -333,6 +354,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#add-delete-gpg-keys"
      */
+    @Mutation
     Observable<Map<String, GpgKeyInfo>> addAccountGpgKeys(
             @NonNull String accountId,
             @NonNull AddGpgKeyInput input);
@@ -340,6 +362,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#add-delete-gpg-keys"
      */
+    @Mutation
     Observable<Map<String, GpgKeyInfo>> deleteAccountGpgKeys(
             @NonNull String accountId,
             @NonNull DeleteGpgKeyInput input);
@@ -384,6 +407,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#set-user-preferences"
      */
+    @Mutation
     Observable<PreferencesInfo> setAccountPreferences(
             @NonNull String accountId,
             @NonNull PreferencesInput input);
@@ -397,6 +421,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#set-diff-preferences"
      */
+    @Mutation
     Observable<DiffPreferencesInfo> setAccountDiffPreferences(
             @NonNull String accountId,
             @NonNull DiffPreferencesInput input);
@@ -410,6 +435,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#set-edit-preferences"
      */
+    @Mutation
     Observable<EditPreferencesInfo> setAccountEditPreferences(
             @NonNull String accountId,
             @NonNull EditPreferencesInput input);
@@ -423,6 +449,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#set-watched-projects"
      */
+    @Mutation
     Observable<List<ProjectWatchInfo>> addOrUpdateAccountWatchedProjects(
             @NonNull String accountId,
             @NonNull List<ProjectWatchInput> input);
@@ -430,6 +457,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#delete-watched-projects"
      */
+    @Mutation
     Observable<Void> deleteAccountWatchedProjects(
             @NonNull String accountId,
             @NonNull List<DeleteProjectWatchInput> input);
@@ -443,6 +471,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#get-account-external-ids"
      */
+    @Mutation
     Observable<Void> deleteAccountExternalIds(
             @NonNull String accountId,
             @NonNull List<String> externalIds);
@@ -456,6 +485,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#list-contributor-agreements"
      */
+    @Mutation
     Observable<String> signContributorAgreement(
             @NonNull String accountId,
             @NonNull ContributorAgreementInput input);
@@ -463,12 +493,14 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#index-account"
      */
+    @Mutation
     Observable<Void> indexAccount(
             @NonNull String accountId);
 
     /**
      * @link "https:/gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#_delete_draft_comments"
      */
+    @Mutation
     Observable<List<DeletedDraftCommentInfo>> deleteAccountDraftComments(
             @NonNull String accountId, @NonNull DeleteDraftCommentsInput input);
 
@@ -481,6 +513,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#star-change"
      */
+    @Mutation
     Observable<Void> putDefaultStarOnChange(
             @NonNull String accountId,
             @NonNull String changeId);
@@ -488,6 +521,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#unstar-change"
      */
+    @Mutation
     Observable<Void> deleteDefaultStarFromChange(
             @NonNull String accountId,
             @NonNull String changeId);
@@ -508,6 +542,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-accounts.html#set-stars"
      */
+    @Mutation
     Observable<List<String>> updateStarLabelsFromChange(
             @NonNull String accountId,
             @NonNull String changeId,
@@ -523,20 +558,36 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#create-change"
      */
+    @Mutation
     Observable<ChangeInfo> createChange(@NonNull ChangeInput input);
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#list-changes"
      */
+    @Coalesced
     Observable<List<ChangeInfo>> getChanges(
             @NonNull ChangeQuery query,
             @Nullable Integer count,
             @Nullable Integer start,
             @Nullable List<ChangeOptions> options);
 
+    /**
+     * Lists the changes of several queries in a single request. The results are returned
+     * in the same order as the queries.
+     *
+     * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#list-changes"
+     */
+    @Coalesced
+    Observable<List<List<ChangeInfo>>> getChanges(
+            @NonNull List<ChangeQuery> queries,
+            @Nullable Integer count,
+            @Nullable Integer start,
+            @Nullable List<ChangeOptions> options);
+
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#get-change"
      */
+    @Coalesced
     Observable<ChangeInfo> getChange(
             @NonNull String changeId,
             @Nullable List<ChangeOptions> options);
@@ -544,6 +595,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#create-merge-patch-set-for-change"
      */
+    @Mutation
     Observable<ChangeInfo> createMergePathSetForChange(
             @NonNull String changeId,
             @NonNull MergePatchSetInput input);
@@ -551,6 +603,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#set-message"
      */
+    @Mutation
     Observable<ChangeInfo> setChangeCommitMessage(
             @NonNull String changeId,
             @NonNull CommitMessageInput input);
@@ -558,6 +611,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#get-change-detail"
      */
+    @Coalesced
     Observable<ChangeInfo> getChangeDetail(
             @NonNull String changeId,
             @Nullable List<ChangeOptions> options);
@@ -570,6 +624,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#set-topic"
      */
+    @Mutation
     Observable<String> setChangeTopic(
             @NonNull String changeId,
             @NonNull TopicInput input);
@@ -577,6 +632,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#delete-topic"
      */
+    @Mutation
     Observable<Void> deleteChangeTopic(@NonNull String changeId);
 
     /**
@@ -592,6 +648,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#set-assignee"
      */
+    @Mutation
     Observable<AccountInfo> setChangeAssignee(
             @NonNull String changeId,
             @NonNull AssigneeInput input);
@@ -599,6 +656,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#delete-assignee"
      */
+    @Mutation
     Observable<AccountInfo> deleteChangeAssignee(@NonNull String changeId);
 
     /**
@@ -612,6 +670,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#abandon-change"
      */
+    @Mutation
     Observable<ChangeInfo> abandonChange(
             @NonNull String changeId,
             @NonNull AbandonInput input);
@@ -619,6 +678,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#restore-change"
      */
+    @Mutation
     Observable<ChangeInfo> restoreChange(
             @NonNull String changeId,
             @NonNull RestoreInput input);
@@ -626,6 +686,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#rebase-change"
      */
+    @Mutation
     Observable<ChangeInfo> rebaseChange(
             @NonNull String changeId,
             @NonNull RebaseInput input);
@@ -633,6 +694,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#move-change"
      */
+    @Mutation
     Observable<ChangeInfo> moveChange(
             @NonNull String changeId,
             @NonNull MoveInput input);
@@ -640,6 +702,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#revert-change"
      */
+    @Mutation
     Observable<ChangeInfo> revertChange(
             @NonNull String changeId,
             @NonNull RevertInput input);
@@ -647,6 +710,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#submit-change"
      */
+    @Mutation
     Observable<ChangeInfo> submitChange(
             @NonNull String changeId,
             @NonNull SubmitInput input);
@@ -654,6 +718,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#submitted-together"
      */
+    @Coalesced
     Observable<List<ChangeInfo>> getChangesSubmittedTogether(
             @NonNull String changeId,
             @Nullable List<SubmittedTogetherOptions> options);
@@ -663,26 +728,31 @@ public interface GerritApi {
      * @deprecated since 2.15
      */
     @Deprecated
+    @Mutation
     Observable<Void> publishDraftChange(@NonNull String changeId);
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#delete-change"
      */
+    @Mutation
     Observable<Void> deleteChange(@NonNull String changeId);
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#get-included-in"
      */
+    @Coalesced
     Observable<IncludedInInfo> getChangeIncludedIn(@NonNull String changeId);
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#index-change"
      */
+    @Mutation
     Observable<Void> indexChange(@NonNull String changeId);
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#list-change-comments"
      */
+    @Coalesced
     Observable<Map<String, List<CommentInfo>>> getChangeComments(
             @NonNull String changeId);
 
@@ -695,6 +765,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#list-change-drafts"
      */
+    @Coalesced
     Observable<Map<String, List<CommentInfo>>> getChangeDraftComments(
             @NonNull String changeId);
 
@@ -706,6 +777,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#fix-change"
      */
+    @Mutation
     Observable<ChangeInfo> fixChange(
             @NonNull String changeId,
             @NonNull FixInput input);
@@ -713,6 +785,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#fix-change"
      */
+    @Mutation
     Observable<Void> setChangeWorkInProgress(
             @NonNull String changeId,
             @NonNull WorkInProgressInput input);
@@ -720,6 +793,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#set-ready-for-review"
      */
+    @Mutation
     Observable<Void> setChangeReadyForReview(
             @NonNull String changeId,
             @NonNull WorkInProgressInput input);
@@ -727,6 +801,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#mark-private"
      */
+    @Mutation
     Observable<Void> markChangeAsPrivate(
             @NonNull String changeId,
             @NonNull PrivateInput input);
@@ -734,6 +809,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#unmark-private"
      */
+    @Mutation
     Observable<Void> unmarkChangeAsPrivate(
             @NonNull String changeId,
             @NonNull PrivateInput input);
@@ -741,21 +817,25 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#ignore"
      */
+    @Mutation
     Observable<Void> ignoreChange(@NonNull String changeId);
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#unignore"
      */
+    @Mutation
     Observable<Void> unignoreChange(@NonNull String changeId);
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#reviewed"
      */
+    @Mutation
     Observable<Void> markChangeAsReviewed(@NonNull String changeId);
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#unreviewed"
      */
+    @Mutation
     Observable<Void> markChangeAsUnreviewed(@NonNull String changeId);
 
     /**
@@ -766,6 +846,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#set-hashtags"
      */
+    @Mutation
     Observable<String[]> setChangeHashtags(
             @NonNull String changeId,
             @NonNull HashtagsInput input);
@@ -784,6 +865,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#delete-change-message"
      */
+    @Mutation
     Observable<ChangeMessageInfo> deleteChangeMessage(
             @NonNull String changeId,
             @NonNull String messageId,
@@ -801,6 +883,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#put-edit-file"
      */
+    @Mutation
     Observable<Void> setChangeEditFile(
             @NonNull String changeId,
             @NonNull String fileId,
@@ -809,6 +892,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#post-edit"
      */
+    @Mutation
     Observable<Void> restoreChangeEditFile(
             @NonNull String changeId,
             @NonNull RestoreChangeEditInput input);
@@ -816,6 +900,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#post-edit"
      */
+    @Mutation
     Observable<Void> renameChangeEditFile(
             @NonNull String changeId,
             @NonNull RenameChangeEditInput input);
@@ -823,6 +908,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#post-edit"
      */
+    @Mutation
     Observable<Void> newChangeEditFile(
             @NonNull String changeId,
             @NonNull NewChangeEditInput input);
@@ -830,6 +916,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#delete-edit-file"
      */
+    @Mutation
     Observable<Void> deleteChangeEditFile(
             @NonNull String changeId,
             @NonNull String fileId);
@@ -857,6 +944,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#put-change-edit-message"
      */
+    @Mutation
     Observable<Void> setChangeEditMessage(
             @NonNull String changeId,
             @NonNull ChangeEditMessageInput input);
@@ -864,16 +952,19 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#publish-edit"
      */
+    @Mutation
     Observable<Void> publishChangeEdit(@NonNull String changeId);
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#rebase-edit"
      */
+    @Mutation
     Observable<Void> rebaseChangeEdit(@NonNull String changeId);
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#delete-edit"
      */
+    @Mutation
     Observable<Void> deleteChangeEdit(@NonNull String changeId);
 
     /**
@@ -900,6 +991,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#add-reviewer"
      */
+    @Mutation
     Observable<AddReviewerResultInfo> addChangeReviewer(
             @NonNull String changeId,
             @NonNull ReviewerInput input);
@@ -907,6 +999,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#delete-reviewer"
      */
+    @Mutation
     Observable<Void> deleteChangeReviewer(
             @NonNull String changeId,
             @NonNull String accountId);
@@ -921,6 +1014,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#delete-vote"
      */
+    @Mutation
     Observable<Void> deleteChangeReviewerVote(
             @NonNull String changeId,
             @NonNull String accountId,
@@ -945,6 +1039,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#set-description"
      */
+    @Mutation
     Observable<String> setChangeRevisionDescription(
             @NonNull String changeId,
             @NonNull String revisionId,
@@ -960,6 +1055,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#get-revision-actions"
      */
+    @Coalesced
     Observable<Map<String, ActionInfo>> getChangeRevisionActions(
             @NonNull String changeId,
             @NonNull String revisionId);
@@ -974,6 +1070,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#set-review"
      */
+    @Mutation
     Observable<ReviewResultInfo> setChangeRevisionReview(
             @NonNull String changeId,
             @NonNull String revisionId,
@@ -982,6 +1079,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#get-related-changes"
      */
+    @Coalesced
     Observable<RelatedChangesInfo> getChangeRevisionRelatedChanges(
             @NonNull String changeId,
             @NonNull String revisionId);
@@ -989,6 +1087,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#rebase-revision"
      */
+    @Mutation
     Observable<ChangeInfo> rebaseChangeRevision(
             @NonNull String changeId,
             @NonNull String revisionId,
@@ -997,6 +1096,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#submit-revision"
      */
+    @Mutation
     Observable<SubmitInfo> submitChangeRevision(
             @NonNull String changeId,
             @NonNull String revisionId);
@@ -1006,6 +1106,7 @@ public interface GerritApi {
      * @deprecated since 2.15
      */
     @Deprecated
+    @Mutation
     Observable<Void> publishChangeDraftRevision(
             @NonNull String changeId,
             @NonNull String revisionId);
@@ -1015,6 +1116,7 @@ public interface GerritApi {
      * @deprecated since 2.15
      */
     @Deprecated
+    @Mutation
     Observable<SubmitInfo> deleteChangeDraftRevision(
             @NonNull String changeId,
             @NonNull String revisionId);
@@ -1046,6 +1148,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#get-submit-type"
      */
+    @Coalesced
     Observable<SubmitType> getChangeRevisionSubmitType(
             @NonNull String changeId,
             @NonNull String revisionId);
@@ -1069,6 +1172,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#list-drafts"
      */
+    @Coalesced
     Observable<Map<String, List<CommentInfo>>> getChangeRevisionDrafts(
             @NonNull String changeId,
             @NonNull String revisionId);
@@ -1076,6 +1180,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#create-draft"
      */
+    @Mutation
     Observable<CommentInfo> createChangeRevisionDraft(
             @NonNull String changeId,
             @NonNull String revisionId,
@@ -1092,6 +1197,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#update-draft"
      */
+    @Mutation
     Observable<CommentInfo> updateChangeRevisionDraft(
             @NonNull String changeId,
             @NonNull String revisionId,
@@ -1101,6 +1207,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#delete-draft"
      */
+    @Mutation
     Observable<Void> deleteChangeRevisionDraft(
             @NonNull String changeId,
             @NonNull String revisionId,
@@ -1109,6 +1216,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#list-comments"
      */
+    @Coalesced
     Observable<Map<String, List<CommentInfo>>> getChangeRevisionComments(
             @NonNull String changeId,
             @NonNull String revisionId);
@@ -1124,6 +1232,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#delete-comment"
      */
+    @Mutation
     Observable<CommentInfo> deleteChangeRevisionComment(
             @NonNull String changeId,
             @NonNull String revisionId,
@@ -1148,6 +1257,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#apply-fix"
      */
+    @Mutation
     Observable<EditInfo> applyChangeRevisionFix(
             @NonNull String changeId,
             @NonNull String revisionId,
@@ -1156,6 +1266,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#list-files"
      */
+    @Coalesced
     Observable<Map<String, FileInfo>> getChangeRevisionFiles(
             @NonNull String changeId,
             @NonNull String revisionId,
@@ -1194,6 +1305,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#get-diff"
      */
+    @Coalesced
     Observable<DiffInfo> getChangeRevisionFileDiff(
             @NonNull String changeId,
             @NonNull String revisionId,
@@ -1207,6 +1319,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#get-blame"
      */
+    @Coalesced
     Observable<List<BlameInfo>> getChangeRevisionFileBlames(
             @NonNull String changeId,
             @NonNull String revisionId,
@@ -1216,6 +1329,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#set-reviewed"
      */
+    @Mutation
     Observable<Void> setChangeRevisionFileAsReviewed(
             @NonNull String changeId,
             @NonNull String revisionId,
@@ -1224,6 +1338,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#delete-reviewed"
      */
+    @Mutation
     Observable<Void> setChangeRevisionFileAsNotReviewed(
             @NonNull String changeId,
             @NonNull String revisionId,
@@ -1232,6 +1347,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#cherry-pick"
      */
+    @Mutation
     Observable<CherryPickChangeInfo> cherryPickChangeRevision(
             @NonNull String changeId,
             @NonNull String revisionId,
@@ -1255,6 +1371,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#delete-revision-vote"
      */
+    @Mutation
     Observable<Void> deleteChangeRevisionReviewerVote(
             @NonNull String changeId,
             @NonNull String revisionId,
@@ -1272,26 +1389,31 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-config.html#get-version"
      */
+    @Coalesced
     Observable<ServerVersion> getServerVersion();
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-config.html#get-info"
      */
+    @Coalesced
     Observable<ServerInfo> getServerInfo();
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-config.html#check-consistency"
      */
+    @Mutation
     Observable<ConsistencyCheckInfo> checkConsistency(@NonNull ConsistencyCheckInput input);
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-config.html#reload-config"
      */
+    @Mutation
     Observable<ConfigUpdateInfo> reloadServerConfig();
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-config.html#email-confirmation-input"
      */
+    @Mutation
     Observable<Void> confirmEmail(@NonNull EmailConfirmationInput input);
 
     /**
@@ -1302,6 +1424,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-config.html#cache-operations"
      */
+    @Mutation
     Observable<Void> executeServerCachesOperations(CacheOperationInput input);
 
     /**
@@ -1312,6 +1435,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-config.html#flush-cache"
      */
+    @Mutation
     Observable<Void> flushServerCache(@NonNull String cacheId);
 
     /**
@@ -1339,6 +1463,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-config.html#delete-task"
      */
+    @Mutation
     Observable<Void> deleteServerTask(@NonNull String taskId);
 
     /**
@@ -1354,6 +1479,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-config.html#set-user-preferences"
      */
+    @Mutation
     Observable<PreferencesInfo> setServerDefaultPreferences(@NonNull PreferencesInput input);
 
     /**
@@ -1364,6 +1490,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-config.html#set-diff-preferences"
      */
+    @Mutation
     Observable<DiffPreferencesInfo> setServerDefaultDiffPreferences(
             @NonNull DiffPreferencesInput input);
 
@@ -1375,6 +1502,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-config.html#set-edit-preferences"
      */
+    @Mutation
     Observable<EditPreferencesInfo> setServerDefaultEditPreferences(
             @NonNull EditPreferencesInput input);
 
@@ -1426,6 +1554,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-groups.html#create-group"
      */
+    @Mutation
     Observable<GroupInfo> createGroup(
             @NonNull String groupName,
             @NonNull GroupInput input);
@@ -1443,6 +1572,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-groups.html#rename-group"
      */
+    @Mutation
     Observable<String> setGroupName(
             @NonNull String groupId,
             @NonNull GroupNameInput input);
@@ -1455,6 +1585,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-groups.html#set-group-description"
      */
+    @Mutation
     Observable<String> setGroupDescription(
             @NonNull String groupId,
             @NonNull GroupDescriptionInput input);
@@ -1462,6 +1593,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-groups.html#delete-group-description"
      */
+    @Mutation
     Observable<Void> deleteGroupDescription(@NonNull String groupId);
 
     /**
@@ -1472,6 +1604,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-groups.html#set-group-options"
      */
+    @Mutation
     Observable<GroupOptionsInfo> setGroupOptions(
             @NonNull String groupId,
             @NonNull GroupOptionsInput input);
@@ -1484,6 +1617,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-groups.html#set-group-owner"
      */
+    @Mutation
     Observable<GroupInfo> setGroupOwner(
             @NonNull String groupId,
             @NonNull GroupOwnerInput input);
@@ -1496,6 +1630,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-groups.html#index-group"
      */
+    @Mutation
     Observable<Void> indexGroup(@NonNull String groupId);
 
     /**
@@ -1515,6 +1650,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-groups.html#add-group-member"
      */
+    @Mutation
     Observable<AccountInfo> addGroupMember(
             @NonNull String groupId,
             @NonNull String accountId);
@@ -1522,6 +1658,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-groups.html#_add_group_members"
      */
+    @Mutation
     Observable<List<AccountInfo>> addGroupMembers(
             @NonNull String groupId,
             @NonNull MemberInput input);
@@ -1529,6 +1666,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-groups.html#remove-group-member"
      */
+    @Mutation
     Observable<Void> deleteGroupMember(
             @NonNull String groupId,
             @NonNull String accountId);
@@ -1536,6 +1674,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-groups.html#remove-group-members"
      */
+    @Mutation
     Observable<Void> deleteGroupMembers(
             @NonNull String groupId,
             @NonNull MemberInput input);
@@ -1555,6 +1694,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-groups.html#add-subgroup"
      */
+    @Mutation
     Observable<GroupInfo> addGroupSubgroup(
             @NonNull String groupId,
             @NonNull String subgroupId);
@@ -1562,6 +1702,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-groups.html#add-subgroups"
      */
+    @Mutation
     Observable<GroupInfo> addGroupSubgroups(
             @NonNull String groupId,
             @NonNull SubgroupInput input);
@@ -1569,6 +1710,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-groups.html#remove-subgroup"
      */
+    @Mutation
     Observable<Void> deleteGroupSubgroup(
             @NonNull String groupId,
             @NonNull String subgroupId);
@@ -1576,6 +1718,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-groups.html#remove-subgroups"
      */
+    @Mutation
     Observable<Void> deleteGroupSubgroups(
             @NonNull String groupId,
             @NonNull SubgroupInput input);
@@ -1601,6 +1744,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-plugins.html#install-plugin"
      */
+    @Mutation
     Observable<PluginInfo> installPlugin(
             @NonNull String pluginId,
             @NonNull PluginInput input);
@@ -1613,16 +1757,19 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-plugins.html#enable-plugin"
      */
+    @Mutation
     Observable<PluginInfo> enablePlugin(@NonNull String pluginId);
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-plugins.html#disable-plugin"
      */
+    @Mutation
     Observable<PluginInfo> disablePlugin(@NonNull String pluginId);
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-plugins.html#reload-plugin"
      */
+    @Mutation
     Observable<PluginInfo> reloadPlugin(@NonNull String pluginId);
 
 
@@ -1635,6 +1782,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#list-projects"
      */
+    @Coalesced
     Observable<Map<String, ProjectInfo>> getProjects(
             @Nullable Integer count,
             @Nullable Integer start,
@@ -1668,11 +1816,13 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#get-project"
      */
+    @Coalesced
     Observable<ProjectInfo> getProject(@NonNull String projectName);
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#create-project"
      */
+    @Mutation
     Observable<ProjectInfo> createProject(
             @NonNull String name,
             @NonNull ProjectInput input);
@@ -1685,6 +1835,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#set-project-description"
      */
+    @Mutation
     Observable<String> setProjectDescription(
             @NonNull String name,
             @NonNull ProjectDescriptionInput input);
@@ -1692,6 +1843,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#delete-project-description"
      */
+    @Mutation
     Observable<Void> deleteProjectDescription(@NonNull String projectName);
 
     /**
@@ -1702,6 +1854,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#set-project-parent"
      */
+    @Mutation
     Observable<String> setProjectParent(
             @NonNull String projectName,
             @NonNull ProjectParentInput input);
@@ -1714,6 +1867,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#set-head"
      */
+    @Mutation
     Observable<String> setProjectHead(
             @NonNull String projectName,
             @NonNull HeadInput input);
@@ -1732,6 +1886,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#set-config"
      */
+    @Mutation
     Observable<ConfigInfo> setProjectConfig(
             @NonNull String projectName,
             @NonNull ConfigInput input);
@@ -1739,6 +1894,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#run-gc"
      */
+    @Mutation
     Observable<ResponseBody> runProjectGc(
             @NonNull String projectName,
             @NonNull GcInput input);
@@ -1746,6 +1902,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#ban-commit"
      */
+    @Mutation
     Observable<BanResultInfo> banProject(
             @NonNull String projectName,
             @NonNull BanInput input);
@@ -1759,6 +1916,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#set-access"
      */
+    @Mutation
     Observable<ProjectAccessInfo> setProjectAccessRights(
             @NonNull String projectName,
             @NonNull ProjectAccessInput input);
@@ -1766,6 +1924,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#create-access-change"
      */
+    @Mutation
     Observable<ChangeInfo> createProjectAccessRightsChange(
             @NonNull String projectName,
             @NonNull ProjectAccessInput input);
@@ -1780,6 +1939,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#index"
      */
+    @Mutation
     Observable<Void> indexProject(
             @NonNull String projectName,
             @NonNull IndexProjectInput input);
@@ -1787,12 +1947,14 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#index.changes"
      */
+    @Mutation
     Observable<Void> indexProjectChanges(
             @NonNull String projectName);
 
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#check"
      */
+    @Mutation
     Observable<CheckProjectResultInfo> checkProjectConsistency(
             @NonNull String projectName,
             @NonNull CheckProjectInput input);
@@ -1800,6 +1962,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#list-branches"
      */
+    @Coalesced
     Observable<List<BranchInfo>> getProjectBranches(
             @NonNull String projectName,
             @Nullable Integer count,
@@ -1817,6 +1980,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#create-branch"
      */
+    @Mutation
     Observable<BranchInfo> createProjectBranch(
             @NonNull String projectName,
             @NonNull String branchId,
@@ -1825,6 +1989,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#delete-branch"
      */
+    @Mutation
     Observable<Void> deleteProjectBranch(
             @NonNull String projectName,
             @NonNull String branchId);
@@ -1832,6 +1997,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#delete-branches"
      */
+    @Mutation
     Observable<Void> deleteProjectBranches(
             @NonNull String projectName,
             @NonNull DeleteBranchesInput input);
@@ -1893,6 +2059,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#create-tag"
      */
+    @Mutation
     Observable<TagInfo> createProjectTag(
             @NonNull String projectName,
             @NonNull String tagId,
@@ -1901,6 +2068,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#delete-tag"
      */
+    @Mutation
     Observable<Void> deleteProjectTag(
             @NonNull String projectName,
             @NonNull String tagId);
@@ -1908,6 +2076,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#delete-tags"
      */
+    @Mutation
     Observable<Void> deleteProjectTags(
             @NonNull String projectName,
             @NonNull DeleteTagsInput input);
@@ -1930,6 +2099,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#cherry-pick-commit"
      */
+    @Mutation
     Observable<CherryPickChangeInfo> cherryPickProjectCommit(
             @NonNull String projectName,
             @NonNull String commitId,
@@ -1945,6 +2115,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#list-dashboards"
      */
+    @Coalesced
     Observable<List<DashboardInfo>> getProjectDashboards(
             @NonNull String projectName);
 
@@ -1958,6 +2129,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#set-dashboard"
      */
+    @Mutation
     Observable<DashboardInfo> setProjectDashboard(
             @NonNull String projectName,
             @NonNull String dashboardId,
@@ -1966,6 +2138,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-projects.html#delete-dashboard"
      */
+    @Mutation
     Observable<Void> deleteProjectDashboard(
             @NonNull String projectName,
             @NonNull String dashboardId);
@@ -2013,6 +2186,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit.googlesource.com/plugins/cloud-notifications/+/master/src/main/resources/Documentation/api.md#register-cloud-notification"
      */
+    @Mutation
     Observable<CloudNotificationInfo> registerCloudNotification(
             @NonNull String accountId,
             @NonNull String deviceId,
@@ -2021,6 +2195,7 @@ public interface GerritApi {
     /**
      * @link "https://gerrit.googlesource.com/plugins/cloud-notifications/+/master/src/main/resources/Documentation/api.md#unregister-cloud-notification"
      */
+    @Mutation
     Observable<Void> unregisterCloudNotification(
             @NonNull String accountId,
             @NonNull String deviceId,
@@ -25,8 +25,6 @@ import com.burgstaller.okhttp.basic.BasicAuthenticator;
 import com.burgstaller.okhttp.digest.CachingAuthenticator;
 import com.burgstaller.okhttp.digest.Credentials;
 import com.burgstaller.okhttp.digest.DigestAuthenticator;
-import com.google.gson.annotations.Since;
-import com.ruesga.rview.gerrit.annotations.Until;
 import com.ruesga.rview.gerrit.filter.AccountQuery;
 import com.ruesga.rview.gerrit.filter.ChangeQuery;
 import com.ruesga.rview.gerrit.filter.GroupQuery;
@@ -34,13 +32,22 @@ import com.ruesga.rview.gerrit.filter.Option;
 import com.ruesga.rview.gerrit.filter.ProjectQuery;
 import com.ruesga.rview.gerrit.model.*;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -49,6 +56,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import io.reactivex.Observable;
 import me.tatarka.rxloader2.safe.SafeObservable;
+import okhttp3.Cache;
 import okhttp3.Cookie;
 import okhttp3.CookieJar;
 import okhttp3.FormBody;
@@ -60,6 +68,7 @@ import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
 import okhttp3.logging.HttpLoggingInterceptor;
+import okio.ByteString;
 import retrofit2.Retrofit;
 import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
 import retrofit2.converter.gson.GsonConverterFactory;
@@ -71,9 +80,15 @@ class GerritApiClient implements GerritApi {
     private final CookieManager mCookieManager;
     private boolean mWasAuthorizedPreviously = false;
     private final PlatformAbstractionLayer mAbstractionLayer;
+    private final Object mServerVersionLock = new Object();
     private long mLastServerVersionCheck = 0;
-    ServerVersion mServerVersion;
-    private List<Features> mSupportedFeatures = new ArrayList<>();
+    private boolean mServerVersionRestored = false;
+    private Observable<ServerVersion> mServerVersionRequest;
+    volatile ServerVersion mServerVersion;
+    private volatile List<Features> mSupportedFeatures = new ArrayList<>();
+
+    private static final String HTTP_CACHE_FOLDER = "gerrit-http";
+    private static final String SERVER_VERSION_FOLDER = "gerrit-version";
 
     private static final String AUTHENTICATED_PATH = "/a/";
     private static final String LOGIN_PATH = "login/";
@@ -181,6 +196,12 @@ class GerritApiClient implements GerritApi {
                 .addInterceptor(createConnectivityCheckInterceptor())
                 .addInterceptor(createLoggingInterceptor())
                 .addInterceptor(createHeadersInterceptor(auth));
+        Cache cache = createHttpCache(endpoint, auth);
+        if (cache != null) {
+            clientBuilder
+                    .cache(cache)
+                    .addNetworkInterceptor(createCacheRevalidationInterceptor());
+        }
         if (!auth.isAnonymousUser()) {
             final Map<String, CachingAuthenticator> authCache = new ConcurrentHashMap<>();
             clientBuilder
@@ -191,7 +212,7 @@ class GerritApiClient implements GerritApi {
 
         // Gson adapter
         GsonConverterFactory gsonFactory = GsonConverterFactory.create(
-                GsonHelper.createGerritGsonBuilder(true, mAbstractionLayer).create());
+                GsonHelper.createGerritGsonBuilder(true, true, mAbstractionLayer).create());
 
         // RxJava adapter
         RxJava2CallAdapterFactory rxAdapter = RxJava2CallAdapterFactory.create();
@@ -208,6 +229,43 @@ class GerritApiClient implements GerritApi {
         mService = retrofit.create(GerritRestApi.class);
     }
 
+    private Cache createHttpCache(String endpoint, Authorization auth) {
+        File cacheDir = mAbstractionLayer.getCacheDir();
+        if (cacheDir == null || auth.mHttpCacheSize <= 0) {
+            return null;
+        }
+
+        // Every endpoint + user has its own cache, so responses are never shared between
+        // different accounts.
+        String key = endpoint + ":" + (auth.isAnonymousUser() ? "" : auth.mUsername);
+        File dir = new File(new File(cacheDir, HTTP_CACHE_FOLDER),
+                ByteString.encodeUtf8(key).md5().hex());
+        return new Cache(dir, auth.mHttpCacheSize);
+    }
+
+    static Interceptor createCacheRevalidationInterceptor() {
+        return chain -> {
+            Request request = chain.request();
+            Response response = chain.proceed(request);
+            if (!request.method().equals("GET") || response.code() != 200) {
+                return response;
+            }
+
+            // Gerrit data is never fresh. Only store responses with validators (ETag or
+            // Last-Modified) and force them to be revalidated with a conditional request, so
+            // a 304 can be served from disk. The rest are not stored at all.
+            boolean hasValidators = response.header("ETag") != null
+                    || response.header("Last-Modified") != null;
+            if (hasValidators && response.cacheControl().noStore()) {
+                return response;
+            }
+            return response.newBuilder()
+                    .removeHeader("Pragma")
+                    .header("Cache-Control", hasValidators ? "private, no-cache" : "no-store")
+                    .build();
+        };
+    }
+
     private HttpLoggingInterceptor createLoggingInterceptor() {
         HttpLoggingInterceptor logging = new HttpLoggingInterceptor(mAbstractionLayer::log);
         logging.setLevel(mAbstractionLayer.isDebugBuild()
@@ -377,16 +435,12 @@ class GerritApiClient implements GerritApi {
     }
 
     private <T> Observable<T> withVersionRequestCheck(final Observable<T> observable) {
-        return SafeObservable.fromNullCallable(() -> {
-            long now = System.currentTimeMillis();
-            if (mServerVersion == null ||
-                    (now - mLastServerVersionCheck > DateUtils.DAY_IN_MILLIS)) {
-                mServerVersion = getServerVersion().blockingFirst();
-                mSupportedFeatures = filterByVersion(Arrays.asList(Features.values()));
-                mLastServerVersionCheck = now;
-            }
-            return observable.blockingFirst();
-        });
+        return negotiateServerVersion().ignoreElements().andThen(observable);
+    }
+
+    // Use this variant when the request arguments depends on the server version
+    private <T> Observable<T> withVersionRequestCheck(final Callable<Observable<T>> call) {
+        return negotiateServerVersion().ignoreElements().andThen(Observable.defer(call));
     }
 
     private <T> Observable<T> withEmptyObservable(final Observable<T> observable) {
@@ -394,51 +448,102 @@ class GerritApiClient implements GerritApi {
     }
 
     private Observable<ServerVersion> andCacheVersion(final Observable<ServerVersion> observable) {
-        return SafeObservable.fromNullCallable(() -> {
-            mServerVersion = observable.blockingFirst();
-            return mServerVersion;
+        return observable.doOnNext(this::updateServerVersion);
+    }
+
+    // Resolves the server version only once for all the in-flight requests. A known
+    // version is reused (and restored from disk between sessions) until it gets older
+    // than a day, and a stale one is preferred over failing if it can't be refreshed
+    private Observable<ServerVersion> negotiateServerVersion() {
+        return Observable.defer(() -> {
+            synchronized (mServerVersionLock) {
+                if (!mServerVersionRestored) {
+                    restoreServerVersion();
+                    mServerVersionRestored = true;
+                }
+
+                final ServerVersion version = mServerVersion;
+                long now = System.currentTimeMillis();
+                if (version != null && (now - mLastServerVersionCheck) <= DateUtils.DAY_IN_MILLIS) {
+                    return Observable.just(version);
+                }
+
+                if (mServerVersionRequest == null) {
+                    mServerVersionRequest = andCacheVersion(mService.getServerVersion())
+                            .onErrorResumeNext((Throwable cause) -> version != null
+                                    ? Observable.just(version) : Observable.error(cause))
+                            .doFinally(() -> {
+                                synchronized (mServerVersionLock) {
+                                    mServerVersionRequest = null;
+                                }
+                            })
+                            .cache();
+                }
+                return mServerVersionRequest;
+            }
         });
     }
 
-    @SuppressWarnings("unchecked")
-    private <T> List<T> filterByVersion(List<T> o) {
-        if (mServerVersion == null) {
-            mServerVersion = getServerVersion().blockingFirst();
+    private void updateServerVersion(ServerVersion version) {
+        synchronized (mServerVersionLock) {
+            mServerVersion = version;
+            mSupportedFeatures = filterByVersion(Arrays.asList(Features.values()), version);
+            mLastServerVersionCheck = System.currentTimeMillis();
+            mServerVersionRestored = true;
+            persistServerVersion();
         }
-        return filterByVersion(o, mServerVersion);
     }
 
-    @SuppressWarnings("unchecked")
-    private <T> List<T> filterByVersion(List<T> o, ServerVersion serverVersion) {
-        if (o == null) {
+    private File getServerVersionFile() {
+        File cacheDir = mAbstractionLayer.getCacheDir();
+        if (cacheDir == null) {
             return null;
         }
+        return new File(new File(cacheDir, SERVER_VERSION_FOLDER),
+                ByteString.encodeUtf8(mEndPoint).md5().hex());
+    }
 
-        ArrayList<T> filter = new ArrayList<>(o.size());
-        for (T t : o) {
-            boolean isSupported = true;
-            try {
-                Since a = t.getClass().getDeclaredField(t.toString()).getAnnotation(Since.class);
-                if (a != null && a.value() > serverVersion.getVersion()) {
-                    isSupported = false;
-                }
-            } catch (Exception e) {
-                // Ignore
-            }
-            try {
-                Until a = t.getClass().getDeclaredField(t.toString()).getAnnotation(Until.class);
-                if (a != null && a.value() <= serverVersion.getVersion()) {
-                    isSupported = false;
-                }
-            } catch (Exception e) {
-                // Ignore
+    private void restoreServerVersion() {
+        File file = getServerVersionFile();
+        if (file == null || !file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), "UTF-8"))) {
+            String version = reader.readLine();
+            String lastCheck = reader.readLine();
+            if (version != null && lastCheck != null) {
+                mServerVersion = new ServerVersion(version);
+                mSupportedFeatures = filterByVersion(
+                        Arrays.asList(Features.values()), mServerVersion);
+                mLastServerVersionCheck = Long.parseLong(lastCheck);
             }
+        } catch (IOException | NumberFormatException ex) {
+            mAbstractionLayer.log("Unable to restore server version: " + ex.getMessage());
+        }
+    }
 
-            if (isSupported) {
-                filter.add(t);
-            }
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    private void persistServerVersion() {
+        File file = getServerVersionFile();
+        if (file == null) {
+            return;
+        }
+        file.getParentFile().mkdirs();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+            writer.write(mServerVersion + "\n" + mLastServerVersionCheck + "\n");
+        } catch (IOException ex) {
+            mAbstractionLayer.log("Unable to persist server version: " + ex.getMessage());
         }
-        return filter;
+    }
+
+    private <T> List<T> filterByVersion(List<T> o) {
+        // Only called from requests deferred until the server version is negotiated
+        return filterByVersion(o, mServerVersion);
+    }
+
+    static <T> List<T> filterByVersion(List<T> o, ServerVersion serverVersion) {
+        return VersionFilter.filter(o, serverVersion);
     }
 
     // ===============================
@@ -560,8 +665,7 @@ class GerritApiClient implements GerritApi {
         if (version == null) {
             return false;
         }
-        List<Features> features = filterByVersion(Arrays.asList(Features.values()), version);
-        return features.contains(feature);
+        return VersionFilter.isSupported(feature, version);
     }
 
 
@@ -591,9 +695,8 @@ class GerritApiClient implements GerritApi {
     public Observable<List<AccountInfo>> getAccounts(
             @NonNull AccountQuery query, @Nullable Integer count,
             @Nullable Integer start, @Nullable List<AccountOptions> options) {
-        return withVersionRequestCheck(SafeObservable.fromNullCallable(
-                () -> mService.getAccounts(query, count, start, filterByVersion(options))
-                        .blockingFirst()));
+        return withVersionRequestCheck(
+                () -> mService.getAccounts(query, count, start, filterByVersion(options)));
     }
 
     @Override
@@ -777,9 +880,8 @@ class GerritApiClient implements GerritApi {
     @Override
     public Observable<AccountCapabilityInfo> getAccountCapabilities(
             @NonNull String accountId, @Nullable List<Capability> filter) {
-        return withVersionRequestCheck(SafeObservable.fromNullCallable(
-                () -> mService.getAccountCapabilities(accountId, filterByVersion(filter))
-                        .blockingFirst()));
+        return withVersionRequestCheck(
+                () -> mService.getAccountCapabilities(accountId, filterByVersion(filter)));
     }
 
     @Override
@@ -949,17 +1051,28 @@ class GerritApiClient implements GerritApi {
     public Observable<List<ChangeInfo>> getChanges(
             @NonNull ChangeQuery query, @Nullable Integer count,
             @Nullable Integer start, @Nullable List<ChangeOptions> options) {
-        return withVersionRequestCheck(SafeObservable.fromNullCallable(
-                () -> mService.getChanges(query, count, start, filterByVersion(options))
-                        .blockingFirst()));
+        return withVersionRequestCheck(
+                () -> mService.getChanges(query, count, start, filterByVersion(options)));
+    }
+
+    @Override
+    public Observable<List<List<ChangeInfo>>> getChanges(
+            @NonNull List<ChangeQuery> queries, @Nullable Integer count,
+            @Nullable Integer start, @Nullable List<ChangeOptions> options) {
+        if (queries.size() == 1) {
+            // Gerrit only returns a list of results when there are more than one query
+            return getChanges(queries.get(0), count, start, options)
+                    .map(Collections::singletonList);
+        }
+        return withVersionRequestCheck(
+                () -> mService.getChanges(queries, count, start, filterByVersion(options)));
     }
 
     @Override
     public Observable<ChangeInfo> getChange(
             @NonNull String changeId, @Nullable List<ChangeOptions> options) {
-        return withVersionRequestCheck(SafeObservable.fromNullCallable(
-                () -> mService.getChange(changeId, filterByVersion(options))
-                        .blockingFirst()));
+        return withVersionRequestCheck(
+                () -> mService.getChange(changeId, filterByVersion(options)));
     }
 
     @Override
@@ -977,9 +1090,8 @@ class GerritApiClient implements GerritApi {
     @Override
     public Observable<ChangeInfo> getChangeDetail(
             @NonNull String changeId, @Nullable List<ChangeOptions> options) {
-        return withVersionRequestCheck(SafeObservable.fromNullCallable(
-                () -> mService.getChangeDetail(changeId, filterByVersion(options))
-                        .blockingFirst()));
+        return withVersionRequestCheck(
+                () -> mService.getChangeDetail(changeId, filterByVersion(options)));
     }
 
     @Override
@@ -1313,10 +1425,10 @@ class GerritApiClient implements GerritApi {
     public Observable<List<SuggestedReviewerInfo>> getChangeSuggestedReviewers(
             @NonNull String changeId, @NonNull String query, @Nullable Integer count,
             @Nullable ExcludeGroupsFromSuggestedReviewers excludeGroups) {
-        return withVersionRequestCheck(SafeObservable.fromNullCallable(() -> {
+        return withVersionRequestCheck(() -> {
             ExcludeGroupsFromSuggestedReviewers e = resolve(excludeGroups, 2.15d);
-            return mService.getChangeSuggestedReviewers(changeId, query, count, e).blockingFirst();
-        }));
+            return mService.getChangeSuggestedReviewers(changeId, query, count, e);
+        });
     }
 
     @Override
@@ -1394,15 +1506,15 @@ class GerritApiClient implements GerritApi {
     @Override
     public Observable<ReviewResultInfo> setChangeRevisionReview(@NonNull String changeId,
             @NonNull String revisionId, @NonNull ReviewInput input) {
-        return withVersionRequestCheck(SafeObservable.fromNullCallable(() -> {
+        return withVersionRequestCheck(() -> {
             if (mServerVersion.getVersion() >= 2.15) {
                 // Since 2.15, strictLabels was remove from ReviewInput
                 input.strictLabels = null;
             }
             input.drafts = resolveDraftActionType(input.drafts);
             return mService.setChangeRevisionReview(
-                    changeId, revisionId, input).blockingFirst();
-        }));
+                    changeId, revisionId, input);
+        });
     }
 
     @Override
@@ -1578,11 +1690,11 @@ class GerritApiClient implements GerritApi {
     @Override
     public Observable<ResponseBody> getChangeRevisionFileContent(@NonNull String changeId,
             @NonNull String revisionId, @NonNull String fileId, Integer parent) {
-        return withVersionRequestCheck(SafeObservable.fromCallable(() -> {
+        return withVersionRequestCheck(() -> {
             Integer p = resolve(parent, 2.15d);
             return mService.getChangeRevisionFileContent(
-                    changeId, revisionId, fileId, p).blockingFirst();
-        }));
+                    changeId, revisionId, fileId, p);
+        });
     }
 
     @Override
@@ -1598,11 +1710,11 @@ class GerritApiClient implements GerritApi {
             @NonNull String revisionId, @NonNull String fileId, @Nullable Integer base,
             @Nullable Option intraline, @Nullable Option weblinksOnly,
             @Nullable WhitespaceType whitespace, @Nullable ContextType context) {
-        return withVersionRequestCheck(mService.getChangeRevisionFileDiff(changeId, revisionId,
-                        fileId, base, intraline, weblinksOnly,
-                        resolve(whitespace, 2.13d),
-                        resolveIgnoreWhiteSpaceType(whitespace),
-                        context));
+        return withVersionRequestCheck(() -> mService.getChangeRevisionFileDiff(
+                changeId, revisionId, fileId, base, intraline, weblinksOnly,
+                resolve(whitespace, 2.13d),
+                resolveIgnoreWhiteSpaceType(whitespace),
+                context));
     }
 
     @Override
@@ -1801,21 +1913,19 @@ class GerritApiClient implements GerritApi {
             @Nullable Option visibleToAll, @Nullable Option verbose,
             @Nullable List<GroupOptions> options, @Nullable String suggest,
             @Nullable String regexp, @Nullable String match) {
-        return withVersionRequestCheck(SafeObservable.fromNullCallable(
+        return withVersionRequestCheck(
                 () -> mService.getGroups(count, start, project, user, owned,
                         visibleToAll, verbose, filterByVersion(options),suggest,
-                        resolve(regexp, 2.15d), resolve(match, 2.15d))
-                        .blockingFirst()));
+                        resolve(regexp, 2.15d), resolve(match, 2.15d)));
     }
 
     @Override
     public Observable<List<GroupInfo>> getGroups(
             @NonNull GroupQuery query, @Nullable Integer count, @Nullable Integer start,
             @Nullable String ownedBy, @Nullable List<GroupOptions> options) {
-        return withVersionRequestCheck(SafeObservable.fromNullCallable(
-                () -> mService.getGroups(
-                            query, count, start, resolve(ownedBy, 2.16d), filterByVersion(options))
-                        .blockingFirst()));
+        return withVersionRequestCheck(
+                () -> mService.getGroups(query, count, start,
+                        resolve(ownedBy, 2.16d), filterByVersion(options)));
     }
 
     @Override
@@ -1982,7 +2092,7 @@ class GerritApiClient implements GerritApi {
     public Observable<Map<String, PluginInfo>> getPlugins(
             @Nullable Option all, @Nullable Integer count, @Nullable Integer skip,
             @Nullable String prefix, @Nullable String regexp, @Nullable String match) {
-        return withVersionRequestCheck(mService.getPlugins(
+        return withVersionRequestCheck(() -> mService.getPlugins(
                 all,
                 resolve(count, 2.15d),
                 resolve(skip, 2.15d),
@@ -2171,11 +2281,11 @@ class GerritApiClient implements GerritApi {
     public Observable<List<BranchInfo>> getProjectBranches(@NonNull String projectName,
             @Nullable Integer count, @Nullable Integer start, @Nullable String match,
             @Nullable String regexp) {
-        return withVersionRequestCheck(SafeObservable.fromNullCallable(() -> {
+        return withVersionRequestCheck(() -> {
             Integer[] s = resolveStartFor21413(start);
             return mService.getProjectBranches(
-                    projectName, count, s[0], s[1], match, regexp).blockingFirst();
-        }));
+                    projectName, count, s[0], s[1], match, regexp);
+        });
     }
 
     @Override
@@ -2243,11 +2353,11 @@ class GerritApiClient implements GerritApi {
     public Observable<List<TagInfo>> getProjectTags(@NonNull String projectName,
             @Nullable Integer count, @Nullable Integer start, @Nullable String match,
             @Nullable String regexp) {
-        return withVersionRequestCheck(SafeObservable.fromNullCallable(() -> {
+        return withVersionRequestCheck(() -> {
             Integer[] s = resolveStartFor21413(start);
             return mService.getProjectTags(
-                    projectName, count, s[0], s[1], match, regexp).blockingFirst();
-        }));
+                    projectName, count, s[0], s[1], match, regexp);
+        });
     }
 
     @Override
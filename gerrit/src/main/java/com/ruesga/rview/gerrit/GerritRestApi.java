@@ -532,6 +532,16 @@ interface GerritRestApi {
             @Nullable @Query("S") Integer start,
             @Nullable @Query("o") List<ChangeOptions> options);
 
+    /**
+     * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#list-changes"
+     */
+    @GET("changes/")
+    Observable<List<List<ChangeInfo>>> getChanges(
+            @NonNull @Query("q") List<ChangeQuery> queries,
+            @Nullable @Query("n") Integer count,
+            @Nullable @Query("S") Integer start,
+            @Nullable @Query("o") List<ChangeOptions> options);
+
     /**
      * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#get-change"
      */
@@ -29,6 +29,7 @@ import android.util.Base64;
 import android.util.Log;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.util.HashMap;
@@ -122,17 +123,22 @@ public class GerritServiceFactory {
             }
             return false;
         }
+
+        @Override
+        public File getCacheDir() {
+            return mApplicationContext.getCacheDir();
+        }
     }
 
-    private final static Map<String, GerritApiClient> sInstances = new HashMap<>();
+    private final static Map<String, GerritApi> sInstances = new HashMap<>();
 
-    public static GerritApiClient getInstance(@NonNull Context applicationContext,
+    public static GerritApi getInstance(@NonNull Context applicationContext,
             @NonNull String endpoint, boolean trustAllServerCertificates) {
         return getInstance(applicationContext, endpoint, new Authorization(
                 null, null, trustAllServerCertificates));
     }
 
-    public static GerritApiClient getInstance(@NonNull Context applicationContext,
+    public static GerritApi getInstance(@NonNull Context applicationContext,
             @NonNull String endpoint, @NonNull Authorization authorization) {
 
         // Ensure we have a correct endpoint to invoke gerrit
@@ -151,13 +157,14 @@ public class GerritServiceFactory {
         }
         final String endpointHash = Base64.encodeToString(
                 (endpoint + ":" + authorization.mTrustAllCertificates
-                        + ":" + credentials).getBytes(), Base64.NO_WRAP);
+                        + ":" + credentials + ":" + authorization.mHttpCacheSize).getBytes(),
+                Base64.NO_WRAP);
 
         // Have a cached instance?
         if (!sInstances.containsKey(endpointHash)) {
-            sInstances.put(endpointHash,
+            sInstances.put(endpointHash, CoalescingGerritApi.wrap(
                     new GerritApiClient(endpoint, authorization,
-                            new AndroidPlatformAbstractionLayer(applicationContext)));
+                            new AndroidPlatformAbstractionLayer(applicationContext))));
         }
         return sInstances.get(endpointHash);
     }
@@ -16,12 +16,14 @@
 package com.ruesga.rview.gerrit;
 
 import com.google.gson.GsonBuilder;
+import com.ruesga.rview.gerrit.adapters.GerritAccountInfoAdapter;
 import com.ruesga.rview.gerrit.adapters.GerritApprovalInfoAdapter;
 import com.ruesga.rview.gerrit.adapters.GerritBas64Adapter;
+import com.ruesga.rview.gerrit.adapters.GerritDiffIntralineInfoAdapter;
 import com.ruesga.rview.gerrit.adapters.GerritServerVersionAdapter;
 import com.ruesga.rview.gerrit.adapters.GerritUtcDateAdapter;
-import com.ruesga.rview.gerrit.model.ApprovalInfo;
 import com.ruesga.rview.gerrit.model.Base64Data;
+import com.ruesga.rview.gerrit.model.DiffIntralineInfo;
 import com.ruesga.rview.gerrit.model.ServerVersion;
 
 import java.util.Date;
@@ -30,13 +32,27 @@ public class GsonHelper {
 
     public static GsonBuilder createGerritGsonBuilder(
             boolean nonExecutable, PlatformAbstractionLayer abstractionLayer) {
+        return createGerritGsonBuilder(nonExecutable, false, abstractionLayer);
+    }
+
+    /**
+     * @param internAccounts whether the deserialized accounts are interned. Interned
+     *                       accounts are shared, so they must be treated as read-only.
+     */
+    public static GsonBuilder createGerritGsonBuilder(boolean nonExecutable,
+            boolean internAccounts, PlatformAbstractionLayer abstractionLayer) {
+        GerritAccountInfoAdapter accounts = internAccounts ? new GerritAccountInfoAdapter() : null;
         GsonBuilder builder = new GsonBuilder()
                 .setVersion(GerritApi.API_VERSION)
                 .registerTypeAdapter(Date.class, new GerritUtcDateAdapter())
                 .registerTypeAdapter(ServerVersion.class, new GerritServerVersionAdapter())
-                .registerTypeAdapter(ApprovalInfo.class, new GerritApprovalInfoAdapter())
+                .registerTypeAdapterFactory(new GerritApprovalInfoAdapter(accounts))
                 .registerTypeAdapter(Base64Data.class, new GerritBas64Adapter(abstractionLayer))
+                .registerTypeAdapter(DiffIntralineInfo.class, new GerritDiffIntralineInfoAdapter())
                 .setLenient();
+        if (accounts != null) {
+            builder.registerTypeAdapterFactory(accounts);
+        }
         if (nonExecutable) {
             builder.generateNonExecutableJson();
         }
@@ -20,6 +20,7 @@ import android.net.TrafficStats;
 import android.os.Build;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.security.KeyManagementException;
@@ -28,17 +29,88 @@ import java.security.cert.X509Certificate;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.SocketFactory;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.X509TrustManager;
 
+import okhttp3.ConnectionPool;
 import okhttp3.ConnectionSpec;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
+import okhttp3.Response;
 
+/**
+ * All the clients are derived from a single application-wide client, so they share the
+ * connection pool, the dispatcher threads and the TLS sessions.
+ */
 public class OkHttpHelper {
 
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 8;
+
+    private static final int MAX_REQUESTS = 64;
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+    private static final long KEEP_ALIVE_DURATION = 5L;
+
+    /**
+     * A snapshot of the state of the shared connection pool and dispatcher.
+     */
+    public static class Metrics {
+        public int connectionCount;
+        public int idleConnectionCount;
+        public int runningCallsCount;
+        public int queuedCallsCount;
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "connections=%d (idle=%d), calls=%d (queued=%d)",
+                    connectionCount, idleConnectionCount, runningCallsCount, queuedCallsCount);
+        }
+    }
+
+    // The dispatcher only limits asynchronous calls, but most of our calls are synchronous.
+    // Limit both at the application level
+    private static class HostConcurrencyInterceptor implements Interceptor {
+        private final Map<String, Semaphore> mPermits = new ConcurrentHashMap<>();
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            final int max = sMaxRequestsPerHost;
+            if (max <= 0) {
+                return chain.proceed(chain.request());
+            }
+
+            final String host = chain.request().url().host();
+            Semaphore permits = mPermits.get(host);
+            if (permits == null) {
+                permits = new Semaphore(max);
+                Semaphore current = mPermits.putIfAbsent(host, permits);
+                if (current != null) {
+                    permits = current;
+                }
+            }
+
+            try {
+                permits.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            try {
+                return chain.proceed(chain.request());
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
     // https://github.com/square/okhttp/blob/master/okhttp-tests/src/test/java/okhttp3/DelegatingSocketFactory.java
     private static class DelegatingSocketFactory extends SocketFactory {
         private final javax.net.SocketFactory mDelegate;
@@ -105,15 +177,54 @@ public class OkHttpHelper {
     };
 
     private static SSLSocketFactory sSSLSocketFactory;
-    private static DelegatingSocketFactory sDelegatingSocketFactory;
+    private static OkHttpClient sSharedClient;
+    private static volatile int sMaxRequestsPerHost = DEFAULT_MAX_REQUESTS_PER_HOST;
 
-    public static OkHttpClient.Builder getSafeClientBuilder() {
-        if (sDelegatingSocketFactory == null) {
-            sDelegatingSocketFactory = new DelegatingSocketFactory(SocketFactory.getDefault());
+    /**
+     * Returns the application-wide client. Don't use it directly, derive a new client
+     * from it through {@link OkHttpClient#newBuilder()}.
+     */
+    public static synchronized OkHttpClient getSharedClient() {
+        if (sSharedClient == null) {
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(MAX_REQUESTS);
+            dispatcher.setMaxRequestsPerHost(sMaxRequestsPerHost);
+            sSharedClient = new OkHttpClient.Builder()
+                    .connectionPool(new ConnectionPool(
+                            MAX_IDLE_CONNECTIONS, KEEP_ALIVE_DURATION, TimeUnit.MINUTES))
+                    .dispatcher(dispatcher)
+                    .addInterceptor(new HostConcurrencyInterceptor())
+                    .connectionSpecs(createConnectionSpecs(ConnectionSpec.RESTRICTED_TLS, false))
+                    .socketFactory(new DelegatingSocketFactory(SocketFactory.getDefault()))
+                    .build();
         }
-        return new OkHttpClient.Builder()
-                .connectionSpecs(createConnectionSpecs(ConnectionSpec.RESTRICTED_TLS, false))
-                .socketFactory(sDelegatingSocketFactory);
+        return sSharedClient;
+    }
+
+    /**
+     * Sets the max number of concurrent requests to the same host (0 means no limit).
+     * Only affects to hosts not requested yet.
+     */
+    public static synchronized void setMaxRequestsPerHost(int maxRequestsPerHost) {
+        sMaxRequestsPerHost = maxRequestsPerHost;
+        if (sSharedClient != null) {
+            sSharedClient.dispatcher().setMaxRequestsPerHost(
+                    maxRequestsPerHost <= 0 ? Integer.MAX_VALUE : maxRequestsPerHost);
+        }
+    }
+
+    public static Metrics getMetrics() {
+        OkHttpClient client = getSharedClient();
+        Metrics metrics = new Metrics();
+        metrics.connectionCount = client.connectionPool().connectionCount();
+        metrics.idleConnectionCount = client.connectionPool().idleConnectionCount();
+        metrics.runningCallsCount = client.dispatcher().runningCallsCount();
+        metrics.queuedCallsCount = client.dispatcher().queuedCallsCount();
+        return metrics;
+    }
+
+    public static OkHttpClient.Builder getSafeClientBuilder() {
+        return getSharedClient().newBuilder();
     }
 
     @SuppressLint("BadHostnameVerifier")
@@ -15,6 +15,8 @@
  */
 package com.ruesga.rview.gerrit;
 
+import java.io.File;
+
 public interface PlatformAbstractionLayer {
     /**
      * Return if the app is running in debug mode
@@ -40,4 +42,9 @@ public interface PlatformAbstractionLayer {
      * Determines if there are network connectivity
      */
     boolean hasConnectivity();
+
+    /**
+     * Return the directory where the client can store its http cache (or null if not available)
+     */
+    File getCacheDir();
 }
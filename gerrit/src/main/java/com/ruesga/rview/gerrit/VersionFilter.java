@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.gerrit;
+
+import com.google.gson.annotations.Since;
+import com.ruesga.rview.gerrit.annotations.Until;
+import com.ruesga.rview.gerrit.model.ServerVersion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Filters the values of the versioned enums (values annotated with {@link Since} and
+ * {@link Until}) not supported by a server version. The version bounds of every enum
+ * are read only once, and the filtered lists are memoized.
+ */
+final class VersionFilter {
+
+    private static final class Bounds {
+        private final double mSince;
+        private final double mUntil;
+
+        private Bounds(double since, double until) {
+            mSince = since;
+            mUntil = until;
+        }
+
+        private boolean isSupported(double version) {
+            return mSince <= version && (mUntil < 0 || mUntil > version);
+        }
+    }
+
+    private static final class FilterKey {
+        private final Class<?> mType;
+        private final int[] mValues;
+        private final double mVersion;
+
+        private FilterKey(Class<?> type, int[] values, double version) {
+            mType = type;
+            mValues = values;
+            mVersion = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FilterKey)) {
+                return false;
+            }
+            FilterKey other = (FilterKey) o;
+            return mType.equals(other.mType)
+                    && mVersion == other.mVersion
+                    && Arrays.equals(mValues, other.mValues);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mType.hashCode();
+            result = 31 * result + Arrays.hashCode(mValues);
+            long v = Double.doubleToLongBits(mVersion);
+            return 31 * result + (int) (v ^ (v >>> 32));
+        }
+    }
+
+    private static final Bounds UNBOUNDED = new Bounds(0, -1);
+
+    private static final Map<Class<?>, Map<? extends Enum<?>, Bounds>> sBounds =
+            new ConcurrentHashMap<>();
+    private static final Map<FilterKey, List<?>> sFiltered = new ConcurrentHashMap<>();
+
+    private VersionFilter() {
+    }
+
+    static boolean isSupported(Enum<?> value, ServerVersion serverVersion) {
+        return boundsOf(value).isSupported(serverVersion.getVersion());
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> List<T> filter(List<T> o, ServerVersion serverVersion) {
+        if (o == null) {
+            return null;
+        }
+        if (o.isEmpty() || !(o.get(0) instanceof Enum)) {
+            // Not a versioned list
+            return new ArrayList<>(o);
+        }
+
+        final Class<?> type = ((Enum<?>) o.get(0)).getDeclaringClass();
+        final double version = serverVersion.getVersion();
+        final int count = o.size();
+        final int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            T t = o.get(i);
+            if (!(t instanceof Enum) || ((Enum<?>) t).getDeclaringClass() != type) {
+                // Mixed values. Just filter them
+                return filter(o, version);
+            }
+            values[i] = ((Enum<?>) t).ordinal();
+        }
+
+        final FilterKey key = new FilterKey(type, values, version);
+        List<T> filtered = (List<T>) sFiltered.get(key);
+        if (filtered == null) {
+            filtered = Collections.unmodifiableList(filter(o, version));
+            sFiltered.put(key, filtered);
+        }
+        return filtered;
+    }
+
+    private static <T> List<T> filter(List<T> o, double version) {
+        ArrayList<T> filter = new ArrayList<>(o.size());
+        for (T t : o) {
+            if (!(t instanceof Enum) || boundsOf((Enum<?>) t).isSupported(version)) {
+                filter.add(t);
+            }
+        }
+        return filter;
+    }
+
+    private static Bounds boundsOf(Enum<?> value) {
+        Map<? extends Enum<?>, Bounds> bounds = sBounds.get(value.getDeclaringClass());
+        if (bounds == null) {
+            bounds = createBounds(value.getDeclaringClass());
+            sBounds.put(value.getDeclaringClass(), bounds);
+        }
+        Bounds b = bounds.get(value);
+        return b == null ? UNBOUNDED : b;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Enum<E>> Map<E, Bounds> createBounds(Class<?> type) {
+        Class<E> enumType = (Class<E>) type;
+        EnumMap<E, Bounds> bounds = new EnumMap<>(enumType);
+        for (E value : enumType.getEnumConstants()) {
+            double since = 0;
+            double until = -1;
+            try {
+                Since s = enumType.getDeclaredField(value.name()).getAnnotation(Since.class);
+                if (s != null) {
+                    since = s.value();
+                }
+                Until u = enumType.getDeclaredField(value.name()).getAnnotation(Until.class);
+                if (u != null) {
+                    until = u.value();
+                }
+            } catch (Exception e) {
+                // Ignore
+            }
+            if (since != 0 || until != -1) {
+                bounds.put(value, new Bounds(since, until));
+            }
+        }
+        return bounds;
+    }
+}
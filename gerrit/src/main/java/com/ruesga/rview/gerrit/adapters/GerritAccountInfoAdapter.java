@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.gerrit.adapters;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.ruesga.rview.gerrit.model.AccountInfo;
+import com.ruesga.rview.gerrit.model.AvatarInfo;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Interns the deserialized accounts, so every response (and every cached read) shares a
+ * single instance per account instead of one per owner, reviewer, voter or message author.
+ * <p/>
+ * Interned accounts are shared between callers, so they must be treated as read-only.
+ */
+public class GerritAccountInfoAdapter implements TypeAdapterFactory {
+
+    private static final int MAX_ACCOUNTS = 500;
+
+    private final Map<Integer, AccountInfo> mAccounts =
+            new LinkedHashMap<Integer, AccountInfo>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, AccountInfo> eldest) {
+                    return size() > MAX_ACCOUNTS;
+                }
+            };
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        // Subclasses carry extra information per instance
+        if (!AccountInfo.class.equals(type.getRawType())) {
+            return null;
+        }
+
+        final TypeAdapter<AccountInfo> delegate =
+                gson.getDelegateAdapter(this, TypeToken.get(AccountInfo.class));
+        return (TypeAdapter<T>) new TypeAdapter<AccountInfo>() {
+            @Override
+            public AccountInfo read(JsonReader in) throws IOException {
+                return intern(delegate.read(in));
+            }
+
+            @Override
+            public void write(JsonWriter out, AccountInfo src) throws IOException {
+                delegate.write(out, src);
+            }
+        };
+    }
+
+    /**
+     * Returns the shared instance of an account. The shared instance is replaced when any
+     * of the account fields differs from it, so cleared fields are never kept stale.
+     */
+    public AccountInfo intern(AccountInfo account) {
+        if (account == null || account.accountId <= 0) {
+            return account;
+        }
+
+        synchronized (mAccounts) {
+            AccountInfo interned = mAccounts.get(account.accountId);
+            if (interned != null && isSameAccount(interned, account)) {
+                return interned;
+            }
+            mAccounts.put(account.accountId, account);
+            return account;
+        }
+    }
+
+    public void clear() {
+        synchronized (mAccounts) {
+            mAccounts.clear();
+        }
+    }
+
+    private static boolean isSameAccount(AccountInfo a1, AccountInfo a2) {
+        return isSame(a1.name, a2.name)
+                && isSame(a1.username, a2.username)
+                && isSame(a1.email, a2.email)
+                && isSame(a1.status, a2.status)
+                && Arrays.equals(a1.secondaryEmails, a2.secondaryEmails)
+                && isSameAvatars(a1.avatars, a2.avatars);
+    }
+
+    private static boolean isSame(String s1, String s2) {
+        return s1 == null ? s2 == null : s1.equals(s2);
+    }
+
+    private static boolean isSameAvatars(AvatarInfo[] a1, AvatarInfo[] a2) {
+        if (a1 == null || a2 == null) {
+            return a1 == a2;
+        }
+        if (a1.length != a2.length) {
+            return false;
+        }
+        for (int i = 0; i < a1.length; i++) {
+            if (a1[i] == null || a2[i] == null) {
+                if (a1[i] != a2[i]) {
+                    return false;
+                }
+            } else if (a1[i].height != a2[i].height
+                    || !isSame(a1[i].url, a2[i].url)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -16,28 +16,168 @@
 package com.ruesga.rview.gerrit.adapters;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import com.ruesga.rview.gerrit.model.AccountInfo;
 import com.ruesga.rview.gerrit.model.ApprovalInfo;
+import com.ruesga.rview.gerrit.model.AvatarInfo;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.util.Date;
 
-public class GerritApprovalInfoAdapter implements JsonDeserializer<ApprovalInfo> {
+/**
+ * Gerrit mixes the approval and the owner account fields in the same json object. This
+ * adapter reads both of them in a single pass.
+ */
+public class GerritApprovalInfoAdapter implements TypeAdapterFactory {
+
+    private final GerritAccountInfoAdapter mAccounts;
+
+    public GerritApprovalInfoAdapter() {
+        this(null);
+    }
 
-    private static final Gson GSON = new GsonBuilder()
-            .registerTypeAdapter(Date.class, new GerritUtcDateAdapter())
-            .create();
+    /**
+     * @param accounts the adapter used to intern the approval owners, or null to not
+     *                 intern them
+     */
+    public GerritApprovalInfoAdapter(GerritAccountInfoAdapter accounts) {
+        mAccounts = accounts;
+    }
 
     @Override
-    public ApprovalInfo deserialize(JsonElement json, Type typeof, JsonDeserializationContext ctx)
-            throws JsonParseException {
-        ApprovalInfo approvalInfo = GSON.fromJson(json, ApprovalInfo.class);
-        approvalInfo.owner = GSON.fromJson(json, AccountInfo.class);
-        return approvalInfo;
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (!ApprovalInfo.class.equals(type.getRawType())) {
+            return null;
+        }
+        return (TypeAdapter<T>) new ApprovalInfoTypeAdapter(gson, mAccounts);
+    }
+
+    private static class ApprovalInfoTypeAdapter extends TypeAdapter<ApprovalInfo> {
+        private final GerritAccountInfoAdapter mAccounts;
+        private final TypeAdapter<Date> mDateAdapter;
+        private final TypeAdapter<AccountInfo> mAccountAdapter;
+        private final TypeAdapter<String[]> mStringArrayAdapter;
+        private final TypeAdapter<AvatarInfo[]> mAvatarsAdapter;
+
+        private ApprovalInfoTypeAdapter(Gson gson, GerritAccountInfoAdapter accounts) {
+            mAccounts = accounts;
+            mDateAdapter = gson.getAdapter(Date.class);
+            mAccountAdapter = gson.getAdapter(AccountInfo.class);
+            mStringArrayAdapter = gson.getAdapter(String[].class);
+            mAvatarsAdapter = gson.getAdapter(AvatarInfo[].class);
+        }
+
+        @Override
+        public ApprovalInfo read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            ApprovalInfo approval = new ApprovalInfo();
+            approval.owner = new AccountInfo();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "value":
+                        approval.value = readInteger(in);
+                        break;
+                    case "date":
+                        approval.date = mDateAdapter.read(in);
+                        break;
+                    case "tag":
+                        approval.tag = readString(in);
+                        break;
+                    case "owner":
+                        // Approvals serialized by this library
+                        AccountInfo owner = mAccountAdapter.read(in);
+                        if (owner != null) {
+                            approval.owner = owner;
+                        }
+                        break;
+                    case "_account_id":
+                        Integer accountId = readInteger(in);
+                        approval.owner.accountId = accountId == null ? 0 : accountId;
+                        break;
+                    case "name":
+                        approval.owner.name = readString(in);
+                        break;
+                    case "username":
+                        approval.owner.username = readString(in);
+                        break;
+                    case "email":
+                        approval.owner.email = readString(in);
+                        break;
+                    case "secondary_emails":
+                        approval.owner.secondaryEmails = mStringArrayAdapter.read(in);
+                        break;
+                    case "avatars":
+                        approval.owner.avatars = mAvatarsAdapter.read(in);
+                        break;
+                    case "status":
+                        approval.owner.status = readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+
+            // The flattened owner is read by hand, so it must be interned here
+            if (mAccounts != null) {
+                approval.owner = mAccounts.intern(approval.owner);
+            }
+            return approval;
+        }
+
+        @Override
+        public void write(JsonWriter out, ApprovalInfo src) throws IOException {
+            if (src == null) {
+                out.nullValue();
+                return;
+            }
+
+            // Write it in the same flatten format used by Gerrit
+            out.beginObject();
+            out.name("value").value(src.value);
+            out.name("date");
+            mDateAdapter.write(out, src.date);
+            out.name("tag").value(src.tag);
+            if (src.owner != null) {
+                out.name("_account_id").value(src.owner.accountId);
+                out.name("name").value(src.owner.name);
+                out.name("username").value(src.owner.username);
+                out.name("email").value(src.owner.email);
+                out.name("secondary_emails");
+                mStringArrayAdapter.write(out, src.owner.secondaryEmails);
+                out.name("avatars");
+                mAvatarsAdapter.write(out, src.owner.avatars);
+                out.name("status").value(src.owner.status);
+            }
+            out.endObject();
+        }
+
+        private Integer readInteger(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return in.nextInt();
+        }
+
+        private String readString(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return in.nextString();
+        }
     }
 }
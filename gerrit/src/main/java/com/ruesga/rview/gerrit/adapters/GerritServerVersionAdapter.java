@@ -15,28 +15,31 @@
  */
 package com.ruesga.rview.gerrit.adapters;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonPrimitive;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import com.ruesga.rview.gerrit.model.ServerVersion;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 
-public class GerritServerVersionAdapter
-        implements JsonDeserializer<ServerVersion>, JsonSerializer<ServerVersion> {
+public class GerritServerVersionAdapter extends TypeAdapter<ServerVersion> {
 
     @Override
-    public ServerVersion deserialize(JsonElement json, Type typeof, JsonDeserializationContext ctx)
-            throws JsonParseException {
-        return new ServerVersion(json.getAsString());
+    public ServerVersion read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return new ServerVersion(in.nextString());
     }
 
     @Override
-    public JsonElement serialize(ServerVersion src, Type typeof, JsonSerializationContext ctx) {
-        return new JsonPrimitive(src.toString());
+    public void write(JsonWriter out, ServerVersion src) throws IOException {
+        if (src == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(src.toString());
     }
 }
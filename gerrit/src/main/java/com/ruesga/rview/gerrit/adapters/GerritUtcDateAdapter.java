@@ -15,15 +15,13 @@
  */
 package com.ruesga.rview.gerrit.adapters;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonPrimitive;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -31,7 +29,7 @@ import java.util.Date;
 import java.util.Locale;
 import java.util.TimeZone;
 
-public class GerritUtcDateAdapter implements JsonDeserializer<Date>, JsonSerializer<Date> {
+public class GerritUtcDateAdapter extends TypeAdapter<Date> {
 
     private final DateFormat mDateFormat;
 
@@ -41,11 +39,15 @@ public class GerritUtcDateAdapter implements JsonDeserializer<Date>, JsonSeriali
     }
 
     @Override
-    public Date deserialize(JsonElement json, Type typeof, JsonDeserializationContext ctx)
-            throws JsonParseException {
+    public Date read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
         try {
+            String date = in.nextString();
             synchronized (mDateFormat) {
-                return mDateFormat.parse(json.getAsString());
+                return mDateFormat.parse(date);
             }
         } catch (ParseException e) {
             throw new JsonParseException(e);
@@ -53,9 +55,13 @@ public class GerritUtcDateAdapter implements JsonDeserializer<Date>, JsonSeriali
     }
 
     @Override
-    public JsonElement serialize(Date src, Type typeof, JsonSerializationContext ctx) {
+    public void write(JsonWriter out, Date src) throws IOException {
+        if (src == null) {
+            out.nullValue();
+            return;
+        }
         synchronized (mDateFormat) {
-            return new JsonPrimitive(mDateFormat.format(src));
+            out.value(mDateFormat.format(src));
         }
     }
 }
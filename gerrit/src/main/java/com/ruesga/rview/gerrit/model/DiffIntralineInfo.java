@@ -15,11 +15,50 @@
  */
 package com.ruesga.rview.gerrit.model;
 
-import java.util.ArrayList;
-
 /**
+ * The intraline edits of a diff content, packed as consecutive (skip, mark) pairs. Skip
+ * is the number of characters since the end of the previous edit, and mark the number of
+ * edited characters.
+ *
  * @link "https://gerrit-review.googlesource.com/Documentation/rest-api-changes.html#diff-intraline-info"
  */
-public class DiffIntralineInfo extends ArrayList<ArrayList<Integer>> {
-}
+public class DiffIntralineInfo {
+    public static final int CURSOR_INDEX = 0;
+    public static final int CURSOR_OFFSET = 1;
+
+    private final int[] mEdits;
+
+    public DiffIntralineInfo(int[] edits) {
+        mEdits = edits;
+    }
 
+    public int size() {
+        return mEdits.length / 2;
+    }
+
+    public int getSkip(int index) {
+        return mEdits[index * 2];
+    }
+
+    public int getMark(int index) {
+        return mEdits[index * 2 + 1];
+    }
+
+    /**
+     * Advances a cursor to the first edit that doesn't end before {@code pos}. The cursor
+     * is an {index, offset} pair, where offset is the position where the skip of the
+     * pointed edit starts. Positions must be requested in ascending order.
+     */
+    public void seek(int[] cursor, int pos) {
+        final int count = size();
+        while (cursor[CURSOR_INDEX] < count) {
+            int end = cursor[CURSOR_OFFSET]
+                    + getSkip(cursor[CURSOR_INDEX]) + getMark(cursor[CURSOR_INDEX]);
+            if (end >= pos) {
+                break;
+            }
+            cursor[CURSOR_OFFSET] = end;
+            cursor[CURSOR_INDEX]++;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.gerrit;
+
+import com.ruesga.rview.gerrit.model.ChangeInfo;
+import com.ruesga.rview.gerrit.model.RevisionInfo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import io.reactivex.Observable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ChangesResolverTest {
+
+    private static final Pattern TERM = Pattern.compile("(change|commit):\"([^\"]+)\"");
+
+    private final AtomicInteger mCalls = new AtomicInteger();
+    private GerritApi mApi;
+
+    @Before
+    public void setUp() {
+        // A fake api that returns the changes of the query, except the change 13 and
+        // the commits of changes without a number
+        mApi = (GerritApi) Proxy.newProxyInstance(GerritApi.class.getClassLoader(),
+                new Class[]{GerritApi.class}, (proxy, method, args) ->
+                        Observable.fromCallable(() -> {
+                            mCalls.incrementAndGet();
+                            List<ChangeInfo> changes = new ArrayList<>();
+                            Matcher matcher = TERM.matcher(String.valueOf(args[0]));
+                            while (matcher.find()) {
+                                String value = matcher.group(2);
+                                if (matcher.group(1).equals("commit")) {
+                                    if (!value.startsWith("sha")) {
+                                        continue;
+                                    }
+                                    value = value.substring(3);
+                                } else if (value.equals("13")) {
+                                    continue;
+                                }
+
+                                ChangeInfo change = new ChangeInfo();
+                                change.legacyChangeId = Integer.parseInt(value);
+                                change.revisions = new HashMap<>();
+                                change.revisions.put("sha" + value, new RevisionInfo());
+                                changes.add(change);
+                            }
+                            // The server doesn't return them sorted
+                            Collections.reverse(changes);
+                            return changes;
+                        }));
+    }
+
+    @Test
+    public void testResolveChanges() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 50; i > 0; i--) {
+            ids.add(String.valueOf(i));
+        }
+        List<ChangeInfo> changes = ChangesResolver.resolveChanges(mApi, ids, null);
+        assertEquals(3, mCalls.get());
+        assertEquals(50, changes.size());
+        for (int i = 0; i < ids.size(); i++) {
+            if (ids.get(i).equals("13")) {
+                assertNull(changes.get(i));
+            } else {
+                assertEquals(ids.get(i), String.valueOf(changes.get(i).legacyChangeId));
+            }
+        }
+    }
+
+    @Test
+    public void testResolveCommits() {
+        List<ChangeInfo> changes = ChangesResolver.resolveCommits(
+                mApi, Arrays.asList("sha2", "unknown", "sha1", "sha2"), null);
+        assertEquals(1, mCalls.get());
+        assertEquals(2, changes.get(0).legacyChangeId);
+        assertNull(changes.get(1));
+        assertEquals(1, changes.get(2).legacyChangeId);
+        assertEquals(2, changes.get(3).legacyChangeId);
+    }
+}
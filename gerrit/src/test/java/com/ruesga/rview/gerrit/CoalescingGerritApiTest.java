@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.gerrit;
+
+import com.ruesga.rview.gerrit.filter.ChangeQuery;
+import com.ruesga.rview.gerrit.model.ChangeInfo;
+import com.ruesga.rview.gerrit.model.TopicInput;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+public class CoalescingGerritApiTest {
+
+    private final AtomicInteger mCalls = new AtomicInteger();
+    private GerritApi mApi;
+    private PublishSubject<ChangeInfo> mPendingChange;
+
+    @Before
+    public void setUp() {
+        // A fake api that returns a new result on every call
+        GerritApi api = (GerritApi) Proxy.newProxyInstance(GerritApi.class.getClassLoader(),
+                new Class[]{GerritApi.class}, (proxy, method, args) -> {
+                    // Changes stay in flight until the test completes them
+                    if (mPendingChange != null && method.getName().equals("getChange")) {
+                        return mPendingChange.doOnSubscribe(d -> mCalls.incrementAndGet());
+                    }
+                    return Observable.fromCallable(() -> {
+                        mCalls.incrementAndGet();
+                        ChangeInfo change = new ChangeInfo();
+                        change.changeId = String.valueOf(args[0]);
+                        if (method.getName().equals("getChanges")) {
+                            return Collections.singletonList(
+                                    Collections.singletonList(change));
+                        }
+                        if (method.getName().equals("getChangeTopic")) {
+                            return change.changeId;
+                        }
+                        return change;
+                    });
+                });
+        mApi = CoalescingGerritApi.wrap(api, 60000L);
+    }
+
+    @Test
+    public void testReadsAreShared() {
+        ChangeInfo c1 = mApi.getChange("1", null).blockingFirst();
+        ChangeInfo c2 = mApi.getChange("1", null).blockingFirst();
+        assertEquals(1, mCalls.get());
+
+        assertSame(c1, c2);
+
+        mApi.getChange("2", null).blockingFirst();
+        assertEquals(2, mCalls.get());
+
+        CoalescingGerritApi coalescing = CoalescingGerritApi.of(mApi);
+        assertNotNull(coalescing);
+        assertEquals(1, coalescing.getHitCount());
+        assertEquals(2, coalescing.getMissCount());
+    }
+
+    @Test
+    public void testOnlyAnnotatedReadsAreShared() {
+        mApi.getChangeTopic("1").blockingFirst();
+        mApi.getChangeTopic("1").blockingFirst();
+        assertEquals(2, mCalls.get());
+    }
+
+    @Test
+    public void testWritesInvalidateReads() {
+        mApi.getChange("1", null).blockingFirst();
+        mApi.setChangeTopic("1", new TopicInput()).blockingSubscribe();
+        mApi.getChange("1", null).blockingFirst();
+        assertEquals(3, mCalls.get());
+    }
+
+    @Test
+    public void testReadsDontInvalidateInFlightReads() {
+        mPendingChange = PublishSubject.create();
+        TestObserver<ChangeInfo> o1 = mApi.getChange("1", null).test();
+        mApi.getChangeTopic("1").blockingFirst();
+        TestObserver<ChangeInfo> o2 = mApi.getChange("1", null).test();
+
+        ChangeInfo change = new ChangeInfo();
+        mPendingChange.onNext(change);
+        mPendingChange.onComplete();
+        o1.assertValue(change);
+        o2.assertValue(change);
+
+        // One call for the change and one for the topic
+        assertEquals(2, mCalls.get());
+    }
+
+    @Test
+    public void testQueryListsAreShared() {
+        mApi.getChanges(Arrays.asList(new ChangeQuery().owner("self"),
+                new ChangeQuery().reviewer("self")), 25, 0, null).blockingSubscribe();
+        mApi.getChanges(Arrays.asList(new ChangeQuery().owner("self"),
+                new ChangeQuery().reviewer("self")), 25, 0, null).blockingSubscribe();
+        assertEquals(1, mCalls.get());
+
+        mApi.getChanges(Arrays.asList(new ChangeQuery().owner("self"),
+                new ChangeQuery().reviewer("other")), 25, 0, null).blockingSubscribe();
+        assertEquals(2, mCalls.get());
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.gerrit;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Random;
+
+import okio.Buffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ContentHelperTest {
+
+    @Test
+    public void testDecodeBase64() throws IOException {
+        // Sizes around the buffer boundaries and all the possible paddings
+        Random random = new Random(0);
+        for (int size : new int[]{0, 1, 2, 3, 6143, 6144, 6145, 100000}) {
+            byte[] data = new byte[size];
+            random.nextBytes(data);
+            assertDecoded(data, Base64.getEncoder().encodeToString(data));
+            assertDecoded(data, Base64.getMimeEncoder().encodeToString(data));
+            assertDecoded(data, Base64.getUrlEncoder().withoutPadding().encodeToString(data));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecodeInvalidBase64() throws IOException {
+        ContentHelper.decodeBase64(new Buffer().writeUtf8("YW*j"), new Buffer());
+    }
+
+    private void assertDecoded(byte[] expected, String encoded) throws IOException {
+        Buffer sink = new Buffer();
+        long decoded = ContentHelper.decodeBase64(new Buffer().writeUtf8(encoded), sink);
+        assertEquals(expected.length, decoded);
+        assertArrayEquals(expected, sink.readByteArray());
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.gerrit;
+
+import com.ruesga.rview.gerrit.model.ChangeOptions;
+import com.ruesga.rview.gerrit.model.Features;
+import com.ruesga.rview.gerrit.model.ServerVersion;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Version filtering of the request options and the server features, which runs
+ * on every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GerritApiClientBenchmark {
+
+    @Param({"2.11", "2.14.2", "2.16.7"})
+    public String mVersion;
+
+    private ServerVersion mServerVersion;
+    private List<ChangeOptions> mChangeOptions;
+    private List<Features> mFeatures;
+
+    @Setup
+    public void setUp() {
+        mServerVersion = new ServerVersion(mVersion);
+        mChangeOptions = Arrays.asList(ChangeOptions.values());
+        mFeatures = Arrays.asList(Features.values());
+    }
+
+    @Benchmark
+    public List<ChangeOptions> filterChangeOptions() {
+        return GerritApiClient.filterByVersion(mChangeOptions, mServerVersion);
+    }
+
+    @Benchmark
+    public List<Features> filterFeatures() {
+        return GerritApiClient.filterByVersion(mFeatures, mServerVersion);
+    }
+}
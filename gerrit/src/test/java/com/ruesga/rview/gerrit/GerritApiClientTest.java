@@ -24,17 +24,29 @@ import com.ruesga.rview.gerrit.model.ServerVersion;
 
 import net.iharder.Base64;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(RobolectricTestRunner.class)
@@ -73,8 +85,16 @@ public class GerritApiClientTest {
         public boolean hasConnectivity() {
             return true;
         }
+
+        @Override
+        public File getCacheDir() {
+            return null;
+        }
     };
 
+    @Rule
+    public final TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
     private static GerritApiClient getGerritClient(String endPoint) {
         return new GerritApiClient(endPoint, null, TEST_PLATFORM);
     }
@@ -134,4 +154,48 @@ public class GerritApiClientTest {
         assertEquals(info.gerrit.docUrl, ENDPOINT + "Documentation/");
     }
 
+    @Test
+    public void testConditionalHttpCache() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody("changes"));
+        server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\""));
+        server.enqueue(new MockResponse().setBody("uncached"));
+        server.enqueue(new MockResponse().setBody("uncached"));
+        server.start();
+        try {
+            Cache cache = new Cache(mTemporaryFolder.newFolder(), 1024 * 1024);
+            OkHttpClient client = new OkHttpClient.Builder()
+                    .cache(cache)
+                    .addNetworkInterceptor(GerritApiClient.createCacheRevalidationInterceptor())
+                    .build();
+            Request request = new Request.Builder().url(server.url("/changes/")).build();
+
+            // First read is stored
+            try (Response response = client.newCall(request).execute()) {
+                assertEquals("changes", response.body().string());
+            }
+            assertNull(server.takeRequest().getHeader("If-None-Match"));
+
+            // Second read is revalidated and the 304 is served from the cache
+            try (Response response = client.newCall(request).execute()) {
+                assertEquals(200, response.code());
+                assertEquals("changes", response.body().string());
+                assertNotNull(response.cacheResponse());
+                assertEquals(304, response.networkResponse().code());
+            }
+            RecordedRequest revalidation = server.takeRequest();
+            assertEquals("\"v1\"", revalidation.getHeader("If-None-Match"));
+            assertEquals(1, cache.hitCount());
+
+            // Responses without validators are never stored
+            Request other = new Request.Builder().url(server.url("/projects/")).build();
+            client.newCall(other).execute().close();
+            client.newCall(other).execute().close();
+            server.takeRequest();
+            assertNull(server.takeRequest().getHeader("If-None-Match"));
+            assertEquals(1, cache.hitCount());
+        } finally {
+            server.shutdown();
+        }
+    }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.gerrit;
+
+import com.google.gson.Gson;
+import com.ruesga.rview.gerrit.model.ChangeInfo;
+import com.ruesga.rview.gerrit.model.DiffInfo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.concurrent.TimeUnit;
+
+import okio.Okio;
+
+/**
+ * (De)serialization of large gerrit responses. Use the gc profiler (-prof gc) to
+ * measure the allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GsonHelperBenchmark {
+
+    // A change with ALL_REVISIONS, ALL_FILES, DETAILED_LABELS and MESSAGES options
+    private static final String CHANGE_FIXTURE =
+            "/com/ruesga/rview/gerrit/benchmarks/change_all_revisions.json";
+    private static final String DIFF_FIXTURE = "/com/ruesga/rview/gerrit/benchmarks/diff.json";
+
+    private Gson mGson;
+    private byte[] mChangeJson;
+    private byte[] mDiffJson;
+    private ChangeInfo mChange;
+    private DiffInfo mDiff;
+
+    @Setup
+    public void setUp() throws IOException {
+        mGson = GsonHelper.createGerritGsonBuilder(false, null).create();
+        mChangeJson = readFixture(CHANGE_FIXTURE);
+        mDiffJson = readFixture(DIFF_FIXTURE);
+        mChange = deserializeChange();
+        mDiff = deserializeDiff();
+    }
+
+    @Benchmark
+    public ChangeInfo deserializeChange() {
+        return mGson.fromJson(toReader(mChangeJson), ChangeInfo.class);
+    }
+
+    @Benchmark
+    public String serializeChange() {
+        return mGson.toJson(mChange);
+    }
+
+    @Benchmark
+    public DiffInfo deserializeDiff() {
+        return mGson.fromJson(toReader(mDiffJson), DiffInfo.class);
+    }
+
+    @Benchmark
+    public String serializeDiff() {
+        return mGson.toJson(mDiff);
+    }
+
+    private static Reader toReader(byte[] json) {
+        try {
+            return new InputStreamReader(new ByteArrayInputStream(json), "UTF-8");
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static byte[] readFixture(String name) throws IOException {
+        try (InputStream is = GsonHelperBenchmark.class.getResourceAsStream(name)) {
+            return Okio.buffer(Okio.source(is)).readByteArray();
+        }
+    }
+}
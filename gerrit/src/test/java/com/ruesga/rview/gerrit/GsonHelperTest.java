@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.gerrit;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.ruesga.rview.gerrit.model.AccountInfo;
+import com.ruesga.rview.gerrit.model.ApprovalInfo;
+import com.ruesga.rview.gerrit.model.DiffContentInfo;
+import com.ruesga.rview.gerrit.model.DiffIntralineInfo;
+import com.ruesga.rview.gerrit.model.ServerVersion;
+
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class GsonHelperTest {
+
+    private static final String APPROVAL_JSON = "{\"value\":2,\"date\":"
+            + "\"2017-01-01 10:20:30.000000000\",\"_account_id\":1000,\"name\":\"John Doe\","
+            + "\"email\":\"john.doe@example.com\",\"avatars\":[{\"url\":\"http://a/1\","
+            + "\"height\":26}],\"unknown\":{\"a\":[1,2]}}";
+
+    private final Gson mGson = GsonHelper.createGerritGsonBuilder(false, null).create();
+
+    @Test
+    public void testApprovalInfo() {
+        ApprovalInfo approval = mGson.fromJson(APPROVAL_JSON, ApprovalInfo.class);
+        assertApproval(approval);
+
+        // Must survive a round trip
+        approval = mGson.fromJson(mGson.toJson(approval), ApprovalInfo.class);
+        assertApproval(approval);
+
+        // Approvals serialized with a nested owner
+        approval = mGson.fromJson("{\"value\":-1,\"owner\":{\"_account_id\":1001}}",
+                ApprovalInfo.class);
+        assertEquals(-1, approval.value.intValue());
+        assertEquals(1001, approval.owner.accountId);
+
+        // No vote
+        approval = mGson.fromJson("{\"_account_id\":1002}", ApprovalInfo.class);
+        assertNull(approval.value);
+        assertEquals(1002, approval.owner.accountId);
+    }
+
+    @Test
+    public void testDatesAndVersions() {
+        Date date = mGson.fromJson("\"2017-01-01 10:20:30.000000000\"", Date.class);
+        assertEquals(date, mGson.fromJson(mGson.toJson(date), Date.class));
+        assertNull(mGson.fromJson("null", Date.class));
+
+        ServerVersion version = mGson.fromJson("\"2.14.2\"", ServerVersion.class);
+        assertEquals("\"2.14.2\"", mGson.toJson(version));
+    }
+
+    @Test
+    public void testDiffIntralineInfo() {
+        DiffContentInfo content = mGson.fromJson(
+                "{\"edit_a\":[[1,2],[3,4],[0,10]],\"edit_b\":[]}", DiffContentInfo.class);
+        assertEquals(3, content.editA.size());
+        assertEquals(3, content.editA.getSkip(1));
+        assertEquals(4, content.editA.getMark(1));
+        assertEquals(0, content.editB.size());
+        assertNull(content.a);
+
+        // Must survive a round trip
+        DiffIntralineInfo edits = mGson.fromJson(
+                mGson.toJson(content.editA), DiffIntralineInfo.class);
+        assertEquals("[[1,2],[3,4],[0,10]]", mGson.toJson(edits));
+
+        // Edits are [1,3), [6,10) and [10,20)
+        int[] cursor = new int[2];
+        edits.seek(cursor, 2);
+        assertEquals(0, cursor[DiffIntralineInfo.CURSOR_INDEX]);
+        edits.seek(cursor, 5);
+        assertEquals(1, cursor[DiffIntralineInfo.CURSOR_INDEX]);
+        assertEquals(3, cursor[DiffIntralineInfo.CURSOR_OFFSET]);
+        edits.seek(cursor, 11);
+        assertEquals(2, cursor[DiffIntralineInfo.CURSOR_INDEX]);
+        assertEquals(10, cursor[DiffIntralineInfo.CURSOR_OFFSET]);
+        edits.seek(cursor, 30);
+        assertEquals(3, cursor[DiffIntralineInfo.CURSOR_INDEX]);
+    }
+
+    @Test
+    public void testInternedAccounts() {
+        Gson gson = GsonHelper.createGerritGsonBuilder(false, true, null).create();
+        List<ApprovalInfo> approvals = gson.fromJson(
+                "[" + APPROVAL_JSON + "," + APPROVAL_JSON + "]",
+                new TypeToken<List<ApprovalInfo>>() {}.getType());
+        assertSame(approvals.get(0).owner, approvals.get(1).owner);
+
+        // Only identical accounts get the shared instance, any other replaces it
+        AccountInfo account = gson.fromJson("{\"_account_id\":1000}", AccountInfo.class);
+        assertNotSame(approvals.get(0).owner, account);
+        assertSame(account, gson.fromJson("{\"_account_id\":1000}", AccountInfo.class));
+        account = gson.fromJson("{\"_account_id\":1000,\"name\":\"Jane Doe\"}",
+                AccountInfo.class);
+        assertSame(account, gson.fromJson("{\"_account_id\":1000,\"name\":\"Jane Doe\"}",
+                AccountInfo.class));
+
+        // Not interned by default
+        assertNotSame(mGson.fromJson("{\"_account_id\":1000}", AccountInfo.class),
+                mGson.fromJson("{\"_account_id\":1000}", AccountInfo.class));
+    }
+
+    @Test
+    public void testInternedAccountsWithClearedFields() {
+        Gson gson = GsonHelper.createGerritGsonBuilder(false, true, null).create();
+        AccountInfo account = gson.fromJson(
+                "{\"_account_id\":1000,\"status\":\"On vacation\"}", AccountInfo.class);
+        assertEquals("On vacation", account.status);
+
+        // A cleared status must not be served from the shared instance
+        account = gson.fromJson("{\"_account_id\":1000}", AccountInfo.class);
+        assertNull(account.status);
+        assertNull(gson.fromJson("{\"_account_id\":1000}", AccountInfo.class).status);
+    }
+
+    private void assertApproval(ApprovalInfo approval) {
+        assertEquals(2, approval.value.intValue());
+        assertNotNull(approval.date);
+        assertNotNull(approval.owner);
+        assertEquals(1000, approval.owner.accountId);
+        assertEquals("John Doe", approval.owner.name);
+        assertEquals("john.doe@example.com", approval.owner.email);
+        assertEquals(1, approval.owner.avatars.length);
+        assertEquals(26, approval.owner.avatars[0].height);
+    }
+}
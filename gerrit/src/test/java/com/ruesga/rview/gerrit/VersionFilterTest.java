@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.gerrit;
+
+import com.ruesga.rview.gerrit.model.ChangeOptions;
+import com.ruesga.rview.gerrit.model.Features;
+import com.ruesga.rview.gerrit.model.ServerVersion;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class VersionFilterTest {
+
+    @Test
+    public void testFilter() {
+        List<ChangeOptions> options = Arrays.asList(ChangeOptions.LABELS,
+                ChangeOptions.SKIP_MERGEABLE, ChangeOptions.COMMIT_FOOTERS);
+
+        assertEquals(Arrays.asList(ChangeOptions.LABELS),
+                VersionFilter.filter(options, new ServerVersion("2.11")));
+        assertEquals(Arrays.asList(ChangeOptions.LABELS, ChangeOptions.COMMIT_FOOTERS),
+                VersionFilter.filter(options, new ServerVersion("2.14.2")));
+        assertEquals(options, VersionFilter.filter(options, new ServerVersion("2.16")));
+
+        // Same values and version must return the memoized list
+        assertSame(VersionFilter.filter(options, new ServerVersion("2.14")),
+                VersionFilter.filter(Arrays.asList(ChangeOptions.LABELS,
+                        ChangeOptions.SKIP_MERGEABLE, ChangeOptions.COMMIT_FOOTERS),
+                        new ServerVersion("2.14")));
+
+        // Non versioned lists are returned untouched
+        assertEquals(Arrays.asList("a", "b"),
+                VersionFilter.filter(Arrays.asList("a", "b"), new ServerVersion("2.11")));
+    }
+
+    @Test
+    public void testIsSupported() {
+        assertFalse(VersionFilter.isSupported(Features.BLAME, new ServerVersion("2.12")));
+        assertTrue(VersionFilter.isSupported(Features.BLAME, new ServerVersion("2.13")));
+        assertTrue(VersionFilter.isSupported(ChangeOptions.LABELS, new ServerVersion("2.8")));
+    }
+}
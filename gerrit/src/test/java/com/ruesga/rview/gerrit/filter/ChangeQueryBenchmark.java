@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2016 Jorge Ruesga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ruesga.rview.gerrit.filter;
+
+import com.ruesga.rview.gerrit.filter.antlr.QueryParseException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChangeQueryBenchmark {
+
+    // Dashboard queries
+    @Param({
+        "is:open AND owner:self",
+        "is:watched AND is:open",
+        "is:open AND (reviewer:self AND (-(owner:self)) AND (-(star:ignore)))",
+        "is:open AND -(owner:self) AND -(is:wip) AND -(is:ignored) "
+                + "AND (reviewer:self OR assignee:self)"
+    })
+    public String mQuery;
+
+    @Benchmark
+    public ChangeQuery parse() throws QueryParseException {
+        return ChangeQuery.parse(mQuery);
+    }
+
+    @Benchmark
+    public String parseAndFormat() throws QueryParseException {
+        return ChangeQuery.parse(mQuery).toString();
+    }
+}